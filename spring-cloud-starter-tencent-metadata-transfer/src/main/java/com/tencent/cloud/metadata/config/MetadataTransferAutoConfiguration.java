@@ -27,11 +27,16 @@ import com.tencent.cloud.metadata.core.DecodeTransferMetadataServletFilter;
 import com.tencent.cloud.metadata.core.EncodeTransferMedataFeignInterceptor;
 import com.tencent.cloud.metadata.core.EncodeTransferMedataRestTemplateInterceptor;
 import com.tencent.cloud.metadata.core.EncodeTransferMedataScgFilter;
+import com.tencent.cloud.metadata.core.EncodeTransferMedataWebClientFilter;
+import com.tencent.cloud.metadata.core.MetadataTransferMeterBinder;
+import com.tencent.cloud.metadata.core.MetadataTransferMetrics;
+import com.tencent.cloud.metadata.core.TransitiveMetadataCodec;
 
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.context.ApplicationContext;
@@ -56,6 +61,37 @@ import static javax.servlet.DispatcherType.REQUEST;
 @Configuration
 public class MetadataTransferAutoConfiguration {
 
+	@Bean
+	public MetadataTransferProperties metadataTransferProperties() {
+		return new MetadataTransferProperties();
+	}
+
+	@Bean
+	public MetadataTransferMetrics metadataTransferMetrics() {
+		return new MetadataTransferMetrics();
+	}
+
+	@Bean
+	public TransitiveMetadataCodec transitiveMetadataCodec(MetadataTransferProperties metadataTransferProperties,
+			MetadataTransferMetrics metadataTransferMetrics) {
+		return new TransitiveMetadataCodec(metadataTransferProperties, metadataTransferMetrics);
+	}
+
+	/**
+	 * Create when micrometer is present.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+	static class MetadataTransferMeterConfig {
+
+		@Bean
+		public MetadataTransferMeterBinder metadataTransferMeterBinder(
+				MetadataTransferMetrics metadataTransferMetrics) {
+			return new MetadataTransferMeterBinder(metadataTransferMetrics);
+		}
+
+	}
+
 	/**
 	 * Create when web application type is SERVLET.
 	 */
@@ -74,8 +110,9 @@ public class MetadataTransferAutoConfiguration {
 		}
 
 		@Bean
-		public DecodeTransferMetadataServletFilter metadataServletFilter() {
-			return new DecodeTransferMetadataServletFilter();
+		public DecodeTransferMetadataServletFilter metadataServletFilter(
+				TransitiveMetadataCodec transitiveMetadataCodec) {
+			return new DecodeTransferMetadataServletFilter(transitiveMetadataCodec);
 		}
 
 	}
@@ -88,8 +125,9 @@ public class MetadataTransferAutoConfiguration {
 	static class MetadataReactiveFilterConfig {
 
 		@Bean
-		public DecodeTransferMetadataReactiveFilter metadataReactiveFilter() {
-			return new DecodeTransferMetadataReactiveFilter();
+		public DecodeTransferMetadataReactiveFilter metadataReactiveFilter(
+				TransitiveMetadataCodec transitiveMetadataCodec) {
+			return new DecodeTransferMetadataReactiveFilter(transitiveMetadataCodec);
 		}
 
 	}
@@ -102,8 +140,29 @@ public class MetadataTransferAutoConfiguration {
 	static class MetadataTransferScgFilterConfig {
 
 		@Bean
-		public GlobalFilter encodeTransferMedataScgFilter() {
-			return new EncodeTransferMedataScgFilter();
+		public GlobalFilter encodeTransferMedataScgFilter(TransitiveMetadataCodec transitiveMetadataCodec) {
+			return new EncodeTransferMedataScgFilter(transitiveMetadataCodec);
+		}
+
+	}
+
+	/**
+	 * Create when WebClient exists.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+	static class MetadataTransferWebClientConfig {
+
+		@Bean
+		public EncodeTransferMedataWebClientFilter encodeTransferMedataWebClientFilter(
+				TransitiveMetadataCodec transitiveMetadataCodec) {
+			return new EncodeTransferMedataWebClientFilter(transitiveMetadataCodec);
+		}
+
+		@Bean
+		public WebClientCustomizer encodeTransferMedataWebClientCustomizer(
+				EncodeTransferMedataWebClientFilter encodeTransferMedataWebClientFilter) {
+			return webClientBuilder -> webClientBuilder.filter(encodeTransferMedataWebClientFilter);
 		}
 
 	}
@@ -116,8 +175,9 @@ public class MetadataTransferAutoConfiguration {
 	static class MetadataTransferFeignInterceptorConfig {
 
 		@Bean
-		public EncodeTransferMedataFeignInterceptor encodeTransferMedataFeignInterceptor() {
-			return new EncodeTransferMedataFeignInterceptor();
+		public EncodeTransferMedataFeignInterceptor encodeTransferMedataFeignInterceptor(
+				TransitiveMetadataCodec transitiveMetadataCodec) {
+			return new EncodeTransferMedataFeignInterceptor(transitiveMetadataCodec);
 		}
 
 	}
@@ -132,8 +192,9 @@ public class MetadataTransferAutoConfiguration {
 		private ApplicationContext context;
 
 		@Bean
-		public EncodeTransferMedataRestTemplateInterceptor encodeTransferMedataRestTemplateInterceptor() {
-			return new EncodeTransferMedataRestTemplateInterceptor();
+		public EncodeTransferMedataRestTemplateInterceptor encodeTransferMedataRestTemplateInterceptor(
+				TransitiveMetadataCodec transitiveMetadataCodec) {
+			return new EncodeTransferMedataRestTemplateInterceptor(transitiveMetadataCodec);
 		}
 
 		@Bean
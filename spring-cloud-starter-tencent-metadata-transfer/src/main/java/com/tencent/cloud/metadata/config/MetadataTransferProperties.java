@@ -0,0 +1,82 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.metadata.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.tencent.cloud.common.util.MetadataCodecUtils;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * Properties of transitive metadata transfer.
+ *
+ * @author Haotian Zhang
+ */
+@ConfigurationProperties(prefix = "spring.cloud.tencent.metadata.transfer")
+public class MetadataTransferProperties {
+
+	/**
+	 * Format of metadata headers sent. Receivers of older versions only understand legacy format, so switch to
+	 * compact format only after all receivers are upgraded.
+	 */
+	private MetadataCodecUtils.Format format = MetadataCodecUtils.Format.LEGACY;
+
+	/**
+	 * Length in bytes of the encoded metadata header above which it is compressed. Only applies to compact
+	 * format. Non-positive, the default, disables compression.
+	 */
+	private int compressionThreshold = 0;
+
+	/**
+	 * Max hops of transitive metadata keys originated by this service. Keys not listed propagate without limit.
+	 */
+	private Map<String, Integer> hops;
+
+	public MetadataCodecUtils.Format getFormat() {
+		return format;
+	}
+
+	public void setFormat(MetadataCodecUtils.Format format) {
+		this.format = format;
+	}
+
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	public Map<String, Integer> getHops() {
+		if (CollectionUtils.isEmpty(hops)) {
+			hops = new HashMap<>();
+		}
+		return hops;
+	}
+
+	public void setHops(Map<String, Integer> hops) {
+		this.hops = hops;
+	}
+
+}
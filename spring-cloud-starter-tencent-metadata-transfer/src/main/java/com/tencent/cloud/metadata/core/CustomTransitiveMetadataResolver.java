@@ -18,63 +18,26 @@
 
 package com.tencent.cloud.metadata.core;
 
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
-import org.apache.commons.lang.StringUtils;
+import com.tencent.cloud.common.util.expression.InboundRequestIndex;
 
-import org.springframework.http.HttpHeaders;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.server.ServerWebExchange;
 
 /**
  * resolve custom transitive metadata from request.
+ * Headers are scanned once per request by {@link InboundRequestIndex}.
  *@author lepdou 2022-05-20
  */
 public class CustomTransitiveMetadataResolver {
 
-	private static final String TRANSITIVE_HEADER_PREFIX = "X-SCT-Metadata-Transitive-";
-	private static final int TRANSITIVE_HEADER_PREFIX_LENGTH = TRANSITIVE_HEADER_PREFIX.length();
-
 	public static Map<String, String> resolve(ServerWebExchange exchange) {
-		Map<String, String> result = new HashMap<>();
-
-		HttpHeaders headers = exchange.getRequest().getHeaders();
-		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
-			String key = entry.getKey();
-
-			if (StringUtils.isNotBlank(key) &&
-					StringUtils.startsWithIgnoreCase(key, TRANSITIVE_HEADER_PREFIX)
-					&& !CollectionUtils.isEmpty(entry.getValue())) {
-
-				String sourceKey = StringUtils.substring(key, TRANSITIVE_HEADER_PREFIX_LENGTH);
-				result.put(sourceKey, entry.getValue().get(0));
-			}
-		}
-
-		return result;
+		return InboundRequestIndex.of(exchange).getCustomTransitiveMetadata();
 	}
 
 	public static Map<String, String> resolve(HttpServletRequest request) {
-		Map<String, String> result = new HashMap<>();
-
-		Enumeration<String> headers = request.getHeaderNames();
-		while (headers.hasMoreElements()) {
-			String key = headers.nextElement();
-
-			if (StringUtils.isNotBlank(key) &&
-					StringUtils.startsWithIgnoreCase(key, TRANSITIVE_HEADER_PREFIX)
-					&& StringUtils.isNotBlank(request.getHeader(key))) {
-
-				String sourceKey = StringUtils.substring(key, TRANSITIVE_HEADER_PREFIX_LENGTH);
-				result.put(sourceKey, request.getHeader(key));
-			}
-		}
-
-		return result;
+		return InboundRequestIndex.of(request).getCustomTransitiveMetadata();
 	}
 }
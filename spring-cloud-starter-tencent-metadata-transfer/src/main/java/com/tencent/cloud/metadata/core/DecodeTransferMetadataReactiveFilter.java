@@ -18,22 +18,17 @@
 
 package com.tencent.cloud.metadata.core;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.util.HashMap;
 import java.util.Map;
 
 import com.tencent.cloud.common.constant.MetadataConstant;
-import com.tencent.cloud.common.metadata.MetadataContextHolder;
-import com.tencent.cloud.common.util.JacksonUtils;
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.metadata.ReactiveMetadataContextHolder;
+import com.tencent.cloud.common.util.expression.InboundRequestIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
 
 import org.springframework.core.Ordered;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.util.StringUtils;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
@@ -48,6 +43,16 @@ public class DecodeTransferMetadataReactiveFilter implements WebFilter, Ordered
 
 	private static final Logger LOG = LoggerFactory.getLogger(DecodeTransferMetadataReactiveFilter.class);
 
+	private final TransitiveMetadataCodec transitiveMetadataCodec;
+
+	public DecodeTransferMetadataReactiveFilter() {
+		this(new TransitiveMetadataCodec());
+	}
+
+	public DecodeTransferMetadataReactiveFilter(TransitiveMetadataCodec transitiveMetadataCodec) {
+		this.transitiveMetadataCodec = transitiveMetadataCodec;
+	}
+
 	@Override
 	public int getOrder() {
 		return MetadataConstant.OrderConstant.WEB_FILTER_ORDER;
@@ -56,43 +61,29 @@ public class DecodeTransferMetadataReactiveFilter implements WebFilter, Ordered
 	@Override
 	public Mono<Void> filter(ServerWebExchange serverWebExchange, WebFilterChain webFilterChain) {
 		// Get metadata string from http header.
-		ServerHttpRequest serverHttpRequest = serverWebExchange.getRequest();
-
-		Map<String, String> internalTransitiveMetadata = getIntervalTransitiveMetadata(serverHttpRequest);
-		Map<String, String> customTransitiveMetadata = CustomTransitiveMetadataResolver.resolve(serverWebExchange);
+		InboundRequestIndex requestIndex = InboundRequestIndex.of(serverWebExchange);
+		String internalTransitiveMetadata = getIntervalTransitiveMetadata(requestIndex);
+		Map<String, String> customTransitiveMetadata = requestIndex.getCustomTransitiveMetadata();
 
-		Map<String, String> mergedTransitiveMetadata = new HashMap<>();
-		mergedTransitiveMetadata.putAll(internalTransitiveMetadata);
-		mergedTransitiveMetadata.putAll(customTransitiveMetadata);
-
-		MetadataContextHolder.init(mergedTransitiveMetadata);
+		// internal metadata is decoded on first access.
+		MetadataContext metadataContext = transitiveMetadataCodec.decode(internalTransitiveMetadata,
+				requestIndex.getHeader(MetadataConstant.HeaderName.METADATA_HOPS), customTransitiveMetadata);
 
 		// Save to ServerWebExchange.
 		serverWebExchange.getAttributes().put(
-				MetadataConstant.HeaderName.METADATA_CONTEXT,
-				MetadataContextHolder.get());
+				MetadataConstant.HeaderName.METADATA_CONTEXT, metadataContext);
 
+		// Save to Reactor context, which follows the request across threads.
 		return webFilterChain.filter(serverWebExchange)
 				.doOnError(throwable -> LOG.error("handle metadata[{}] error.",
-						MetadataContextHolder.get(), throwable))
-				.doFinally((type) -> MetadataContextHolder.remove());
+						metadataContext, throwable))
+				.contextWrite(context -> ReactiveMetadataContextHolder.put(context, metadataContext));
 	}
 
-	private Map<String, String> getIntervalTransitiveMetadata(ServerHttpRequest serverHttpRequest) {
-		HttpHeaders httpHeaders = serverHttpRequest.getHeaders();
-		String customMetadataStr = httpHeaders
-				.getFirst(MetadataConstant.HeaderName.CUSTOM_METADATA);
-		try {
-			if (StringUtils.hasText(customMetadataStr)) {
-				customMetadataStr = URLDecoder.decode(customMetadataStr, "UTF-8");
-			}
-		}
-		catch (UnsupportedEncodingException e) {
-			LOG.error("Runtime system does not support utf-8 coding.", e);
-		}
+	private String getIntervalTransitiveMetadata(InboundRequestIndex requestIndex) {
+		String customMetadataStr = requestIndex.getHeader(MetadataConstant.HeaderName.CUSTOM_METADATA);
 		LOG.debug("Get upstream metadata string: {}", customMetadataStr);
-
-		return JacksonUtils.deserialize2Map(customMetadataStr);
+		return customMetadataStr;
 	}
 
 }
@@ -19,9 +19,6 @@
 package com.tencent.cloud.metadata.core;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.util.HashMap;
 import java.util.Map;
 
 import javax.servlet.FilterChain;
@@ -31,12 +28,11 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.tencent.cloud.common.constant.MetadataConstant;
 import com.tencent.cloud.common.metadata.MetadataContextHolder;
-import com.tencent.cloud.common.util.JacksonUtils;
+import com.tencent.cloud.common.util.expression.InboundRequestIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.core.annotation.Order;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
@@ -50,42 +46,42 @@ public class DecodeTransferMetadataServletFilter extends OncePerRequestFilter {
 
 	private static final Logger LOG = LoggerFactory.getLogger(DecodeTransferMetadataServletFilter.class);
 
+	private final TransitiveMetadataCodec transitiveMetadataCodec;
+
+	public DecodeTransferMetadataServletFilter() {
+		this(new TransitiveMetadataCodec());
+	}
+
+	public DecodeTransferMetadataServletFilter(TransitiveMetadataCodec transitiveMetadataCodec) {
+		this.transitiveMetadataCodec = transitiveMetadataCodec;
+	}
+
 	@Override
 	protected void doFilterInternal(HttpServletRequest httpServletRequest,
 			HttpServletResponse httpServletResponse, FilterChain filterChain)
 			throws ServletException, IOException {
-		Map<String, String> internalTransitiveMetadata = getInternalTransitiveMetadata(httpServletRequest);
-		Map<String, String> customTransitiveMetadata = CustomTransitiveMetadataResolver.resolve(httpServletRequest);
-
-		Map<String, String> mergedTransitiveMetadata = new HashMap<>();
-		mergedTransitiveMetadata.putAll(internalTransitiveMetadata);
-		mergedTransitiveMetadata.putAll(customTransitiveMetadata);
+		InboundRequestIndex requestIndex = InboundRequestIndex.of(httpServletRequest);
+		String internalTransitiveMetadata = getInternalTransitiveMetadata(requestIndex);
+		Map<String, String> customTransitiveMetadata = requestIndex.getCustomTransitiveMetadata();
 
 		try {
-			MetadataContextHolder.init(mergedTransitiveMetadata);
+			// internal metadata is decoded on first access.
+			MetadataContextHolder.set(transitiveMetadataCodec.decode(internalTransitiveMetadata,
+					requestIndex.getHeader(MetadataConstant.HeaderName.METADATA_HOPS), customTransitiveMetadata));
 
 			filterChain.doFilter(httpServletRequest, httpServletResponse);
 		}
-		catch (IOException | ServletException | RuntimeException e) {
-			throw e;
+		finally {
+			// do not leave the context on pooled worker threads.
+			MetadataContextHolder.remove();
 		}
 	}
 
-	private Map<String, String> getInternalTransitiveMetadata(HttpServletRequest httpServletRequest) {
+	private String getInternalTransitiveMetadata(InboundRequestIndex requestIndex) {
 		// Get custom metadata string from http header.
-		String customMetadataStr = httpServletRequest.getHeader(MetadataConstant.HeaderName.CUSTOM_METADATA);
-		try {
-			if (StringUtils.hasText(customMetadataStr)) {
-				customMetadataStr = URLDecoder.decode(customMetadataStr, "UTF-8");
-			}
-		}
-		catch (UnsupportedEncodingException e) {
-			LOG.error("Runtime system does not support utf-8 coding.", e);
-		}
+		String customMetadataStr = requestIndex.getHeader(MetadataConstant.HeaderName.CUSTOM_METADATA);
 		LOG.debug("Get upstream metadata string: {}", customMetadataStr);
-
-		// create custom metadata.
-		return JacksonUtils.deserialize2Map(customMetadataStr);
+		return customMetadataStr;
 	}
 
 }
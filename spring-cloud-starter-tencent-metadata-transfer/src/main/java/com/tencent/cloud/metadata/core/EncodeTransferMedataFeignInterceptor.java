@@ -18,23 +18,13 @@
 
 package com.tencent.cloud.metadata.core;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.util.Map;
-
 import com.tencent.cloud.common.constant.MetadataConstant;
 import com.tencent.cloud.common.metadata.MetadataContext;
 import com.tencent.cloud.common.metadata.MetadataContextHolder;
-import com.tencent.cloud.common.util.JacksonUtils;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import org.springframework.core.Ordered;
-import org.springframework.util.CollectionUtils;
-
-import static com.tencent.cloud.common.constant.MetadataConstant.HeaderName.CUSTOM_METADATA;
 
 /**
  * Interceptor used for adding the metadata in http headers from context when web client
@@ -44,7 +34,15 @@ import static com.tencent.cloud.common.constant.MetadataConstant.HeaderName.CUST
  */
 public class EncodeTransferMedataFeignInterceptor implements RequestInterceptor, Ordered {
 
-	private static final Logger LOG = LoggerFactory.getLogger(EncodeTransferMedataFeignInterceptor.class);
+	private final TransitiveMetadataCodec transitiveMetadataCodec;
+
+	public EncodeTransferMedataFeignInterceptor() {
+		this(new TransitiveMetadataCodec());
+	}
+
+	public EncodeTransferMedataFeignInterceptor(TransitiveMetadataCodec transitiveMetadataCodec) {
+		this.transitiveMetadataCodec = transitiveMetadataCodec;
+	}
 
 	@Override
 	public int getOrder() {
@@ -55,19 +53,11 @@ public class EncodeTransferMedataFeignInterceptor implements RequestInterceptor,
 	public void apply(RequestTemplate requestTemplate) {
 		// get metadata of current thread
 		MetadataContext metadataContext = MetadataContextHolder.get();
-		Map<String, String> customMetadata = metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
 
-		if (!CollectionUtils.isEmpty(customMetadata)) {
-			String encodedTransitiveMetadata = JacksonUtils.serialize2Json(customMetadata);
-			requestTemplate.removeHeader(CUSTOM_METADATA);
-			try {
-				requestTemplate.header(CUSTOM_METADATA, URLEncoder.encode(encodedTransitiveMetadata, "UTF-8"));
-			}
-			catch (UnsupportedEncodingException e) {
-				LOG.error("Set header failed.", e);
-				requestTemplate.header(CUSTOM_METADATA, encodedTransitiveMetadata);
-			}
-		}
+		transitiveMetadataCodec.encode(metadataContext, (name, value) -> {
+			requestTemplate.removeHeader(name);
+			requestTemplate.header(name, value);
+		});
 	}
 
 }
@@ -19,21 +19,16 @@
 package com.tencent.cloud.metadata.core;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.util.Map;
 
 import com.tencent.cloud.common.constant.MetadataConstant;
 import com.tencent.cloud.common.metadata.MetadataContext;
 import com.tencent.cloud.common.metadata.MetadataContextHolder;
-import com.tencent.cloud.common.util.JacksonUtils;
 
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
-import org.springframework.util.CollectionUtils;
 
 /**
  * Interceptor used for adding the metadata in http headers from context when web client
@@ -43,6 +38,16 @@ import org.springframework.util.CollectionUtils;
  */
 public class EncodeTransferMedataRestTemplateInterceptor implements ClientHttpRequestInterceptor, Ordered {
 
+	private final TransitiveMetadataCodec transitiveMetadataCodec;
+
+	public EncodeTransferMedataRestTemplateInterceptor() {
+		this(new TransitiveMetadataCodec());
+	}
+
+	public EncodeTransferMedataRestTemplateInterceptor(TransitiveMetadataCodec transitiveMetadataCodec) {
+		this.transitiveMetadataCodec = transitiveMetadataCodec;
+	}
+
 	@Override
 	public int getOrder() {
 		return MetadataConstant.OrderConstant.METADATA_2_HEADER_INTERCEPTOR_ORDER;
@@ -53,18 +58,8 @@ public class EncodeTransferMedataRestTemplateInterceptor implements ClientHttpRe
 			ClientHttpRequestExecution clientHttpRequestExecution) throws IOException {
 		// get metadata of current thread
 		MetadataContext metadataContext = MetadataContextHolder.get();
-		Map<String, String> customMetadata = metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
 
-		if (!CollectionUtils.isEmpty(customMetadata)) {
-			String encodedTransitiveMetadata = JacksonUtils.serialize2Json(customMetadata);
-			try {
-				httpRequest.getHeaders().set(MetadataConstant.HeaderName.CUSTOM_METADATA,
-						URLEncoder.encode(encodedTransitiveMetadata, "UTF-8"));
-			}
-			catch (UnsupportedEncodingException e) {
-				httpRequest.getHeaders().set(MetadataConstant.HeaderName.CUSTOM_METADATA, encodedTransitiveMetadata);
-			}
-		}
+		transitiveMetadataCodec.encode(metadataContext, httpRequest.getHeaders()::set);
 		return clientHttpRequestExecution.execute(httpRequest, bytes);
 	}
 
@@ -18,21 +18,16 @@
 
 package com.tencent.cloud.metadata.core;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.util.Map;
-
 import com.tencent.cloud.common.constant.MetadataConstant;
 import com.tencent.cloud.common.metadata.MetadataContext;
-import com.tencent.cloud.common.metadata.MetadataContextHolder;
-import com.tencent.cloud.common.util.JacksonUtils;
+import com.tencent.cloud.common.metadata.ReactiveMetadataContextHolder;
 import reactor.core.publisher.Mono;
 
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.server.ServerWebExchange;
 
 import static org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER;
@@ -46,6 +41,16 @@ public class EncodeTransferMedataScgFilter implements GlobalFilter, Ordered {
 
 	private static final int METADATA_SCG_FILTER_ORDER = LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
 
+	private final TransitiveMetadataCodec transitiveMetadataCodec;
+
+	public EncodeTransferMedataScgFilter() {
+		this(new TransitiveMetadataCodec());
+	}
+
+	public EncodeTransferMedataScgFilter(TransitiveMetadataCodec transitiveMetadataCodec) {
+		this.transitiveMetadataCodec = transitiveMetadataCodec;
+	}
+
 	@Override
 	public int getOrder() {
 		return METADATA_SCG_FILTER_ORDER;
@@ -53,28 +58,28 @@ public class EncodeTransferMedataScgFilter implements GlobalFilter, Ordered {
 
 	@Override
 	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-		// get request builder
-		ServerHttpRequest.Builder builder = exchange.getRequest().mutate();
-
-		// get metadata of current thread
 		MetadataContext metadataContext = exchange.getAttribute(MetadataConstant.HeaderName.METADATA_CONTEXT);
-
-		// add new metadata and cover old
-		if (metadataContext == null) {
-			metadataContext = MetadataContextHolder.get();
+		if (metadataContext != null) {
+			return chain.filter(encode(exchange, metadataContext));
 		}
-		Map<String, String> customMetadata = metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
-		if (!CollectionUtils.isEmpty(customMetadata)) {
-			String metadataStr = JacksonUtils.serialize2Json(customMetadata);
-			try {
-				builder.header(MetadataConstant.HeaderName.CUSTOM_METADATA, URLEncoder.encode(metadataStr, "UTF-8"));
-			}
-			catch (UnsupportedEncodingException e) {
-				builder.header(MetadataConstant.HeaderName.CUSTOM_METADATA, metadataStr);
-			}
+
+		// get metadata of current subscriber
+		return Mono.deferContextual(contextView ->
+				chain.filter(encode(exchange, ReactiveMetadataContextHolder.get(contextView))));
+	}
+
+	private ServerWebExchange encode(ServerWebExchange exchange, MetadataContext metadataContext) {
+		HttpHeaders transferHeaders = new HttpHeaders();
+		transitiveMetadataCodec.encode(metadataContext, transferHeaders::set);
+		if (transferHeaders.isEmpty()) {
+			return exchange;
 		}
 
-		return chain.filter(exchange.mutate().request(builder.build()).build());
+		// add new metadata and cover old
+		ServerHttpRequest request = exchange.getRequest().mutate()
+				.headers(headers -> headers.putAll(transferHeaders))
+				.build();
+		return exchange.mutate().request(request).build();
 	}
 
 }
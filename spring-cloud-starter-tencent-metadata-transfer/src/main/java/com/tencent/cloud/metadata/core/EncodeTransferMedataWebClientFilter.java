@@ -0,0 +1,65 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.metadata.core;
+
+import com.tencent.cloud.common.metadata.ReactiveMetadataContextHolder;
+import reactor.core.publisher.Mono;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+/**
+ * Filter used for adding the metadata in http headers from Reactor context when web client
+ * is WebClient.
+ *
+ * @author Haotian Zhang
+ */
+public class EncodeTransferMedataWebClientFilter implements ExchangeFilterFunction {
+
+	private final TransitiveMetadataCodec transitiveMetadataCodec;
+
+	public EncodeTransferMedataWebClientFilter() {
+		this(new TransitiveMetadataCodec());
+	}
+
+	public EncodeTransferMedataWebClientFilter(TransitiveMetadataCodec transitiveMetadataCodec) {
+		this.transitiveMetadataCodec = transitiveMetadataCodec;
+	}
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest clientRequest, ExchangeFunction exchangeFunction) {
+		// get metadata of current subscriber
+		return Mono.deferContextual(contextView -> {
+			HttpHeaders transferHeaders = new HttpHeaders();
+			transitiveMetadataCodec.encode(ReactiveMetadataContextHolder.get(contextView), transferHeaders::set);
+			if (transferHeaders.isEmpty()) {
+				return exchangeFunction.exchange(clientRequest);
+			}
+			ClientRequest request = ClientRequest.from(clientRequest)
+					.headers(headers -> headers.putAll(transferHeaders))
+					.build();
+			return exchangeFunction.exchange(request);
+		});
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.metadata.core;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Binds {@link MetadataTransferMetrics} to Micrometer, so the counters are exported with other application metrics.
+ *
+ * @author Haotian Zhang
+ */
+public class MetadataTransferMeterBinder implements MeterBinder {
+
+	private static final String HEADERS = "sct.metadata.transfer.headers";
+
+	private static final String HEADER_BYTES = "sct.metadata.transfer.header.bytes";
+
+	private static final String DIRECTION_TAG = "direction";
+
+	private final MetadataTransferMetrics metrics;
+
+	public MetadataTransferMeterBinder(MetadataTransferMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder(HEADERS, metrics, MetadataTransferMetrics::getHeadersSent)
+				.tag(DIRECTION_TAG, "sent").description("Transitive metadata headers sent.")
+				.register(registry);
+		FunctionCounter.builder(HEADER_BYTES, metrics, MetadataTransferMetrics::getHeaderBytesSent)
+				.tag(DIRECTION_TAG, "sent").baseUnit("bytes").description("Bytes of transitive metadata headers sent.")
+				.register(registry);
+		FunctionCounter.builder("sct.metadata.transfer.headers.compressed", metrics,
+						MetadataTransferMetrics::getCompressedHeadersSent)
+				.description("Compressed transitive metadata headers sent.")
+				.register(registry);
+		FunctionCounter.builder(HEADERS, metrics, MetadataTransferMetrics::getHeadersReceived)
+				.tag(DIRECTION_TAG, "received").description("Transitive metadata headers received.")
+				.register(registry);
+		FunctionCounter.builder(HEADER_BYTES, metrics, MetadataTransferMetrics::getHeaderBytesReceived)
+				.tag(DIRECTION_TAG, "received").baseUnit("bytes").description("Bytes of transitive metadata headers received.")
+				.register(registry);
+	}
+
+}
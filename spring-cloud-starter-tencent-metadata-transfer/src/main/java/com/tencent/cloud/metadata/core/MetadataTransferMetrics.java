@@ -0,0 +1,84 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.metadata.core;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of transitive metadata headers sent and received by this instance.
+ *
+ * @author Haotian Zhang
+ */
+public class MetadataTransferMetrics {
+
+	private final LongAdder headersSent = new LongAdder();
+
+	private final LongAdder headerBytesSent = new LongAdder();
+
+	private final LongAdder compressedHeadersSent = new LongAdder();
+
+	private final LongAdder headersReceived = new LongAdder();
+
+	private final LongAdder headerBytesReceived = new LongAdder();
+
+	void recordSent(int headerBytes, boolean compressed) {
+		headersSent.increment();
+		headerBytesSent.add(headerBytes);
+		if (compressed) {
+			compressedHeadersSent.increment();
+		}
+	}
+
+	void recordReceived(int headerBytes) {
+		headersReceived.increment();
+		headerBytesReceived.add(headerBytes);
+	}
+
+	public long getHeadersSent() {
+		return headersSent.sum();
+	}
+
+	public long getHeaderBytesSent() {
+		return headerBytesSent.sum();
+	}
+
+	public long getCompressedHeadersSent() {
+		return compressedHeadersSent.sum();
+	}
+
+	public long getHeadersReceived() {
+		return headersReceived.sum();
+	}
+
+	public long getHeaderBytesReceived() {
+		return headerBytesReceived.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "MetadataTransferMetrics{" +
+				"headersSent=" + getHeadersSent() +
+				", headerBytesSent=" + getHeaderBytesSent() +
+				", compressedHeadersSent=" + getCompressedHeadersSent() +
+				", headersReceived=" + getHeadersReceived() +
+				", headerBytesReceived=" + getHeaderBytesReceived() +
+				'}';
+	}
+}
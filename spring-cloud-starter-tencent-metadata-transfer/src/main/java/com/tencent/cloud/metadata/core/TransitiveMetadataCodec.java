@@ -0,0 +1,201 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.metadata.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.metadata.MetadataContextHolder;
+import com.tencent.cloud.common.util.MetadataCodecUtils;
+import com.tencent.cloud.metadata.config.MetadataTransferProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.util.StringUtils;
+
+import static com.tencent.cloud.common.constant.MetadataConstant.HeaderName.CUSTOM_METADATA;
+import static com.tencent.cloud.common.constant.MetadataConstant.HeaderName.METADATA_HOPS;
+
+/**
+ * Codec between metadata context and transfer http headers, shared by all encoders and decoders.
+ * <p>
+ * Metadata is sent in legacy format unless compact format is enabled, and compact metadata longer than the
+ * compression threshold is sent compressed. Inbound headers of any format are accepted. Keys with a hop limit carry their
+ * remaining hops in header {@code SCT-METADATA-HOPS}; the remaining hops are decremented on receipt and a key is
+ * no longer forwarded once they run out.
+ *
+ * @author Haotian Zhang
+ */
+public class TransitiveMetadataCodec {
+
+	/**
+	 * Fragment of remaining hops of inbound hop limited keys.
+	 */
+	public static final String FRAGMENT_TRANSITIVE_HOPS = "transitive-hops";
+
+	private static final Logger LOG = LoggerFactory.getLogger(TransitiveMetadataCodec.class);
+
+	private final MetadataCodecUtils.Format format;
+
+	private final int compressionThreshold;
+
+	private final Map<String, Integer> originHops;
+
+	private final MetadataTransferMetrics metrics;
+
+	public TransitiveMetadataCodec() {
+		this(new MetadataTransferProperties(), new MetadataTransferMetrics());
+	}
+
+	public TransitiveMetadataCodec(MetadataTransferProperties metadataTransferProperties,
+			MetadataTransferMetrics metrics) {
+		this.format = metadataTransferProperties.getFormat();
+		this.compressionThreshold = metadataTransferProperties.getCompressionThreshold();
+		this.originHops = Collections.unmodifiableMap(new HashMap<>(metadataTransferProperties.getHops()));
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Create metadata context from inbound headers.
+	 * @param transitiveHeader value of header {@code SCT-CUSTOM-METADATA}
+	 * @param hopsHeader value of header {@code SCT-METADATA-HOPS}
+	 * @param customTransitiveMetadata transitive metadata from custom headers
+	 * @return metadata context
+	 */
+	public MetadataContext decode(String transitiveHeader, String hopsHeader,
+			Map<String, String> customTransitiveMetadata) {
+		boolean hasTransitiveHeader = StringUtils.hasText(transitiveHeader);
+		boolean hasHopsHeader = StringUtils.hasText(hopsHeader);
+		if (hasTransitiveHeader || hasHopsHeader) {
+			metrics.recordReceived((hasTransitiveHeader ? transitiveHeader.length() : 0)
+					+ (hasHopsHeader ? hopsHeader.length() : 0));
+		}
+
+		MetadataContext metadataContext = MetadataContextHolder.create(transitiveHeader, customTransitiveMetadata);
+		if (hasHopsHeader) {
+			metadataContext.putFragmentContext(FRAGMENT_TRANSITIVE_HOPS, decrementHops(hopsHeader));
+		}
+		return metadataContext;
+	}
+
+	/**
+	 * Write transfer headers of metadata context.
+	 * @param metadataContext metadata context
+	 * @param headerWriter writer of header name and value
+	 */
+	public void encode(MetadataContext metadataContext, BiConsumer<String, String> headerWriter) {
+		Map<String, String> inboundHops = metadataContext.getFragmentContext(FRAGMENT_TRANSITIVE_HOPS);
+		if (inboundHops.isEmpty() && originHops.isEmpty()) {
+			write(metadataContext.getTransitiveMetadataHeader(format, compressionThreshold), null, headerWriter);
+			return;
+		}
+
+		Map<String, String> transitiveContext = metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
+		Map<String, String> outboundHops = new HashMap<>();
+		Set<String> expiredKeys = null;
+		for (Map.Entry<String, String> entry : inboundHops.entrySet()) {
+			if (!transitiveContext.containsKey(entry.getKey())) {
+				continue;
+			}
+			if (Integer.parseInt(entry.getValue()) > 0) {
+				outboundHops.put(entry.getKey(), entry.getValue());
+			}
+			else {
+				expiredKeys = addExpiredKey(expiredKeys, entry.getKey());
+			}
+		}
+		for (Map.Entry<String, Integer> entry : originHops.entrySet()) {
+			String key = entry.getKey();
+			if (inboundHops.containsKey(key) || !transitiveContext.containsKey(key)) {
+				continue;
+			}
+			if (entry.getValue() != null && entry.getValue() > 0) {
+				outboundHops.put(key, String.valueOf(entry.getValue()));
+			}
+			else {
+				expiredKeys = addExpiredKey(expiredKeys, key);
+			}
+		}
+
+		String transitiveHeader;
+		if (expiredKeys == null) {
+			transitiveHeader = metadataContext.getTransitiveMetadataHeader(format, compressionThreshold);
+		}
+		else {
+			Map<String, String> forwarded = new HashMap<>(transitiveContext);
+			forwarded.keySet().removeAll(expiredKeys);
+			transitiveHeader = MetadataCodecUtils.encode(forwarded, format, compressionThreshold);
+		}
+		write(transitiveHeader, outboundHops.isEmpty() ? null : MetadataCodecUtils.encode(outboundHops, format, 0),
+				headerWriter);
+	}
+
+	public MetadataTransferMetrics getMetrics() {
+		return metrics;
+	}
+
+	private void write(String transitiveHeader, String hopsHeader, BiConsumer<String, String> headerWriter) {
+		if (!StringUtils.hasText(transitiveHeader)) {
+			return;
+		}
+		headerWriter.accept(CUSTOM_METADATA, transitiveHeader);
+		int headerBytes = transitiveHeader.length();
+		if (hopsHeader != null) {
+			headerWriter.accept(METADATA_HOPS, hopsHeader);
+			headerBytes += hopsHeader.length();
+		}
+		metrics.recordSent(headerBytes, transitiveHeader.startsWith(MetadataCodecUtils.COMPRESSED_V1_MARKER));
+	}
+
+	private static Set<String> addExpiredKey(Set<String> expiredKeys, String key) {
+		if (expiredKeys == null) {
+			expiredKeys = new HashSet<>(4);
+		}
+		expiredKeys.add(key);
+		return expiredKeys;
+	}
+
+	private static Map<String, String> decrementHops(String hopsHeader) {
+		Map<String, String> received;
+		try {
+			received = MetadataCodecUtils.decode(hopsHeader);
+		}
+		catch (RuntimeException e) {
+			LOG.warn("Ignore malformed metadata hops header[{}].", hopsHeader, e);
+			return Collections.emptyMap();
+		}
+		Map<String, String> remaining = new HashMap<>((int) (received.size() / 0.75f) + 1);
+		for (Map.Entry<String, String> entry : received.entrySet()) {
+			try {
+				remaining.put(entry.getKey(), String.valueOf(Math.max(Integer.parseInt(entry.getValue()), 1) - 1));
+			}
+			catch (NumberFormatException e) {
+				LOG.warn("Ignore malformed hops[{}] of metadata key[{}].", entry.getValue(), entry.getKey());
+			}
+		}
+		return remaining;
+	}
+
+}
@@ -18,14 +18,21 @@
 
 package com.tencent.cloud.metadata;
 
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
 import com.tencent.cloud.common.constant.MetadataConstant;
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.metadata.ReactiveMetadataContextHolder;
 import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
+import com.tencent.cloud.common.util.MetadataCodecUtils;
 import com.tencent.cloud.metadata.core.DecodeTransferMetadataReactiveFilter;
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -81,4 +88,27 @@ public class DecodeTransferMetadataReactiveFilterTest {
 		Assertions.assertThat(metadataLocalProperties.getContent().get("c")).isNull();
 	}
 
+	@Test
+	public void testReactorContext() {
+		AtomicReference<MetadataContext> holder = new AtomicReference<>();
+		// read on another thread, which has no thread local metadata context
+		WebFilterChain webFilterChain = serverWebExchange -> ReactiveMetadataContextHolder.get()
+				.subscribeOn(Schedulers.boundedElastic())
+				.doOnNext(holder::set)
+				.then();
+
+		MockServerHttpRequest request = MockServerHttpRequest.get("test")
+				.header(MetadataConstant.HeaderName.CUSTOM_METADATA,
+						MetadataCodecUtils.encode(Collections.singletonMap("c", "3")))
+				.build();
+		ServerWebExchange exchange = MockServerWebExchange.from(request);
+
+		metadataReactiveFilter.filter(exchange, webFilterChain).block();
+
+		Assertions.assertThat(holder.get()).isNotNull();
+		Assertions.assertThat(holder.get()).isSameAs(exchange.getAttribute(MetadataConstant.HeaderName.METADATA_CONTEXT));
+		Assertions.assertThat(holder.get().getContext(MetadataContext.FRAGMENT_TRANSITIVE, "c")).isEqualTo("3");
+		Assertions.assertThat(holder.get().getContext(MetadataContext.FRAGMENT_TRANSITIVE, "b")).isEqualTo("2");
+	}
+
 }
@@ -19,13 +19,23 @@
 package com.tencent.cloud.metadata;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 
 import com.tencent.cloud.common.constant.MetadataConstant;
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.metadata.MetadataContextHolder;
 import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
+import com.tencent.cloud.common.util.MetadataCodecUtils;
+import com.tencent.cloud.metadata.config.MetadataTransferProperties;
 import com.tencent.cloud.metadata.core.DecodeTransferMetadataServletFilter;
+import com.tencent.cloud.metadata.core.MetadataTransferMetrics;
+import com.tencent.cloud.metadata.core.TransitiveMetadataCodec;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -54,6 +64,9 @@ public class DecodeTransferMetadataServletFilterTest {
 	@Autowired
 	private DecodeTransferMetadataServletFilter metadataServletFilter;
 
+	@Autowired
+	private TransitiveMetadataCodec transitiveMetadataCodec;
+
 	@Test
 	public void test1() throws ServletException, IOException {
 		// Create mock FilterChain
@@ -73,6 +86,64 @@ public class DecodeTransferMetadataServletFilterTest {
 		Assertions.assertThat(metadataLocalProperties.getContent().get("c")).isNull();
 	}
 
+	@Test
+	public void testContextRemovedAfterChain() throws ServletException, IOException {
+		AtomicReference<MetadataContext> holder = new AtomicReference<>();
+		FilterChain filterChain = (servletRequest, servletResponse) -> holder.set(MetadataContextHolder.capture());
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(MetadataConstant.HeaderName.CUSTOM_METADATA,
+				MetadataCodecUtils.encode(Collections.singletonMap("c", "3")));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		metadataServletFilter.doFilter(request, response, filterChain);
+
+		Assertions.assertThat(holder.get().getContext(MetadataContext.FRAGMENT_TRANSITIVE, "c")).isEqualTo("3");
+		Assertions.assertThat(MetadataContextHolder.capture()).isNull();
+	}
+
+	@Test
+	public void testHopLimitedKeys() throws ServletException, IOException {
+		Map<String, String> outboundHeaders = new HashMap<>();
+		FilterChain filterChain = (servletRequest, servletResponse) -> transitiveMetadataCodec
+				.encode(MetadataContextHolder.get(), outboundHeaders::put);
+
+		Map<String, String> metadata = new HashMap<>();
+		metadata.put("c", "3");
+		metadata.put("d", "4");
+		metadata.put("e", "5");
+		Map<String, String> hops = new HashMap<>();
+		hops.put("c", "1");
+		hops.put("d", "2");
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(MetadataConstant.HeaderName.CUSTOM_METADATA, MetadataCodecUtils.encode(metadata));
+		request.addHeader(MetadataConstant.HeaderName.METADATA_HOPS, MetadataCodecUtils.encode(hops));
+		long bytesReceived = transitiveMetadataCodec.getMetrics().getHeaderBytesReceived();
+		metadataServletFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+		// compact headers are re-encoded in legacy format by default.
+		Assertions.assertThat(MetadataCodecUtils.formatOf(outboundHeaders.get(MetadataConstant.HeaderName.CUSTOM_METADATA)))
+				.isEqualTo(MetadataCodecUtils.Format.LEGACY);
+		Map<String, String> forwarded = MetadataCodecUtils.decode(
+				outboundHeaders.get(MetadataConstant.HeaderName.CUSTOM_METADATA));
+		Assertions.assertThat(forwarded).doesNotContainKey("c").containsEntry("d", "4").containsEntry("e", "5");
+		Assertions.assertThat(MetadataCodecUtils.decode(outboundHeaders.get(MetadataConstant.HeaderName.METADATA_HOPS)))
+				.containsOnly(Assertions.entry("d", "1"));
+		Assertions.assertThat(transitiveMetadataCodec.getMetrics().getHeaderBytesReceived()).isGreaterThan(bytesReceived);
+	}
+
+	@Test
+	public void testEncodeInCompactFormat() {
+		MetadataTransferProperties properties = new MetadataTransferProperties();
+		properties.setFormat(MetadataCodecUtils.Format.COMPACT);
+		TransitiveMetadataCodec codec = new TransitiveMetadataCodec(properties, new MetadataTransferMetrics());
+		Map<String, String> outboundHeaders = new HashMap<>();
+
+		codec.encode(new MetadataContext(Collections.singletonMap("c", "3"), null), outboundHeaders::put);
+
+		Assertions.assertThat(outboundHeaders.get(MetadataConstant.HeaderName.CUSTOM_METADATA))
+				.startsWith(MetadataCodecUtils.COMPACT_V1_MARKER);
+	}
+
 	@SpringBootApplication
 	protected static class TestApplication {
 
@@ -20,6 +20,8 @@ package com.tencent.cloud.metadata.config;
 
 import com.tencent.cloud.metadata.core.EncodeTransferMedataFeignInterceptor;
 import com.tencent.cloud.metadata.core.EncodeTransferMedataRestTemplateInterceptor;
+import com.tencent.cloud.metadata.core.EncodeTransferMedataWebClientFilter;
+import com.tencent.cloud.metadata.core.MetadataTransferMeterBinder;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 
@@ -54,6 +56,10 @@ public class MetadataTransferAutoConfigurationTest {
 					Assertions.assertThat(context)
 							.hasSingleBean(MetadataTransferAutoConfiguration.MetadataTransferScgFilterConfig.class);
 					Assertions.assertThat(context).hasSingleBean(GlobalFilter.class);
+					Assertions.assertThat(context)
+							.hasSingleBean(MetadataTransferAutoConfiguration.MetadataTransferWebClientConfig.class);
+					Assertions.assertThat(context).hasSingleBean(EncodeTransferMedataWebClientFilter.class);
+					Assertions.assertThat(context).hasSingleBean(MetadataTransferMeterBinder.class);
 				});
 	}
 
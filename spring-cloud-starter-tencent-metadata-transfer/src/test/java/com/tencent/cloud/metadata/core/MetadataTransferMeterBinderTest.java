@@ -0,0 +1,54 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.metadata.core;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test for {@link MetadataTransferMeterBinder}.
+ *
+ * @author Haotian Zhang
+ */
+public class MetadataTransferMeterBinderTest {
+
+	@Test
+	public void testBindTo() {
+		MetadataTransferMetrics metrics = new MetadataTransferMetrics();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new MetadataTransferMeterBinder(metrics).bindTo(registry);
+
+		metrics.recordSent(100, false);
+		metrics.recordSent(50, true);
+		metrics.recordReceived(30);
+
+		Assertions.assertThat(registry.get("sct.metadata.transfer.headers").tag("direction", "sent")
+				.functionCounter().count()).isEqualTo(2);
+		Assertions.assertThat(registry.get("sct.metadata.transfer.header.bytes").tag("direction", "sent")
+				.functionCounter().count()).isEqualTo(150);
+		Assertions.assertThat(registry.get("sct.metadata.transfer.headers.compressed")
+				.functionCounter().count()).isEqualTo(1);
+		Assertions.assertThat(registry.get("sct.metadata.transfer.headers").tag("direction", "received")
+				.functionCounter().count()).isEqualTo(1);
+		Assertions.assertThat(registry.get("sct.metadata.transfer.header.bytes").tag("direction", "received")
+				.functionCounter().count()).isEqualTo(30);
+	}
+
+}
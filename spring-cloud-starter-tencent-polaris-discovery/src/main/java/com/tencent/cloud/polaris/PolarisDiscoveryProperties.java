@@ -96,6 +96,12 @@ public class PolarisDiscoveryProperties {
 	@Value("${spring.cloud.polaris.discovery.heartbeat.enabled:#{true}}")
 	private Boolean heartbeatEnabled = true;
 
+	/**
+	 * If registration time is published in metadata, by which consumers ramp up weight of new instance in slow start.
+	 */
+	@Value("${spring.cloud.polaris.discovery.slow-start.enabled:#{false}}")
+	private Boolean slowStartEnabled = false;
+
 	/**
 	 * Custom health check url to override default.
 	 */
@@ -118,6 +124,14 @@ public class PolarisDiscoveryProperties {
 		this.heartbeatEnabled = heartbeatEnabled;
 	}
 
+	public boolean isSlowStartEnabled() {
+		return slowStartEnabled;
+	}
+
+	public void setSlowStartEnabled(Boolean slowStartEnabled) {
+		this.slowStartEnabled = slowStartEnabled;
+	}
+
 	public String getNamespace() {
 		return namespace;
 	}
@@ -219,6 +233,7 @@ public class PolarisDiscoveryProperties {
 				", enabled=" + enabled +
 				", registerEnabled=" + registerEnabled +
 				", heartbeatEnabled=" + heartbeatEnabled +
+				", slowStartEnabled=" + slowStartEnabled +
 				", healthCheckUrl='" + healthCheckUrl + '\'' +
 				", serviceListRefreshInterval=" + serviceListRefreshInterval +
 				'}';
@@ -18,10 +18,13 @@
 
 package com.tencent.cloud.polaris.registry;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import com.tencent.cloud.common.constant.MetadataConstant;
 import com.tencent.cloud.common.metadata.StaticMetadataManager;
 import com.tencent.cloud.polaris.PolarisDiscoveryProperties;
 import com.tencent.cloud.polaris.discovery.PolarisDiscoveryHandler;
@@ -100,7 +103,16 @@ public class PolarisServiceRegistry implements ServiceRegistry<Registration> {
 		if (null != heartbeatExecutor) {
 			instanceRegisterRequest.setTtl(ttl);
 		}
-		instanceRegisterRequest.setMetadata(registration.getMetadata());
+		Map<String, String> metadata = new HashMap<>();
+		if (registration.getMetadata() != null) {
+			metadata.putAll(registration.getMetadata());
+		}
+		if (polarisDiscoveryProperties.isSlowStartEnabled()) {
+			// consumers ramp up weight of new instance from it, registration time set by user is kept.
+			metadata.putIfAbsent(MetadataConstant.InstanceMetadataKey.REGISTRATION_TIME,
+					String.valueOf(System.currentTimeMillis()));
+		}
+		instanceRegisterRequest.setMetadata(metadata);
 		instanceRegisterRequest.setProtocol(polarisDiscoveryProperties.getProtocol());
 		instanceRegisterRequest.setVersion(polarisDiscoveryProperties.getVersion());
 		try {
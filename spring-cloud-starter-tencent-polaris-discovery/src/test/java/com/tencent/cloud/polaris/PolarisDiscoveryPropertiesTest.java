@@ -77,6 +77,11 @@ public class PolarisDiscoveryPropertiesTest {
 		polarisDiscoveryProperties.setPort(PORT);
 		assertThat(polarisDiscoveryProperties.getPort()).isEqualTo(PORT);
 
+		// SlowStartEnabled
+		assertThat(polarisDiscoveryProperties.isSlowStartEnabled()).isFalse();
+		polarisDiscoveryProperties.setSlowStartEnabled(true);
+		assertThat(polarisDiscoveryProperties.isSlowStartEnabled()).isTrue();
+
 		// HealthCheckUrl
 		polarisDiscoveryProperties.setHealthCheckUrl("/health");
 		assertThat(polarisDiscoveryProperties.getHealthCheckUrl()).isEqualTo("/health");
@@ -96,6 +101,7 @@ public class PolarisDiscoveryPropertiesTest {
 						+ ", enabled=true"
 						+ ", registerEnabled=true"
 						+ ", heartbeatEnabled=true"
+						+ ", slowStartEnabled=true"
 						+ ", healthCheckUrl='/health'"
 						+ ", serviceListRefreshInterval=1000}");
 	}
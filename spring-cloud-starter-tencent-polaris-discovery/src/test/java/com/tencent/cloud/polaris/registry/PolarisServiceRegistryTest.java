@@ -17,14 +17,24 @@
 
 package com.tencent.cloud.polaris.registry;
 
+import java.util.Collections;
+import java.util.Map;
+
+import com.tencent.cloud.common.constant.MetadataConstant;
+import com.tencent.cloud.common.metadata.StaticMetadataManager;
+import com.tencent.cloud.polaris.PolarisDiscoveryProperties;
 import com.tencent.cloud.polaris.context.PolarisContextAutoConfiguration;
 import com.tencent.cloud.polaris.discovery.PolarisDiscoveryAutoConfiguration;
 import com.tencent.cloud.polaris.discovery.PolarisDiscoveryClientConfiguration;
+import com.tencent.cloud.polaris.discovery.PolarisDiscoveryHandler;
+import com.tencent.polaris.api.core.ProviderAPI;
 import com.tencent.polaris.api.pojo.ServiceKey;
+import com.tencent.polaris.api.rpc.InstanceRegisterRequest;
 import com.tencent.polaris.test.mock.discovery.NamingServer;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import org.springframework.boot.autoconfigure.AutoConfigurations;
@@ -38,6 +48,7 @@ import static com.tencent.polaris.test.common.Consts.SERVICE_PROVIDER;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -121,6 +132,43 @@ public class PolarisServiceRegistryTest {
 		});
 	}
 
+	@Test
+	public void testRegistrationTime() {
+		// not published by default
+		assertThat(registerMetadata(false, Collections.emptyMap()))
+				.doesNotContainKey(MetadataConstant.InstanceMetadataKey.REGISTRATION_TIME);
+
+		long before = System.currentTimeMillis();
+		Map<String, String> metadata = registerMetadata(true, Collections.singletonMap("k1", "v1"));
+		assertThat(metadata).containsEntry("k1", "v1");
+		assertThat(Long.parseLong(metadata.get(MetadataConstant.InstanceMetadataKey.REGISTRATION_TIME)))
+				.isBetween(before, System.currentTimeMillis());
+
+		// registration time set by user is kept
+		assertThat(registerMetadata(true,
+				Collections.singletonMap(MetadataConstant.InstanceMetadataKey.REGISTRATION_TIME, "1")))
+				.containsEntry(MetadataConstant.InstanceMetadataKey.REGISTRATION_TIME, "1");
+	}
+
+	private Map<String, String> registerMetadata(boolean slowStartEnabled, Map<String, String> registrationMetadata) {
+		PolarisDiscoveryProperties polarisDiscoveryProperties = Mockito.mock(PolarisDiscoveryProperties.class);
+		when(polarisDiscoveryProperties.isSlowStartEnabled()).thenReturn(slowStartEnabled);
+		PolarisDiscoveryHandler polarisDiscoveryHandler = Mockito.mock(PolarisDiscoveryHandler.class);
+		ProviderAPI providerAPI = Mockito.mock(ProviderAPI.class);
+		when(polarisDiscoveryHandler.getProviderAPI()).thenReturn(providerAPI);
+		PolarisServiceRegistry registry = new PolarisServiceRegistry(polarisDiscoveryProperties,
+				polarisDiscoveryHandler, Mockito.mock(StaticMetadataManager.class));
+
+		PolarisRegistration registration = Mockito.mock(PolarisRegistration.class);
+		when(registration.getServiceId()).thenReturn(SERVICE_PROVIDER);
+		when(registration.getMetadata()).thenReturn(registrationMetadata);
+		registry.register(registration);
+
+		ArgumentCaptor<InstanceRegisterRequest> captor = ArgumentCaptor.forClass(InstanceRegisterRequest.class);
+		verify(providerAPI).register(captor.capture());
+		return captor.getValue().getMetadata();
+	}
+
 	@Configuration
 	@EnableAutoConfiguration
 	static class PolarisPropertiesConfiguration {
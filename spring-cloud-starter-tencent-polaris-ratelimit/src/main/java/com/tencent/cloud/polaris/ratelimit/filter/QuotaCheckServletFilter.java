@@ -32,6 +32,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.tencent.cloud.common.metadata.MetadataContext;
 import com.tencent.cloud.common.util.ExpressionLabelUtils;
+import com.tencent.cloud.common.util.expression.ExpressionLabelPlan;
 import com.tencent.cloud.polaris.ratelimit.RateLimitRuleLabelResolver;
 import com.tencent.cloud.polaris.ratelimit.config.PolarisRateLimitProperties;
 import com.tencent.cloud.polaris.ratelimit.constant.RateLimitConstant;
@@ -152,6 +153,7 @@ public class QuotaCheckServletFilter extends OncePerRequestFilter {
 
 	private Map<String, String> getRuleExpressionLabels(HttpServletRequest request, String namespace, String service) {
 		Set<String> expressionLabels = rateLimitRuleLabelResolver.getExpressionLabelKeys(namespace, service);
-		return ExpressionLabelUtils.resolve(request, expressionLabels);
+		ExpressionLabelPlan plan = ExpressionLabelPlan.of(expressionLabels);
+		return ExpressionLabelUtils.resolve(request, plan);
 	}
 }
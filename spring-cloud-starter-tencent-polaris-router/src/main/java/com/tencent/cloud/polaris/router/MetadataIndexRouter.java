@@ -0,0 +1,103 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tencent.polaris.api.pojo.Instance;
+
+/**
+ * Metadata router backed by an inverted index of instance metadata.
+ * <p>
+ * The index maps every metadata key and value to the bitset of instances carrying it, so matching labels is an
+ * intersection of bitsets instead of a scan over the metadata of every instance. An index is built for one
+ * instance list and must be rebuilt when the list changes.
+ *
+ * @author Haotian Zhang
+ */
+public final class MetadataIndexRouter {
+
+	private final List<Instance> instances;
+
+	private final Map<String, Map<String, BitSet>> index;
+
+	private MetadataIndexRouter(List<Instance> instances, Map<String, Map<String, BitSet>> index) {
+		this.instances = instances;
+		this.index = index;
+	}
+
+	/**
+	 * Build index of instances.
+	 * @param instances instances
+	 * @return router of instances
+	 */
+	public static MetadataIndexRouter build(List<Instance> instances) {
+		Map<String, Map<String, BitSet>> index = new HashMap<>();
+		for (int i = 0; i < instances.size(); i++) {
+			Map<String, String> metadata = instances.get(i).getMetadata();
+			if (metadata == null) {
+				continue;
+			}
+			for (Map.Entry<String, String> entry : metadata.entrySet()) {
+				index.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+						.computeIfAbsent(entry.getValue(), v -> new BitSet(instances.size()))
+						.set(i);
+			}
+		}
+		return new MetadataIndexRouter(instances, index);
+	}
+
+	/**
+	 * Get instances whose metadata contains all labels.
+	 * @param labels labels to match
+	 * @return matched instances, empty if none matches
+	 */
+	public List<Instance> route(Map<String, String> labels) {
+		if (labels.isEmpty()) {
+			return instances;
+		}
+		BitSet matched = null;
+		for (Map.Entry<String, String> label : labels.entrySet()) {
+			Map<String, BitSet> values = index.get(label.getKey());
+			BitSet candidates = values != null ? values.get(label.getValue()) : null;
+			if (candidates == null) {
+				return Collections.emptyList();
+			}
+			if (matched == null) {
+				matched = (BitSet) candidates.clone();
+			}
+			else {
+				matched.and(candidates);
+			}
+			if (matched.isEmpty()) {
+				return Collections.emptyList();
+			}
+		}
+		List<Instance> result = new ArrayList<>(matched.cardinality());
+		for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+			result.add(instances.get(i));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tencent.polaris.api.pojo.CircuitBreakerStatus;
+import com.tencent.polaris.api.pojo.Instance;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Nearby router backed by locality buckets of instances.
+ * <p>
+ * Instances in same campus, same zone and same region as local service are bucketed once per instance list, so
+ * routing is a lookup of the closest bucket with enough healthy instances, falling back to all instances. Health
+ * changes in place on instances, so only bucket membership is precomputed and healthy instances are counted on
+ * every routing. Location of instance is read the same way as nearby router of Polaris, from instance first and
+ * then from its metadata.
+ *
+ * @author Haotian Zhang
+ */
+public final class NearbyBucketRouter {
+
+	private static final String LOCATION_KEY_CAMPUS = "campus";
+
+	private static final String LOCATION_KEY_ZONE = "zone";
+
+	private static final String LOCATION_KEY_REGION = "region";
+
+	private static final int LEVEL_CAMPUS = 0;
+
+	private static final int LEVEL_ZONE = 1;
+
+	private static final int LEVEL_REGION = 2;
+
+	private static final int LEVEL_COUNT = 3;
+
+	private final List<Instance> instances;
+
+	private final boolean[] levelEnabled;
+
+	/**
+	 * Bitmask of levels each instance shares with local service.
+	 */
+	private final Map<Instance, Integer> localityMasks;
+
+	private final Bucket[] buckets;
+
+	private NearbyBucketRouter(List<Instance> instances, boolean[] levelEnabled, Map<Instance, Integer> localityMasks,
+			Bucket[] buckets) {
+		this.instances = instances;
+		this.levelEnabled = levelEnabled;
+		this.localityMasks = localityMasks;
+		this.buckets = buckets;
+	}
+
+	/**
+	 * Build locality buckets of instances.
+	 * @param instances instances
+	 * @param campus campus of local service
+	 * @param zone zone of local service
+	 * @param region region of local service
+	 * @return router of instances
+	 */
+	public static NearbyBucketRouter build(List<Instance> instances, String campus, String zone, String region) {
+		String[] localLocation = new String[LEVEL_COUNT];
+		localLocation[LEVEL_CAMPUS] = campus;
+		localLocation[LEVEL_ZONE] = zone;
+		localLocation[LEVEL_REGION] = region;
+		boolean[] levelEnabled = new boolean[LEVEL_COUNT];
+		for (int level = 0; level < LEVEL_COUNT; level++) {
+			levelEnabled[level] = StringUtils.hasText(localLocation[level]);
+		}
+
+		Map<Instance, Integer> localityMasks = new IdentityHashMap<>(instances.size());
+		for (Instance instance : instances) {
+			int mask = 0;
+			if (levelEnabled[LEVEL_CAMPUS] && campus.equals(getLocation(instance.getCampus(), instance,
+					LOCATION_KEY_CAMPUS))) {
+				mask |= 1 << LEVEL_CAMPUS;
+			}
+			if (levelEnabled[LEVEL_ZONE] && zone.equals(getLocation(instance.getZone(), instance,
+					LOCATION_KEY_ZONE))) {
+				mask |= 1 << LEVEL_ZONE;
+			}
+			if (levelEnabled[LEVEL_REGION] && region.equals(getLocation(instance.getRegion(), instance,
+					LOCATION_KEY_REGION))) {
+				mask |= 1 << LEVEL_REGION;
+			}
+			localityMasks.put(instance, mask);
+		}
+		return new NearbyBucketRouter(instances, levelEnabled, localityMasks,
+				toBuckets(instances, levelEnabled, localityMasks));
+	}
+
+	/**
+	 * Get instances of the closest locality bucket with enough healthy instances.
+	 * @param candidates instances to route, the instances bucketed or a subset of them
+	 * @param minHealthyFraction minimum fraction of healthy instances in a bucket
+	 * @return instances of the chosen bucket, or the candidates if no bucket qualifies
+	 */
+	public List<Instance> route(List<Instance> candidates, double minHealthyFraction) {
+		// subset left by routers ahead is bucketed by the masks computed on build
+		Bucket[] candidateBuckets = candidates == instances ? buckets
+				: toBuckets(candidates, levelEnabled, localityMasks);
+		for (Bucket bucket : candidateBuckets) {
+			if (bucket != null && bucket.hasEnoughHealthy(minHealthyFraction)) {
+				return bucket.instances;
+			}
+		}
+		return candidates;
+	}
+
+	private static Bucket[] toBuckets(List<Instance> instances, boolean[] levelEnabled,
+			Map<Instance, Integer> localityMasks) {
+		Bucket[] buckets = new Bucket[LEVEL_COUNT];
+		for (int level = 0; level < LEVEL_COUNT; level++) {
+			if (levelEnabled[level]) {
+				buckets[level] = new Bucket();
+			}
+		}
+		for (Instance instance : instances) {
+			Integer mask = localityMasks.get(instance);
+			if (mask == null || mask == 0) {
+				continue;
+			}
+			for (int level = 0; level < LEVEL_COUNT; level++) {
+				if ((mask & (1 << level)) != 0) {
+					buckets[level].instances.add(instance);
+				}
+			}
+		}
+		return buckets;
+	}
+
+	private static String getLocation(String location, Instance instance, String key) {
+		if (StringUtils.hasText(location)) {
+			return location;
+		}
+		Map<String, String> metadata = instance.getMetadata();
+		return metadata != null ? metadata.get(key) : null;
+	}
+
+	private static boolean isHealthy(Instance instance) {
+		if (!instance.isHealthy() || instance.isIsolated() || instance.getWeight() <= 0) {
+			return false;
+		}
+		CircuitBreakerStatus circuitBreakerStatus = instance.getCircuitBreakerStatus();
+		return circuitBreakerStatus == null || circuitBreakerStatus.getStatus() != CircuitBreakerStatus.Status.OPEN;
+	}
+
+	private static final class Bucket {
+
+		private final List<Instance> instances = new ArrayList<>();
+
+		private boolean hasEnoughHealthy(double minHealthyFraction) {
+			if (instances.isEmpty()) {
+				return false;
+			}
+			double minHealthyCount = minHealthyFraction * instances.size();
+			int healthyCount = 0;
+			for (Instance instance : instances) {
+				if (healthyCount >= minHealthyCount) {
+					return true;
+				}
+				if (isHealthy(instance)) {
+					healthyCount++;
+				}
+			}
+			return healthyCount >= minHealthyCount;
+		}
+	}
+}
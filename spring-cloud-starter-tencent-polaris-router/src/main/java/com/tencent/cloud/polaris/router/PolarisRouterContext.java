@@ -22,6 +22,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.tencent.cloud.common.util.LayeredMap;
+
 import org.springframework.util.CollectionUtils;
 
 /**
@@ -50,7 +52,7 @@ public class PolarisRouterContext {
 		if (CollectionUtils.isEmpty(subLabels)) {
 			return Collections.emptyMap();
 		}
-		return Collections.unmodifiableMap(subLabels);
+		return LayeredMap.unmodifiable(subLabels);
 	}
 
 	public void setLabels(String labelType, Map<String, String> subLabels) {
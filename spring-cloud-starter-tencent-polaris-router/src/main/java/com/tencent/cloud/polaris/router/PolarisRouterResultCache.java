@@ -0,0 +1,336 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.polaris.router;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.polaris.api.plugin.registry.AbstractResourceEventListener;
+import com.tencent.polaris.api.pojo.RegistryCacheValue;
+import com.tencent.polaris.api.pojo.ServiceEventKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.lang.Nullable;
+
+/**
+ * Bounded cache of routing results per destination service.
+ * <p>
+ * Entries are keyed by {@link Key}, which carries the instance list, the router switches and types, and the
+ * labels the routers consume. All entries of a service are dropped when the registry reports a change of its
+ * instances or routing rules. A change of routing rules of the local service drops every entry, because its
+ * outbound rules apply to all destinations.
+ *
+ * @author Haotian Zhang
+ */
+public class PolarisRouterResultCache extends AbstractResourceEventListener {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PolarisRouterResultCache.class);
+
+	private final int maxEntriesPerService;
+
+	private final Map<String, ServiceCache> serviceCaches = new ConcurrentHashMap<>();
+
+	public PolarisRouterResultCache(int maxEntriesPerService) {
+		this.maxEntriesPerService = Math.max(maxEntriesPerService, 1);
+	}
+
+	/**
+	 * Get cache of destination service. Results computed against a cache that is invalidated meanwhile go to the
+	 * detached cache, so a stale result is never published.
+	 * @param service destination service
+	 * @return cache of service
+	 */
+	ServiceCache getServiceCache(String service) {
+		return serviceCaches.computeIfAbsent(String.valueOf(service), s -> new ServiceCache(maxEntriesPerService));
+	}
+
+	public void invalidate(String service) {
+		serviceCaches.remove(service);
+	}
+
+	public void invalidateAll() {
+		serviceCaches.clear();
+	}
+
+	@Override
+	public void onResourceAdd(ServiceEventKey svcEventKey, RegistryCacheValue newValue) {
+		onResourceChanged(svcEventKey);
+	}
+
+	@Override
+	public void onResourceUpdated(ServiceEventKey svcEventKey, RegistryCacheValue oldValue,
+			RegistryCacheValue newValue) {
+		onResourceChanged(svcEventKey);
+	}
+
+	@Override
+	public void onResourceDeleted(ServiceEventKey svcEventKey, RegistryCacheValue oldValue) {
+		onResourceChanged(svcEventKey);
+	}
+
+	private void onResourceChanged(ServiceEventKey svcEventKey) {
+		ServiceEventKey.EventType eventType = svcEventKey.getEventType();
+		if (eventType == ServiceEventKey.EventType.INSTANCE) {
+			invalidate(svcEventKey.getService());
+		}
+		else if (eventType == ServiceEventKey.EventType.ROUTING) {
+			if (Objects.equals(svcEventKey.getService(), MetadataContext.LOCAL_SERVICE)) {
+				invalidateAll();
+			}
+			else {
+				invalidate(svcEventKey.getService());
+			}
+		}
+		else {
+			return;
+		}
+		LOG.debug("Invalidate routing result cache by event of {}.", svcEventKey);
+	}
+
+	/**
+	 * Routing results of one destination service.
+	 */
+	static final class ServiceCache {
+
+		private final int maxEntries;
+
+		private final Map<Key, List<ServiceInstance>> results = new ConcurrentHashMap<>();
+
+		private ServiceCache(int maxEntries) {
+			this.maxEntries = maxEntries;
+		}
+
+		List<ServiceInstance> get(Key key) {
+			return results.get(key);
+		}
+
+		void put(Key key, List<ServiceInstance> result) {
+			// label combinations are few in practice, so start over instead of tracking recency.
+			if (results.size() >= maxEntries) {
+				results.clear();
+			}
+			results.put(key.snapshot(), result);
+		}
+
+		int size() {
+			return results.size();
+		}
+	}
+
+	/**
+	 * Inputs of a routing invocation. The fingerprint of instances only serves hashing, a hit is confirmed by
+	 * comparing the instances themselves. Health and isolation of instances change in place without an event, so
+	 * only results over instances that are all available and either all or none healthy are cached, and which of
+	 * both takes part in the key.
+	 * <p>
+	 * Labels are read through the maps passed in, which may be layered over live metadata, so a key for lookup
+	 * copies nothing. A key is only snapshotted when its result is stored.
+	 */
+	static final class Key {
+
+		private final List<ServiceInstance> instances;
+
+		private final long instancesFingerprint;
+
+		private final int routerSwitches;
+
+		private final double minHealthyFraction;
+
+		private final boolean allHealthy;
+
+		private final Map<String, String> transitiveLabels;
+
+		private final Map<String, String> ruleRouterLabels;
+
+		private final Set<String> ruleLabelKeys;
+
+		private final int hashCode;
+
+		/**
+		 * Create key of a routing invocation whose routing rules may read any label of rule based router.
+		 */
+		Key(List<ServiceInstance> instances, long instancesFingerprint, int routerSwitches,
+				double minHealthyFraction, boolean allHealthy, Map<String, String> transitiveLabels,
+				Map<String, String> ruleRouterLabels) {
+			this(instances, instancesFingerprint, routerSwitches, minHealthyFraction, allHealthy, transitiveLabels,
+					ruleRouterLabels, null);
+		}
+
+		/**
+		 * Create key of a routing invocation.
+		 * @param instances instances to route, not modified afterwards
+		 * @param instancesFingerprint fingerprint of instances
+		 * @param routerSwitches enabled routers and their types
+		 * @param minHealthyFraction min healthy fraction of bucketed nearby router, 0 if not used
+		 * @param allHealthy whether all instances are healthy, otherwise none of them is
+		 * @param transitiveLabels labels of metadata router
+		 * @param ruleRouterLabels labels of rule based router
+		 * @param ruleLabelKeys label keys read by routing rules, null if all labels of rule based router are read
+		 */
+		Key(List<ServiceInstance> instances, long instancesFingerprint, int routerSwitches,
+				double minHealthyFraction, boolean allHealthy, Map<String, String> transitiveLabels,
+				Map<String, String> ruleRouterLabels, @Nullable Set<String> ruleLabelKeys) {
+			this.instances = instances;
+			this.instancesFingerprint = instancesFingerprint;
+			this.routerSwitches = routerSwitches;
+			this.minHealthyFraction = minHealthyFraction;
+			this.allHealthy = allHealthy;
+			this.transitiveLabels = transitiveLabels;
+			this.ruleRouterLabels = ruleRouterLabels;
+			this.ruleLabelKeys = ruleLabelKeys;
+			int h = Long.hashCode(instancesFingerprint);
+			h = 31 * h + routerSwitches;
+			h = 31 * h + Double.hashCode(minHealthyFraction);
+			h = 31 * h + Boolean.hashCode(allHealthy);
+			h = 31 * h + transitiveLabels.hashCode();
+			h = 31 * h + ruleLabelsHashCode();
+			this.hashCode = h;
+		}
+
+		private Key(Key key, Map<String, String> transitiveLabels, Map<String, String> ruleRouterLabels) {
+			this.instances = key.instances;
+			this.instancesFingerprint = key.instancesFingerprint;
+			this.routerSwitches = key.routerSwitches;
+			this.minHealthyFraction = key.minHealthyFraction;
+			this.allHealthy = key.allHealthy;
+			this.transitiveLabels = transitiveLabels;
+			this.ruleRouterLabels = ruleRouterLabels;
+			this.ruleLabelKeys = key.ruleLabelKeys;
+			this.hashCode = key.hashCode;
+		}
+
+		/**
+		 * Copy labels, which may be layered over live metadata, so the key can be stored.
+		 * @return equal key independent of the maps passed in
+		 */
+		Key snapshot() {
+			Map<String, String> ruleLabels;
+			if (ruleLabelKeys == null) {
+				ruleLabels = copy(ruleRouterLabels);
+			}
+			else {
+				ruleLabels = new HashMap<>();
+				for (String labelKey : ruleLabelKeys) {
+					String value = ruleRouterLabels.get(labelKey);
+					if (value != null) {
+						ruleLabels.put(labelKey, value);
+					}
+				}
+			}
+			return new Key(this, copy(transitiveLabels), ruleLabels);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key that = (Key) o;
+			return hashCode == that.hashCode
+					&& instancesFingerprint == that.instancesFingerprint
+					&& routerSwitches == that.routerSwitches
+					&& Double.compare(minHealthyFraction, that.minHealthyFraction) == 0
+					&& allHealthy == that.allHealthy
+					&& transitiveLabels.equals(that.transitiveLabels)
+					&& sameRuleLabels(that)
+					&& sameInstances(instances, that.instances);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		/**
+		 * Same as hash code of the map of labels read by routing rules, without building the map.
+		 */
+		private int ruleLabelsHashCode() {
+			if (ruleLabelKeys == null) {
+				return ruleRouterLabels.hashCode();
+			}
+			int h = 0;
+			for (String labelKey : ruleLabelKeys) {
+				String value = ruleRouterLabels.get(labelKey);
+				if (value != null) {
+					h += labelKey.hashCode() ^ value.hashCode();
+				}
+			}
+			return h;
+		}
+
+		private boolean sameRuleLabels(Key that) {
+			if (!Objects.equals(ruleLabelKeys, that.ruleLabelKeys)) {
+				return false;
+			}
+			if (ruleLabelKeys == null) {
+				return ruleRouterLabels.equals(that.ruleRouterLabels);
+			}
+			for (String labelKey : ruleLabelKeys) {
+				if (!Objects.equals(ruleRouterLabels.get(labelKey), that.ruleRouterLabels.get(labelKey))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static Map<String, String> copy(Map<String, String> labels) {
+			return labels.isEmpty() ? Collections.emptyMap() : new HashMap<>(labels);
+		}
+
+		/**
+		 * Compare every field the routers see, see LoadBalancerUtils#toPolarisInstance.
+		 */
+		private static boolean sameInstances(List<ServiceInstance> instances, List<ServiceInstance> others) {
+			if (instances == others) {
+				return true;
+			}
+			if (instances.size() != others.size()) {
+				return false;
+			}
+			for (int i = 0; i < instances.size(); i++) {
+				ServiceInstance instance = instances.get(i);
+				ServiceInstance other = others.get(i);
+				if (instance == other) {
+					continue;
+				}
+				if (!Objects.equals(instance.getServiceId(), other.getServiceId())
+						|| !Objects.equals(instance.getInstanceId(), other.getInstanceId())
+						|| !Objects.equals(instance.getScheme(), other.getScheme())
+						|| !Objects.equals(instance.getHost(), other.getHost())
+						|| instance.getPort() != other.getPort()
+						|| !Objects.equals(instance.getMetadata(), other.getMetadata())) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
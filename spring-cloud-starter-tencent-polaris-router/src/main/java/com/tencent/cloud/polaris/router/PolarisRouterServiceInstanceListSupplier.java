@@ -22,21 +22,25 @@ import java.net.URLDecoder;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import com.tencent.cloud.common.metadata.MetadataContext;
-import com.tencent.cloud.common.metadata.MetadataContextHolder;
-import com.tencent.cloud.common.pojo.PolarisServiceInstance;
+import com.tencent.cloud.common.metadata.ReactiveMetadataContextHolder;
+import com.tencent.cloud.common.metadata.StaticMetadataManager;
 import com.tencent.cloud.common.util.JacksonUtils;
-import com.tencent.cloud.polaris.loadbalancer.LoadBalancerUtils;
+import com.tencent.cloud.polaris.loadbalancer.ConvertedServiceInstances;
 import com.tencent.cloud.polaris.router.config.PolarisMetadataRouterProperties;
 import com.tencent.cloud.polaris.router.config.PolarisNearByRouterProperties;
 import com.tencent.cloud.polaris.router.config.PolarisRuleBasedRouterProperties;
+import com.tencent.cloud.polaris.router.feign.FeignRouterContextHolder;
 import com.tencent.cloud.polaris.router.resttemplate.PolarisLoadBalancerRequest;
 import com.tencent.polaris.api.exception.ErrorCode;
 import com.tencent.polaris.api.exception.PolarisException;
+import com.tencent.polaris.api.pojo.CircuitBreakerStatus;
+import com.tencent.polaris.api.pojo.DefaultServiceInstances;
 import com.tencent.polaris.api.pojo.Instance;
 import com.tencent.polaris.api.pojo.ServiceInfo;
 import com.tencent.polaris.api.pojo.ServiceInstances;
@@ -49,14 +53,18 @@ import com.tencent.polaris.router.api.rpc.ProcessRoutersResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
 import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
 import org.springframework.cloud.client.loadbalancer.RequestDataContext;
 import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
 import org.springframework.util.CollectionUtils;
 
 /**
@@ -75,21 +83,100 @@ public class PolarisRouterServiceInstanceListSupplier extends DelegatingServiceI
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(PolarisRouterServiceInstanceListSupplier.class);
 
+	private static final Map<String, String> NEARBY_ROUTER_ENABLED = Collections.singletonMap(
+			NearbyRouter.ROUTER_ENABLED, "true");
+
+	private static final Map<String, String> RULE_BASED_ROUTER_ENABLED = Collections.singletonMap(
+			RuleBasedRouter.ROUTER_ENABLED, "true");
+
+	private static final Map<String, String> RULE_BASED_ROUTER_DISABLED = Collections.singletonMap(
+			RuleBasedRouter.ROUTER_ENABLED, "false");
+
+	private static final int PARTIALLY_AVAILABLE = -1;
+
+	private static final int NONE_HEALTHY = 0;
+
+	private static final int ALL_HEALTHY = 1;
+
 	private final PolarisNearByRouterProperties polarisNearByRouterProperties;
 	private final PolarisMetadataRouterProperties polarisMetadataRouterProperties;
 	private final PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties;
 	private final RouterAPI routerAPI;
+	private final PolarisRouterResultCache routerResultCache;
+	private final RouterRuleLabelResolver routerRuleLabelResolver;
+	private final StaticMetadataManager staticMetadataManager;
+
+	/**
+	 * Routing plan of destination service, rebuilt when routing rules change.
+	 */
+	private volatile RoutingPlan routingPlan;
+
+	/**
+	 * Fingerprint of the last instance list seen, reused while the delegate keeps emitting the same list.
+	 */
+	private volatile InstancesFingerprint lastInstancesFingerprint;
+
+	/**
+	 * Conversion of the last instance list routed, reused while the delegate keeps emitting the same instances.
+	 */
+	private volatile ConvertedServiceInstances lastConvertedInstances;
+
+	/**
+	 * Metadata index of the last conversion, used by indexed metadata router.
+	 */
+	private volatile MetadataIndex lastMetadataIndex;
+
+	/**
+	 * Locality buckets of the last conversion, used by bucketed nearby router.
+	 */
+	private volatile NearbyBuckets lastNearbyBuckets;
 
 	public PolarisRouterServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
 			RouterAPI routerAPI,
 			PolarisNearByRouterProperties polarisNearByRouterProperties,
 			PolarisMetadataRouterProperties polarisMetadataRouterProperties,
 			PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties) {
+		this(delegate, routerAPI, polarisNearByRouterProperties, polarisMetadataRouterProperties,
+				polarisRuleBasedRouterProperties, null);
+	}
+
+	public PolarisRouterServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
+			RouterAPI routerAPI,
+			PolarisNearByRouterProperties polarisNearByRouterProperties,
+			PolarisMetadataRouterProperties polarisMetadataRouterProperties,
+			PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties,
+			@Nullable PolarisRouterResultCache routerResultCache) {
+		this(delegate, routerAPI, polarisNearByRouterProperties, polarisMetadataRouterProperties,
+				polarisRuleBasedRouterProperties, routerResultCache, null);
+	}
+
+	public PolarisRouterServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
+			RouterAPI routerAPI,
+			PolarisNearByRouterProperties polarisNearByRouterProperties,
+			PolarisMetadataRouterProperties polarisMetadataRouterProperties,
+			PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties,
+			@Nullable PolarisRouterResultCache routerResultCache,
+			@Nullable RouterRuleLabelResolver routerRuleLabelResolver) {
+		this(delegate, routerAPI, polarisNearByRouterProperties, polarisMetadataRouterProperties,
+				polarisRuleBasedRouterProperties, routerResultCache, routerRuleLabelResolver, null);
+	}
+
+	public PolarisRouterServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
+			RouterAPI routerAPI,
+			PolarisNearByRouterProperties polarisNearByRouterProperties,
+			PolarisMetadataRouterProperties polarisMetadataRouterProperties,
+			PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties,
+			@Nullable PolarisRouterResultCache routerResultCache,
+			@Nullable RouterRuleLabelResolver routerRuleLabelResolver,
+			@Nullable StaticMetadataManager staticMetadataManager) {
 		super(delegate);
 		this.routerAPI = routerAPI;
 		this.polarisNearByRouterProperties = polarisNearByRouterProperties;
 		this.polarisMetadataRouterProperties = polarisMetadataRouterProperties;
 		this.polarisRuleBasedRouterProperties = polarisRuleBasedRouterProperties;
+		this.routerResultCache = routerResultCache;
+		this.routerRuleLabelResolver = routerRuleLabelResolver;
+		this.staticMetadataManager = staticMetadataManager;
 	}
 
 	@Override
@@ -99,24 +186,55 @@ public class PolarisRouterServiceInstanceListSupplier extends DelegatingServiceI
 
 	@Override
 	public Flux<List<ServiceInstance>> get(Request request) {
-		// 1. get all servers
-		Flux<List<ServiceInstance>> allServers = getDelegate().get();
-
-		// 2. filter by router
 		DefaultRequestContext requestContext = (DefaultRequestContext) request.getContext();
-		PolarisRouterContext key = null;
+		HttpHeaders headers = null;
 		if (requestContext instanceof RequestDataContext) {
-			key = buildRouterContext(((RequestDataContext) requestContext).getClientRequest().getHeaders());
+			RequestData requestData = ((RequestDataContext) requestContext).getClientRequest();
+			Object routerContext = requestData.getAttributes() != null
+					? requestData.getAttributes().get(RouterConstants.ROUTER_CONTEXT_ATTRIBUTE) : null;
+			if (routerContext instanceof PolarisRouterContext) {
+				// resolved in process by the exchange filter function of WebClient
+				return getDelegate().get().concatMap(servers -> doRouter(servers, (PolarisRouterContext) routerContext));
+			}
+			PolarisLoadBalancerRequest<?> loadBalancerRequest = PolarisLoadBalancerRequest.current(requestData.getHeaders());
+			if (loadBalancerRequest != null && loadBalancerRequest.getRouterContext() != null) {
+				// resolved in process by the interceptor of RestTemplate
+				PolarisRouterContext restTemplateRouterContext = loadBalancerRequest.getRouterContext();
+				return getDelegate().get().concatMap(servers -> doRouter(servers, restTemplateRouterContext));
+			}
+			PolarisRouterContext feignRouterContext = requestData.getUrl() != null
+					? FeignRouterContextHolder.current(requestData.getUrl().getHost()) : null;
+			if (feignRouterContext != null) {
+				// resolved in process by the interceptor of Feign
+				return getDelegate().get().concatMap(servers -> doRouter(servers, feignRouterContext));
+			}
+			headers = requestData.getHeaders();
 		}
 		else if (requestContext.getClientRequest() instanceof PolarisLoadBalancerRequest) {
-			key = buildRouterContext(((PolarisLoadBalancerRequest<?>) requestContext.getClientRequest()).getRequest()
-					.getHeaders());
+			PolarisLoadBalancerRequest<?> loadBalancerRequest = (PolarisLoadBalancerRequest<?>) requestContext.getClientRequest();
+			PolarisRouterContext routerContext = loadBalancerRequest.getRouterContext();
+			if (routerContext != null) {
+				// resolved in process by the interceptor, no need to parse it from headers
+				return getDelegate().get().concatMap(servers -> doRouter(servers, routerContext));
+			}
+			headers = loadBalancerRequest.getRequest().getHeaders();
 		}
-		return doRouter(allServers, key);
+		if (headers == null) {
+			return getDelegate().get().concatMap(servers -> doRouter(servers, null));
+		}
+
+		// transitive labels come from the subscriber context in reactive applications
+		HttpHeaders routerHeaders = headers;
+		return Flux.deferContextual(contextView -> {
+			PolarisRouterContext routerContext = buildRouterContext(routerHeaders,
+					ReactiveMetadataContextHolder.get(contextView));
+			// filter every emitted instance list by router, without blocking on the delegate
+			return getDelegate().get().concatMap(servers -> doRouter(servers, routerContext));
+		});
 	}
 
 	//set method to public for unit test
-	PolarisRouterContext buildRouterContext(HttpHeaders headers) {
+	PolarisRouterContext buildRouterContext(HttpHeaders headers, MetadataContext metadataContext) {
 		Collection<String> labelHeaderValues = headers.get(RouterConstants.ROUTER_LABEL_HEADER);
 
 		if (CollectionUtils.isEmpty(labelHeaderValues)) {
@@ -125,8 +243,8 @@ public class PolarisRouterServiceInstanceListSupplier extends DelegatingServiceI
 
 		PolarisRouterContext routerContext = new PolarisRouterContext();
 
-		routerContext.setLabels(PolarisRouterContext.TRANSITIVE_LABELS, MetadataContextHolder.get()
-				.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE));
+		routerContext.setLabels(PolarisRouterContext.TRANSITIVE_LABELS,
+				metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE));
 
 		labelHeaderValues.forEach(labelHeaderValue -> {
 			try {
@@ -144,45 +262,353 @@ public class PolarisRouterServiceInstanceListSupplier extends DelegatingServiceI
 		return routerContext;
 	}
 
-	Flux<List<ServiceInstance>> doRouter(Flux<List<ServiceInstance>> allServers, PolarisRouterContext key) {
-		ServiceInstances serviceInstances = LoadBalancerUtils.transferServersToServiceInstances(allServers);
+	/**
+	 * Filter instances by routers. When the routing plan says no router applies, only isolated and circuit broken
+	 * instances are filtered, and instances are returned untouched if all of them are available. A cached result is
+	 * returned on the calling thread. Otherwise the routers run on a bounded elastic thread, because the SDK may
+	 * fetch routing rules from server synchronously.
+	 * @param servers all instances of destination service
+	 * @param key router context
+	 * @return filtered instances
+	 */
+	Mono<List<ServiceInstance>> doRouter(List<ServiceInstance> servers, PolarisRouterContext key) {
+		RoutingPlan plan = getCurrentRoutingPlan();
+		if (plan != null && !isRoutingRequired(plan, key)) {
+			return filterUnavailable(servers);
+		}
+		if (plan == null && routerRuleLabelResolver != null) {
+			// building plan may fetch routing rules, decide on a bounded elastic thread
+			return Mono.fromCallable(() -> isRoutingRequired(buildRoutingPlan(), key))
+					.subscribeOn(Schedulers.boundedElastic())
+					.flatMap(routingRequired -> routingRequired ? doRouteWithCache(servers, key)
+							: filterUnavailable(servers));
+		}
+		return doRouteWithCache(servers, key);
+	}
+
+	/**
+	 * Filter isolated and circuit broken instances by the routers of Polaris around the core routers, without
+	 * running the core routers.
+	 */
+	private Mono<List<ServiceInstance>> filterUnavailable(List<ServiceInstance> servers) {
+		ConvertedServiceInstances convertedInstances = ConvertedServiceInstances.of(servers, lastConvertedInstances);
+		lastConvertedInstances = convertedInstances;
+		ServiceInstances serviceInstances = convertedInstances.getServiceInstances();
+		if (isAllAvailable(serviceInstances.getInstances())) {
+			return Mono.just(servers);
+		}
+		return Mono.fromCallable(() -> convertedInstances.toServers(filterUnavailable(serviceInstances)))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	private List<Instance> filterUnavailable(ServiceInstances serviceInstances) {
+		// core routers are off without labels and switches, leaving isolated router and recover router
+		ProcessRoutersRequest processRoutersRequest = new ProcessRoutersRequest();
+		processRoutersRequest.setDstInstances(serviceInstances);
+		processRoutersRequest.putRouterMetadata(RuleBasedRouter.ROUTER_TYPE_RULE_BASED, RULE_BASED_ROUTER_DISABLED);
+		ServiceInfo serviceInfo = new ServiceInfo();
+		serviceInfo.setNamespace(MetadataContext.LOCAL_NAMESPACE);
+		serviceInfo.setService(MetadataContext.LOCAL_SERVICE);
+		processRoutersRequest.setSourceService(serviceInfo);
+		return routerAPI.processRouters(processRoutersRequest).getServiceInstances().getInstances();
+	}
+
+	/**
+	 * Whether isolated router and recover router of Polaris leave instances untouched. Recover router keeps all
+	 * instances if none of them is healthy.
+	 * @param instances instances of Polaris
+	 * @return true if no instance would be filtered
+	 */
+	static boolean isAllAvailable(List<Instance> instances) {
+		return getAvailability(instances) != PARTIALLY_AVAILABLE;
+	}
+
+	/**
+	 * Availability of instances as isolated router and recover router of Polaris see it.
+	 * @param instances instances of Polaris
+	 * @return {@link #ALL_HEALTHY} or {@link #NONE_HEALTHY} if no instance would be filtered, otherwise
+	 * {@link #PARTIALLY_AVAILABLE}
+	 */
+	private static int getAvailability(List<Instance> instances) {
+		int healthyCount = 0;
+		for (Instance instance : instances) {
+			if (instance.isIsolated() || instance.getWeight() <= 0) {
+				return PARTIALLY_AVAILABLE;
+			}
+			if (isHealthy(instance)) {
+				healthyCount++;
+			}
+		}
+		if (healthyCount == instances.size()) {
+			return ALL_HEALTHY;
+		}
+		return healthyCount == 0 ? NONE_HEALTHY : PARTIALLY_AVAILABLE;
+	}
+
+	private static List<Instance> removeIsolated(List<Instance> instances) {
+		List<Instance> result = null;
+		for (int i = 0; i < instances.size(); i++) {
+			Instance instance = instances.get(i);
+			boolean isolated = instance.isIsolated() || instance.getWeight() <= 0;
+			if (isolated && result == null) {
+				result = new ArrayList<>(instances.subList(0, i));
+			}
+			else if (!isolated && result != null) {
+				result.add(instance);
+			}
+		}
+		return result != null ? result : instances;
+	}
+
+	private static boolean isHealthy(Instance instance) {
+		if (!instance.isHealthy()) {
+			return false;
+		}
+		CircuitBreakerStatus circuitBreakerStatus = instance.getCircuitBreakerStatus();
+		return circuitBreakerStatus == null || circuitBreakerStatus.getStatus() != CircuitBreakerStatus.Status.OPEN;
+	}
+
+	private Mono<List<ServiceInstance>> doRouteWithCache(List<ServiceInstance> servers, PolarisRouterContext key) {
+		if (routerResultCache == null) {
+			return Mono.fromCallable(() -> route(servers, key)).subscribeOn(Schedulers.boundedElastic());
+		}
+
+		// health, isolation and circuit breaking change in place without an event, so results are only cached
+		// while they leave nothing to filter by availability
+		ConvertedServiceInstances convertedInstances = ConvertedServiceInstances.of(servers, lastConvertedInstances);
+		lastConvertedInstances = convertedInstances;
+		int availability = getAvailability(convertedInstances.getServiceInstances().getInstances());
+		if (availability == PARTIALLY_AVAILABLE) {
+			return Mono.fromCallable(() -> route(servers, key)).subscribeOn(Schedulers.boundedElastic());
+		}
+
+		// read the cache of service before routing, so a concurrent invalidation detaches the result
+		PolarisRouterResultCache.ServiceCache serviceCache = routerResultCache.getServiceCache(getServiceId());
+		PolarisRouterResultCache.Key cacheKey = buildCacheKey(servers, key, availability == ALL_HEALTHY);
+		List<ServiceInstance> filteredInstances = serviceCache.get(cacheKey);
+		if (filteredInstances != null) {
+			return Mono.just(filteredInstances);
+		}
+		return Mono.fromCallable(() -> {
+			List<ServiceInstance> result = Collections.unmodifiableList(route(servers, key));
+			serviceCache.put(cacheKey, result);
+			return result;
+		}).subscribeOn(Schedulers.boundedElastic());
+	}
+
+	private List<ServiceInstance> route(List<ServiceInstance> servers, PolarisRouterContext key) {
+		ConvertedServiceInstances convertedInstances = ConvertedServiceInstances.of(servers, lastConvertedInstances);
+		lastConvertedInstances = convertedInstances;
+
+		ServiceInstances serviceInstances = convertedInstances.getServiceInstances();
+		boolean metadataRouted = false;
+		Map<String, String> transitiveLabels = getRouterLabels(key, PolarisRouterContext.TRANSITIVE_LABELS);
+		if (polarisMetadataRouterProperties.isEnabled()
+				&& polarisMetadataRouterProperties.getType() == PolarisMetadataRouterProperties.Type.INDEXED
+				&& !transitiveLabels.isEmpty()) {
+			// isolated router of Polaris runs ahead of metadata router, unhealthy instances are left to recover router
+			List<Instance> matchedInstances = removeIsolated(
+					getMetadataIndexRouter(convertedInstances).route(transitiveLabels));
+			// mismatch is left to metadata router of Polaris, which applies the configured failover
+			if (!matchedInstances.isEmpty()) {
+				serviceInstances = new DefaultServiceInstances(serviceInstances.getServiceKey(), matchedInstances);
+				metadataRouted = true;
+			}
+		}
+
+		boolean nearbyBucketed = isNearbyBucketed();
+		boolean metadataRoutingRequired = polarisMetadataRouterProperties.isEnabled() && !metadataRouted
+				&& !transitiveLabels.isEmpty();
+		List<Instance> instances = serviceInstances.getInstances();
+		// Polaris is skipped only if routers applied in process leave nothing to its routers
+		boolean routedInProcess = metadataRouted || nearbyBucketed;
+		boolean routedByPolaris = false;
+		if (!routedInProcess || metadataRoutingRequired || isRoutingRequiredAfterMetadata(nearbyBucketed)) {
+			// filter instance by routers
+			ProcessRoutersRequest processRoutersRequest = buildProcessRoutersRequest(serviceInstances, key,
+					metadataRouted, nearbyBucketed);
+
+			ProcessRoutersResponse processRoutersResponse = routerAPI.processRouters(processRoutersRequest);
+			instances = processRoutersResponse.getServiceInstances().getInstances();
+			routedByPolaris = true;
+		}
+
+		// nearby router is the last of the chain, so buckets apply to the instances left by other routers
+		if (nearbyBucketed) {
+			instances = getNearbyBucketRouter(convertedInstances).route(instances,
+					polarisNearByRouterProperties.getMinHealthyFraction());
+		}
+
+		// routers of Polaris around the core routers still apply when the core routers are replaced in process
+		if (!routedByPolaris && !isAllAvailable(instances)) {
+			instances = filterUnavailable(new DefaultServiceInstances(serviceInstances.getServiceKey(), instances));
+		}
+
+		// map back to the instances passed in, instead of wrapping instances of Polaris again
+		return convertedInstances.toServers(instances);
+	}
+
+	private boolean isNearbyBucketed() {
+		return polarisNearByRouterProperties.isEnabled()
+				&& polarisNearByRouterProperties.getType() == PolarisNearByRouterProperties.Type.BUCKETED;
+	}
+
+	private NearbyBucketRouter getNearbyBucketRouter(ConvertedServiceInstances convertedInstances) {
+		NearbyBuckets nearbyBuckets = lastNearbyBuckets;
+		if (nearbyBuckets == null || nearbyBuckets.convertedInstances != convertedInstances) {
+			String campus = staticMetadataManager != null ? staticMetadataManager.getCampus() : null;
+			String zone = staticMetadataManager != null ? staticMetadataManager.getZone() : null;
+			String region = staticMetadataManager != null ? staticMetadataManager.getRegion() : null;
+			nearbyBuckets = new NearbyBuckets(convertedInstances, NearbyBucketRouter.build(
+					convertedInstances.getServiceInstances().getInstances(), campus, zone, region));
+			lastNearbyBuckets = nearbyBuckets;
+		}
+		return nearbyBuckets.router;
+	}
+
+	private MetadataIndexRouter getMetadataIndexRouter(ConvertedServiceInstances convertedInstances) {
+		MetadataIndex metadataIndex = lastMetadataIndex;
+		if (metadataIndex == null || metadataIndex.convertedInstances != convertedInstances) {
+			metadataIndex = new MetadataIndex(convertedInstances,
+					MetadataIndexRouter.build(convertedInstances.getServiceInstances().getInstances()));
+			lastMetadataIndex = metadataIndex;
+		}
+		return metadataIndex.router;
+	}
+
+	/**
+	 * Whether routers of Polaris after metadata router can affect the instances, in the order of the router chain
+	 * of Polaris.
+	 * @param nearbyBucketed whether nearby router is replaced by locality buckets
+	 */
+	private boolean isRoutingRequiredAfterMetadata(boolean nearbyBucketed) {
+		if (polarisNearByRouterProperties.isEnabled() && !nearbyBucketed) {
+			return true;
+		}
+		RoutingPlan plan = getCurrentRoutingPlan();
+		return polarisRuleBasedRouterProperties.isEnabled() && (plan == null || plan.hasRouteRules);
+	}
+
+	/**
+	 * Get routing plan if it is built against current routing rules.
+	 * @return routing plan, null if not built or outdated
+	 */
+	private RoutingPlan getCurrentRoutingPlan() {
+		if (routerRuleLabelResolver == null) {
+			return null;
+		}
+		RoutingPlan plan = routingPlan;
+		if (plan != null && plan.ruleRevision == routerRuleLabelResolver.getRevision()) {
+			return plan;
+		}
+		return null;
+	}
+
+	private RoutingPlan buildRoutingPlan() {
+		// read revision first, a change in between leaves the plan outdated instead of wrong
+		long ruleRevision = routerRuleLabelResolver.getRevision();
+		boolean hasRouteRules = routerRuleLabelResolver.hasRouteRules(MetadataContext.LOCAL_NAMESPACE,
+				MetadataContext.LOCAL_SERVICE, getServiceId());
+		RoutingPlan plan = new RoutingPlan(ruleRevision, hasRouteRules);
+		routingPlan = plan;
+		return plan;
+	}
+
+	/**
+	 * Whether any router can affect the instances. Metadata router only works on transitive labels, and rule based
+	 * router only works if routing rules exist between local and destination service.
+	 */
+	private boolean isRoutingRequired(RoutingPlan plan, PolarisRouterContext key) {
+		if (polarisNearByRouterProperties.isEnabled()) {
+			return true;
+		}
+		if (polarisRuleBasedRouterProperties.isEnabled() && plan.hasRouteRules) {
+			return true;
+		}
+		return polarisMetadataRouterProperties.isEnabled()
+				&& !getRouterLabels(key, PolarisRouterContext.TRANSITIVE_LABELS).isEmpty();
+	}
 
-		// filter instance by routers
-		ProcessRoutersRequest processRoutersRequest = buildProcessRoutersRequest(serviceInstances, key);
+	private PolarisRouterResultCache.Key buildCacheKey(List<ServiceInstance> servers, PolarisRouterContext key,
+			boolean allHealthy) {
+		boolean metadataRouterEnabled = polarisMetadataRouterProperties.isEnabled();
+		boolean nearbyRouterEnabled = polarisNearByRouterProperties.isEnabled();
+		boolean ruleBasedRouterEnabled = polarisRuleBasedRouterProperties.isEnabled();
+		boolean metadataIndexed = metadataRouterEnabled
+				&& polarisMetadataRouterProperties.getType() == PolarisMetadataRouterProperties.Type.INDEXED;
+		boolean nearbyBucketed = isNearbyBucketed();
+		int routerSwitches = (metadataRouterEnabled ? 1 : 0) | (nearbyRouterEnabled ? 2 : 0)
+				| (ruleBasedRouterEnabled ? 4 : 0) | (metadataIndexed ? 8 : 0) | (nearbyBucketed ? 16 : 0);
+		double minHealthyFraction = nearbyBucketed ? polarisNearByRouterProperties.getMinHealthyFraction() : 0;
+		// only labels consumed by an enabled router take part in the key
+		Map<String, String> transitiveLabels = metadataRouterEnabled
+				? getRouterLabels(key, PolarisRouterContext.TRANSITIVE_LABELS) : Collections.emptyMap();
+		Map<String, String> ruleRouterLabels = ruleBasedRouterEnabled
+				? getRouterLabels(key, PolarisRouterContext.RULE_ROUTER_LABELS) : Collections.emptyMap();
+		return new PolarisRouterResultCache.Key(servers, getInstancesFingerprint(servers), routerSwitches,
+				minHealthyFraction, allHealthy, transitiveLabels, ruleRouterLabels,
+				getRuleLabelKeys(ruleRouterLabels));
+	}
 
-		ProcessRoutersResponse processRoutersResponse = routerAPI.processRouters(processRoutersRequest);
+	/**
+	 * Label keys that routing rules between local and destination service match on.
+	 * @param ruleRouterLabels labels of rule based router
+	 * @return label keys, null while the rules are not resolved
+	 */
+	private Set<String> getRuleLabelKeys(Map<String, String> ruleRouterLabels) {
+		if (ruleRouterLabels.isEmpty() || routerRuleLabelResolver == null) {
+			return null;
+		}
+		return routerRuleLabelResolver.getCachedLabelKeys(MetadataContext.LOCAL_NAMESPACE,
+				MetadataContext.LOCAL_SERVICE, getServiceId());
+	}
 
-		List<ServiceInstance> filteredInstances = new ArrayList<>();
-		ServiceInstances filteredServiceInstances = processRoutersResponse.getServiceInstances();
-		for (Instance instance : filteredServiceInstances.getInstances()) {
-			filteredInstances.add(new PolarisServiceInstance(instance));
+	private long getInstancesFingerprint(List<ServiceInstance> servers) {
+		InstancesFingerprint last = lastInstancesFingerprint;
+		if (last != null && last.servers == servers) {
+			return last.value;
 		}
-		return Flux.fromIterable(Collections.singletonList(filteredInstances));
+		// covers every field the routers see, see LoadBalancerUtils#toPolarisInstance
+		long fingerprint = servers.size();
+		for (ServiceInstance server : servers) {
+			fingerprint = 31 * fingerprint + Objects.hashCode(server.getServiceId());
+			fingerprint = 31 * fingerprint + Objects.hashCode(server.getInstanceId());
+			fingerprint = 31 * fingerprint + Objects.hashCode(server.getScheme());
+			fingerprint = 31 * fingerprint + Objects.hashCode(server.getHost());
+			fingerprint = 31 * fingerprint + server.getPort();
+			fingerprint = 31 * fingerprint + Objects.hashCode(server.getMetadata());
+		}
+		lastInstancesFingerprint = new InstancesFingerprint(servers, fingerprint);
+		return fingerprint;
 	}
 
 	ProcessRoutersRequest buildProcessRoutersRequest(ServiceInstances serviceInstances, PolarisRouterContext key) {
+		return buildProcessRoutersRequest(serviceInstances, key, false, false);
+	}
+
+	private ProcessRoutersRequest buildProcessRoutersRequest(ServiceInstances serviceInstances,
+			PolarisRouterContext key, boolean metadataRouted, boolean nearbyBucketed) {
 		ProcessRoutersRequest processRoutersRequest = new ProcessRoutersRequest();
 		processRoutersRequest.setDstInstances(serviceInstances);
 
-		// metadata router
-		if (polarisMetadataRouterProperties.isEnabled()) {
+		// metadata router, unless instances are already matched by index
+		if (polarisMetadataRouterProperties.isEnabled() && !metadataRouted) {
 			Map<String, String> transitiveLabels = getRouterLabels(key, PolarisRouterContext.TRANSITIVE_LABELS);
-			processRoutersRequest.putRouterMetadata(MetadataRouter.ROUTER_TYPE_METADATA, transitiveLabels);
+			if (!transitiveLabels.isEmpty()) {
+				processRoutersRequest.putRouterMetadata(MetadataRouter.ROUTER_TYPE_METADATA, transitiveLabels);
+			}
 		}
 
-		// nearby router
-		if (polarisNearByRouterProperties.isEnabled()) {
-			Map<String, String> nearbyRouterMetadata = new HashMap<>();
-			nearbyRouterMetadata.put(NearbyRouter.ROUTER_ENABLED, "true");
-			processRoutersRequest.putRouterMetadata(NearbyRouter.ROUTER_TYPE_NEAR_BY, nearbyRouterMetadata);
+		// nearby router, unless instances are routed by locality buckets
+		if (polarisNearByRouterProperties.isEnabled() && !nearbyBucketed) {
+			processRoutersRequest.putRouterMetadata(NearbyRouter.ROUTER_TYPE_NEAR_BY, NEARBY_ROUTER_ENABLED);
 		}
 
 		// rule based router
 		// set dynamic switch for rule based router
 		boolean ruleBasedRouterEnabled = polarisRuleBasedRouterProperties.isEnabled();
-		Map<String, String> ruleRouterMetadata = new HashMap<>();
-		ruleRouterMetadata.put(RuleBasedRouter.ROUTER_ENABLED, String.valueOf(ruleBasedRouterEnabled));
-		processRoutersRequest.putRouterMetadata(RuleBasedRouter.ROUTER_TYPE_RULE_BASED, ruleRouterMetadata);
+		processRoutersRequest.putRouterMetadata(RuleBasedRouter.ROUTER_TYPE_RULE_BASED,
+				ruleBasedRouterEnabled ? RULE_BASED_ROUTER_ENABLED : RULE_BASED_ROUTER_DISABLED);
 
 		ServiceInfo serviceInfo = new ServiceInfo();
 		serviceInfo.setNamespace(MetadataContext.LOCAL_NAMESPACE);
@@ -207,4 +633,55 @@ public class PolarisRouterServiceInstanceListSupplier extends DelegatingServiceI
 		}
 		return Collections.emptyMap();
 	}
+
+	/**
+	 * Routers that can affect the instances of destination service, as far as routing rules tell.
+	 */
+	private static final class RoutingPlan {
+
+		private final long ruleRevision;
+
+		private final boolean hasRouteRules;
+
+		private RoutingPlan(long ruleRevision, boolean hasRouteRules) {
+			this.ruleRevision = ruleRevision;
+			this.hasRouteRules = hasRouteRules;
+		}
+	}
+
+	private static final class MetadataIndex {
+
+		private final ConvertedServiceInstances convertedInstances;
+
+		private final MetadataIndexRouter router;
+
+		private MetadataIndex(ConvertedServiceInstances convertedInstances, MetadataIndexRouter router) {
+			this.convertedInstances = convertedInstances;
+			this.router = router;
+		}
+	}
+
+	private static final class NearbyBuckets {
+
+		private final ConvertedServiceInstances convertedInstances;
+
+		private final NearbyBucketRouter router;
+
+		private NearbyBuckets(ConvertedServiceInstances convertedInstances, NearbyBucketRouter router) {
+			this.convertedInstances = convertedInstances;
+			this.router = router;
+		}
+	}
+
+	private static final class InstancesFingerprint {
+
+		private final List<ServiceInstance> servers;
+
+		private final long value;
+
+		private InstancesFingerprint(List<ServiceInstance> servers, long value) {
+			this.servers = servers;
+			this.value = value;
+		}
+	}
 }
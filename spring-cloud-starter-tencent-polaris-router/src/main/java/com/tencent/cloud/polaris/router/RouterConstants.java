@@ -26,7 +26,12 @@ package com.tencent.cloud.polaris.router;
 public class RouterConstants {
 
 	/**
-	 * the header of router label.
+	 * the header of router label. RestTemplate hands router labels over in process and never sends this header.
 	 */
 	public static final String ROUTER_LABEL_HEADER = "internal-router-label";
+
+	/**
+	 * the request attribute of router context. WebClient hands router context over to load balancer through it.
+	 */
+	public static final String ROUTER_CONTEXT_ATTRIBUTE = PolarisRouterContext.class.getName();
 }
@@ -22,35 +22,122 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.tencent.cloud.common.util.ExpressionLabelUtils;
 import com.tencent.cloud.polaris.context.ServiceRuleManager;
+import com.tencent.polaris.api.plugin.registry.AbstractResourceEventListener;
+import com.tencent.polaris.api.pojo.RegistryCacheValue;
+import com.tencent.polaris.api.pojo.ServiceEventKey;
 import com.tencent.polaris.client.pb.ModelProto;
 import com.tencent.polaris.client.pb.RoutingProto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.util.CollectionUtils;
 
 /**
  * Resolve label expressions from routing rules.
+ * <p>
+ * Label keys are a pure function of routing rules, so they are cached per namespace, source and destination
+ * service. Cached keys of a service are dropped when the registry reports a change of its routing rules, and
+ * {@link #getRevision()} moves forward so that plans derived from the rules can be rebuilt.
+ *
  * @author lepdou 2022-05-19
  */
-public class RouterRuleLabelResolver {
+public class RouterRuleLabelResolver extends AbstractResourceEventListener {
+
+	private static final Logger LOG = LoggerFactory.getLogger(RouterRuleLabelResolver.class);
 
 	private final ServiceRuleManager serviceRuleManager;
 
+	private final Map<RuleKey, RouteRules> routeRulesCache = new ConcurrentHashMap<>();
+
+	private final AtomicLong revision = new AtomicLong();
+
 	public RouterRuleLabelResolver(ServiceRuleManager serviceRuleManager) {
 		this.serviceRuleManager = serviceRuleManager;
 	}
 
 	public Set<String> getExpressionLabelKeys(String namespace, String sourceService, String dstService) {
-		List<RoutingProto.Route> rules = serviceRuleManager.getServiceRouterRule(namespace, sourceService, dstService);
+		return getRouteRules(namespace, sourceService, dstService).expressionLabelKeys;
+	}
+
+	/**
+	 * Get label expressions only if routing rules are cached, so that callers on non-blocking threads can avoid
+	 * fetching routing rules.
+	 * @param namespace namespace
+	 * @param sourceService source service
+	 * @param dstService destination service
+	 * @return label expressions, null if routing rules are not cached
+	 */
+	public Set<String> getCachedExpressionLabelKeys(String namespace, String sourceService, String dstService) {
+		RouteRules routeRules = routeRulesCache.get(new RuleKey(namespace, sourceService, dstService));
+		return routeRules != null ? routeRules.expressionLabelKeys : null;
+	}
 
+	/**
+	 * Get label keys matched by source of routing rules only if routing rules are cached. Rule based router reads
+	 * no other label.
+	 * @param namespace namespace
+	 * @param sourceService source service
+	 * @param dstService destination service
+	 * @return label keys, null if routing rules are not cached
+	 */
+	public Set<String> getCachedLabelKeys(String namespace, String sourceService, String dstService) {
+		RouteRules routeRules = routeRulesCache.get(new RuleKey(namespace, sourceService, dstService));
+		return routeRules != null ? routeRules.labelKeys : null;
+	}
+
+	/**
+	 * Whether any routing rule applies between source and destination service.
+	 * @param namespace namespace
+	 * @param sourceService source service
+	 * @param dstService destination service
+	 * @return true if outbound rules of source or inbound rules of destination exist
+	 */
+	public boolean hasRouteRules(String namespace, String sourceService, String dstService) {
+		return getRouteRules(namespace, sourceService, dstService).present;
+	}
+
+	/**
+	 * Revision of routing rules, increased on every change of routing rules reported by the registry.
+	 * @return revision
+	 */
+	public long getRevision() {
+		return revision.get();
+	}
+
+	private RouteRules getRouteRules(String namespace, String sourceService, String dstService) {
+		RuleKey ruleKey = new RuleKey(namespace, sourceService, dstService);
+		RouteRules routeRules = routeRulesCache.get(ruleKey);
+		if (routeRules == null) {
+			// rules fetched across a change must not outlive the invalidation of that change
+			long fetchRevision = revision.get();
+			List<RoutingProto.Route> rules = serviceRuleManager.getServiceRouterRule(namespace, sourceService,
+					dstService);
+			Set<String> labelKeys = resolveLabelKeys(rules);
+			routeRules = new RouteRules(!CollectionUtils.isEmpty(rules), labelKeys, resolveExpressionLabelKeys(labelKeys));
+			if (revision.get() == fetchRevision) {
+				routeRulesCache.put(ruleKey, routeRules);
+				// a change may have been invalidated between the check and the put
+				if (revision.get() != fetchRevision) {
+					routeRulesCache.remove(ruleKey, routeRules);
+				}
+			}
+		}
+		return routeRules;
+	}
+
+	private Set<String> resolveLabelKeys(List<RoutingProto.Route> rules) {
 		if (CollectionUtils.isEmpty(rules)) {
 			return Collections.emptySet();
 		}
 
-		Set<String> expressionLabels = new HashSet<>();
+		Set<String> labelKeys = new HashSet<>();
 
 		for (RoutingProto.Route rule : rules) {
 			List<RoutingProto.Source> sources = rule.getSourcesList();
@@ -59,17 +146,100 @@ public class RouterRuleLabelResolver {
 			}
 			for (RoutingProto.Source source : sources) {
 				Map<String, ModelProto.MatchString> labels = source.getMetadataMap();
-				if (CollectionUtils.isEmpty(labels)) {
-					continue;
-				}
-				for (String labelKey : labels.keySet()) {
-					if (ExpressionLabelUtils.isExpressionLabel(labelKey)) {
-						expressionLabels.add(labelKey);
-					}
+				if (!CollectionUtils.isEmpty(labels)) {
+					labelKeys.addAll(labels.keySet());
 				}
 			}
 		}
 
-		return expressionLabels;
+		return Collections.unmodifiableSet(labelKeys);
+	}
+
+	private Set<String> resolveExpressionLabelKeys(Set<String> labelKeys) {
+		Set<String> expressionLabels = new HashSet<>();
+		for (String labelKey : labelKeys) {
+			if (ExpressionLabelUtils.isExpressionLabel(labelKey)) {
+				expressionLabels.add(labelKey);
+			}
+		}
+		return expressionLabels.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(expressionLabels);
+	}
+
+	@Override
+	public void onResourceAdd(ServiceEventKey svcEventKey, RegistryCacheValue newValue) {
+		onResourceChanged(svcEventKey);
+	}
+
+	@Override
+	public void onResourceUpdated(ServiceEventKey svcEventKey, RegistryCacheValue oldValue,
+			RegistryCacheValue newValue) {
+		onResourceChanged(svcEventKey);
+	}
+
+	@Override
+	public void onResourceDeleted(ServiceEventKey svcEventKey, RegistryCacheValue oldValue) {
+		onResourceChanged(svcEventKey);
+	}
+
+	private void onResourceChanged(ServiceEventKey svcEventKey) {
+		if (svcEventKey.getEventType() != ServiceEventKey.EventType.ROUTING) {
+			return;
+		}
+		// outbound rules of source and inbound rules of destination both contribute label keys
+		String namespace = svcEventKey.getNamespace();
+		String service = svcEventKey.getService();
+		revision.incrementAndGet();
+		routeRulesCache.keySet().removeIf(ruleKey -> Objects.equals(ruleKey.namespace, namespace)
+				&& (Objects.equals(ruleKey.sourceService, service) || Objects.equals(ruleKey.dstService, service)));
+		LOG.debug("Invalidate cached routing rules by event of {}.", svcEventKey);
+	}
+
+	private static final class RouteRules {
+
+		private final boolean present;
+
+		private final Set<String> labelKeys;
+
+		private final Set<String> expressionLabelKeys;
+
+		private RouteRules(boolean present, Set<String> labelKeys, Set<String> expressionLabelKeys) {
+			this.present = present;
+			this.labelKeys = labelKeys;
+			this.expressionLabelKeys = expressionLabelKeys;
+		}
+	}
+
+	private static final class RuleKey {
+
+		private final String namespace;
+
+		private final String sourceService;
+
+		private final String dstService;
+
+		private RuleKey(String namespace, String sourceService, String dstService) {
+			this.namespace = namespace;
+			this.sourceService = sourceService;
+			this.dstService = dstService;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof RuleKey)) {
+				return false;
+			}
+			RuleKey that = (RuleKey) o;
+			return Objects.equals(namespace, that.namespace)
+					&& Objects.equals(sourceService, that.sourceService)
+					&& Objects.equals(dstService, that.dstService);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(namespace, sourceService, dstService);
+		}
 	}
 }
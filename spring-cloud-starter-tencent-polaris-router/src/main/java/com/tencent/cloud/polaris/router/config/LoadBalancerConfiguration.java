@@ -18,7 +18,10 @@
 
 package com.tencent.cloud.polaris.router.config;
 
+import com.tencent.cloud.common.metadata.StaticMetadataManager;
+import com.tencent.cloud.polaris.router.PolarisRouterResultCache;
 import com.tencent.cloud.polaris.router.PolarisRouterServiceInstanceListSupplier;
+import com.tencent.cloud.polaris.router.RouterRuleLabelResolver;
 import com.tencent.polaris.router.api.core.RouterAPI;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -32,6 +35,7 @@ import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.lang.Nullable;
 
 /**
  * Auto configuration for ribbon components.
@@ -58,13 +62,19 @@ public class LoadBalancerConfiguration {
 				RouterAPI routerAPI,
 				PolarisNearByRouterProperties polarisNearByRouterProperties,
 				PolarisMetadataRouterProperties polarisMetadataRouterProperties,
-				PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties) {
+				PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties,
+				@Nullable PolarisRouterResultCache polarisRouterResultCache,
+				@Nullable RouterRuleLabelResolver routerRuleLabelResolver,
+				@Nullable StaticMetadataManager staticMetadataManager) {
 			return new PolarisRouterServiceInstanceListSupplier(
 					ServiceInstanceListSupplier.builder().withDiscoveryClient().build(context),
 					routerAPI,
 					polarisNearByRouterProperties,
 					polarisMetadataRouterProperties,
-					polarisRuleBasedRouterProperties);
+					polarisRuleBasedRouterProperties,
+					polarisRouterResultCache,
+					routerRuleLabelResolver,
+					staticMetadataManager);
 		}
 
 	}
@@ -81,13 +91,19 @@ public class LoadBalancerConfiguration {
 				RouterAPI routerAPI,
 				PolarisNearByRouterProperties polarisNearByRouterProperties,
 				PolarisMetadataRouterProperties polarisMetadataRouterProperties,
-				PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties) {
+				PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties,
+				@Nullable PolarisRouterResultCache polarisRouterResultCache,
+				@Nullable RouterRuleLabelResolver routerRuleLabelResolver,
+				@Nullable StaticMetadataManager staticMetadataManager) {
 			return new PolarisRouterServiceInstanceListSupplier(
 					ServiceInstanceListSupplier.builder().withBlockingDiscoveryClient().build(context),
 					routerAPI,
 					polarisNearByRouterProperties,
 					polarisMetadataRouterProperties,
-					polarisRuleBasedRouterProperties);
+					polarisRuleBasedRouterProperties,
+					polarisRouterResultCache,
+					routerRuleLabelResolver,
+					staticMetadataManager);
 		}
 	}
 }
@@ -29,6 +29,11 @@ public class PolarisMetadataRouterProperties {
 
 	private boolean enabled = true;
 
+	/**
+	 * Implementation of metadata router.
+	 */
+	private Type type = Type.DEFAULT;
+
 	public boolean isEnabled() {
 		return enabled;
 	}
@@ -37,10 +42,35 @@ public class PolarisMetadataRouterProperties {
 		this.enabled = enabled;
 	}
 
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
 	@Override
 	public String toString() {
 		return "PolarisMetadataRouterProperties{" +
 				"enabled=" + enabled +
+				", type=" + type +
 				'}';
 	}
+
+	/**
+	 * Implementation of metadata router.
+	 */
+	public enum Type {
+
+		/**
+		 * Metadata router of Polaris, which scans metadata of every instance.
+		 */
+		DEFAULT,
+
+		/**
+		 * Match by an inverted index of instance metadata, built once per instance list.
+		 */
+		INDEXED
+	}
 }
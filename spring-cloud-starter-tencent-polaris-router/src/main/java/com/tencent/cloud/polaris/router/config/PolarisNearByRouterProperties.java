@@ -30,6 +30,17 @@ public class PolarisNearByRouterProperties {
 
 	private boolean enabled = true;
 
+	/**
+	 * Implementation of nearby router.
+	 */
+	private Type type = Type.DEFAULT;
+
+	/**
+	 * Minimum fraction of healthy instances a locality bucket needs before it is chosen, used by bucketed nearby
+	 * router. Otherwise the router spills to the next level.
+	 */
+	private double minHealthyFraction = 0.0;
+
 	public boolean isEnabled() {
 		return enabled;
 	}
@@ -38,10 +49,44 @@ public class PolarisNearByRouterProperties {
 		this.enabled = enabled;
 	}
 
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	public double getMinHealthyFraction() {
+		return minHealthyFraction;
+	}
+
+	public void setMinHealthyFraction(double minHealthyFraction) {
+		this.minHealthyFraction = minHealthyFraction;
+	}
+
 	@Override
 	public String toString() {
 		return "PolarisNearByRouterProperties{" +
 				"enabled=" + enabled +
+				", type=" + type +
+				", minHealthyFraction=" + minHealthyFraction +
 				'}';
 	}
+
+	/**
+	 * Implementation of nearby router.
+	 */
+	public enum Type {
+
+		/**
+		 * Nearby router of Polaris, which matches location of every instance per call.
+		 */
+		DEFAULT,
+
+		/**
+		 * Match by locality buckets of same campus, zone and region, built once per instance list.
+		 */
+		BUCKETED
+	}
 }
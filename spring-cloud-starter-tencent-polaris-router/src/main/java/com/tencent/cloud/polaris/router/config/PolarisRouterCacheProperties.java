@@ -0,0 +1,59 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.polaris.router.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * the configuration for routing result cache.
+ *
+ * @author Haotian Zhang
+ */
+@ConfigurationProperties(prefix = "spring.cloud.polaris.router.cache")
+public class PolarisRouterCacheProperties {
+
+	private boolean enabled = true;
+
+	private int maxEntriesPerService = 256;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getMaxEntriesPerService() {
+		return maxEntriesPerService;
+	}
+
+	public void setMaxEntriesPerService(int maxEntriesPerService) {
+		this.maxEntriesPerService = maxEntriesPerService;
+	}
+
+	@Override
+	public String toString() {
+		return "PolarisRouterCacheProperties{" +
+				"enabled=" + enabled +
+				", maxEntriesPerService=" + maxEntriesPerService +
+				'}';
+	}
+}
@@ -22,17 +22,24 @@ import java.util.List;
 
 import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
 import com.tencent.cloud.polaris.context.ServiceRuleManager;
+import com.tencent.cloud.polaris.router.PolarisRouterResultCache;
 import com.tencent.cloud.polaris.router.RouterRuleLabelResolver;
+import com.tencent.cloud.polaris.router.feign.RouterLabelFeignBeanPostProcessor;
 import com.tencent.cloud.polaris.router.feign.RouterLabelFeignInterceptor;
 import com.tencent.cloud.polaris.router.resttemplate.PolarisLoadBalancerBeanPostProcessor;
 import com.tencent.cloud.polaris.router.spi.RouterLabelResolver;
+import com.tencent.cloud.polaris.router.webclient.PolarisWebClientBeanPostProcessor;
+import com.tencent.polaris.client.api.SDKContext;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.annotation.Order;
 import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
 
@@ -43,7 +50,8 @@ import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
  */
 @Configuration
 @LoadBalancerClients(defaultConfiguration = LoadBalancerConfiguration.class)
-@Import({PolarisNearByRouterProperties.class, PolarisMetadataRouterProperties.class, PolarisRuleBasedRouterProperties.class})
+@Import({PolarisNearByRouterProperties.class, PolarisMetadataRouterProperties.class, PolarisRuleBasedRouterProperties.class,
+		PolarisRouterCacheProperties.class})
 public class RouterAutoConfiguration {
 
 	@Bean
@@ -60,7 +68,49 @@ public class RouterAutoConfiguration {
 	}
 
 	@Bean
-	public RouterRuleLabelResolver routerRuleLabelResolver(ServiceRuleManager serviceRuleManager) {
-		return new RouterRuleLabelResolver(serviceRuleManager);
+	public RouterRuleLabelResolver routerRuleLabelResolver(ServiceRuleManager serviceRuleManager,
+			SDKContext sdkContext) {
+		RouterRuleLabelResolver routerRuleLabelResolver = new RouterRuleLabelResolver(serviceRuleManager);
+		// drop cached label keys when routing rules change
+		sdkContext.getExtensions().getLocalRegistry().registerResourceListener(routerRuleLabelResolver);
+		return routerRuleLabelResolver;
+	}
+
+	@Bean
+	@ConditionalOnProperty(value = "spring.cloud.polaris.router.cache.enabled", matchIfMissing = true)
+	public PolarisRouterResultCache polarisRouterResultCache(SDKContext sdkContext,
+			PolarisRouterCacheProperties polarisRouterCacheProperties) {
+		PolarisRouterResultCache polarisRouterResultCache = new PolarisRouterResultCache(
+				polarisRouterCacheProperties.getMaxEntriesPerService());
+		// drop cached results when instances or routing rules change
+		sdkContext.getExtensions().getLocalRegistry().registerResourceListener(polarisRouterResultCache);
+		return polarisRouterResultCache;
+	}
+
+	/**
+	 * Removal of router label header from Feign requests, available when Feign load balancer is present.
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(name = "org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient")
+	static class FeignRouterConfiguration {
+
+		@Bean
+		public static RouterLabelFeignBeanPostProcessor routerLabelFeignBeanPostProcessor() {
+			return new RouterLabelFeignBeanPostProcessor();
+		}
+	}
+
+	/**
+	 * Router labels of WebClient, available when WebFlux is present.
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(WebClient.class)
+	static class WebClientRouterConfiguration {
+
+		@Bean
+		@Order(HIGHEST_PRECEDENCE)
+		public static PolarisWebClientBeanPostProcessor polarisWebClientBeanPostProcessor() {
+			return new PolarisWebClientBeanPostProcessor();
+		}
 	}
 }
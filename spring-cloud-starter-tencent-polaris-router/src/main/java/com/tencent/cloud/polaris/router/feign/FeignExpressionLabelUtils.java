@@ -21,15 +21,13 @@ package com.tencent.cloud.polaris.router.feign;
 import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import com.tencent.cloud.common.util.ExpressionLabelUtils;
+import com.tencent.cloud.common.util.expression.ExpressionLabelPlan;
+import com.tencent.cloud.common.util.expression.ExpressionLabelSource;
 import feign.RequestTemplate;
-import org.apache.commons.lang.StringUtils;
-
-import org.springframework.util.CollectionUtils;
 
 /**
  * Resolve rule expression label from feign request.
@@ -38,37 +36,14 @@ import org.springframework.util.CollectionUtils;
 public class FeignExpressionLabelUtils {
 
 	public static Map<String, String> resolve(RequestTemplate request, Set<String> labelKeys) {
-		if (CollectionUtils.isEmpty(labelKeys)) {
-			return Collections.emptyMap();
-		}
+		return resolve(request, ExpressionLabelPlan.of(labelKeys));
+	}
 
-		Map<String, String> labels = new HashMap<>();
-
-		for (String labelKey : labelKeys) {
-			if (StringUtils.startsWithIgnoreCase(labelKey, ExpressionLabelUtils.LABEL_HEADER_PREFIX)) {
-				String headerKey = ExpressionLabelUtils.parseHeaderKey(labelKey);
-				if (StringUtils.isBlank(headerKey)) {
-					continue;
-				}
-				labels.put(labelKey, getHeaderValue(request, headerKey));
-			}
-			else if (StringUtils.startsWithIgnoreCase(labelKey, ExpressionLabelUtils.LABEL_QUERY_PREFIX)) {
-				String queryKey = ExpressionLabelUtils.parseQueryKey(labelKey);
-				if (StringUtils.isBlank(queryKey)) {
-					continue;
-				}
-				labels.put(labelKey, getQueryValue(request, queryKey));
-			}
-			else if (StringUtils.equalsIgnoreCase(ExpressionLabelUtils.LABEL_METHOD, labelKey)) {
-				labels.put(labelKey, request.method());
-			}
-			else if (StringUtils.equalsIgnoreCase(ExpressionLabelUtils.LABEL_URI, labelKey)) {
-				URI uri = URI.create(request.request().url());
-				labels.put(labelKey, uri.getPath());
-			}
+	public static Map<String, String> resolve(RequestTemplate request, ExpressionLabelPlan plan) {
+		if (plan.isEmpty()) {
+			return Collections.emptyMap();
 		}
-
-		return labels;
+		return plan.resolve(new FeignLabelSource(request));
 	}
 
 	public static String getHeaderValue(RequestTemplate request, String key) {
@@ -80,4 +55,39 @@ public class FeignExpressionLabelUtils {
 	public static String getQueryValue(RequestTemplate request, String key) {
 		return ExpressionLabelUtils.getFirstValue(request.queries(), key);
 	}
+
+	private static final class FeignLabelSource implements ExpressionLabelSource {
+
+		private final RequestTemplate request;
+
+		FeignLabelSource(RequestTemplate request) {
+			this.request = request;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return getHeaderValue(request, name);
+		}
+
+		@Override
+		public String getQuery(String name) {
+			return getQueryValue(request, name);
+		}
+
+		@Override
+		public String getCookie(String name) {
+			// cookie is not supported by feign request.
+			return null;
+		}
+
+		@Override
+		public String getMethod() {
+			return request.method();
+		}
+
+		@Override
+		public String getUri() {
+			return URI.create(request.request().url()).getPath();
+		}
+	}
 }
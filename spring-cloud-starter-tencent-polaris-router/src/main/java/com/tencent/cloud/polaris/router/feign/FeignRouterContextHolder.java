@@ -0,0 +1,96 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+package com.tencent.cloud.polaris.router.feign;
+
+import com.tencent.cloud.polaris.router.PolarisRouterContext;
+
+/**
+ * Router context of Feign requests, handed over in process instead of a serialized label header.
+ * {@link RouterLabelFeignInterceptor} offers the context for the request template it applies to, and
+ * {@link RouterLabelFeignLoadBalancerClient} binds it to current thread while the request built from that template
+ * is load balanced. Free of Feign types, so routers can look it up without Feign on the classpath.
+ *
+ * @author Haotian Zhang
+ */
+public final class FeignRouterContextHolder {
+
+	private static final ThreadLocal<Binding> OFFERED = new ThreadLocal<>();
+
+	private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<>();
+
+	private FeignRouterContextHolder() {
+	}
+
+	static void offer(Object requestTemplate, PolarisRouterContext routerContext) {
+		OFFERED.set(new Binding(requestTemplate, routerContext));
+	}
+
+	/**
+	 * Take the router context offered for request template. A context offered for another template is dropped.
+	 * @param requestTemplate request template
+	 * @return router context, null if not offered
+	 */
+	static PolarisRouterContext take(Object requestTemplate) {
+		Binding offered = OFFERED.get();
+		if (offered == null) {
+			return null;
+		}
+		OFFERED.remove();
+		return offered.owner == requestTemplate ? offered.routerContext : null;
+	}
+
+	static Binding bind(String serviceId, PolarisRouterContext routerContext) {
+		Binding previous = CURRENT.get();
+		CURRENT.set(new Binding(serviceId, routerContext));
+		return previous;
+	}
+
+	static void restore(Binding previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		}
+		else {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Router context of the Feign request load balanced by current thread.
+	 * @param serviceId service id of the request data built by load balancer
+	 * @return router context, null if absent
+	 */
+	public static PolarisRouterContext current(String serviceId) {
+		Binding current = CURRENT.get();
+		if (current != null && current.owner.equals(serviceId)) {
+			return current.routerContext;
+		}
+		return null;
+	}
+
+	static final class Binding {
+
+		private final Object owner;
+
+		private final PolarisRouterContext routerContext;
+
+		private Binding(Object owner, PolarisRouterContext routerContext) {
+			this.owner = owner;
+			this.routerContext = routerContext;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router.feign;
+
+import feign.Client;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.client.loadbalancer.LoadBalancedRetryFactory;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerProperties;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.RetryableFeignBlockingLoadBalancerClient;
+import org.springframework.core.Ordered;
+
+/**
+ * Wrap Feign load balancer client with {@link RouterLabelFeignLoadBalancerClient}, which hands over router context
+ * resolved by {@link RouterLabelFeignInterceptor} in process. Wrapped after initialization, so other post processors
+ * which rebuild the load balancer client before initialization do not drop it. The delegate is still wrapped with
+ * {@link RouterLabelFeignClient} ahead of them, as a guard removing any router label header before sending.
+ *
+ * @author Haotian Zhang
+ */
+public class RouterLabelFeignBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware, Ordered {
+
+	private BeanFactory factory;
+
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+		if (bean instanceof RetryableFeignBlockingLoadBalancerClient) {
+			Client delegate = ((RetryableFeignBlockingLoadBalancerClient) bean).getDelegate();
+			if (isNeedWrap(delegate)) {
+				return new RetryableFeignBlockingLoadBalancerClient(new RouterLabelFeignClient(delegate),
+						factory.getBean(LoadBalancerClient.class),
+						factory.getBean(LoadBalancedRetryFactory.class),
+						factory.getBean(LoadBalancerProperties.class),
+						factory.getBean(LoadBalancerClientFactory.class));
+			}
+		}
+		else if (bean instanceof FeignBlockingLoadBalancerClient) {
+			Client delegate = ((FeignBlockingLoadBalancerClient) bean).getDelegate();
+			if (isNeedWrap(delegate)) {
+				return new FeignBlockingLoadBalancerClient(new RouterLabelFeignClient(delegate),
+						factory.getBean(LoadBalancerClient.class),
+						factory.getBean(LoadBalancerProperties.class),
+						factory.getBean(LoadBalancerClientFactory.class));
+			}
+		}
+		return bean;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (bean instanceof RouterLabelFeignLoadBalancerClient) {
+			return bean;
+		}
+		if (bean instanceof RetryableFeignBlockingLoadBalancerClient || bean instanceof FeignBlockingLoadBalancerClient) {
+			return new RouterLabelFeignLoadBalancerClient((Client) bean,
+					factory.getBean(LoadBalancerClient.class),
+					factory.getBean(LoadBalancerProperties.class),
+					factory.getBean(LoadBalancerClientFactory.class));
+		}
+		return bean;
+	}
+
+	private boolean isNeedWrap(Client delegate) {
+		return delegate != null && !(delegate instanceof RouterLabelFeignClient);
+	}
+
+	@Override
+	public int getOrder() {
+		return HIGHEST_PRECEDENCE;
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+		this.factory = beanFactory;
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router.feign;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.tencent.cloud.polaris.router.RouterConstants;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * Feign client which removes the router label header before the request leaves this service. It is the delegate
+ * of the load balancer client, so the header has been consumed by the routers when it gets here.
+ *
+ * @author Haotian Zhang
+ */
+public class RouterLabelFeignClient implements Client {
+
+	private final Client delegate;
+
+	public RouterLabelFeignClient(Client delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		return delegate.execute(stripRouterLabelHeader(request), options);
+	}
+
+	public Client getDelegate() {
+		return delegate;
+	}
+
+	static Request stripRouterLabelHeader(Request request) {
+		Map<String, Collection<String>> headers = request.headers();
+		Map<String, Collection<String>> strippedHeaders = null;
+		for (String name : headers.keySet()) {
+			if (RouterConstants.ROUTER_LABEL_HEADER.equalsIgnoreCase(name)) {
+				if (strippedHeaders == null) {
+					strippedHeaders = new LinkedHashMap<>(headers);
+				}
+				strippedHeaders.remove(name);
+			}
+		}
+		if (strippedHeaders == null) {
+			return request;
+		}
+		return Request.create(request.httpMethod(), request.url(), strippedHeaders, request.body(),
+				request.charset(), request.requestTemplate());
+	}
+
+}
@@ -18,11 +18,9 @@
 
 package com.tencent.cloud.polaris.router.feign;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -30,8 +28,9 @@ import java.util.Set;
 import com.tencent.cloud.common.metadata.MetadataContext;
 import com.tencent.cloud.common.metadata.MetadataContextHolder;
 import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
-import com.tencent.cloud.common.util.JacksonUtils;
-import com.tencent.cloud.polaris.router.RouterConstants;
+import com.tencent.cloud.common.util.LayeredMap;
+import com.tencent.cloud.common.util.expression.ExpressionLabelPlan;
+import com.tencent.cloud.polaris.router.PolarisRouterContext;
 import com.tencent.cloud.polaris.router.RouterRuleLabelResolver;
 import com.tencent.cloud.polaris.router.spi.RouterLabelResolver;
 import feign.RequestInterceptor;
@@ -75,13 +74,14 @@ public class RouterLabelFeignInterceptor implements RequestInterceptor, Ordered
 
 	@Override
 	public void apply(RequestTemplate requestTemplate) {
+		List<Map<String, String>> labelLayers = new ArrayList<>(4);
+
 		// local service labels
-		Map<String, String> labels = new HashMap<>(metadataLocalProperties.getContent());
+		labelLayers.add(metadataLocalProperties.getContent());
 
 		// labels from rule expression
 		String peerServiceName = requestTemplate.feignTarget().name();
-		Map<String, String> ruleExpressionLabels = getRuleExpressionLabels(requestTemplate, peerServiceName);
-		labels.putAll(ruleExpressionLabels);
+		labelLayers.add(getRuleExpressionLabels(requestTemplate, peerServiceName));
 
 		// labels from request
 		if (!CollectionUtils.isEmpty(routerLabelResolvers)) {
@@ -89,7 +89,7 @@ public class RouterLabelFeignInterceptor implements RequestInterceptor, Ordered
 				try {
 					Map<String, String> customResolvedLabels = resolver.resolve(requestTemplate);
 					if (!CollectionUtils.isEmpty(customResolvedLabels)) {
-						labels.putAll(customResolvedLabels);
+						labelLayers.add(customResolvedLabels);
 					}
 				}
 				catch (Throwable t) {
@@ -101,32 +101,28 @@ public class RouterLabelFeignInterceptor implements RequestInterceptor, Ordered
 		// labels from downstream
 		Map<String, String> transitiveLabels = MetadataContextHolder.get()
 				.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
-		labels.putAll(transitiveLabels);
+		labelLayers.add(transitiveLabels);
 
-		// pass label by header
-		if (labels.size() == 0) {
-			requestTemplate.header(RouterConstants.ROUTER_LABEL_HEADER);
-			return;
-		}
-		try {
-			String headerMetadataStr = URLEncoder.encode(JacksonUtils.serialize2Json(labels), "UTF-8");
-			requestTemplate.header(RouterConstants.ROUTER_LABEL_HEADER, headerMetadataStr);
-		}
-		catch (UnsupportedEncodingException e) {
-			LOGGER.error("Set header failed.", e);
-			throw new RuntimeException(e);
-		}
+		// later layers override earlier ones, read through without merging
+		Map<String, String> labels = LayeredMap.of(labelLayers);
+
+		// hand over labels in process to the load balancer client, instead of serializing them into header
+		PolarisRouterContext routerContext = new PolarisRouterContext();
+		routerContext.setLabels(PolarisRouterContext.TRANSITIVE_LABELS, transitiveLabels);
+		routerContext.setLabels(PolarisRouterContext.RULE_ROUTER_LABELS, labels);
+		FeignRouterContextHolder.offer(requestTemplate, routerContext);
 	}
 
 	private Map<String, String> getRuleExpressionLabels(RequestTemplate requestTemplate, String peerService) {
 		Set<String> labelKeys = routerRuleLabelResolver.getExpressionLabelKeys(MetadataContext.LOCAL_NAMESPACE,
 				MetadataContext.LOCAL_SERVICE, peerService);
+		ExpressionLabelPlan plan = ExpressionLabelPlan.of(labelKeys);
 
-		if (CollectionUtils.isEmpty(labelKeys)) {
+		if (plan.isEmpty()) {
 			return Collections.emptyMap();
 		}
 
-		return FeignExpressionLabelUtils.resolve(requestTemplate, labelKeys);
+		return FeignExpressionLabelUtils.resolve(requestTemplate, plan);
 	}
 
 }
@@ -0,0 +1,83 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+package com.tencent.cloud.polaris.router.feign;
+
+import java.io.IOException;
+import java.net.URI;
+
+import com.tencent.cloud.polaris.router.PolarisRouterContext;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerProperties;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.RetryableFeignBlockingLoadBalancerClient;
+
+/**
+ * Wrapper of Feign load balancer client, which binds the router context resolved by
+ * {@link RouterLabelFeignInterceptor} to current thread while the request is load balanced, the same way as
+ * {@link com.tencent.cloud.polaris.router.resttemplate.PolarisLoadBalancerRequest} does for RestTemplate. It is a
+ * {@link FeignBlockingLoadBalancerClient} exposing the delegate of the wrapped client, so Feign clients with a url
+ * still unwrap it.
+ *
+ * @author Haotian Zhang
+ */
+public class RouterLabelFeignLoadBalancerClient extends FeignBlockingLoadBalancerClient {
+
+	private final Client loadBalancerClient;
+
+	public RouterLabelFeignLoadBalancerClient(Client loadBalancerClient, LoadBalancerClient loadBalancer,
+			LoadBalancerProperties properties, LoadBalancerClientFactory loadBalancerClientFactory) {
+		super(getDelegate(loadBalancerClient), loadBalancer, properties, loadBalancerClientFactory);
+		this.loadBalancerClient = loadBalancerClient;
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options) throws IOException {
+		PolarisRouterContext routerContext = FeignRouterContextHolder.take(request.requestTemplate());
+		if (routerContext == null) {
+			return loadBalancerClient.execute(request, options);
+		}
+		// service id is taken from the url the same way as the load balancer client does
+		FeignRouterContextHolder.Binding previous = FeignRouterContextHolder.bind(
+				URI.create(request.url()).getHost(), routerContext);
+		try {
+			return loadBalancerClient.execute(request, options);
+		}
+		finally {
+			FeignRouterContextHolder.restore(previous);
+		}
+	}
+
+	public Client getLoadBalancerClient() {
+		return loadBalancerClient;
+	}
+
+	private static Client getDelegate(Client loadBalancerClient) {
+		if (loadBalancerClient instanceof RetryableFeignBlockingLoadBalancerClient) {
+			return ((RetryableFeignBlockingLoadBalancerClient) loadBalancerClient).getDelegate();
+		}
+		if (loadBalancerClient instanceof FeignBlockingLoadBalancerClient) {
+			return ((FeignBlockingLoadBalancerClient) loadBalancerClient).getDelegate();
+		}
+		return loadBalancerClient;
+	}
+}
@@ -19,12 +19,10 @@
 package com.tencent.cloud.polaris.router.resttemplate;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
-import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,7 +31,9 @@ import com.tencent.cloud.common.metadata.MetadataContext;
 import com.tencent.cloud.common.metadata.MetadataContextHolder;
 import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
 import com.tencent.cloud.common.util.ExpressionLabelUtils;
-import com.tencent.cloud.common.util.JacksonUtils;
+import com.tencent.cloud.common.util.LayeredMap;
+import com.tencent.cloud.common.util.expression.ExpressionLabelPlan;
+import com.tencent.cloud.polaris.router.PolarisRouterContext;
 import com.tencent.cloud.polaris.router.RouterConstants;
 import com.tencent.cloud.polaris.router.RouterRuleLabelResolver;
 import com.tencent.cloud.polaris.router.spi.RouterLabelResolver;
@@ -92,21 +92,22 @@ public class PolarisLoadBalancerInterceptor extends LoadBalancerInterceptor {
 		Assert.state(peerServiceName != null,
 				"Request URI does not contain a valid hostname: " + originalUri);
 
-		setLabelsToHeaders(request, body, peerServiceName);
+		PolarisRouterContext routerContext = buildRouterContext(request, body, peerServiceName);
+		// router labels are handed over to load balancer in process, they are never sent to the callee
+		request.getHeaders().remove(RouterConstants.ROUTER_LABEL_HEADER);
 
-		return this.loadBalancer.execute(peerServiceName,
-				new PolarisLoadBalancerRequest<>(request, this.requestFactory.createRequest(request, body, execution)));
+		return new PolarisLoadBalancerRequest<>(request, this.requestFactory.createRequest(request, body, execution),
+				routerContext).execute(this.loadBalancer, peerServiceName);
 	}
 
-	void setLabelsToHeaders(HttpRequest request, byte[] body, String peerServiceName) {
+	PolarisRouterContext buildRouterContext(HttpRequest request, byte[] body, String peerServiceName) {
+		List<Map<String, String>> labelLayers = new ArrayList<>(4);
+
 		// local service labels
-		Map<String, String> labels = new HashMap<>(metadataLocalProperties.getContent());
+		labelLayers.add(metadataLocalProperties.getContent());
 
 		// labels from rule expression
-		Map<String, String> ruleExpressionLabels = getExpressionLabels(request, peerServiceName);
-		if (!CollectionUtils.isEmpty(ruleExpressionLabels)) {
-			labels.putAll(ruleExpressionLabels);
-		}
+		labelLayers.add(getExpressionLabels(request, peerServiceName));
 
 		// labels from request
 		if (!CollectionUtils.isEmpty(routerLabelResolvers)) {
@@ -114,7 +115,7 @@ public class PolarisLoadBalancerInterceptor extends LoadBalancerInterceptor {
 				try {
 					Map<String, String> customResolvedLabels = resolver.resolve(request, body);
 					if (!CollectionUtils.isEmpty(customResolvedLabels)) {
-						labels.putAll(customResolvedLabels);
+						labelLayers.add(customResolvedLabels);
 					}
 				}
 				catch (Throwable t) {
@@ -126,31 +127,26 @@ public class PolarisLoadBalancerInterceptor extends LoadBalancerInterceptor {
 		// labels from downstream
 		Map<String, String> transitiveLabels = MetadataContextHolder.get()
 				.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
-		labels.putAll(transitiveLabels);
+		labelLayers.add(transitiveLabels);
 
-		// pass label by header
-		if (labels.size() == 0) {
-			request.getHeaders().set(RouterConstants.ROUTER_LABEL_HEADER, null);
-			return;
-		}
-		try {
-			String headerMetadataStr = URLEncoder.encode(JacksonUtils.serialize2Json(labels), "UTF-8");
-			request.getHeaders().set(RouterConstants.ROUTER_LABEL_HEADER, headerMetadataStr);
-		}
-		catch (UnsupportedEncodingException e) {
-			LOGGER.error("Set header failed.", e);
-			throw new RuntimeException(e);
-		}
+		// later layers override earlier ones, read through without merging
+		Map<String, String> labels = LayeredMap.of(labelLayers);
+
+		PolarisRouterContext routerContext = new PolarisRouterContext();
+		routerContext.setLabels(PolarisRouterContext.TRANSITIVE_LABELS, transitiveLabels);
+		routerContext.setLabels(PolarisRouterContext.RULE_ROUTER_LABELS, labels);
+		return routerContext;
 	}
 
 	private Map<String, String> getExpressionLabels(HttpRequest request, String peerServiceName) {
 		Set<String> labelKeys = routerRuleLabelResolver.getExpressionLabelKeys(MetadataContext.LOCAL_NAMESPACE,
 				MetadataContext.LOCAL_SERVICE, peerServiceName);
+		ExpressionLabelPlan plan = ExpressionLabelPlan.of(labelKeys);
 
-		if (CollectionUtils.isEmpty(labelKeys)) {
+		if (plan.isEmpty()) {
 			return Collections.emptyMap();
 		}
 
-		return ExpressionLabelUtils.resolve(request, labelKeys);
+		return ExpressionLabelUtils.resolve(request, plan);
 	}
 }
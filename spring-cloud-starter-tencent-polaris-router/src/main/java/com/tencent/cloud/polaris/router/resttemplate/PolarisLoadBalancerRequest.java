@@ -17,24 +17,43 @@
 
 package com.tencent.cloud.polaris.router.resttemplate;
 
+import java.io.IOException;
+
+import com.tencent.cloud.polaris.router.PolarisRouterContext;
+
 import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.HttpRequestLoadBalancerRequest;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
 
 /**
- * Wrapper of {@link LoadBalancerRequest}.
+ * Wrapper of {@link LoadBalancerRequest}. As a {@link HttpRequestLoadBalancerRequest}, load balancer builds request
+ * data of the original http request for it, which does not carry the router context. The router context is looked up
+ * by {@link #current(HttpHeaders)} while the request is executed by {@link #execute(LoadBalancerClient, String)}.
  *
  * @author Haotian Zhang
  */
-public class PolarisLoadBalancerRequest<T> implements LoadBalancerRequest<T> {
+public class PolarisLoadBalancerRequest<T> implements HttpRequestLoadBalancerRequest<T> {
+
+	private static final ThreadLocal<PolarisLoadBalancerRequest<?>> CURRENT = new ThreadLocal<>();
 
 	private HttpRequest request;
 
 	private LoadBalancerRequest<T> delegate;
 
+	private PolarisRouterContext routerContext;
+
 	public PolarisLoadBalancerRequest(HttpRequest request, LoadBalancerRequest<T> delegate) {
+		this(request, delegate, null);
+	}
+
+	public PolarisLoadBalancerRequest(HttpRequest request, LoadBalancerRequest<T> delegate,
+			PolarisRouterContext routerContext) {
 		this.request = request;
 		this.delegate = delegate;
+		this.routerContext = routerContext;
 	}
 
 	@Override
@@ -42,6 +61,11 @@ public class PolarisLoadBalancerRequest<T> implements LoadBalancerRequest<T> {
 		return delegate.apply(instance);
 	}
 
+	@Override
+	public HttpRequest getHttpRequest() {
+		return request;
+	}
+
 	public HttpRequest getRequest() {
 		return request;
 	}
@@ -49,4 +73,48 @@ public class PolarisLoadBalancerRequest<T> implements LoadBalancerRequest<T> {
 	public LoadBalancerRequest<T> getDelegate() {
 		return delegate;
 	}
+
+	/**
+	 * Router context resolved by {@link PolarisLoadBalancerInterceptor}, handed over to load balancer in process.
+	 * @return router context, null if not resolved
+	 */
+	public PolarisRouterContext getRouterContext() {
+		return routerContext;
+	}
+
+	/**
+	 * Execute this request with load balancer, bound to current thread during the execution.
+	 * @param loadBalancer load balancer client
+	 * @param serviceId service id
+	 * @return result of the request
+	 * @throws IOException in case of IO issues
+	 */
+	public T execute(LoadBalancerClient loadBalancer, String serviceId) throws IOException {
+		PolarisLoadBalancerRequest<?> previous = CURRENT.get();
+		CURRENT.set(this);
+		try {
+			return loadBalancer.execute(serviceId, this);
+		}
+		finally {
+			if (previous == null) {
+				CURRENT.remove();
+			}
+			else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Request executed by current thread, whose http request owns the given headers.
+	 * @param headers headers of request data built by load balancer
+	 * @return request in execution, null if absent
+	 */
+	public static PolarisLoadBalancerRequest<?> current(HttpHeaders headers) {
+		PolarisLoadBalancerRequest<?> current = CURRENT.get();
+		if (current != null && current.request != null && current.request.getHeaders() == headers) {
+			return current;
+		}
+		return null;
+	}
 }
@@ -0,0 +1,44 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router.spi;
+
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.Ordered;
+import org.springframework.web.reactive.function.client.ClientRequest;
+
+/**
+ * The spi for resolving labels from reactive request without blocking.
+ * <p>
+ * Resolvers are subscribed within the request of WebClient, so the Reactor context of the caller is available
+ * through {@link Mono#deferContextual}.
+ *
+ * @author Haotian Zhang
+ */
+public interface ReactiveRouterLabelResolver extends Ordered {
+
+	/**
+	 * resolve labels from web client request.
+	 * @param request the web client request.
+	 * @return resolved labels
+	 */
+	Mono<Map<String, String>> resolve(ClientRequest request);
+}
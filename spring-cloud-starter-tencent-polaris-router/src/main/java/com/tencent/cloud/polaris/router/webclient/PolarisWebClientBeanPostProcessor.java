@@ -0,0 +1,84 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router.webclient;
+
+import java.util.List;
+
+import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
+import com.tencent.cloud.common.util.BeanFactoryUtils;
+import com.tencent.cloud.polaris.router.RouterRuleLabelResolver;
+import com.tencent.cloud.polaris.router.spi.ReactiveRouterLabelResolver;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Add RouterLabelExchangeFilterFunction to load balanced WebClient builders, ahead of the load balancer filter.
+ * RouterLabelExchangeFilterFunction can pass routing context information.
+ *
+ * @author Haotian Zhang
+ */
+public class PolarisWebClientBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+	private BeanFactory factory;
+
+	private RouterLabelExchangeFilterFunction routerLabelExchangeFilterFunction;
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+		this.factory = beanFactory;
+	}
+
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+		if (bean instanceof WebClient.Builder && isLoadBalanced(beanName)) {
+			RouterLabelExchangeFilterFunction filterFunction = getRouterLabelExchangeFilterFunction();
+			// filters run in the order added, labels must be resolved before load balancer chooses instance
+			((WebClient.Builder) bean).filters(filters -> {
+				if (!filters.contains(filterFunction)) {
+					filters.add(0, filterFunction);
+				}
+			});
+		}
+		return bean;
+	}
+
+	private boolean isLoadBalanced(String beanName) {
+		return factory instanceof ListableBeanFactory && factory.containsBean(beanName)
+				&& ((ListableBeanFactory) factory).findAnnotationOnBean(beanName, LoadBalanced.class) != null;
+	}
+
+	private synchronized RouterLabelExchangeFilterFunction getRouterLabelExchangeFilterFunction() {
+		if (routerLabelExchangeFilterFunction == null) {
+			List<ReactiveRouterLabelResolver> routerLabelResolvers = BeanFactoryUtils.getBeans(factory,
+					ReactiveRouterLabelResolver.class);
+			MetadataLocalProperties metadataLocalProperties = this.factory.getBean(MetadataLocalProperties.class);
+			RouterRuleLabelResolver routerRuleLabelResolver = this.factory.getBean(RouterRuleLabelResolver.class);
+
+			routerLabelExchangeFilterFunction = new RouterLabelExchangeFilterFunction(routerLabelResolvers,
+					metadataLocalProperties, routerRuleLabelResolver);
+		}
+		return routerLabelExchangeFilterFunction;
+	}
+}
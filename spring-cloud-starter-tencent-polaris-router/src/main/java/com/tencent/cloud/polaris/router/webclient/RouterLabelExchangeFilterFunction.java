@@ -0,0 +1,141 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router.webclient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.metadata.ReactiveMetadataContextHolder;
+import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
+import com.tencent.cloud.common.util.LayeredMap;
+import com.tencent.cloud.polaris.router.PolarisRouterContext;
+import com.tencent.cloud.polaris.router.RouterConstants;
+import com.tencent.cloud.polaris.router.RouterRuleLabelResolver;
+import com.tencent.cloud.polaris.router.spi.ReactiveRouterLabelResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.core.Ordered;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+/**
+ * Resolve router labels of WebClient request and hand them over to load balancer in process, as a request
+ * attribute of {@link RouterConstants#ROUTER_CONTEXT_ATTRIBUTE}. Labels are resolved without blocking, transitive
+ * labels come from the Reactor context of the caller.
+ *
+ * @author Haotian Zhang
+ */
+public class RouterLabelExchangeFilterFunction implements ExchangeFilterFunction {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RouterLabelExchangeFilterFunction.class);
+
+	private final List<ReactiveRouterLabelResolver> routerLabelResolvers;
+	private final MetadataLocalProperties metadataLocalProperties;
+	private final RouterRuleLabelResolver routerRuleLabelResolver;
+
+	public RouterLabelExchangeFilterFunction(List<ReactiveRouterLabelResolver> routerLabelResolvers,
+			MetadataLocalProperties metadataLocalProperties,
+			RouterRuleLabelResolver routerRuleLabelResolver) {
+		if (!CollectionUtils.isEmpty(routerLabelResolvers)) {
+			routerLabelResolvers.sort(Comparator.comparingInt(Ordered::getOrder));
+			this.routerLabelResolvers = routerLabelResolvers;
+		}
+		else {
+			this.routerLabelResolvers = Collections.emptyList();
+		}
+		this.metadataLocalProperties = metadataLocalProperties;
+		this.routerRuleLabelResolver = routerRuleLabelResolver;
+	}
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		String peerServiceName = request.url().getHost();
+		if (peerServiceName == null) {
+			return next.exchange(request);
+		}
+		return Mono.deferContextual(contextView -> buildRouterContext(request, peerServiceName,
+						ReactiveMetadataContextHolder.get(contextView)))
+				.flatMap(routerContext -> next.exchange(ClientRequest.from(request)
+						.attribute(RouterConstants.ROUTER_CONTEXT_ATTRIBUTE, routerContext)
+						.build()));
+	}
+
+	Mono<PolarisRouterContext> buildRouterContext(ClientRequest request, String peerServiceName,
+			MetadataContext metadataContext) {
+		// labels from request, in the order of resolvers
+		Mono<List<Map<String, String>>> customResolvedLabels = Flux.fromIterable(routerLabelResolvers)
+				.concatMap(resolver -> Mono.defer(() -> resolver.resolve(request))
+						.onErrorResume(t -> {
+							LOGGER.error("[SCT][Router] revoke ReactiveRouterLabelResolver occur some exception. ", t);
+							return Mono.empty();
+						}))
+				.filter(labels -> !CollectionUtils.isEmpty(labels))
+				.collectList();
+
+		return Mono.zip(getExpressionLabels(request, peerServiceName), customResolvedLabels)
+				.map(resolvedLabels -> {
+					List<Map<String, String>> labelLayers = new ArrayList<>(3 + resolvedLabels.getT2().size());
+
+					// local service labels
+					labelLayers.add(metadataLocalProperties.getContent());
+
+					// labels from rule expression
+					labelLayers.add(resolvedLabels.getT1());
+
+					// labels from request
+					labelLayers.addAll(resolvedLabels.getT2());
+
+					// labels from downstream
+					Map<String, String> transitiveLabels = metadataContext
+							.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
+					labelLayers.add(transitiveLabels);
+
+					PolarisRouterContext routerContext = new PolarisRouterContext();
+					routerContext.setLabels(PolarisRouterContext.TRANSITIVE_LABELS, transitiveLabels);
+					// later layers override earlier ones, read through without merging
+					routerContext.setLabels(PolarisRouterContext.RULE_ROUTER_LABELS, LayeredMap.of(labelLayers));
+					return routerContext;
+				});
+	}
+
+	private Mono<Map<String, String>> getExpressionLabels(ClientRequest request, String peerServiceName) {
+		Set<String> labelKeys = routerRuleLabelResolver.getCachedExpressionLabelKeys(MetadataContext.LOCAL_NAMESPACE,
+				MetadataContext.LOCAL_SERVICE, peerServiceName);
+		if (labelKeys != null) {
+			return Mono.just(WebClientExpressionLabelUtils.resolve(request, labelKeys));
+		}
+		// routing rules may be fetched from server synchronously, resolve on a bounded elastic thread
+		return Mono.fromCallable(() -> WebClientExpressionLabelUtils.resolve(request,
+						routerRuleLabelResolver.getExpressionLabelKeys(MetadataContext.LOCAL_NAMESPACE,
+								MetadataContext.LOCAL_SERVICE, peerServiceName)))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router.webclient;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import com.tencent.cloud.common.util.ExpressionLabelUtils;
+import com.tencent.cloud.common.util.expression.ExpressionLabelPlan;
+import com.tencent.cloud.common.util.expression.ExpressionLabelSource;
+import org.apache.commons.lang.StringUtils;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+
+/**
+ * Resolve rule expression label from web client request.
+ *
+ * @author Haotian Zhang
+ */
+public class WebClientExpressionLabelUtils {
+
+	public static Map<String, String> resolve(ClientRequest request, Set<String> labelKeys) {
+		return resolve(request, ExpressionLabelPlan.of(labelKeys));
+	}
+
+	public static Map<String, String> resolve(ClientRequest request, ExpressionLabelPlan plan) {
+		if (plan.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return plan.resolve(new WebClientLabelSource(request));
+	}
+
+	public static String getHeaderValue(ClientRequest request, String key) {
+		String value = request.headers().getFirst(key);
+		if (value == null) {
+			return StringUtils.EMPTY;
+		}
+		return value;
+	}
+
+	public static String getQueryValue(ClientRequest request, String key) {
+		return ExpressionLabelUtils.getQueryValue(request.url().getQuery(), key);
+	}
+
+	public static String getCookieValue(ClientRequest request, String key) {
+		String value = request.cookies().getFirst(key);
+		if (value == null) {
+			return StringUtils.EMPTY;
+		}
+		return value;
+	}
+
+	private static final class WebClientLabelSource implements ExpressionLabelSource {
+
+		private final ClientRequest request;
+
+		WebClientLabelSource(ClientRequest request) {
+			this.request = request;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return getHeaderValue(request, name);
+		}
+
+		@Override
+		public String getQuery(String name) {
+			return getQueryValue(request, name);
+		}
+
+		@Override
+		public String getCookie(String name) {
+			return getCookieValue(request, name);
+		}
+
+		@Override
+		public String getMethod() {
+			return request.method().name();
+		}
+
+		@Override
+		public String getUri() {
+			return request.url().getPath();
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tencent.polaris.api.pojo.DefaultInstance;
+import com.tencent.polaris.api.pojo.Instance;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link MetadataIndexRouter}.
+ *
+ * @author Haotian Zhang
+ */
+public class MetadataIndexRouterTest {
+
+	@Test
+	public void testRoute() {
+		List<Instance> instances = new ArrayList<>();
+		instances.add(buildInstance("1", "env", "gray", "zone", "a"));
+		instances.add(buildInstance("2", "env", "gray", "zone", "b"));
+		instances.add(buildInstance("3", "env", "prod", "zone", "a"));
+		instances.add(new DefaultInstance());
+		MetadataIndexRouter router = MetadataIndexRouter.build(instances);
+
+		Assert.assertEquals(2, router.route(Collections.singletonMap("env", "gray")).size());
+
+		Map<String, String> labels = new HashMap<>();
+		labels.put("env", "gray");
+		labels.put("zone", "a");
+		List<Instance> matched = router.route(labels);
+		Assert.assertEquals(1, matched.size());
+		Assert.assertSame(instances.get(0), matched.get(0));
+
+		labels.put("zone", "c");
+		Assert.assertTrue(router.route(labels).isEmpty());
+		Assert.assertTrue(router.route(Collections.singletonMap("unknown", "a")).isEmpty());
+		Assert.assertSame(instances, router.route(Collections.emptyMap()));
+	}
+
+	private Instance buildInstance(String id, String... metadata) {
+		DefaultInstance instance = new DefaultInstance();
+		instance.setId(id);
+		Map<String, String> metadataMap = new HashMap<>();
+		for (int i = 0; i < metadata.length; i += 2) {
+			metadataMap.put(metadata[i], metadata[i + 1]);
+		}
+		instance.setMetadata(metadataMap);
+		return instance;
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.tencent.polaris.api.pojo.DefaultInstance;
+import com.tencent.polaris.api.pojo.Instance;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link NearbyBucketRouter}.
+ *
+ * @author Haotian Zhang
+ */
+public class NearbyBucketRouterTest {
+
+	@Test
+	public void testRoute() {
+		List<Instance> instances = new ArrayList<>();
+		instances.add(buildInstance("1", "campus1", "zone1", "region1", true));
+		instances.add(buildInstance("2", "campus2", "zone1", "region1", true));
+		instances.add(buildInstance("3", "campus3", "zone2", "region1", true));
+		instances.add(buildInstance("4", "campus4", "zone3", "region2", true));
+		NearbyBucketRouter router = NearbyBucketRouter.build(instances, "campus1", "zone1", "region1");
+
+		List<Instance> routed = router.route(instances, 0);
+		Assert.assertEquals(1, routed.size());
+		Assert.assertSame(instances.get(0), routed.get(0));
+
+		// subset left by routers ahead is bucketed as well
+		routed = router.route(instances.subList(1, 4), 0);
+		Assert.assertEquals(1, routed.size());
+		Assert.assertSame(instances.get(1), routed.get(0));
+
+		List<Instance> remote = Collections.singletonList(instances.get(3));
+		Assert.assertSame(remote, router.route(remote, 0));
+
+		// without local campus, routing starts from zone
+		router = NearbyBucketRouter.build(instances, null, "zone1", "region1");
+		Assert.assertEquals(2, router.route(instances, 0).size());
+	}
+
+	@Test
+	public void testSpillWithoutEnoughHealthyInstances() {
+		List<Instance> instances = new ArrayList<>();
+		instances.add(buildInstance("1", "campus1", "zone1", "region1", false));
+		instances.add(buildInstance("2", "campus1", "zone1", "region1", true));
+		instances.add(buildInstance("3", "campus2", "zone1", "region1", true));
+		instances.add(buildInstance("4", "campus3", "zone2", "region1", true));
+		NearbyBucketRouter router = NearbyBucketRouter.build(instances, "campus1", "zone1", "region1");
+
+		Assert.assertEquals(2, router.route(instances, 0.5).size());
+		// half of campus is unhealthy, spill to zone
+		Assert.assertEquals(3, router.route(instances, 0.6).size());
+		// a third of zone is unhealthy, spill to region
+		Assert.assertEquals(4, router.route(instances, 0.8).size());
+	}
+
+	@Test
+	public void testHealthCountedOnEveryRoute() {
+		List<Instance> instances = new ArrayList<>();
+		instances.add(buildInstance("1", "campus1", "zone1", "region1", true));
+		instances.add(buildInstance("2", "campus2", "zone1", "region1", true));
+		NearbyBucketRouter router = NearbyBucketRouter.build(instances, "campus1", "zone1", "region1");
+		Assert.assertEquals(1, router.route(instances, 1).size());
+
+		// health changes in place after the buckets are built
+		((DefaultInstance) instances.get(0)).setHealthy(false);
+		Assert.assertEquals(2, router.route(instances, 1).size());
+
+		((DefaultInstance) instances.get(0)).setHealthy(true);
+		Assert.assertEquals(1, router.route(instances, 1).size());
+	}
+
+	@Test
+	public void testLocationFromMetadata() {
+		DefaultInstance instance = new DefaultInstance();
+		instance.setId("1");
+		instance.setHealthy(true);
+		instance.setWeight(100);
+		instance.setMetadata(Collections.singletonMap("zone", "zone1"));
+		List<Instance> instances = new ArrayList<>();
+		instances.add(instance);
+		instances.add(buildInstance("2", "campus2", "zone2", "region1", true));
+		NearbyBucketRouter router = NearbyBucketRouter.build(instances, null, "zone1", "region1");
+
+		List<Instance> routed = router.route(instances, 1);
+		Assert.assertEquals(1, routed.size());
+		Assert.assertSame(instance, routed.get(0));
+	}
+
+	private Instance buildInstance(String id, String campus, String zone, String region, boolean healthy) {
+		DefaultInstance instance = new DefaultInstance();
+		instance.setId(id);
+		instance.setCampus(campus);
+		instance.setZone(zone);
+		instance.setRegion(region);
+		instance.setHealthy(healthy);
+		instance.setWeight(100);
+		return instance;
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.tencent.cloud.common.util.LayeredMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Test for {@link PolarisRouterResultCache}.
+ *
+ * @author Haotian Zhang
+ */
+public class PolarisRouterResultCacheTest {
+
+	private static final Map<String, String> LABELS = Collections.singletonMap("k", "v");
+
+	@Test
+	public void testKeyComparesInstances() {
+		List<ServiceInstance> instances = buildInstances("127.0.0.1", "127.0.0.2");
+		PolarisRouterResultCache.Key key = new PolarisRouterResultCache.Key(instances, 1L, 1, 0, true, LABELS,
+				Collections.emptyMap());
+
+		// equal instances in another list hit
+		Assert.assertEquals(key, new PolarisRouterResultCache.Key(buildInstances("127.0.0.1", "127.0.0.2"),
+				1L, 1, 0, true, LABELS, Collections.emptyMap()));
+
+		// colliding fingerprint of other instances does not hit
+		Assert.assertNotEquals(key, new PolarisRouterResultCache.Key(buildInstances("127.0.0.1", "127.0.0.3"),
+				1L, 1, 0, true, LABELS, Collections.emptyMap()));
+	}
+
+	@Test
+	public void testKeyComparesRouterTypeAndMinHealthyFraction() {
+		List<ServiceInstance> instances = buildInstances("127.0.0.1");
+		PolarisRouterResultCache.Key key = new PolarisRouterResultCache.Key(instances, 1L, 2 | 16, 0.5, true,
+				LABELS, Collections.emptyMap());
+
+		Assert.assertEquals(key, new PolarisRouterResultCache.Key(instances, 1L, 2 | 16, 0.5, true, LABELS,
+				Collections.emptyMap()));
+		Assert.assertNotEquals(key, new PolarisRouterResultCache.Key(instances, 1L, 2 | 16, 0.5, false, LABELS,
+				Collections.emptyMap()));
+		Assert.assertNotEquals(key, new PolarisRouterResultCache.Key(instances, 1L, 2, 0.5, true, LABELS,
+				Collections.emptyMap()));
+		Assert.assertNotEquals(key, new PolarisRouterResultCache.Key(instances, 1L, 2 | 16, 0.8, true, LABELS,
+				Collections.emptyMap()));
+	}
+
+	@Test
+	public void testPutSnapshotsLayeredLabels() {
+		Map<String, String> localMetadata = new HashMap<>();
+		localMetadata.put("env", "blue");
+		Map<String, String> ruleLabels = LayeredMap.of(localMetadata, Collections.singletonMap("uid", "1"));
+		List<ServiceInstance> instances = buildInstances("127.0.0.1");
+		PolarisRouterResultCache.ServiceCache serviceCache = new PolarisRouterResultCache(16).getServiceCache("callee");
+		PolarisRouterResultCache.Key key = new PolarisRouterResultCache.Key(instances, 1L, 4, 0, true,
+				Collections.emptyMap(), ruleLabels);
+		List<ServiceInstance> result = Collections.emptyList();
+		serviceCache.put(key, result);
+
+		// local metadata layer changes after the result is stored
+		localMetadata.put("env", "green");
+
+		Map<String, String> blueLabels = new HashMap<>();
+		blueLabels.put("env", "blue");
+		blueLabels.put("uid", "1");
+		Assert.assertSame(result, serviceCache.get(new PolarisRouterResultCache.Key(instances, 1L, 4, 0, true,
+				Collections.emptyMap(), blueLabels)));
+		Assert.assertNull(serviceCache.get(new PolarisRouterResultCache.Key(instances, 1L, 4, 0, true,
+				Collections.emptyMap(), ruleLabels)));
+	}
+
+	@Test
+	public void testKeyComparesLabelsReadByRules() {
+		Set<String> ruleLabelKeys = Collections.singleton("env");
+		Map<String, String> localMetadata = new HashMap<>();
+		localMetadata.put("env", "blue");
+		localMetadata.put("uid", "1");
+		List<ServiceInstance> instances = buildInstances("127.0.0.1");
+		PolarisRouterResultCache.ServiceCache serviceCache = new PolarisRouterResultCache(16).getServiceCache("callee");
+		List<ServiceInstance> result = Collections.emptyList();
+		serviceCache.put(new PolarisRouterResultCache.Key(instances, 1L, 4, 0, true, Collections.emptyMap(),
+				LayeredMap.of(localMetadata, Collections.singletonMap("k", "v")), ruleLabelKeys), result);
+
+		// labels not read by rules do not take part in the key
+		Map<String, String> otherLabels = new HashMap<>();
+		otherLabels.put("env", "blue");
+		otherLabels.put("uid", "2");
+		Assert.assertSame(result, serviceCache.get(new PolarisRouterResultCache.Key(instances, 1L, 4, 0, true,
+				Collections.emptyMap(), otherLabels, ruleLabelKeys)));
+		Assert.assertNull(serviceCache.get(new PolarisRouterResultCache.Key(instances, 1L, 4, 0, true,
+				Collections.emptyMap(), Collections.singletonMap("env", "green"), ruleLabelKeys)));
+	}
+
+	@Test
+	public void testInvalidate() {
+		PolarisRouterResultCache cache = new PolarisRouterResultCache(16);
+		PolarisRouterResultCache.ServiceCache serviceCache = cache.getServiceCache("callee");
+		PolarisRouterResultCache.Key key = new PolarisRouterResultCache.Key(buildInstances("127.0.0.1"), 1L, 1, 0,
+				true, LABELS, Collections.emptyMap());
+		serviceCache.put(key, Collections.emptyList());
+		Assert.assertSame(serviceCache, cache.getServiceCache("callee"));
+		Assert.assertNotNull(cache.getServiceCache("callee").get(key));
+
+		cache.invalidate("callee");
+		Assert.assertNull(cache.getServiceCache("callee").get(key));
+	}
+
+	private static List<ServiceInstance> buildInstances(String... hosts) {
+		List<ServiceInstance> instances = new ArrayList<>();
+		for (String host : hosts) {
+			instances.add(new DefaultServiceInstance(host + ":8080", "callee", host, 8080, false));
+		}
+		return instances;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.metadata.ReactiveMetadataContextHolder;
+import com.tencent.cloud.common.pojo.PolarisServiceInstance;
+import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
+import com.tencent.cloud.polaris.router.config.PolarisMetadataRouterProperties;
+import com.tencent.cloud.polaris.router.config.PolarisNearByRouterProperties;
+import com.tencent.cloud.polaris.router.config.PolarisRuleBasedRouterProperties;
+import com.tencent.polaris.api.pojo.DefaultInstance;
+import com.tencent.polaris.api.pojo.DefaultServiceInstances;
+import com.tencent.polaris.api.pojo.Instance;
+import com.tencent.polaris.api.pojo.ServiceInstances;
+import com.tencent.polaris.api.pojo.ServiceKey;
+import com.tencent.polaris.router.api.core.RouterAPI;
+import com.tencent.polaris.router.api.rpc.ProcessRoutersResponse;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.blockhound.BlockHound;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test that {@link PolarisRouterServiceInstanceListSupplier} does not block non-blocking threads. BlockHound
+ * instruments the whole JVM, so this test runs in a surefire execution of its own.
+ *
+ * @author Haotian Zhang
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PolarisRouterServiceInstanceListSupplierBlockingTest {
+
+	private static final String TEST_NAMESPACE = "testNamespace";
+	private static final String TEST_CALLER_SERVICE = "testCallerService";
+	private static final String TEST_CALLEE_SERVICE = "testCalleeService";
+
+	@Mock
+	private ServiceInstanceListSupplier delegate;
+	@Mock
+	private PolarisNearByRouterProperties polarisNearByRouterProperties;
+	@Mock
+	private PolarisMetadataRouterProperties polarisMetadataRouterProperties;
+	@Mock
+	private PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties;
+	@Mock
+	private RouterAPI routerAPI;
+
+	@BeforeClass
+	public static void beforeClass() {
+		BlockHound.install();
+	}
+
+	@Test
+	public void testGetWithoutBlocking() {
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(TEST_CALLER_SERVICE);
+			// initialize local service info on current thread, where static mock applies
+			Assert.assertEquals(TEST_CALLER_SERVICE, MetadataContext.LOCAL_SERVICE);
+
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties,
+					polarisMetadataRouterProperties, polarisRuleBasedRouterProperties, new PolarisRouterResultCache(16));
+			// instances are emitted on a non-blocking thread, blocking on them there fails under BlockHound
+			when(delegate.get()).thenReturn(assembleServers().publishOn(Schedulers.parallel()));
+			when(routerAPI.processRouters(any())).thenReturn(new ProcessRoutersResponse(assembleServiceInstances()));
+
+			HttpHeaders headers = new HttpHeaders();
+			headers.set(RouterConstants.ROUTER_LABEL_HEADER, "%7B%22k2%22%3A%22v2%22%7D");
+			Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext(new RequestData(
+					HttpMethod.GET, URI.create("http://" + TEST_CALLEE_SERVICE + "/"), headers,
+					new LinkedMultiValueMap<>(), new HashMap<>())));
+
+			for (int i = 0; i < 2; i++) {
+				List<ServiceInstance> servers = compositeRule.get(request)
+						.contextWrite(context -> ReactiveMetadataContextHolder.put(context, new MetadataContext()))
+						.subscribeOn(Schedulers.parallel())
+						.blockFirst(Duration.ofSeconds(60));
+				Assert.assertEquals(5, servers.size());
+			}
+			verify(routerAPI, times(1)).processRouters(any());
+		}
+	}
+
+	private ServiceInstances assembleServiceInstances() {
+		ServiceKey serviceKey = new ServiceKey(TEST_NAMESPACE, TEST_CALLEE_SERVICE);
+		List<Instance> instances = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			DefaultInstance instance = new DefaultInstance();
+			instance.setWeight(100);
+			instances.add(instance);
+		}
+		return new DefaultServiceInstances(serviceKey, instances);
+	}
+
+	private Flux<List<ServiceInstance>> assembleServers() {
+		List<ServiceInstance> servers = new ArrayList<>();
+		for (Instance instance : assembleServiceInstances().getInstances()) {
+			servers.add(new PolarisServiceInstance(instance));
+		}
+		return Flux.fromIterable(Collections.singletonList(servers));
+	}
+}
@@ -18,7 +18,9 @@
 
 package com.tencent.cloud.polaris.router;
 
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -28,17 +30,23 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.tencent.cloud.common.metadata.MetadataContext;
 import com.tencent.cloud.common.metadata.MetadataContextHolder;
+import com.tencent.cloud.common.metadata.StaticMetadataManager;
 import com.tencent.cloud.common.pojo.PolarisServiceInstance;
 import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
+import com.tencent.cloud.polaris.context.ServiceRuleManager;
 import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
 import com.tencent.cloud.polaris.router.config.PolarisMetadataRouterProperties;
 import com.tencent.cloud.polaris.router.config.PolarisNearByRouterProperties;
 import com.tencent.cloud.polaris.router.config.PolarisRuleBasedRouterProperties;
+import com.tencent.cloud.polaris.router.resttemplate.PolarisLoadBalancerRequest;
 import com.tencent.polaris.api.pojo.DefaultInstance;
 import com.tencent.polaris.api.pojo.DefaultServiceInstances;
 import com.tencent.polaris.api.pojo.Instance;
+import com.tencent.polaris.api.pojo.ServiceEventKey;
 import com.tencent.polaris.api.pojo.ServiceInstances;
 import com.tencent.polaris.api.pojo.ServiceKey;
+import com.tencent.polaris.client.pb.ModelProto;
+import com.tencent.polaris.client.pb.RoutingProto;
 import com.tencent.polaris.plugins.router.metadata.MetadataRouter;
 import com.tencent.polaris.plugins.router.nearby.NearbyRouter;
 import com.tencent.polaris.plugins.router.rule.RuleBasedRouter;
@@ -48,6 +56,7 @@ import com.tencent.polaris.router.api.rpc.ProcessRoutersResponse;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
@@ -55,10 +64,21 @@ import org.mockito.junit.MockitoJUnitRunner;
 import reactor.core.publisher.Flux;
 
 import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.util.LinkedMultiValueMap;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -81,6 +101,8 @@ public class PolarisRouterServiceInstanceListSupplierTest {
 	private PolarisRuleBasedRouterProperties polarisRuleBasedRouterProperties;
 	@Mock
 	private RouterAPI routerAPI;
+	@Mock
+	private ServiceRuleManager serviceRuleManager;
 	private String testNamespace = "testNamespace";
 	private String testCallerService = "testCallerService";
 	private String testCalleeService = "testCalleeService";
@@ -191,11 +213,437 @@ public class PolarisRouterServiceInstanceListSupplierTest {
 			ProcessRoutersResponse assembleResponse = assembleProcessRoutersResponse();
 			when(routerAPI.processRouters(any())).thenReturn(assembleResponse);
 
-			Flux<List<ServiceInstance>> servers = compositeRule.doRouter(assembleServers(), assembleRouterContext());
+			List<ServiceInstance> servers = compositeRule.doRouter(assembleServers().blockFirst(),
+					assembleRouterContext()).block();
+
+			Assert.assertEquals(assembleResponse.getServiceInstances().getInstances().size(), servers.size());
+		}
+	}
+
+	@Test
+	public void testRouterResultCache() {
+		when(polarisRuleBasedRouterProperties.isEnabled()).thenReturn(true);
+
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(testCallerService);
+
+			setTransitiveMetadata();
+
+			PolarisRouterResultCache routerResultCache = new PolarisRouterResultCache(16);
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties,
+					polarisMetadataRouterProperties, polarisRuleBasedRouterProperties, routerResultCache);
+			when(delegate.getServiceId()).thenReturn(testCalleeService);
+			when(routerAPI.processRouters(any())).thenReturn(assembleProcessRoutersResponse());
+
+			List<ServiceInstance> servers = assembleServers().blockFirst();
+			List<ServiceInstance> first = compositeRule.doRouter(servers, assembleRouterContext()).block();
+			List<ServiceInstance> second = compositeRule.doRouter(new ArrayList<>(servers), assembleRouterContext())
+					.block();
+			Assert.assertSame(first, second);
+			verify(routerAPI, times(1)).processRouters(any());
+
+			// different rule router labels
+			PolarisRouterContext routerContext = assembleRouterContext();
+			routerContext.setLabels(PolarisRouterContext.RULE_ROUTER_LABELS, Collections.singletonMap("k2", "v4"));
+			compositeRule.doRouter(servers, routerContext).block();
+			verify(routerAPI, times(2)).processRouters(any());
+
+			// instances changed in registry
+			routerResultCache.onResourceUpdated(new ServiceEventKey(new ServiceKey(testNamespace, testCalleeService),
+					ServiceEventKey.EventType.INSTANCE), null, null);
+			compositeRule.doRouter(servers, assembleRouterContext()).block();
+			verify(routerAPI, times(3)).processRouters(any());
+
+			// instance list changed
+			compositeRule.doRouter(servers.subList(1, servers.size()), assembleRouterContext()).block();
+			verify(routerAPI, times(4)).processRouters(any());
+		}
+	}
+
+	@Test
+	public void testRouterResultCacheFollowsAvailability() {
+		when(polarisRuleBasedRouterProperties.isEnabled()).thenReturn(true);
+
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(testCallerService);
+
+			setTransitiveMetadata();
+
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties,
+					polarisMetadataRouterProperties, polarisRuleBasedRouterProperties, new PolarisRouterResultCache(16));
+			when(delegate.getServiceId()).thenReturn(testCalleeService);
+
+			List<ServiceInstance> servers = new ArrayList<>();
+			List<Instance> instances = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				DefaultInstance instance = new DefaultInstance();
+				instance.setId(String.valueOf(i));
+				instance.setWeight(100);
+				instance.setHealthy(true);
+				servers.add(new PolarisServiceInstance(instance));
+				instances.add(instance);
+			}
+			when(routerAPI.processRouters(any())).thenReturn(new ProcessRoutersResponse(
+					new DefaultServiceInstances(new ServiceKey(testNamespace, testCalleeService), instances)));
+
+			compositeRule.doRouter(servers, assembleRouterContext()).block();
+			compositeRule.doRouter(servers, assembleRouterContext()).block();
+			verify(routerAPI, times(1)).processRouters(any());
+
+			// health changes in place without an event, partially available instances are routed every time
+			((DefaultInstance) instances.get(0)).setHealthy(false);
+			compositeRule.doRouter(servers, assembleRouterContext()).block();
+			compositeRule.doRouter(servers, assembleRouterContext()).block();
+			verify(routerAPI, times(3)).processRouters(any());
+
+			// all healthy again
+			((DefaultInstance) instances.get(0)).setHealthy(true);
+			compositeRule.doRouter(servers, assembleRouterContext()).block();
+			verify(routerAPI, times(3)).processRouters(any());
+		}
+	}
+
+	@Test
+	public void testRouterResultCacheKeyedByRuleMatchedLabels() {
+		when(polarisRuleBasedRouterProperties.isEnabled()).thenReturn(true);
+
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(testCallerService);
+
+			setTransitiveMetadata();
+
+			RoutingProto.Route route = RoutingProto.Route.newBuilder()
+					.addSources(RoutingProto.Source.newBuilder()
+							.putMetadata("k2", ModelProto.MatchString.newBuilder().build()))
+					.build();
+			when(serviceRuleManager.getServiceRouterRule(testCallerService, testCallerService, testCalleeService))
+					.thenReturn(Collections.singletonList(route));
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties, polarisMetadataRouterProperties,
+					polarisRuleBasedRouterProperties, new PolarisRouterResultCache(16),
+					new RouterRuleLabelResolver(serviceRuleManager));
+			when(delegate.getServiceId()).thenReturn(testCalleeService);
+			when(routerAPI.processRouters(any())).thenReturn(assembleProcessRoutersResponse());
+
+			List<ServiceInstance> servers = assembleServers().blockFirst();
+			compositeRule.doRouter(servers, assembleRouterContext()).block();
+			verify(routerAPI, times(1)).processRouters(any());
+
+			// label not matched by rules does not take part in the key
+			PolarisRouterContext routerContext = assembleRouterContext();
+			Map<String, String> routerLabels = new HashMap<>();
+			routerLabels.put("k2", "v2");
+			routerLabels.put("k3", "v4");
+			routerContext.setLabels(PolarisRouterContext.RULE_ROUTER_LABELS, routerLabels);
+			compositeRule.doRouter(servers, routerContext).block();
+			verify(routerAPI, times(1)).processRouters(any());
+
+			// label matched by rules does
+			routerContext.setLabels(PolarisRouterContext.RULE_ROUTER_LABELS, Collections.singletonMap("k2", "v4"));
+			compositeRule.doRouter(servers, routerContext).block();
+			verify(routerAPI, times(2)).processRouters(any());
+		}
+	}
+
+	@Test
+	public void testGetWithRouterContextInProcess() {
+		when(polarisRuleBasedRouterProperties.isEnabled()).thenReturn(true);
+
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(testCallerService);
+
+			setTransitiveMetadata();
+
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties,
+					polarisMetadataRouterProperties, polarisRuleBasedRouterProperties);
+			when(delegate.get()).thenReturn(assembleServers());
+			when(routerAPI.processRouters(any())).thenReturn(assembleProcessRoutersResponse());
+
+			// no label header, router context is handed over by the interceptor
+			HttpRequest httpRequest = Mockito.mock(HttpRequest.class);
+			PolarisLoadBalancerRequest<Object> loadBalancerRequest = new PolarisLoadBalancerRequest<>(httpRequest,
+					null, assembleRouterContext());
+			Request<DefaultRequestContext> request = new DefaultRequest<>(new DefaultRequestContext(loadBalancerRequest));
+
+			List<ServiceInstance> servers = compositeRule.get(request).blockFirst();
+
+			Assert.assertEquals(5, servers.size());
+			ArgumentCaptor<ProcessRoutersRequest> captor = ArgumentCaptor.forClass(ProcessRoutersRequest.class);
+			verify(routerAPI).processRouters(captor.capture());
+			Assert.assertEquals("v2", captor.getValue().getSourceService().getMetadata().get("k2"));
+			verify(httpRequest, Mockito.never()).getHeaders();
+		}
+	}
+
+	@Test
+	public void testGetWithRouterContextAttribute() {
+		when(polarisRuleBasedRouterProperties.isEnabled()).thenReturn(true);
+
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(testCallerService);
+
+			setTransitiveMetadata();
+
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties,
+					polarisMetadataRouterProperties, polarisRuleBasedRouterProperties);
+			when(delegate.get()).thenReturn(assembleServers());
+			when(routerAPI.processRouters(any())).thenReturn(assembleProcessRoutersResponse());
+
+			// no label header, router context is handed over by the exchange filter function of WebClient
+			Map<String, Object> attributes = new HashMap<>();
+			attributes.put(RouterConstants.ROUTER_CONTEXT_ATTRIBUTE, assembleRouterContext());
+			Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext(new RequestData(
+					HttpMethod.GET, URI.create("http://" + testCalleeService + "/"), new HttpHeaders(),
+					new LinkedMultiValueMap<>(), attributes)));
+
+			List<ServiceInstance> servers = compositeRule.get(request).blockFirst();
+
+			Assert.assertEquals(5, servers.size());
+			ArgumentCaptor<ProcessRoutersRequest> captor = ArgumentCaptor.forClass(ProcessRoutersRequest.class);
+			verify(routerAPI).processRouters(captor.capture());
+			Assert.assertEquals("v2", captor.getValue().getSourceService().getMetadata().get("k2"));
+		}
+	}
+
+	@Test
+	public void testRoutingPlanWithoutRules() {
+		when(polarisRuleBasedRouterProperties.isEnabled()).thenReturn(true);
+		when(polarisMetadataRouterProperties.isEnabled()).thenReturn(true);
+
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(testCallerService);
+
+			setTransitiveMetadata();
+
+			RouterRuleLabelResolver routerRuleLabelResolver = new RouterRuleLabelResolver(serviceRuleManager);
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties, polarisMetadataRouterProperties,
+					polarisRuleBasedRouterProperties, null, routerRuleLabelResolver);
+			when(delegate.getServiceId()).thenReturn(testCalleeService);
+			when(routerAPI.processRouters(any())).thenReturn(assembleProcessRoutersResponse());
+
+			// no rules and no transitive labels, instances are returned untouched
+			PolarisRouterContext routerContext = new PolarisRouterContext();
+			routerContext.setLabels(PolarisRouterContext.RULE_ROUTER_LABELS, Collections.singletonMap("k2", "v2"));
+			List<ServiceInstance> servers = assembleServers().blockFirst();
+			Assert.assertSame(servers, compositeRule.doRouter(servers, routerContext).block());
+			Assert.assertSame(servers, compositeRule.doRouter(servers, routerContext).block());
+			verify(serviceRuleManager, times(1)).getServiceRouterRule(testCallerService, testCallerService,
+					testCalleeService);
+			verify(routerAPI, Mockito.never()).processRouters(any());
+
+			// transitive labels take metadata router into account
+			compositeRule.doRouter(servers, assembleRouterContext()).block();
+			verify(routerAPI, times(1)).processRouters(any());
+
+			// rules added to destination
+			RoutingProto.Route route = RoutingProto.Route.newBuilder().build();
+			when(serviceRuleManager.getServiceRouterRule(testCallerService, testCallerService, testCalleeService))
+					.thenReturn(Collections.singletonList(route));
+			routerRuleLabelResolver.onResourceAdd(new ServiceEventKey(new ServiceKey(testCallerService,
+					testCalleeService), ServiceEventKey.EventType.ROUTING), null);
+			compositeRule.doRouter(servers, routerContext).block();
+			verify(routerAPI, times(2)).processRouters(any());
+		}
+	}
+
+	@Test
+	public void testIsolatedInstanceFilteredWithoutRules() {
+		when(polarisRuleBasedRouterProperties.isEnabled()).thenReturn(true);
+
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(testCallerService);
 
+			setTransitiveMetadata();
 
-			Assert.assertEquals(assembleResponse.getServiceInstances().getInstances().size(),
-					servers.toStream().mapToLong(List::size).sum());
+			RouterRuleLabelResolver routerRuleLabelResolver = new RouterRuleLabelResolver(serviceRuleManager);
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties, polarisMetadataRouterProperties,
+					polarisRuleBasedRouterProperties, null, routerRuleLabelResolver);
+			when(delegate.getServiceId()).thenReturn(testCalleeService);
+
+			List<ServiceInstance> servers = new ArrayList<>();
+			List<Instance> availableInstances = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				DefaultInstance instance = new DefaultInstance();
+				instance.setId(String.valueOf(i));
+				instance.setWeight(100);
+				instance.setHealthy(true);
+				instance.setIsolated(i == 0);
+				servers.add(new PolarisServiceInstance(instance));
+				if (i > 0) {
+					availableInstances.add(instance);
+				}
+			}
+			when(routerAPI.processRouters(any())).thenReturn(new ProcessRoutersResponse(
+					new DefaultServiceInstances(new ServiceKey(testNamespace, testCalleeService), availableInstances)));
+
+			// destination has no rules, but isolated instance is still filtered by Polaris
+			List<ServiceInstance> filtered = compositeRule.doRouter(servers, null).block();
+			Assert.assertEquals(2, filtered.size());
+			Assert.assertSame(servers.get(1), filtered.get(0));
+			Assert.assertSame(servers.get(2), filtered.get(1));
+			filtered = compositeRule.doRouter(servers, null).block();
+			Assert.assertEquals(2, filtered.size());
+
+			// only routers around the core routers apply
+			ArgumentCaptor<ProcessRoutersRequest> captor = ArgumentCaptor.forClass(ProcessRoutersRequest.class);
+			verify(routerAPI, times(2)).processRouters(captor.capture());
+			ProcessRoutersRequest request = captor.getValue();
+			Assert.assertEquals("false", request.getRouterMetadata(RuleBasedRouter.ROUTER_TYPE_RULE_BASED)
+					.get(RuleBasedRouter.ROUTER_ENABLED));
+			Assert.assertTrue(request.getRouterMetadata(MetadataRouter.ROUTER_TYPE_METADATA).isEmpty());
+			Assert.assertTrue(request.getRouterMetadata(NearbyRouter.ROUTER_TYPE_NEAR_BY).isEmpty());
+			verify(serviceRuleManager, times(1)).getServiceRouterRule(testCallerService, testCallerService,
+					testCalleeService);
+
+			// all instances available, Polaris is not called
+			List<ServiceInstance> availableServers = servers.subList(1, 3);
+			Assert.assertSame(availableServers, compositeRule.doRouter(availableServers, null).block());
+			verify(routerAPI, times(2)).processRouters(any());
+		}
+	}
+
+	@Test
+	public void testIndexedMetadataRouter() {
+		when(polarisMetadataRouterProperties.isEnabled()).thenReturn(true);
+		when(polarisMetadataRouterProperties.getType()).thenReturn(PolarisMetadataRouterProperties.Type.INDEXED);
+
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(testCallerService);
+
+			setTransitiveMetadata();
+
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties,
+					polarisMetadataRouterProperties, polarisRuleBasedRouterProperties);
+
+			List<ServiceInstance> servers = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				DefaultInstance instance = new DefaultInstance();
+				instance.setId(String.valueOf(i));
+				instance.setWeight(100);
+				instance.setMetadata(Collections.singletonMap("k1", i % 2 == 0 ? "v1" : "v2"));
+				servers.add(new PolarisServiceInstance(instance));
+			}
+
+			// only metadata router applies, instances are matched by index without calling Polaris
+			List<ServiceInstance> filtered = compositeRule.doRouter(servers, assembleRouterContext()).block();
+			Assert.assertEquals(2, filtered.size());
+			Assert.assertSame(servers.get(0), filtered.get(0));
+			Assert.assertSame(servers.get(2), filtered.get(1));
+			verify(routerAPI, Mockito.never()).processRouters(any());
+
+			// mismatch is left to metadata router of Polaris
+			when(routerAPI.processRouters(any())).thenReturn(assembleProcessRoutersResponse());
+			PolarisRouterContext routerContext = new PolarisRouterContext();
+			routerContext.setLabels(PolarisRouterContext.TRANSITIVE_LABELS, Collections.singletonMap("k1", "v3"));
+			compositeRule.doRouter(servers, routerContext).block();
+			ArgumentCaptor<ProcessRoutersRequest> captor = ArgumentCaptor.forClass(ProcessRoutersRequest.class);
+			verify(routerAPI).processRouters(captor.capture());
+			Assert.assertEquals("v3", captor.getValue().getRouterMetadata(MetadataRouter.ROUTER_TYPE_METADATA)
+					.get("k1"));
+		}
+	}
+
+	@Test
+	public void testIndexedMetadataRouterWithUnavailableInstances() {
+		when(polarisMetadataRouterProperties.isEnabled()).thenReturn(true);
+		when(polarisMetadataRouterProperties.getType()).thenReturn(PolarisMetadataRouterProperties.Type.INDEXED);
+
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(testCallerService);
+
+			setTransitiveMetadata();
+
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties,
+					polarisMetadataRouterProperties, polarisRuleBasedRouterProperties);
+
+			// instance 0 is isolated, instance 2 is unhealthy, both match k1=v1 together with instance 4
+			List<ServiceInstance> servers = new ArrayList<>();
+			List<Instance> instances = new ArrayList<>();
+			for (int i = 0; i < 6; i++) {
+				DefaultInstance instance = new DefaultInstance();
+				instance.setId(String.valueOf(i));
+				instance.setWeight(100);
+				instance.setIsolated(i == 0);
+				instance.setHealthy(i != 2);
+				instance.setMetadata(Collections.singletonMap("k1", i % 2 == 0 ? "v1" : "v2"));
+				instances.add(instance);
+				servers.add(new PolarisServiceInstance(instance));
+			}
+			when(routerAPI.processRouters(any())).thenReturn(new ProcessRoutersResponse(new DefaultServiceInstances(
+					new ServiceKey(testNamespace, testCalleeService), Collections.singletonList(instances.get(4)))));
+
+			// isolated instance is not matched, unhealthy instance is left to recover router of Polaris
+			List<ServiceInstance> filtered = compositeRule.doRouter(servers, assembleRouterContext()).block();
+			Assert.assertEquals(1, filtered.size());
+			Assert.assertSame(servers.get(4), filtered.get(0));
+			ArgumentCaptor<ProcessRoutersRequest> captor = ArgumentCaptor.forClass(ProcessRoutersRequest.class);
+			verify(routerAPI).processRouters(captor.capture());
+			Assert.assertEquals(Arrays.asList(instances.get(2), instances.get(4)),
+					captor.getValue().getDstInstances().getInstances());
+			Assert.assertTrue(captor.getValue().getRouterMetadata(MetadataRouter.ROUTER_TYPE_METADATA).isEmpty());
+		}
+	}
+
+	@Test
+	public void testBucketedNearbyRouter() {
+		when(polarisNearByRouterProperties.isEnabled()).thenReturn(true);
+		when(polarisNearByRouterProperties.getType()).thenReturn(PolarisNearByRouterProperties.Type.BUCKETED);
+		StaticMetadataManager staticMetadataManager = Mockito.mock(StaticMetadataManager.class);
+		when(staticMetadataManager.getZone()).thenReturn("zone1");
+		when(staticMetadataManager.getRegion()).thenReturn("region1");
+
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn(testCallerService);
+
+			setTransitiveMetadata();
+
+			PolarisRouterServiceInstanceListSupplier compositeRule = new PolarisRouterServiceInstanceListSupplier(
+					delegate, routerAPI, polarisNearByRouterProperties,
+					polarisMetadataRouterProperties, polarisRuleBasedRouterProperties, null, null,
+					staticMetadataManager);
+
+			List<ServiceInstance> servers = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				DefaultInstance instance = new DefaultInstance();
+				instance.setId(String.valueOf(i));
+				instance.setWeight(100);
+				instance.setZone(i < 2 ? "zone1" : "zone2");
+				instance.setRegion("region1");
+				servers.add(new PolarisServiceInstance(instance));
+			}
+
+			// only nearby router applies, instances are routed by buckets without calling Polaris
+			List<ServiceInstance> filtered = compositeRule.doRouter(servers, null).block();
+			Assert.assertEquals(2, filtered.size());
+			Assert.assertSame(servers.get(0), filtered.get(0));
+			Assert.assertSame(servers.get(1), filtered.get(1));
+			verify(routerAPI, Mockito.never()).processRouters(any());
+
+			// nearby router of Polaris is left out when other routers apply
+			when(polarisRuleBasedRouterProperties.isEnabled()).thenReturn(true);
+			when(routerAPI.processRouters(any())).thenReturn(assembleProcessRoutersResponse());
+			compositeRule.doRouter(servers, assembleRouterContext()).block();
+			ArgumentCaptor<ProcessRoutersRequest> captor = ArgumentCaptor.forClass(ProcessRoutersRequest.class);
+			verify(routerAPI).processRouters(captor.capture());
+			Assert.assertTrue(captor.getValue().getRouterMetadata(NearbyRouter.ROUTER_TYPE_NEAR_BY).isEmpty());
 		}
 	}
 
@@ -212,11 +660,11 @@ public class PolarisRouterServiceInstanceListSupplierTest {
 	private ServiceInstances assembleServiceInstances() {
 		ServiceKey serviceKey = new ServiceKey(testNamespace, testCalleeService);
 		List<Instance> instances = new LinkedList<>();
-		instances.add(new DefaultInstance());
-		instances.add(new DefaultInstance());
-		instances.add(new DefaultInstance());
-		instances.add(new DefaultInstance());
-		instances.add(new DefaultInstance());
+		for (int i = 0; i < 5; i++) {
+			DefaultInstance instance = new DefaultInstance();
+			instance.setWeight(100);
+			instances.add(instance);
+		}
 
 		return new DefaultServiceInstances(serviceKey, instances);
 	}
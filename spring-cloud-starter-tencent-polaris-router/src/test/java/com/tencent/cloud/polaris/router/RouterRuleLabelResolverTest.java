@@ -24,9 +24,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.Lists;
 import com.tencent.cloud.polaris.context.ServiceRuleManager;
+import com.tencent.polaris.api.pojo.ServiceEventKey;
+import com.tencent.polaris.api.pojo.ServiceKey;
 import com.tencent.polaris.client.pb.ModelProto;
 import com.tencent.polaris.client.pb.RoutingProto;
 import org.junit.Assert;
@@ -35,6 +42,8 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -90,4 +99,77 @@ public class RouterRuleLabelResolverTest {
 		Assert.assertTrue(resolvedExpressionLabelKeys.contains(validKey4));
 		Assert.assertFalse(resolvedExpressionLabelKeys.contains(invalidKey));
 	}
+
+	@Test
+	public void testCacheInvalidatedByRuleChange() {
+		RoutingProto.Source source = RoutingProto.Source.newBuilder()
+				.putMetadata("${http.method}", ModelProto.MatchString.getDefaultInstance()).build();
+		List<RoutingProto.Route> routes = Lists.newArrayList(RoutingProto.Route.newBuilder().addSources(source).build());
+		when(serviceRuleManager.getServiceRouterRule(testNamespace, testSourceService, testDstService)).thenReturn(routes);
+
+		RouterRuleLabelResolver resolver = new RouterRuleLabelResolver(serviceRuleManager);
+
+		Set<String> first = resolver.getExpressionLabelKeys(testNamespace, testSourceService, testDstService);
+		Set<String> second = resolver.getExpressionLabelKeys(testNamespace, testSourceService, testDstService);
+		Assert.assertSame(first, second);
+		verify(serviceRuleManager, times(1)).getServiceRouterRule(testNamespace, testSourceService, testDstService);
+
+		// instances change does not affect label keys
+		resolver.onResourceUpdated(new ServiceEventKey(new ServiceKey(testNamespace, testDstService),
+				ServiceEventKey.EventType.INSTANCE), null, null);
+		resolver.getExpressionLabelKeys(testNamespace, testSourceService, testDstService);
+		verify(serviceRuleManager, times(1)).getServiceRouterRule(testNamespace, testSourceService, testDstService);
+
+		// routing rules of destination changed
+		resolver.onResourceUpdated(new ServiceEventKey(new ServiceKey(testNamespace, testDstService),
+				ServiceEventKey.EventType.ROUTING), null, null);
+		resolver.getExpressionLabelKeys(testNamespace, testSourceService, testDstService);
+		verify(serviceRuleManager, times(2)).getServiceRouterRule(testNamespace, testSourceService, testDstService);
+
+		// routing rules of source added
+		resolver.onResourceAdd(new ServiceEventKey(new ServiceKey(testNamespace, testSourceService),
+				ServiceEventKey.EventType.ROUTING), null);
+		resolver.getExpressionLabelKeys(testNamespace, testSourceService, testDstService);
+		verify(serviceRuleManager, times(3)).getServiceRouterRule(testNamespace, testSourceService, testDstService);
+	}
+
+	@Test
+	public void testRuleChangeDuringFetchIsNotCached() throws Exception {
+		RoutingProto.Route oldRoute = RoutingProto.Route.newBuilder().addSources(RoutingProto.Source.newBuilder()
+				.putMetadata("${http.method}", ModelProto.MatchString.getDefaultInstance())).build();
+		RoutingProto.Route newRoute = RoutingProto.Route.newBuilder().addSources(RoutingProto.Source.newBuilder()
+				.putMetadata("${http.uri}", ModelProto.MatchString.getDefaultInstance())).build();
+
+		RouterRuleLabelResolver resolver = new RouterRuleLabelResolver(serviceRuleManager);
+		CountDownLatch fetching = new CountDownLatch(1);
+		CountDownLatch changed = new CountDownLatch(1);
+		when(serviceRuleManager.getServiceRouterRule(testNamespace, testSourceService, testDstService))
+				.thenAnswer(invocation -> {
+					// old rules are read, then the registry reports the change before the fetch returns
+					fetching.countDown();
+					Assert.assertTrue(changed.await(10, TimeUnit.SECONDS));
+					return Lists.newArrayList(oldRoute);
+				})
+				.thenReturn(Lists.newArrayList(newRoute));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Set<String>> stale = executor.submit(() ->
+					resolver.getExpressionLabelKeys(testNamespace, testSourceService, testDstService));
+			Assert.assertTrue(fetching.await(10, TimeUnit.SECONDS));
+			resolver.onResourceUpdated(new ServiceEventKey(new ServiceKey(testNamespace, testDstService),
+					ServiceEventKey.EventType.ROUTING), null, null);
+			changed.countDown();
+			Assert.assertTrue(stale.get(10, TimeUnit.SECONDS).contains("${http.method}"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		Assert.assertNull(resolver.getCachedExpressionLabelKeys(testNamespace, testSourceService, testDstService));
+		Set<String> fresh = resolver.getExpressionLabelKeys(testNamespace, testSourceService, testDstService);
+		Assert.assertTrue(fresh.contains("${http.uri}"));
+		Assert.assertFalse(fresh.contains("${http.method}"));
+		verify(serviceRuleManager, times(2)).getServiceRouterRule(testNamespace, testSourceService, testDstService);
+	}
 }
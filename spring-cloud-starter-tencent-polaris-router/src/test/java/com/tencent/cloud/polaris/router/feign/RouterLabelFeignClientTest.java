@@ -0,0 +1,163 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router.feign;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.tencent.cloud.polaris.router.PolarisRouterContext;
+import com.tencent.cloud.polaris.router.RouterConstants;
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerProperties;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link RouterLabelFeignClient}, {@link RouterLabelFeignLoadBalancerClient} and
+ * {@link RouterLabelFeignBeanPostProcessor}.
+ *
+ * @author Haotian Zhang
+ */
+public class RouterLabelFeignClientTest {
+
+	@Test
+	public void testStripRouterLabelHeader() throws Exception {
+		Map<String, Collection<String>> headers = new HashMap<>();
+		headers.put(RouterConstants.ROUTER_LABEL_HEADER, Collections.singletonList("%7B%22k%22%3A%22v%22%7D"));
+		headers.put("uid", Collections.singletonList("1000"));
+		Request request = Request.create(Request.HttpMethod.GET, "http://127.0.0.1:8080/test", headers,
+				new byte[0], StandardCharsets.UTF_8, new RequestTemplate());
+		Request.Options options = new Request.Options();
+
+		Client delegate = mock(Client.class);
+		new RouterLabelFeignClient(delegate).execute(request, options);
+
+		ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+		verify(delegate).execute(captor.capture(), any());
+		Request sent = captor.getValue();
+		Assert.assertFalse(sent.headers().containsKey(RouterConstants.ROUTER_LABEL_HEADER));
+		Assert.assertEquals(Collections.singletonList("1000"), sent.headers().get("uid"));
+		Assert.assertEquals(request.url(), sent.url());
+		Assert.assertEquals(request.httpMethod(), sent.httpMethod());
+	}
+
+	@Test
+	public void testRequestWithoutRouterLabelHeaderUntouched() {
+		Request request = Request.create(Request.HttpMethod.GET, "http://127.0.0.1:8080/test",
+				Collections.singletonMap("uid", Collections.singletonList("1000")), new byte[0],
+				StandardCharsets.UTF_8, new RequestTemplate());
+
+		Assert.assertSame(request, RouterLabelFeignClient.stripRouterLabelHeader(request));
+	}
+
+	@Test
+	public void testBeanPostProcessorWrapsDelegate() {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		when(beanFactory.getBean(LoadBalancerClient.class)).thenReturn(mock(LoadBalancerClient.class));
+		when(beanFactory.getBean(LoadBalancerProperties.class)).thenReturn(new LoadBalancerProperties());
+		when(beanFactory.getBean(LoadBalancerClientFactory.class)).thenReturn(mock(LoadBalancerClientFactory.class));
+		RouterLabelFeignBeanPostProcessor beanPostProcessor = new RouterLabelFeignBeanPostProcessor();
+		beanPostProcessor.setBeanFactory(beanFactory);
+
+		Client delegate = mock(Client.class);
+		Object bean = beanPostProcessor.postProcessBeforeInitialization(new FeignBlockingLoadBalancerClient(delegate,
+				mock(LoadBalancerClient.class), new LoadBalancerProperties(), mock(LoadBalancerClientFactory.class)),
+				"feignClient");
+
+		Assert.assertTrue(bean instanceof FeignBlockingLoadBalancerClient);
+		Client wrapped = ((FeignBlockingLoadBalancerClient) bean).getDelegate();
+		Assert.assertTrue(wrapped instanceof RouterLabelFeignClient);
+		Assert.assertSame(delegate, ((RouterLabelFeignClient) wrapped).getDelegate());
+
+		// wrapped once only
+		Assert.assertSame(bean, beanPostProcessor.postProcessBeforeInitialization(bean, "feignClient"));
+	}
+
+	@Test
+	public void testBeanPostProcessorWrapsLoadBalancerClient() {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		when(beanFactory.getBean(LoadBalancerClient.class)).thenReturn(mock(LoadBalancerClient.class));
+		when(beanFactory.getBean(LoadBalancerProperties.class)).thenReturn(new LoadBalancerProperties());
+		when(beanFactory.getBean(LoadBalancerClientFactory.class)).thenReturn(mock(LoadBalancerClientFactory.class));
+		RouterLabelFeignBeanPostProcessor beanPostProcessor = new RouterLabelFeignBeanPostProcessor();
+		beanPostProcessor.setBeanFactory(beanFactory);
+
+		Client delegate = mock(Client.class);
+		FeignBlockingLoadBalancerClient loadBalancerClient = new FeignBlockingLoadBalancerClient(delegate,
+				mock(LoadBalancerClient.class), new LoadBalancerProperties(), mock(LoadBalancerClientFactory.class));
+		Object bean = beanPostProcessor.postProcessAfterInitialization(loadBalancerClient, "feignClient");
+
+		Assert.assertTrue(bean instanceof RouterLabelFeignLoadBalancerClient);
+		Assert.assertSame(loadBalancerClient, ((RouterLabelFeignLoadBalancerClient) bean).getLoadBalancerClient());
+		// Feign clients with url still unwrap the delegate
+		Assert.assertSame(delegate, ((RouterLabelFeignLoadBalancerClient) bean).getDelegate());
+
+		// wrapped once only
+		Assert.assertSame(bean, beanPostProcessor.postProcessAfterInitialization(bean, "feignClient"));
+	}
+
+	@Test
+	public void testRouterContextBoundWhileLoadBalancing() throws Exception {
+		RequestTemplate requestTemplate = new RequestTemplate();
+		Request request = Request.create(Request.HttpMethod.GET, "http://service/test", Collections.emptyMap(),
+				new byte[0], StandardCharsets.UTF_8, requestTemplate);
+		Request.Options options = new Request.Options();
+		PolarisRouterContext routerContext = new PolarisRouterContext();
+
+		AtomicReference<PolarisRouterContext> boundRouterContext = new AtomicReference<>();
+		AtomicReference<PolarisRouterContext> otherServiceRouterContext = new AtomicReference<>();
+		Client loadBalancerClient = mock(Client.class);
+		when(loadBalancerClient.execute(request, options)).thenAnswer(invocation -> {
+			boundRouterContext.set(FeignRouterContextHolder.current("service"));
+			otherServiceRouterContext.set(FeignRouterContextHolder.current("otherService"));
+			return null;
+		});
+		RouterLabelFeignLoadBalancerClient client = new RouterLabelFeignLoadBalancerClient(loadBalancerClient,
+				mock(LoadBalancerClient.class), new LoadBalancerProperties(), mock(LoadBalancerClientFactory.class));
+
+		FeignRouterContextHolder.offer(requestTemplate, routerContext);
+		client.execute(request, options);
+
+		Assert.assertSame(routerContext, boundRouterContext.get());
+		Assert.assertNull(otherServiceRouterContext.get());
+		Assert.assertNull(FeignRouterContextHolder.current("service"));
+
+		// context offered for another request template is not bound
+		FeignRouterContextHolder.offer(new RequestTemplate(), routerContext);
+		client.execute(request, options);
+		Assert.assertNull(boundRouterContext.get());
+	}
+}
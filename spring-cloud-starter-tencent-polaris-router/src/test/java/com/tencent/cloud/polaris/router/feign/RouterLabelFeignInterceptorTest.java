@@ -18,9 +18,6 @@
 
 package com.tencent.cloud.polaris.router.feign;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -31,7 +28,7 @@ import com.tencent.cloud.common.metadata.MetadataContext;
 import com.tencent.cloud.common.metadata.MetadataContextHolder;
 import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
 import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
-import com.tencent.cloud.common.util.JacksonUtils;
+import com.tencent.cloud.polaris.router.PolarisRouterContext;
 import com.tencent.cloud.polaris.router.RouterConstants;
 import com.tencent.cloud.polaris.router.RouterRuleLabelResolver;
 import com.tencent.cloud.polaris.router.spi.RouterLabelResolver;
@@ -63,7 +60,7 @@ public class RouterLabelFeignInterceptorTest {
 	private RouterLabelResolver routerLabelResolver;
 
 	@Test
-	public void testResolveRouterLabel() throws UnsupportedEncodingException {
+	public void testResolveRouterLabel() {
 		RouterLabelFeignInterceptor routerLabelFeignInterceptor = new RouterLabelFeignInterceptor(
 				Collections.singletonList(routerLabelResolver),
 				metadataLocalProperties, routerRuleLabelResolver);
@@ -116,19 +113,22 @@ public class RouterLabelFeignInterceptorTest {
 
 				routerLabelFeignInterceptor.apply(requestTemplate);
 
-				Collection<String> routerLabels = requestTemplate.headers().get(RouterConstants.ROUTER_LABEL_HEADER);
-
-				Assert.assertNotNull(routerLabels);
-				for (String value : routerLabels) {
-					Map<String, String> labels = JacksonUtils.deserialize2Map(URLDecoder.decode(value, "UTF-8"));
-
-					Assert.assertEquals("v1", labels.get("k1"));
-					Assert.assertEquals("v22", labels.get("k2"));
-					Assert.assertEquals("v3", labels.get("k3"));
-					Assert.assertEquals("v4", labels.get("k4"));
-					Assert.assertEquals(headerUidValue, labels.get("${http.header.uid}"));
-					Assert.assertEquals("", labels.get("${http.header.name}"));
-				}
+				// labels are handed over in process instead of header
+				Assert.assertFalse(requestTemplate.headers().containsKey(RouterConstants.ROUTER_LABEL_HEADER));
+				PolarisRouterContext routerContext = FeignRouterContextHolder.take(requestTemplate);
+				Assert.assertNotNull(routerContext);
+				Assert.assertEquals(transitiveLabels, routerContext.getLabels(PolarisRouterContext.TRANSITIVE_LABELS));
+
+				Map<String, String> labels = routerContext.getLabels(PolarisRouterContext.RULE_ROUTER_LABELS);
+				Assert.assertEquals("v1", labels.get("k1"));
+				Assert.assertEquals("v22", labels.get("k2"));
+				Assert.assertEquals("v3", labels.get("k3"));
+				Assert.assertEquals("v4", labels.get("k4"));
+				Assert.assertEquals(headerUidValue, labels.get("${http.header.uid}"));
+				Assert.assertEquals("", labels.get("${http.header.name}"));
+
+				// taken once only
+				Assert.assertNull(FeignRouterContextHolder.take(requestTemplate));
 			}
 		}
 	}
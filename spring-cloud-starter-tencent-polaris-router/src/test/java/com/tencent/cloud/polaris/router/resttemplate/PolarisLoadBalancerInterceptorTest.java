@@ -20,18 +20,18 @@ package com.tencent.cloud.polaris.router.resttemplate;
 
 
 import java.net.URI;
-import java.net.URLDecoder;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.tencent.cloud.common.metadata.MetadataContext;
 import com.tencent.cloud.common.metadata.MetadataContextHolder;
 import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
 import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
-import com.tencent.cloud.common.util.JacksonUtils;
+import com.tencent.cloud.polaris.router.PolarisRouterContext;
 import com.tencent.cloud.polaris.router.RouterConstants;
 import com.tencent.cloud.polaris.router.RouterRuleLabelResolver;
 import com.tencent.cloud.polaris.router.spi.RouterLabelResolver;
@@ -44,19 +44,30 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Mono;
 
+import org.springframework.cloud.client.DefaultServiceInstance;
 import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerProperties;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerRequest;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerRequestFactory;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.loadbalancer.blocking.client.BlockingLoadBalancerClient;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
 
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 /**
  * test for {@link PolarisLoadBalancerInterceptor}
@@ -179,20 +190,67 @@ public class PolarisLoadBalancerInterceptorTest {
 		PolarisLoadBalancerInterceptor polarisLoadBalancerInterceptor = new PolarisLoadBalancerInterceptor(loadBalancerClient,
 				loadBalancerRequestFactory, Collections.singletonList(routerLabelResolver), metadataLocalProperties, routerRuleLabelResolver);
 
-		polarisLoadBalancerInterceptor.setLabelsToHeaders(request, null, calleeService);
+		PolarisRouterContext routerContext = polarisLoadBalancerInterceptor.buildRouterContext(request, null, calleeService);
 
 		verify(metadataLocalProperties).getContent();
 		verify(routerRuleLabelResolver).getExpressionLabelKeys(callerService, callerService, calleeService);
 		verify(routerLabelResolver).resolve(request, null);
 
+		Map<String, String> labels = routerContext.getLabels(PolarisRouterContext.RULE_ROUTER_LABELS);
+		Assert.assertEquals("v1", labels.get("k1"));
+		Assert.assertEquals("v22", labels.get("k2"));
+		Assert.assertEquals("v4", labels.get("k4"));
+		Assert.assertEquals("GET", labels.get("${http.method}"));
+		Assert.assertEquals("/user/get", labels.get("${http.uri}"));
+		Assert.assertEquals(transitiveLabels, routerContext.getLabels(PolarisRouterContext.TRANSITIVE_LABELS));
+		Assert.assertNull(request.getHeaders().get(RouterConstants.ROUTER_LABEL_HEADER));
+	}
+
+	@Test
+	public void testRestTemplateRequestData() {
+		String calleeService = "calleeService";
+
+		Map<String, String> localMetadata = new HashMap<>();
+		localMetadata.put("k1", "v1");
+		when(metadataLocalProperties.getContent()).thenReturn(localMetadata);
+		MetadataContext metadataContext = Mockito.mock(MetadataContext.class);
+		when(metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE)).thenReturn(Collections.emptyMap());
+		mockedMetadataContextHolder.when(MetadataContextHolder::get).thenReturn(metadataContext);
 
-		Map<String, String> headers = JacksonUtils.deserialize2Map(URLDecoder.decode(request.getHeaders()
-				.get(RouterConstants.ROUTER_LABEL_HEADER).get(0), "UTF-8"));
-		Assert.assertEquals("v1", headers.get("k1"));
-		Assert.assertEquals("v22", headers.get("k2"));
-		Assert.assertEquals("v4", headers.get("k4"));
-		Assert.assertEquals("GET", headers.get("${http.method}"));
-		Assert.assertEquals("/user/get", headers.get("${http.uri}"));
+		// capture what load balancer sees while choosing an instance
+		AtomicReference<Object> chosenContext = new AtomicReference<>();
+		AtomicReference<PolarisRouterContext> chosenRouterContext = new AtomicReference<>();
+		ServiceInstance instance = new DefaultServiceInstance("1", calleeService, "localhost", 8080, false);
+		ReactiveLoadBalancer<ServiceInstance> reactiveLoadBalancer = request -> {
+			chosenContext.set(request.getContext());
+			RequestDataContext requestDataContext = (RequestDataContext) request.getContext();
+			PolarisLoadBalancerRequest<?> loadBalancerRequest = PolarisLoadBalancerRequest.current(
+					requestDataContext.getClientRequest().getHeaders());
+			chosenRouterContext.set(loadBalancerRequest != null ? loadBalancerRequest.getRouterContext() : null);
+			return Mono.just(new DefaultResponse(instance));
+		};
+		LoadBalancerClient blockingLoadBalancerClient = new BlockingLoadBalancerClient(
+				new SingleLoadBalancerFactory(reactiveLoadBalancer));
+
+		RestTemplate restTemplate = new RestTemplate();
+		MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+		restTemplate.getInterceptors().add(new PolarisLoadBalancerInterceptor(blockingLoadBalancerClient,
+				new LoadBalancerRequestFactory(blockingLoadBalancerClient), Collections.emptyList(),
+				metadataLocalProperties, routerRuleLabelResolver));
+		server.expect(requestTo("http://localhost:8080/user/get")).andRespond(withSuccess());
+
+		restTemplate.getForEntity("http://" + calleeService + "/user/get", String.class);
+
+		server.verify();
+		// request data of the http request is available, e.g. for hash key of consistent hash load balancer
+		Assert.assertTrue(chosenContext.get() instanceof RequestDataContext);
+		Assert.assertEquals(URI.create("http://" + calleeService + "/user/get"),
+				((RequestDataContext) chosenContext.get()).getClientRequest().getUrl());
+		// router context is still handed over in process
+		Assert.assertNotNull(chosenRouterContext.get());
+		Assert.assertEquals("v1", chosenRouterContext.get().getLabels(PolarisRouterContext.RULE_ROUTER_LABELS).get("k1"));
+		Assert.assertNull(PolarisLoadBalancerRequest.current(
+				((RequestDataContext) chosenContext.get()).getClientRequest().getHeaders()));
 	}
 
 	static class MockedLoadBalancerRequest<T> implements LoadBalancerRequest<T> {
@@ -228,4 +286,33 @@ public class PolarisLoadBalancerInterceptorTest {
 			return httpHeaders;
 		}
 	}
+
+	private static final class SingleLoadBalancerFactory implements ReactiveLoadBalancer.Factory<ServiceInstance> {
+
+		private final ReactiveLoadBalancer<ServiceInstance> loadBalancer;
+
+		private SingleLoadBalancerFactory(ReactiveLoadBalancer<ServiceInstance> loadBalancer) {
+			this.loadBalancer = loadBalancer;
+		}
+
+		@Override
+		public ReactiveLoadBalancer<ServiceInstance> getInstance(String serviceId) {
+			return loadBalancer;
+		}
+
+		@Override
+		public <X> Map<String, X> getInstances(String name, Class<X> type) {
+			return Collections.emptyMap();
+		}
+
+		@Override
+		public <X> X getInstance(String name, Class<?> clazz, Class<?>... generics) {
+			return null;
+		}
+
+		@Override
+		public LoadBalancerProperties getProperties(String serviceId) {
+			return new LoadBalancerProperties();
+		}
+	}
 }
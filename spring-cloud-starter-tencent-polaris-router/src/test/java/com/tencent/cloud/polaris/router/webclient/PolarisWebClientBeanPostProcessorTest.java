@@ -0,0 +1,99 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router.webclient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
+import com.tencent.cloud.common.util.BeanFactoryUtils;
+import com.tencent.cloud.polaris.router.RouterRuleLabelResolver;
+import com.tencent.cloud.polaris.router.spi.ReactiveRouterLabelResolver;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link PolarisWebClientBeanPostProcessor}.
+ *
+ * @author Haotian Zhang
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PolarisWebClientBeanPostProcessorTest {
+
+	@Mock
+	private MetadataLocalProperties metadataLocalProperties;
+	@Mock
+	private RouterRuleLabelResolver routerRuleLabelResolver;
+	@Mock
+	private DefaultListableBeanFactory beanFactory;
+	@Mock
+	private LoadBalanced loadBalanced;
+
+	@Test
+	public void testAddFilterToLoadBalancedWebClientBuilder() {
+		when(beanFactory.containsBean("webClientBuilder")).thenReturn(true);
+		when(beanFactory.findAnnotationOnBean("webClientBuilder", LoadBalanced.class)).thenReturn(loadBalanced);
+		when(beanFactory.getBean(MetadataLocalProperties.class)).thenReturn(metadataLocalProperties);
+		when(beanFactory.getBean(RouterRuleLabelResolver.class)).thenReturn(routerRuleLabelResolver);
+
+		try (MockedStatic<BeanFactoryUtils> mockedBeanFactoryUtils = Mockito.mockStatic(BeanFactoryUtils.class)) {
+			mockedBeanFactoryUtils.when(() -> BeanFactoryUtils.getBeans(beanFactory, ReactiveRouterLabelResolver.class))
+					.thenReturn(null);
+			ExchangeFilterFunction loadBalancerFilter = (request, next) -> next.exchange(request);
+			WebClient.Builder builder = WebClient.builder().filter(loadBalancerFilter);
+
+			PolarisWebClientBeanPostProcessor processor = new PolarisWebClientBeanPostProcessor();
+			processor.setBeanFactory(beanFactory);
+			processor.postProcessBeforeInitialization(builder, "webClientBuilder");
+			processor.postProcessBeforeInitialization(builder, "webClientBuilder");
+
+			List<ExchangeFilterFunction> filters = new ArrayList<>();
+			builder.filters(filters::addAll);
+			Assert.assertEquals(2, filters.size());
+			Assert.assertTrue(filters.get(0) instanceof RouterLabelExchangeFilterFunction);
+			Assert.assertSame(loadBalancerFilter, filters.get(1));
+		}
+	}
+
+	@Test
+	public void testSkipNotLoadBalancedWebClientBuilder() {
+		when(beanFactory.containsBean("webClientBuilder")).thenReturn(true);
+
+		WebClient.Builder builder = WebClient.builder();
+		PolarisWebClientBeanPostProcessor processor = new PolarisWebClientBeanPostProcessor();
+		processor.setBeanFactory(beanFactory);
+		processor.postProcessBeforeInitialization(builder, "webClientBuilder");
+
+		List<ExchangeFilterFunction> filters = new ArrayList<>();
+		builder.filters(filters::addAll);
+		Assert.assertTrue(filters.isEmpty());
+	}
+}
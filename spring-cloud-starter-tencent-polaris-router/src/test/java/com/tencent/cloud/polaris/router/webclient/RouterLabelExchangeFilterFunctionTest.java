@@ -0,0 +1,182 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.router.webclient;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.metadata.ReactiveMetadataContextHolder;
+import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
+import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
+import com.tencent.cloud.polaris.router.PolarisRouterContext;
+import com.tencent.cloud.polaris.router.RouterConstants;
+import com.tencent.cloud.polaris.router.RouterRuleLabelResolver;
+import com.tencent.cloud.polaris.router.spi.ReactiveRouterLabelResolver;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Mono;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link RouterLabelExchangeFilterFunction}.
+ *
+ * @author Haotian Zhang
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RouterLabelExchangeFilterFunctionTest {
+
+	private static final String CALLEE_SERVICE = "calleeService";
+
+	private static MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils;
+	@Mock
+	private ReactiveRouterLabelResolver routerLabelResolver;
+	@Mock
+	private ReactiveRouterLabelResolver failedRouterLabelResolver;
+	@Mock
+	private MetadataLocalProperties metadataLocalProperties;
+	@Mock
+	private RouterRuleLabelResolver routerRuleLabelResolver;
+
+	@BeforeClass
+	public static void beforeClass() {
+		mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class);
+		mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+				.thenReturn("callerService");
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		mockedApplicationContextAwareUtils.close();
+	}
+
+	@Test
+	public void testFilter() {
+		ClientRequest request = ClientRequest.create(HttpMethod.GET,
+				URI.create("http://" + CALLEE_SERVICE + "/user/get?uid=1")).build();
+
+		// mock local metadata
+		Map<String, String> localMetadata = new HashMap<>();
+		localMetadata.put("k1", "v1");
+		localMetadata.put("k2", "v2");
+		when(metadataLocalProperties.getContent()).thenReturn(localMetadata);
+
+		// mock custom resolved from request, a failed resolver is skipped
+		Map<String, String> customResolvedLabels = new HashMap<>();
+		customResolvedLabels.put("k3", "v3");
+		when(routerLabelResolver.getOrder()).thenReturn(0);
+		when(routerLabelResolver.resolve(request)).thenReturn(Mono.just(customResolvedLabels));
+		when(failedRouterLabelResolver.getOrder()).thenReturn(1);
+		when(failedRouterLabelResolver.resolve(request)).thenThrow(new IllegalStateException("failed"));
+
+		// mock expression rule labels
+		Set<String> expressionKeys = new HashSet<>();
+		expressionKeys.add("${http.method}");
+		expressionKeys.add("${http.query.uid}");
+		when(routerRuleLabelResolver.getCachedExpressionLabelKeys(MetadataContext.LOCAL_NAMESPACE,
+				MetadataContext.LOCAL_SERVICE, CALLEE_SERVICE)).thenReturn(expressionKeys);
+
+		// mock transitive metadata in Reactor context
+		MetadataContext metadataContext = Mockito.mock(MetadataContext.class);
+		Map<String, String> transitiveLabels = new HashMap<>();
+		transitiveLabels.put("k2", "v22");
+		when(metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE)).thenReturn(transitiveLabels);
+
+		RouterLabelExchangeFilterFunction filterFunction = new RouterLabelExchangeFilterFunction(
+				new ArrayList<>(Arrays.asList(failedRouterLabelResolver, routerLabelResolver)),
+				metadataLocalProperties, routerRuleLabelResolver);
+
+		AtomicReference<ClientRequest> exchangedRequest = new AtomicReference<>();
+		ExchangeFunction next = clientRequest -> {
+			exchangedRequest.set(clientRequest);
+			return Mono.just(Mockito.mock(ClientResponse.class));
+		};
+		filterFunction.filter(request, next)
+				.contextWrite(context -> ReactiveMetadataContextHolder.put(context, metadataContext))
+				.block();
+
+		Object routerContext = exchangedRequest.get().attribute(RouterConstants.ROUTER_CONTEXT_ATTRIBUTE)
+				.orElse(null);
+		Assert.assertTrue(routerContext instanceof PolarisRouterContext);
+		Map<String, String> routerLabels = ((PolarisRouterContext) routerContext)
+				.getLabels(PolarisRouterContext.RULE_ROUTER_LABELS);
+		Assert.assertEquals("v1", routerLabels.get("k1"));
+		Assert.assertEquals("v22", routerLabels.get("k2"));
+		Assert.assertEquals("v3", routerLabels.get("k3"));
+		Assert.assertEquals("GET", routerLabels.get("${http.method}"));
+		Assert.assertEquals("1", routerLabels.get("${http.query.uid}"));
+		Assert.assertEquals(transitiveLabels, ((PolarisRouterContext) routerContext)
+				.getLabels(PolarisRouterContext.TRANSITIVE_LABELS));
+		verify(routerRuleLabelResolver, Mockito.never()).getExpressionLabelKeys(anyString(), anyString(), anyString());
+	}
+
+	@Test
+	public void testFilterWithoutCachedRules() {
+		ClientRequest request = ClientRequest.create(HttpMethod.POST,
+				URI.create("http://" + CALLEE_SERVICE + "/user/add")).build();
+		when(metadataLocalProperties.getContent()).thenReturn(new HashMap<>());
+		Set<String> expressionKeys = new HashSet<>();
+		expressionKeys.add("${http.method}");
+		when(routerRuleLabelResolver.getCachedExpressionLabelKeys(MetadataContext.LOCAL_NAMESPACE,
+				MetadataContext.LOCAL_SERVICE, CALLEE_SERVICE)).thenReturn(null);
+		when(routerRuleLabelResolver.getExpressionLabelKeys(MetadataContext.LOCAL_NAMESPACE,
+				MetadataContext.LOCAL_SERVICE, CALLEE_SERVICE)).thenReturn(expressionKeys);
+
+		RouterLabelExchangeFilterFunction filterFunction = new RouterLabelExchangeFilterFunction(
+				null, metadataLocalProperties, routerRuleLabelResolver);
+
+		AtomicReference<ClientRequest> exchangedRequest = new AtomicReference<>();
+		ExchangeFunction next = clientRequest -> {
+			exchangedRequest.set(clientRequest);
+			return Mono.just(Mockito.mock(ClientResponse.class));
+		};
+		filterFunction.filter(request, next)
+				.contextWrite(context -> ReactiveMetadataContextHolder.put(context, new MetadataContext()))
+				.block();
+
+		PolarisRouterContext routerContext = (PolarisRouterContext) exchangedRequest.get()
+				.attribute(RouterConstants.ROUTER_CONTEXT_ATTRIBUTE).orElse(null);
+		Assert.assertNotNull(routerContext);
+		Assert.assertEquals("POST", routerContext.getLabels(PolarisRouterContext.RULE_ROUTER_LABELS)
+				.get("${http.method}"));
+		verify(routerRuleLabelResolver).getExpressionLabelKeys(any(), any(), any());
+	}
+}
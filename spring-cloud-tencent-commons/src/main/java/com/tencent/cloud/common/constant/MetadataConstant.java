@@ -68,6 +68,29 @@ public final class MetadataConstant {
 		 */
 		public static final String METADATA_CONTEXT = "SCT-METADATA-CONTEXT";
 
+		/**
+		 * Remaining hops of hop limited transitive metadata.
+		 */
+		public static final String METADATA_HOPS = "SCT-METADATA-HOPS";
+
+		/**
+		 * Prefix of custom transitive metadata header.
+		 */
+		public static final String CUSTOM_TRANSITIVE_PREFIX = "X-SCT-Metadata-Transitive-";
+
+	}
+
+	/**
+	 * Key of instance metadata published by registry.
+	 */
+	public static class InstanceMetadataKey {
+
+		/**
+		 * Registration time of instance in epoch milliseconds, load balancer ramps up weight of new instance by it.
+		 * Published only if slow start of discovery is enabled.
+		 */
+		public static final String REGISTRATION_TIME = "sct.registration-time";
+
 	}
 
 }
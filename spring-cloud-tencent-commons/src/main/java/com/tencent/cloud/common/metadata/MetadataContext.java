@@ -18,15 +18,20 @@
 
 package com.tencent.cloud.common.metadata;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
 import com.tencent.cloud.common.util.JacksonUtils;
+import com.tencent.cloud.common.util.LayeredMap;
+import com.tencent.cloud.common.util.LazyMap;
+import com.tencent.cloud.common.util.MetadataCodecUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -85,46 +90,220 @@ public class MetadataContext {
 		LOCAL_SERVICE = serviceName;
 	}
 
-	private final Map<String, Map<String, String>> fragmentContexts;
+	private static final Object[] EMPTY_FRAGMENTS = new Object[0];
+
+	/**
+	 * Immutable fragment store, laid out as [name0, context0, name1, context1, ...].
+	 * Fragment contexts are read-only maps. Any modification replaces the whole store (copy-on-write),
+	 * so reads never lock or allocate.
+	 */
+	private volatile Object[] fragmentContexts;
+
+	/**
+	 * Encoded header of transitive fragment. Bound to the fragment map it was encoded from, so a stale value is
+	 * never returned after the fragment is replaced.
+	 */
+	private volatile EncodedHeader transitiveHeader;
 
 	public MetadataContext() {
-		this.fragmentContexts = new ConcurrentHashMap<>();
+		this.fragmentContexts = EMPTY_FRAGMENTS;
+	}
+
+	/**
+	 * Create context with transitive metadata. The static layer is shared by reference and only the
+	 * dynamic layer is overlaid on top of it.
+	 * @param staticTransitiveMetadata static transitive metadata, shared by all requests
+	 * @param dynamicTransitiveMetadata transitive metadata of current request
+	 */
+	public MetadataContext(Map<String, String> staticTransitiveMetadata,
+			Map<String, String> dynamicTransitiveMetadata) {
+		Map<String, String> transitiveContext = LayeredMap.of(staticTransitiveMetadata, dynamicTransitiveMetadata);
+		if (transitiveContext.isEmpty()) {
+			this.fragmentContexts = EMPTY_FRAGMENTS;
+		}
+		else {
+			this.fragmentContexts = new Object[] {FRAGMENT_TRANSITIVE, transitiveContext};
+		}
 	}
 
+	/**
+	 * Create context whose inbound transitive metadata is decoded on first access. If nothing is added on top
+	 * of the inbound header and the transitive fragment is never replaced, the raw inbound header is forwarded
+	 * as is.
+	 * @param staticTransitiveMetadata static transitive metadata, shared by all requests
+	 * @param inboundTransitiveHeader raw transitive metadata header from upstream
+	 * @param customTransitiveMetadata transitive metadata from custom headers of current request
+	 */
+	public MetadataContext(Map<String, String> staticTransitiveMetadata, String inboundTransitiveHeader,
+			Map<String, String> customTransitiveMetadata) {
+		if (!StringUtils.hasText(inboundTransitiveHeader)) {
+			Map<String, String> transitiveContext = LayeredMap.of(staticTransitiveMetadata, customTransitiveMetadata);
+			this.fragmentContexts = transitiveContext.isEmpty() ? EMPTY_FRAGMENTS
+					: new Object[] {FRAGMENT_TRANSITIVE, transitiveContext};
+			return;
+		}
+		Map<String, String> transitiveContext = new LazyMap(() -> LayeredMap.of(staticTransitiveMetadata,
+				decodeInboundHeader(inboundTransitiveHeader), customTransitiveMetadata));
+		this.fragmentContexts = new Object[] {FRAGMENT_TRANSITIVE, transitiveContext};
+		if (CollectionUtils.isEmpty(staticTransitiveMetadata) && CollectionUtils.isEmpty(customTransitiveMetadata)) {
+			this.transitiveHeader = new EncodedHeader(transitiveContext,
+					MetadataCodecUtils.formatOf(inboundTransitiveHeader), EncodedHeader.ANY_THRESHOLD,
+					inboundTransitiveHeader);
+		}
+	}
 
 	public Map<String, String> getFragmentContext(String fragment) {
-		Map<String, String> fragmentContext = fragmentContexts.get(fragment);
+		Map<String, String> fragmentContext = findFragment(fragmentContexts, fragment);
 		if (fragmentContext == null) {
 			return Collections.emptyMap();
 		}
-		return Collections.unmodifiableMap(fragmentContext);
+		return fragmentContext;
 	}
 
 	public String getContext(String fragment, String key) {
-		Map<String, String> fragmentContext = fragmentContexts.get(fragment);
+		Map<String, String> fragmentContext = findFragment(fragmentContexts, fragment);
 		if (fragmentContext == null) {
 			return null;
 		}
 		return fragmentContext.get(key);
 	}
 
-	public void putContext(String fragment, String key, String value) {
-		Map<String, String> fragmentContext = fragmentContexts.get(fragment);
+	/**
+	 * Get transitive metadata encoded in legacy format for the outbound http header. The encoded value is cached
+	 * until the transitive fragment is replaced by {@link #putContext} or {@link #putFragmentContext}.
+	 * @return encoded transitive metadata, or empty string if there is none
+	 */
+	public String getTransitiveMetadataHeader() {
+		return getTransitiveMetadataHeader(MetadataCodecUtils.Format.LEGACY, 0);
+	}
+
+	/**
+	 * Get transitive metadata encoded in format for the outbound http header, compressed if the compact value is
+	 * longer than threshold. A forwarded inbound header is returned as is if it was sent in the same format.
+	 * @param format format of encoded value
+	 * @param compressionThreshold length above which the value is compressed, non-positive to disable
+	 * @return encoded transitive metadata, or empty string if there is none
+	 */
+	public String getTransitiveMetadataHeader(MetadataCodecUtils.Format format, int compressionThreshold) {
+		Map<String, String> transitiveContext = findFragment(fragmentContexts, FRAGMENT_TRANSITIVE);
+		if (transitiveContext == null) {
+			return "";
+		}
+		EncodedHeader header = transitiveHeader;
+		if (header != null && header.source == transitiveContext && header.format == format
+				&& (header.compressionThreshold == compressionThreshold
+				|| header.compressionThreshold == EncodedHeader.ANY_THRESHOLD)) {
+			return header.value;
+		}
+		if (transitiveContext.isEmpty()) {
+			return "";
+		}
+		header = new EncodedHeader(transitiveContext, format, compressionThreshold,
+				MetadataCodecUtils.encode(transitiveContext, format, compressionThreshold));
+		transitiveHeader = header;
+		return header.value;
+	}
+
+	public synchronized void putContext(String fragment, String key, String value) {
+		Map<String, String> fragmentContext = findFragment(fragmentContexts, fragment);
+		Map<String, String> newFragmentContext;
 		if (fragmentContext == null) {
-			fragmentContext = new ConcurrentHashMap<>();
-			fragmentContexts.put(fragment, fragmentContext);
+			newFragmentContext = new HashMap<>(4);
+		}
+		else {
+			newFragmentContext = new HashMap<>(fragmentContext);
+		}
+		newFragmentContext.put(key, value);
+		replaceFragment(fragment, Collections.unmodifiableMap(newFragmentContext));
+	}
+
+	public synchronized void putFragmentContext(String fragment, Map<String, String> context) {
+		replaceFragment(fragment, LayeredMap.unmodifiable(context));
+	}
+
+	private void replaceFragment(String fragment, Map<String, String> context) {
+		if (FRAGMENT_TRANSITIVE.equals(fragment)) {
+			transitiveHeader = null;
+		}
+		Object[] current = fragmentContexts;
+		for (int i = 0; i < current.length; i += 2) {
+			if (current[i].equals(fragment)) {
+				Object[] copy = current.clone();
+				copy[i + 1] = context;
+				fragmentContexts = copy;
+				return;
+			}
+		}
+		Object[] copy = Arrays.copyOf(current, current.length + 2);
+		copy[current.length] = fragment;
+		copy[current.length + 1] = context;
+		fragmentContexts = copy;
+	}
+
+	/**
+	 * Decode inbound transitive metadata header. A malformed header is logged and treated as empty, so the
+	 * failure is not thrown again on every access of the lazy map.
+	 * @param inboundTransitiveHeader raw transitive metadata header from upstream
+	 * @return inbound transitive metadata
+	 */
+	private static Map<String, String> decodeInboundHeader(String inboundTransitiveHeader) {
+		try {
+			return MetadataCodecUtils.decode(inboundTransitiveHeader);
+		}
+		catch (RuntimeException e) {
+			LOG.warn("Ignore malformed transitive metadata header from upstream: {}", inboundTransitiveHeader, e);
+			return Collections.emptyMap();
 		}
-		fragmentContext.put(key, value);
 	}
 
-	public void putFragmentContext(String fragment, Map<String, String> context) {
-		fragmentContexts.put(fragment, context);
+	@SuppressWarnings("unchecked")
+	private static Map<String, String> findFragment(Object[] fragmentContexts, String fragment) {
+		for (int i = 0; i < fragmentContexts.length; i += 2) {
+			if (fragmentContexts[i].equals(fragment)) {
+				return (Map<String, String>) fragmentContexts[i + 1];
+			}
+		}
+		return null;
 	}
 
 	@Override
 	public String toString() {
 		return "MetadataContext{" +
-				"fragmentContexts=" + JacksonUtils.serialize2Json(fragmentContexts) +
+				"fragmentContexts=" + JacksonUtils.serialize2Json(toMap(fragmentContexts)) +
 				'}';
 	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Map<String, String>> toMap(Object[] fragmentContexts) {
+		Map<String, Map<String, String>> result = new HashMap<>();
+		for (int i = 0; i < fragmentContexts.length; i += 2) {
+			result.put((String) fragmentContexts[i], (Map<String, String>) fragmentContexts[i + 1]);
+		}
+		return result;
+	}
+
+	private static final class EncodedHeader {
+
+		/**
+		 * Threshold of a header forwarded from upstream, which is valid for any threshold.
+		 */
+		private static final int ANY_THRESHOLD = Integer.MIN_VALUE;
+
+		private final Map<String, String> source;
+
+		private final MetadataCodecUtils.Format format;
+
+		private final int compressionThreshold;
+
+		private final String value;
+
+		private EncodedHeader(Map<String, String> source, MetadataCodecUtils.Format format, int compressionThreshold,
+				String value) {
+			this.source = source;
+			this.format = format;
+			this.compressionThreshold = compressionThreshold;
+			this.value = value;
+		}
+
+	}
 }
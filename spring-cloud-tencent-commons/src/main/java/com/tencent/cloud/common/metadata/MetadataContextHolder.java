@@ -17,15 +17,11 @@
 
 package com.tencent.cloud.common.metadata;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 import com.tencent.cloud.common.metadata.config.MetadataLocalProperties;
 import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
 
-import org.springframework.util.CollectionUtils;
-
 /**
  * Metadata Context Holder.
  *
@@ -33,7 +29,11 @@ import org.springframework.util.CollectionUtils;
  */
 public final class MetadataContextHolder {
 
-	private static final ThreadLocal<MetadataContext> METADATA_CONTEXT = new InheritableThreadLocal<>();
+	/**
+	 * Plain thread local. Pooled threads get the context by explicit capture and restore, see
+	 * {@link com.tencent.cloud.common.metadata.concurrent.MetadataContextWrappers}.
+	 */
+	private static final ThreadLocal<MetadataContext> METADATA_CONTEXT = new ThreadLocal<>();
 
 	private static MetadataLocalProperties metadataLocalProperties;
 	private static StaticMetadataManager staticMetadataManager;
@@ -46,10 +46,20 @@ public final class MetadataContextHolder {
 	 * @return METADATA_CONTEXT
 	 */
 	public static MetadataContext get() {
-		if (METADATA_CONTEXT.get() != null) {
-			return METADATA_CONTEXT.get();
+		MetadataContext metadataContext = METADATA_CONTEXT.get();
+		if (metadataContext != null) {
+			return metadataContext;
 		}
 
+		// init static transitive metadata
+		metadataContext = new MetadataContext(getStaticTransitiveMetadata(), null);
+
+		METADATA_CONTEXT.set(metadataContext);
+
+		return metadataContext;
+	}
+
+	private static Map<String, String> getStaticTransitiveMetadata() {
 		if (metadataLocalProperties == null) {
 			metadataLocalProperties = (MetadataLocalProperties) ApplicationContextAwareUtils
 					.getApplicationContext().getBean("metadataLocalProperties");
@@ -58,15 +68,7 @@ public final class MetadataContextHolder {
 			staticMetadataManager = (StaticMetadataManager) ApplicationContextAwareUtils
 					.getApplicationContext().getBean("metadataManager");
 		}
-
-		// init static transitive metadata
-		MetadataContext metadataContext = new MetadataContext();
-		metadataContext.putFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE,
-				staticMetadataManager.getMergedStaticTransitiveMetadata());
-
-		METADATA_CONTEXT.set(metadataContext);
-
-		return METADATA_CONTEXT.get();
+		return staticMetadataManager.getMergedStaticTransitiveMetadata();
 	}
 
 	/**
@@ -82,21 +84,27 @@ public final class MetadataContextHolder {
 	 * @param dynamicTransitiveMetadata custom metadata collection
 	 */
 	public static void init(Map<String, String> dynamicTransitiveMetadata) {
-		// Init ThreadLocal.
-		MetadataContextHolder.remove();
-		MetadataContext metadataContext = MetadataContextHolder.get();
-
-		// Save transitive metadata to ThreadLocal.
-		if (!CollectionUtils.isEmpty(dynamicTransitiveMetadata)) {
-			Map<String, String> staticTransitiveMetadata = metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
-			Map<String, String> mergedTransitiveMetadata = new HashMap<>();
-			mergedTransitiveMetadata.putAll(staticTransitiveMetadata);
-			mergedTransitiveMetadata.putAll(dynamicTransitiveMetadata);
-
-			metadataContext.putFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE,
-					Collections.unmodifiableMap(mergedTransitiveMetadata));
-		}
-		MetadataContextHolder.set(metadataContext);
+		MetadataContextHolder.set(create(dynamicTransitiveMetadata));
+	}
+
+	/**
+	 * Create metadata context without binding it to current thread.
+	 * @param dynamicTransitiveMetadata custom metadata collection
+	 * @return metadata context
+	 */
+	public static MetadataContext create(Map<String, String> dynamicTransitiveMetadata) {
+		// Static transitive metadata is shared by reference, only dynamic metadata is overlaid.
+		return new MetadataContext(getStaticTransitiveMetadata(), dynamicTransitiveMetadata);
+	}
+
+	/**
+	 * Create metadata context without binding it to current thread. The inbound header is decoded on first access.
+	 * @param inboundTransitiveHeader raw transitive metadata header from upstream
+	 * @param customTransitiveMetadata transitive metadata from custom headers
+	 * @return metadata context
+	 */
+	public static MetadataContext create(String inboundTransitiveHeader, Map<String, String> customTransitiveMetadata) {
+		return new MetadataContext(getStaticTransitiveMetadata(), inboundTransitiveHeader, customTransitiveMetadata);
 	}
 
 	/**
@@ -106,4 +114,25 @@ public final class MetadataContextHolder {
 		METADATA_CONTEXT.remove();
 	}
 
+	/**
+	 * Capture metadata context of current thread without creating one.
+	 * @return metadata context, or null if current thread has none
+	 */
+	public static MetadataContext capture() {
+		return METADATA_CONTEXT.get();
+	}
+
+	/**
+	 * Restore a captured metadata context to current thread.
+	 * @param metadataContext captured metadata context, null to clear current thread
+	 */
+	public static void restore(MetadataContext metadataContext) {
+		if (metadataContext == null) {
+			METADATA_CONTEXT.remove();
+		}
+		else {
+			METADATA_CONTEXT.set(metadataContext);
+		}
+	}
+
 }
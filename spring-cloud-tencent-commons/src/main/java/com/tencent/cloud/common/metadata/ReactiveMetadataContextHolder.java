@@ -0,0 +1,81 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.metadata;
+
+import com.tencent.cloud.common.constant.MetadataConstant;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Metadata context holder for reactive applications. Metadata context is carried in Reactor {@link Context} of
+ * the subscriber, so it follows the request across event-loop and scheduler threads without thread local.
+ * Falls back to the metadata context of current thread when the Reactor context does not carry one, without
+ * binding a new one to the thread, as the thread is usually a shared event-loop thread.
+ *
+ * @author Haotian Zhang
+ */
+public final class ReactiveMetadataContextHolder {
+
+	/**
+	 * Key of metadata context in Reactor context.
+	 */
+	public static final String CONTEXT_KEY = MetadataConstant.HeaderName.METADATA_CONTEXT;
+
+	private ReactiveMetadataContextHolder() {
+	}
+
+	/**
+	 * Get metadata context from the subscriber context.
+	 * @return metadata context, never empty
+	 */
+	public static Mono<MetadataContext> get() {
+		return Mono.deferContextual(contextView -> Mono.just(get(contextView)));
+	}
+
+	/**
+	 * Get metadata context from Reactor context view. If absent, return the one of current thread, or a new
+	 * one that is not bound to current thread.
+	 * @param contextView Reactor context view
+	 * @return metadata context
+	 */
+	public static MetadataContext get(ContextView contextView) {
+		MetadataContext metadataContext = contextView.getOrDefault(CONTEXT_KEY, null);
+		if (metadataContext != null) {
+			return metadataContext;
+		}
+		metadataContext = MetadataContextHolder.capture();
+		if (metadataContext != null) {
+			return metadataContext;
+		}
+		return MetadataContextHolder.create(null);
+	}
+
+	/**
+	 * Write metadata context into Reactor context.
+	 * @param context Reactor context
+	 * @param metadataContext metadata context
+	 * @return new Reactor context
+	 */
+	public static Context put(Context context, MetadataContext metadataContext) {
+		return context.put(CONTEXT_KEY, metadataContext);
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.metadata.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * {@link CompletableFuture} factory methods which propagate metadata context of the calling thread to the
+ * asynchronous task. Use {@link MetadataContextWrappers} for functions passed to {@code then*Async}.
+ *
+ * @author Haotian Zhang
+ */
+public final class MetadataContextCompletableFutures {
+
+	private MetadataContextCompletableFutures() {
+	}
+
+	public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+		return CompletableFuture.supplyAsync(MetadataContextWrappers.wrap(supplier));
+	}
+
+	public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+		return CompletableFuture.supplyAsync(MetadataContextWrappers.wrap(supplier), executor);
+	}
+
+	public static CompletableFuture<Void> runAsync(Runnable runnable) {
+		return CompletableFuture.runAsync(MetadataContextWrappers.wrap(runnable));
+	}
+
+	public static CompletableFuture<Void> runAsync(Runnable runnable, Executor executor) {
+		return CompletableFuture.runAsync(MetadataContextWrappers.wrap(runnable), executor);
+	}
+
+}
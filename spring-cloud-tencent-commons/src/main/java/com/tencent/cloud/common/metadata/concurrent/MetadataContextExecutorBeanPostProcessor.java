@@ -0,0 +1,136 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+package com.tencent.cloud.common.metadata.concurrent;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopConfigException;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Bean post processor which makes Spring-managed executors propagate metadata context, including
+ * {@link org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor},
+ * {@link org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler} and plain
+ * {@link java.util.concurrent.ExecutorService} or {@link java.util.concurrent.ScheduledExecutorService}. Executors
+ * are wrapped by a proxy which wraps submitted tasks by {@link MetadataContextWrappers}, so task decorators
+ * configured on them are kept as they are. Executors of application classes are proxied by subclass to keep their type, those
+ * of JDK by their interfaces.
+ *
+ * @author Haotian Zhang
+ */
+public class MetadataContextExecutorBeanPostProcessor implements BeanPostProcessor, BeanClassLoaderAware {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MetadataContextExecutorBeanPostProcessor.class);
+
+	private ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
+
+	@Override
+	public void setBeanClassLoader(ClassLoader classLoader) {
+		this.beanClassLoader = classLoader;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (!(bean instanceof Executor) || bean instanceof MetadataContextExecutorService) {
+			return bean;
+		}
+		if (bean instanceof Advised) {
+			Advised advised = (Advised) bean;
+			if (advised.isFrozen()) {
+				return bean;
+			}
+			for (Advisor advisor : advised.getAdvisors()) {
+				if (advisor.getAdvice() instanceof MetadataContextExecutorInterceptor) {
+					return bean;
+				}
+			}
+			advised.addAdvice(0, new MetadataContextExecutorInterceptor());
+			return bean;
+		}
+		Class<?> beanClass = bean.getClass();
+		ProxyFactory proxyFactory = new ProxyFactory(bean);
+		proxyFactory.setProxyTargetClass(!Modifier.isFinal(beanClass.getModifiers())
+				&& !beanClass.getName().startsWith("java."));
+		proxyFactory.addAdvice(new MetadataContextExecutorInterceptor());
+		try {
+			return proxyFactory.getProxy(beanClassLoader);
+		}
+		catch (AopConfigException | IllegalArgumentException e) {
+			LOG.warn("[SCT] executor {} is not proxied, metadata context is not propagated to its tasks.", beanName, e);
+			return bean;
+		}
+	}
+
+	/**
+	 * Wraps tasks passed to task submitting methods of executor.
+	 */
+	static final class MetadataContextExecutorInterceptor implements MethodInterceptor {
+
+		private static final Set<String> TASK_METHODS = new HashSet<>(Arrays.asList("execute", "submit",
+				"submitListenable", "invokeAll", "invokeAny", "schedule", "scheduleAtFixedRate",
+				"scheduleWithFixedDelay"));
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			if (TASK_METHODS.contains(invocation.getMethod().getName())) {
+				Object[] arguments = invocation.getArguments();
+				for (int i = 0; i < arguments.length; i++) {
+					arguments[i] = wrap(arguments[i]);
+				}
+			}
+			return invocation.proceed();
+		}
+
+		@SuppressWarnings("unchecked")
+		private static Object wrap(Object argument) {
+			if (argument instanceof Runnable) {
+				return MetadataContextWrappers.wrap((Runnable) argument);
+			}
+			if (argument instanceof Callable) {
+				return MetadataContextWrappers.wrap((Callable<Object>) argument);
+			}
+			if (argument instanceof Collection) {
+				List<Object> tasks = new ArrayList<>(((Collection<?>) argument).size());
+				for (Object task : (Collection<?>) argument) {
+					tasks.add(task instanceof Callable ? MetadataContextWrappers.wrap((Callable<Object>) task) : task);
+				}
+				return tasks;
+			}
+			return argument;
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.metadata.concurrent;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Task decorator which propagates metadata context to the executing thread. An optional delegate decorator runs
+ * inside the propagated context.
+ *
+ * @author Haotian Zhang
+ */
+public class MetadataContextTaskDecorator implements TaskDecorator {
+
+	private final TaskDecorator delegate;
+
+	public MetadataContextTaskDecorator() {
+		this(null);
+	}
+
+	/**
+	 * Create task decorator composed with another one.
+	 * @param delegate task decorator to run inside the propagated context, nullable
+	 */
+	public MetadataContextTaskDecorator(TaskDecorator delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Runnable decorate(Runnable runnable) {
+		return MetadataContextWrappers.wrap(delegate != null ? delegate.decorate(runnable) : runnable);
+	}
+
+}
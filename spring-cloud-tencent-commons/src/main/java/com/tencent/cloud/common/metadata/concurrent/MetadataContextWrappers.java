@@ -0,0 +1,111 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.metadata.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.metadata.MetadataContextHolder;
+
+/**
+ * Wrappers which capture metadata context of the submitting thread and restore it on the executing thread.
+ * The executing thread gets its previous context back after the task, so pooled threads never keep a stale one.
+ *
+ * @author Haotian Zhang
+ */
+public final class MetadataContextWrappers {
+
+	private MetadataContextWrappers() {
+	}
+
+	public static Runnable wrap(Runnable runnable) {
+		MetadataContext captured = MetadataContextHolder.capture();
+		return () -> {
+			MetadataContext previous = MetadataContextHolder.capture();
+			MetadataContextHolder.restore(captured);
+			try {
+				runnable.run();
+			}
+			finally {
+				MetadataContextHolder.restore(previous);
+			}
+		};
+	}
+
+	public static <T> Callable<T> wrap(Callable<T> callable) {
+		MetadataContext captured = MetadataContextHolder.capture();
+		return () -> {
+			MetadataContext previous = MetadataContextHolder.capture();
+			MetadataContextHolder.restore(captured);
+			try {
+				return callable.call();
+			}
+			finally {
+				MetadataContextHolder.restore(previous);
+			}
+		};
+	}
+
+	public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+		MetadataContext captured = MetadataContextHolder.capture();
+		return () -> {
+			MetadataContext previous = MetadataContextHolder.capture();
+			MetadataContextHolder.restore(captured);
+			try {
+				return supplier.get();
+			}
+			finally {
+				MetadataContextHolder.restore(previous);
+			}
+		};
+	}
+
+	public static <T, R> Function<T, R> wrap(Function<T, R> function) {
+		MetadataContext captured = MetadataContextHolder.capture();
+		return t -> {
+			MetadataContext previous = MetadataContextHolder.capture();
+			MetadataContextHolder.restore(captured);
+			try {
+				return function.apply(t);
+			}
+			finally {
+				MetadataContextHolder.restore(previous);
+			}
+		};
+	}
+
+	public static <T> Consumer<T> wrap(Consumer<T> consumer) {
+		MetadataContext captured = MetadataContextHolder.capture();
+		return t -> {
+			MetadataContext previous = MetadataContextHolder.capture();
+			MetadataContextHolder.restore(captured);
+			try {
+				consumer.accept(t);
+			}
+			finally {
+				MetadataContextHolder.restore(previous);
+			}
+		};
+	}
+
+}
@@ -19,9 +19,11 @@
 package com.tencent.cloud.common.metadata.config;
 
 import com.tencent.cloud.common.metadata.StaticMetadataManager;
+import com.tencent.cloud.common.metadata.concurrent.MetadataContextExecutorBeanPostProcessor;
 import com.tencent.cloud.common.metadata.filter.gateway.MetadataFirstScgFilter;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -48,6 +50,16 @@ public class MetadataAutoConfiguration {
 		return new StaticMetadataManager(metadataLocalProperties);
 	}
 
+	/**
+	 * Propagate metadata context to Spring-managed executors.
+	 * @return executor bean post processor
+	 */
+	@Bean
+	@ConditionalOnProperty(value = "spring.cloud.tencent.metadata.executor.enabled", matchIfMissing = true)
+	public static MetadataContextExecutorBeanPostProcessor metadataContextExecutorBeanPostProcessor() {
+		return new MetadataContextExecutorBeanPostProcessor();
+	}
+
 	/**
 	 * Create when gateway application is SCG.
 	 */
@@ -20,7 +20,7 @@ package com.tencent.cloud.common.metadata.filter.gateway;
 
 import com.tencent.cloud.common.constant.MetadataConstant;
 import com.tencent.cloud.common.metadata.MetadataContext;
-import com.tencent.cloud.common.metadata.MetadataContextHolder;
+import com.tencent.cloud.common.metadata.ReactiveMetadataContextHolder;
 import reactor.core.publisher.Mono;
 
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -49,17 +49,20 @@ public class MetadataFirstScgFilter implements GlobalFilter, Ordered {
 
 	@Override
 	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-		// get metadata of current thread
 		MetadataContext metadataContext = exchange
 				.getAttribute(MetadataConstant.HeaderName.METADATA_CONTEXT);
-		if (metadataContext == null) {
-			metadataContext = MetadataContextHolder.get();
+		if (metadataContext != null) {
+			MetadataContext exchangeMetadataContext = metadataContext;
+			return chain.filter(exchange)
+					.contextWrite(context -> ReactiveMetadataContextHolder.put(context, exchangeMetadataContext));
 		}
 
-		exchange.getAttributes().put(MetadataConstant.HeaderName.METADATA_CONTEXT,
-				metadataContext);
-
-		return chain.filter(exchange);
+		// get metadata of current subscriber
+		return Mono.deferContextual(contextView -> {
+			exchange.getAttributes().put(MetadataConstant.HeaderName.METADATA_CONTEXT,
+					ReactiveMetadataContextHolder.get(contextView));
+			return chain.filter(exchange);
+		});
 	}
 
 }
@@ -20,13 +20,15 @@ package com.tencent.cloud.common.util;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 
+import com.tencent.cloud.common.util.expression.ExpressionLabelPlan;
+import com.tencent.cloud.common.util.expression.ExpressionLabelSource;
+import com.tencent.cloud.common.util.expression.InboundRequestIndex;
 import org.apache.commons.lang.StringUtils;
 
 import org.springframework.http.HttpCookie;
@@ -100,125 +102,36 @@ public class ExpressionLabelUtils {
 	}
 
 	public static Map<String, String> resolve(HttpServletRequest request, Set<String> labelKeys) {
-		if (CollectionUtils.isEmpty(labelKeys)) {
-			return Collections.emptyMap();
-		}
-
-		Map<String, String> labels = new HashMap<>();
-
-		for (String labelKey : labelKeys) {
-			if (!isExpressionLabel(labelKey)) {
-				continue;
-			}
-			if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_HEADER_PREFIX)) {
-				String headerKey = parseHeaderKey(labelKey);
-				if (StringUtils.isBlank(headerKey)) {
-					continue;
-				}
-				labels.put(labelKey, request.getHeader(headerKey));
-			}
-			else if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_QUERY_PREFIX)) {
-				String queryKey = parseQueryKey(labelKey);
-				if (StringUtils.isBlank(queryKey)) {
-					continue;
-				}
-				labels.put(labelKey, getQueryValue(request.getQueryString(), queryKey));
-			}
-			else if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_COOKIE_PREFIX)) {
-				String cookieKey = parseCookieKey(labelKey);
-				if (StringUtils.isBlank(cookieKey)) {
-					continue;
-				}
-				labels.put(labelKey, getCookieValue(request.getCookies(), cookieKey));
-			}
-			else if (StringUtils.equalsIgnoreCase(LABEL_METHOD, labelKey)) {
-				labels.put(labelKey, request.getMethod());
-			}
-			else if (StringUtils.equalsIgnoreCase(LABEL_URI, labelKey)) {
-				labels.put(labelKey, request.getRequestURI());
-			}
-		}
-
-		return labels;
+		return resolve(request, ExpressionLabelPlan.of(labelKeys));
 	}
 
-	public static Map<String, String> resolve(ServerWebExchange exchange, Set<String> labelKeys) {
-		if (CollectionUtils.isEmpty(labelKeys)) {
+	public static Map<String, String> resolve(HttpServletRequest request, ExpressionLabelPlan plan) {
+		if (plan.isEmpty()) {
 			return Collections.emptyMap();
 		}
+		return plan.resolve(InboundRequestIndex.of(request));
+	}
 
-		Map<String, String> labels = new HashMap<>();
-
-		for (String labelKey : labelKeys) {
-			if (!isExpressionLabel(labelKey)) {
-				continue;
-			}
-			if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_HEADER_PREFIX)) {
-				String headerKey = parseHeaderKey(labelKey);
-				if (StringUtils.isBlank(headerKey)) {
-					continue;
-				}
-				labels.put(labelKey, getHeaderValue(exchange.getRequest(), headerKey));
-			}
-			else if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_QUERY_PREFIX)) {
-				String queryKey = parseQueryKey(labelKey);
-				if (StringUtils.isBlank(queryKey)) {
-					continue;
-				}
-				labels.put(labelKey, getQueryValue(exchange.getRequest(), queryKey));
-			}
-			else if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_COOKIE_PREFIX)) {
-				String cookieKey = parseCookieKey(labelKey);
-				if (StringUtils.isBlank(cookieKey)) {
-					continue;
-				}
-				labels.put(labelKey, getCookieValue(exchange.getRequest(), cookieKey));
-			}
-			else if (StringUtils.equalsIgnoreCase(LABEL_METHOD, labelKey)) {
-				labels.put(labelKey, exchange.getRequest().getMethodValue());
-			}
-			else if (StringUtils.equalsIgnoreCase(LABEL_URI, labelKey)) {
-				labels.put(labelKey, exchange.getRequest().getURI().getPath());
-			}
-		}
-
-		return labels;
+	public static Map<String, String> resolve(ServerWebExchange exchange, Set<String> labelKeys) {
+		return resolve(exchange, ExpressionLabelPlan.of(labelKeys));
 	}
 
-	public static Map<String, String> resolve(HttpRequest request, Set<String> labelKeys) {
-		if (CollectionUtils.isEmpty(labelKeys)) {
+	public static Map<String, String> resolve(ServerWebExchange exchange, ExpressionLabelPlan plan) {
+		if (plan.isEmpty()) {
 			return Collections.emptyMap();
 		}
+		return plan.resolve(InboundRequestIndex.of(exchange));
+	}
 
-		Map<String, String> labels = new HashMap<>();
+	public static Map<String, String> resolve(HttpRequest request, Set<String> labelKeys) {
+		return resolve(request, ExpressionLabelPlan.of(labelKeys));
+	}
 
-		for (String labelKey : labelKeys) {
-			if (!isExpressionLabel(labelKey)) {
-				continue;
-			}
-			if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_HEADER_PREFIX)) {
-				String headerKey = parseHeaderKey(labelKey);
-				if (StringUtils.isBlank(headerKey)) {
-					continue;
-				}
-				labels.put(labelKey, getHeaderValue(request, headerKey));
-			}
-			else if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_QUERY_PREFIX)) {
-				String queryKey = parseQueryKey(labelKey);
-				if (StringUtils.isBlank(queryKey)) {
-					continue;
-				}
-				labels.put(labelKey, getQueryValue(request, queryKey));
-			}
-			else if (StringUtils.equalsIgnoreCase(LABEL_METHOD, labelKey)) {
-				labels.put(labelKey, request.getMethodValue());
-			}
-			else if (StringUtils.equalsIgnoreCase(LABEL_URI, labelKey)) {
-				labels.put(labelKey, request.getURI().getPath());
-			}
+	public static Map<String, String> resolve(HttpRequest request, ExpressionLabelPlan plan) {
+		if (plan.isEmpty()) {
+			return Collections.emptyMap();
 		}
-
-		return labels;
+		return plan.resolve(new HttpRequestLabelSource(request));
 	}
 
 	public static String parseHeaderKey(String expression) {
@@ -317,4 +230,39 @@ public class ExpressionLabelUtils {
 
 		return StringUtils.EMPTY;
 	}
+
+	private static final class HttpRequestLabelSource implements ExpressionLabelSource {
+
+		private final HttpRequest request;
+
+		HttpRequestLabelSource(HttpRequest request) {
+			this.request = request;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return getHeaderValue(request, name);
+		}
+
+		@Override
+		public String getQuery(String name) {
+			return getQueryValue(request, name);
+		}
+
+		@Override
+		public String getCookie(String name) {
+			// cookie is not supported by client request.
+			return null;
+		}
+
+		@Override
+		public String getMethod() {
+			return request.getMethodValue();
+		}
+
+		@Override
+		public String getUri() {
+			return request.getURI().getPath();
+		}
+	}
 }
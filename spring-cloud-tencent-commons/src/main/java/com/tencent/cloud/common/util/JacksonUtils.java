@@ -17,10 +17,15 @@
 
 package com.tencent.cloud.common.util;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,23 +67,57 @@ public final class JacksonUtils {
 	}
 
 	/**
-	 * Json to Map.
+	 * Flat string map to Json. Streams the entries with {@link JsonGenerator} instead of data binding.
+	 * @param map flat string map
+	 * @return Json String
+	 */
+	public static String serializeFlatMap(Map<String, String> map) {
+		if (map == null) {
+			return "null";
+		}
+		// the generator buffers output in chars recycled by jackson itself, so a plain writer is enough.
+		StringWriter writer = new StringWriter(16 + map.size() * 32);
+		try (JsonGenerator generator = OM.getFactory().createGenerator(writer)) {
+			generator.writeStartObject();
+			for (Map.Entry<String, String> entry : map.entrySet()) {
+				generator.writeStringField(String.valueOf(entry.getKey()), entry.getValue());
+			}
+			generator.writeEndObject();
+		}
+		catch (IOException e) {
+			LOG.error("Map to Json failed. {}", map, e);
+			throw new RuntimeException("Object to Json failed.", e);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * Json to Map. Streams the tokens with {@link JsonParser} straight into a string map. Non-string values
+	 * are converted by {@link String#valueOf(Object)}, as before.
 	 * @param jsonStr Json String
 	 * @return Map
 	 */
 	public static Map<String, String> deserialize2Map(String jsonStr) {
-		try {
-			if (StringUtils.hasText(jsonStr)) {
-				Map<String, Object> temp = OM.readValue(jsonStr, Map.class);
-				Map<String, String> result = new HashMap<>();
-				temp.forEach((key, value) -> {
-					result.put(String.valueOf(key), String.valueOf(value));
-				});
-				return result;
-			}
+		if (!StringUtils.hasText(jsonStr)) {
 			return new HashMap<>();
 		}
-		catch (JsonProcessingException e) {
+		try (JsonParser parser = OM.getFactory().createParser(jsonStr)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Json string is not an object.");
+			}
+			// roughly 16 chars per entry.
+			Map<String, String> result = new HashMap<>(Math.max(4, jsonStr.length() >> 4));
+			JsonToken token;
+			while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+				String key = parser.getCurrentName();
+				result.put(key, readValue(parser, parser.nextToken()));
+			}
+			if (token != JsonToken.END_OBJECT) {
+				throw new IOException("Unexpected token " + token + ".");
+			}
+			return result;
+		}
+		catch (IOException e) {
 			LOG.error(
 					"Json to map failed. check if the format of the json string[{}] is correct.",
 					jsonStr, e);
@@ -86,4 +125,25 @@ public final class JacksonUtils {
 		}
 	}
 
+	private static String readValue(JsonParser parser, JsonToken token) throws IOException {
+		if (token == null) {
+			throw new IOException("Unexpected end of json.");
+		}
+		switch (token) {
+		case VALUE_STRING:
+		case VALUE_TRUE:
+		case VALUE_FALSE:
+			return parser.getText();
+		case VALUE_NUMBER_INT:
+		case VALUE_NUMBER_FLOAT:
+			// same text as the boxed number of data binding.
+			return String.valueOf(parser.getNumberValue());
+		case VALUE_NULL:
+			return "null";
+		default:
+			// nested value, keep the result of data binding.
+			return String.valueOf(OM.readValue(parser, Object.class));
+		}
+	}
+
 }
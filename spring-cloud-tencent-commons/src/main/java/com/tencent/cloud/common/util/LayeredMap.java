@@ -0,0 +1,221 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.common.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only map view over several layers of string maps. Layers are read from top to
+ * bottom, so a key in a later layer overrides the same key in earlier layers. Nothing is
+ * copied: lookups probe the layers directly, which makes it cheap to put a small per-request
+ * overlay on top of a large static layer. Layers must not be modified after the view is built.
+ *
+ * @author Haotian Zhang
+ */
+public final class LayeredMap extends AbstractMap<String, String> {
+
+	private static final Class<?> UNMODIFIABLE_MAP_CLASS = Collections.unmodifiableMap(Collections.emptyMap()).getClass();
+
+	/**
+	 * Layers ordered from lowest to highest priority.
+	 */
+	private final Map<String, String>[] layers;
+
+	private Set<Entry<String, String>> entrySet;
+
+	private int size = -1;
+
+	private LayeredMap(Map<String, String>[] layers) {
+		this.layers = layers;
+	}
+
+	/**
+	 * Build read-only view of layers. Empty layers are dropped and no view is created if at
+	 * most one layer is left.
+	 * @param layers layers ordered from lowest to highest priority
+	 * @return read-only map
+	 */
+	@SafeVarargs
+	public static Map<String, String> of(Map<String, String>... layers) {
+		return of(Arrays.asList(layers));
+	}
+
+	/**
+	 * Build read-only view of layers. Empty layers are dropped and no view is created if at
+	 * most one layer is left.
+	 * @param layers layers ordered from lowest to highest priority
+	 * @return read-only map
+	 */
+	public static Map<String, String> of(List<Map<String, String>> layers) {
+		List<Map<String, String>> nonEmptyLayers = null;
+		Map<String, String> single = null;
+		for (Map<String, String> layer : layers) {
+			if (layer == null || layer.isEmpty()) {
+				continue;
+			}
+			if (single == null) {
+				single = layer;
+				continue;
+			}
+			if (nonEmptyLayers == null) {
+				nonEmptyLayers = new ArrayList<>(layers.size());
+				nonEmptyLayers.add(single);
+			}
+			nonEmptyLayers.add(layer);
+		}
+		if (single == null) {
+			return Collections.emptyMap();
+		}
+		if (nonEmptyLayers == null) {
+			return unmodifiable(single);
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, String>[] layerArray = nonEmptyLayers.toArray(new Map[0]);
+		return new LayeredMap(layerArray);
+	}
+
+	/**
+	 * Wrap map as unmodifiable unless it is already read-only.
+	 * @param map map
+	 * @return read-only map
+	 */
+	public static Map<String, String> unmodifiable(Map<String, String> map) {
+		if (map == null || map.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		if (map instanceof LayeredMap || map instanceof LazyMap || map.getClass() == UNMODIFIABLE_MAP_CLASS) {
+			return map;
+		}
+		return Collections.unmodifiableMap(map);
+	}
+
+	@Override
+	public String get(Object key) {
+		for (int i = layers.length - 1; i >= 0; i--) {
+			String value = layers[i].get(key);
+			if (value != null) {
+				return value;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		for (int i = layers.length - 1; i >= 0; i--) {
+			if (layers[i].containsKey(key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		if (size < 0) {
+			int count = 0;
+			for (Iterator<Entry<String, String>> iterator = new LayeredIterator(); iterator.hasNext(); iterator.next()) {
+				count++;
+			}
+			size = count;
+		}
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		// empty layers are dropped when building view.
+		return false;
+	}
+
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Entry<String, String>>() {
+				@Override
+				public Iterator<Entry<String, String>> iterator() {
+					return new LayeredIterator();
+				}
+
+				@Override
+				public int size() {
+					return LayeredMap.this.size();
+				}
+			};
+		}
+		return entrySet;
+	}
+
+	/**
+	 * Iterate from highest layer to lowest, skipping keys shadowed by a higher layer.
+	 */
+	private final class LayeredIterator implements Iterator<Entry<String, String>> {
+
+		private int layerIndex = layers.length - 1;
+
+		private Iterator<Entry<String, String>> current = layers[layerIndex].entrySet().iterator();
+
+		private Entry<String, String> next;
+
+		@Override
+		public boolean hasNext() {
+			while (next == null) {
+				while (!current.hasNext()) {
+					if (layerIndex == 0) {
+						return false;
+					}
+					current = layers[--layerIndex].entrySet().iterator();
+				}
+				Entry<String, String> candidate = current.next();
+				if (!isShadowed(candidate.getKey())) {
+					next = candidate;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public Entry<String, String> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Entry<String, String> result = new SimpleImmutableEntry<>(next);
+			next = null;
+			return result;
+		}
+
+		private boolean isShadowed(String key) {
+			for (int i = layers.length - 1; i > layerIndex; i--) {
+				if (layers[i].containsKey(key)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.util;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Read-only map whose content is resolved on first access. Resolution happens at most once, even under
+ * concurrent access, and the supplier is released afterwards.
+ *
+ * @author Haotian Zhang
+ */
+public final class LazyMap extends AbstractMap<String, String> {
+
+	private volatile Supplier<Map<String, String>> supplier;
+
+	private volatile Map<String, String> resolved;
+
+	public LazyMap(Supplier<Map<String, String>> supplier) {
+		this.supplier = supplier;
+	}
+
+	/**
+	 * Whether the content has been resolved.
+	 * @return true if resolved
+	 */
+	public boolean isResolved() {
+		return resolved != null;
+	}
+
+	private Map<String, String> resolve() {
+		Map<String, String> map = resolved;
+		if (map != null) {
+			return map;
+		}
+		synchronized (this) {
+			map = resolved;
+			if (map == null) {
+				map = LayeredMap.unmodifiable(supplier.get());
+				resolved = map;
+				supplier = null;
+			}
+			return map;
+		}
+	}
+
+	@Override
+	public String get(Object key) {
+		return resolve().get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return resolve().containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return resolve().size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return resolve().isEmpty();
+	}
+
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		return resolve().entrySet();
+	}
+
+}
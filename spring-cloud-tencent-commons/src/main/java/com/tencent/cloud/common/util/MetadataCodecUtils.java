@@ -0,0 +1,375 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.util;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Codec of transitive metadata carried in http header.
+ * <p>
+ * Compact format (version 1): {@code "v1." + base64url(count, (keyLength, key, valueLength, value)*)}, where
+ * lengths are unsigned varints and strings are UTF-8 bytes. Compressed format: {@code "z1." + base64url(deflate(...))}
+ * over the same compact payload, used when the compact value exceeds a size threshold. Legacy format: URL-encoded
+ * json. Decoding selects the format by the version marker, so all formats are accepted.
+ * <p>
+ * Receivers of older versions only understand the legacy format, so senders keep using it unless compact format is
+ * enabled explicitly, after all receivers are upgraded.
+ *
+ * @author Haotian Zhang
+ */
+public final class MetadataCodecUtils {
+
+	/**
+	 * Version marker of compact format.
+	 */
+	public static final String COMPACT_V1_MARKER = "v1.";
+
+	/**
+	 * Version marker of deflate compressed compact format.
+	 */
+	public static final String COMPRESSED_V1_MARKER = "z1.";
+
+	/**
+	 * Upper bound of inflated payload, guards against decompression bombs.
+	 */
+	private static final int MAX_INFLATED_BYTES = 1024 * 1024;
+
+	private static final Logger LOG = LoggerFactory.getLogger(MetadataCodecUtils.class);
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private MetadataCodecUtils() {
+
+	}
+
+	/**
+	 * Encode metadata in format.
+	 * @param metadata metadata
+	 * @param format format of encoded value
+	 * @param compressionThreshold length of compact value above which it is compressed, non-positive to disable.
+	 * Only used by compact format.
+	 * @return encoded string, or empty string if metadata is empty
+	 */
+	public static String encode(Map<String, String> metadata, Format format, int compressionThreshold) {
+		if (format == Format.COMPACT) {
+			return encode(metadata, compressionThreshold);
+		}
+		return encodeLegacy(metadata);
+	}
+
+	/**
+	 * Encode metadata to legacy URL-encoded json.
+	 * @param metadata metadata
+	 * @return encoded string, or empty string if metadata is empty
+	 */
+	public static String encodeLegacy(Map<String, String> metadata) {
+		if (CollectionUtils.isEmpty(metadata)) {
+			return "";
+		}
+		String json = JacksonUtils.serialize2Json(metadata);
+		try {
+			return URLEncoder.encode(json, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			LOG.error("Runtime system does not support utf-8 coding.", e);
+			return json;
+		}
+	}
+
+	/**
+	 * Get format of encoded value by its version marker.
+	 * @param headerValue value of http header
+	 * @return format of value
+	 */
+	public static Format formatOf(String headerValue) {
+		if (headerValue != null && (headerValue.startsWith(COMPACT_V1_MARKER)
+				|| headerValue.startsWith(COMPRESSED_V1_MARKER))) {
+			return Format.COMPACT;
+		}
+		return Format.LEGACY;
+	}
+
+	/**
+	 * Encode metadata to compact format.
+	 * @param metadata metadata
+	 * @return encoded string, or empty string if metadata is empty
+	 */
+	public static String encode(Map<String, String> metadata) {
+		return encode(metadata, 0);
+	}
+
+	/**
+	 * Encode metadata to compact format, and compress it if the compact value is longer than threshold.
+	 * @param metadata metadata
+	 * @param compressionThreshold length of compact value above which it is compressed, non-positive to disable
+	 * @return encoded string, or empty string if metadata is empty
+	 */
+	public static String encode(Map<String, String> metadata, int compressionThreshold) {
+		if (CollectionUtils.isEmpty(metadata)) {
+			return "";
+		}
+		ByteWriter writer = new ByteWriter(metadata.size() * 32);
+		writer.writeVarint(metadata.size());
+		for (Map.Entry<String, String> entry : metadata.entrySet()) {
+			writer.writeString(entry.getKey());
+			writer.writeString(entry.getValue());
+		}
+		byte[] payload = writer.toByteArray();
+		String compact = COMPACT_V1_MARKER + ENCODER.encodeToString(payload);
+		if (compressionThreshold <= 0 || compact.length() <= compressionThreshold) {
+			return compact;
+		}
+		byte[] compressed = deflate(payload);
+		// keep compact value if deflate does not pay off.
+		if (compressed.length >= payload.length) {
+			return compact;
+		}
+		return COMPRESSED_V1_MARKER + ENCODER.encodeToString(compressed);
+	}
+
+	/**
+	 * Decode metadata from either compact format or legacy URL-encoded json.
+	 * @param headerValue value of http header
+	 * @return metadata map, never null
+	 */
+	public static Map<String, String> decode(String headerValue) {
+		if (!StringUtils.hasText(headerValue)) {
+			return new HashMap<>();
+		}
+		if (headerValue.startsWith(COMPACT_V1_MARKER)) {
+			return decodeCompact(headerValue, false);
+		}
+		if (headerValue.startsWith(COMPRESSED_V1_MARKER)) {
+			return decodeCompact(headerValue, true);
+		}
+		return decodeLegacy(headerValue);
+	}
+
+	private static Map<String, String> decodeCompact(String headerValue, boolean compressed) {
+		try {
+			// both markers have the same length.
+			byte[] bytes = DECODER.decode(headerValue.substring(COMPACT_V1_MARKER.length()));
+			if (compressed) {
+				bytes = inflate(bytes);
+			}
+			ByteReader reader = new ByteReader(bytes);
+			int count = reader.readVarint();
+			// every entry takes at least two bytes, so reject counts the payload cannot hold.
+			if (count > bytes.length / 2) {
+				throw new IllegalArgumentException("Entry count " + count + " exceeds payload.");
+			}
+			Map<String, String> result = new HashMap<>((int) (count / 0.75f) + 1);
+			for (int i = 0; i < count; i++) {
+				String key = reader.readString();
+				String value = reader.readString();
+				result.put(key, value);
+			}
+			if (reader.hasRemaining()) {
+				throw new IllegalArgumentException("Trailing bytes after " + count + " entries.");
+			}
+			return result;
+		}
+		catch (IllegalArgumentException e) {
+			LOG.error("Decode compact metadata failed. check if the format of the string[{}] is correct.",
+					headerValue, e);
+			throw new RuntimeException("Decode compact metadata failed.", e);
+		}
+	}
+
+	private static byte[] deflate(byte[] payload) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(payload);
+			deflater.finish();
+			byte[] buffer = new byte[payload.length + 16];
+			int length = 0;
+			while (!deflater.finished()) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length << 1);
+				}
+				length += deflater.deflate(buffer, length, buffer.length - length);
+			}
+			return Arrays.copyOf(buffer, length);
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(byte[] compressed) {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			byte[] buffer = new byte[Math.max(compressed.length << 2, 64)];
+			int length = 0;
+			while (!inflater.finished()) {
+				if (length == buffer.length) {
+					if (buffer.length >= MAX_INFLATED_BYTES) {
+						throw new IllegalArgumentException("Inflated payload exceeds " + MAX_INFLATED_BYTES + " bytes.");
+					}
+					buffer = Arrays.copyOf(buffer, Math.min(buffer.length << 1, MAX_INFLATED_BYTES));
+				}
+				int inflated = inflater.inflate(buffer, length, buffer.length - length);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IllegalArgumentException("Truncated compressed payload.");
+				}
+				length += inflated;
+			}
+			return Arrays.copyOf(buffer, length);
+		}
+		catch (DataFormatException e) {
+			throw new IllegalArgumentException("Malformed compressed payload.", e);
+		}
+		finally {
+			inflater.end();
+		}
+	}
+
+	private static Map<String, String> decodeLegacy(String headerValue) {
+		String json = headerValue;
+		try {
+			json = URLDecoder.decode(headerValue, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			LOG.error("Runtime system does not support utf-8 coding.", e);
+		}
+		LOG.debug("Get upstream metadata string: {}", json);
+		return JacksonUtils.deserialize2Map(json);
+	}
+
+	private static final class ByteWriter {
+
+		private byte[] buffer;
+
+		private int position;
+
+		ByteWriter(int initialCapacity) {
+			this.buffer = new byte[Math.max(initialCapacity, 16)];
+		}
+
+		void writeVarint(int value) {
+			ensureCapacity(5);
+			while ((value & ~0x7F) != 0) {
+				buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			buffer[position++] = (byte) value;
+		}
+
+		void writeString(String value) {
+			byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+			writeVarint(bytes.length);
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, buffer, position, bytes.length);
+			position += bytes.length;
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(buffer, position);
+		}
+
+		private void ensureCapacity(int extra) {
+			if (position + extra > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + extra));
+			}
+		}
+
+	}
+
+	private static final class ByteReader {
+
+		private final byte[] buffer;
+
+		private int position;
+
+		ByteReader(byte[] buffer) {
+			this.buffer = buffer;
+		}
+
+		int readVarint() {
+			int result = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				if (position >= buffer.length) {
+					throw new IllegalArgumentException("Truncated varint at " + position + ".");
+				}
+				byte b = buffer[position++];
+				result |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					if (result < 0) {
+						throw new IllegalArgumentException("Negative length at " + position + ".");
+					}
+					return result;
+				}
+			}
+			throw new IllegalArgumentException("Malformed varint at " + position + ".");
+		}
+
+		String readString() {
+			int length = readVarint();
+			if (length > buffer.length - position) {
+				throw new IllegalArgumentException("Truncated string at " + position + ".");
+			}
+			String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+			position += length;
+			return value;
+		}
+
+		boolean hasRemaining() {
+			return position < buffer.length;
+		}
+
+	}
+
+	/**
+	 * Format of encoded metadata.
+	 */
+	public enum Format {
+
+		/**
+		 * URL-encoded json, understood by receivers of all versions.
+		 */
+		LEGACY,
+
+		/**
+		 * Compact format, compressed above threshold. Only understood by receivers of this version or later.
+		 */
+		COMPACT
+
+	}
+
+}
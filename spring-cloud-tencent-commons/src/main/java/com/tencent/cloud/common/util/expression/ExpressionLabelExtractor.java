@@ -0,0 +1,109 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.common.util.expression;
+
+/**
+ * A pre-parsed label expression. The expression key is classified and the referenced
+ * header/query/cookie name is extracted once, when the plan is compiled.
+ *
+ * @author Haotian Zhang
+ */
+public final class ExpressionLabelExtractor {
+
+	private final Type type;
+
+	private final String labelKey;
+
+	private final String name;
+
+	ExpressionLabelExtractor(Type type, String labelKey, String name) {
+		this.type = type;
+		this.labelKey = labelKey;
+		this.name = name;
+	}
+
+	/**
+	 * Extract label value from request.
+	 * @param source request view
+	 * @return label value, null if not resolvable
+	 */
+	public String extract(ExpressionLabelSource source) {
+		switch (type) {
+		case HEADER:
+			return source.getHeader(name);
+		case QUERY:
+			return source.getQuery(name);
+		case COOKIE:
+			return source.getCookie(name);
+		case METHOD:
+			return source.getMethod();
+		case URI:
+			return source.getUri();
+		default:
+			return null;
+		}
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getLabelKey() {
+		return labelKey;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return "ExpressionLabelExtractor{" +
+				"type=" + type +
+				", labelKey='" + labelKey + '\'' +
+				", name='" + name + '\'' +
+				'}';
+	}
+
+	/**
+	 * Type of expression label.
+	 */
+	public enum Type {
+		/**
+		 * ${http.header.xxx}.
+		 */
+		HEADER,
+		/**
+		 * ${http.query.xxx}.
+		 */
+		QUERY,
+		/**
+		 * ${http.cookie.xxx}.
+		 */
+		COOKIE,
+		/**
+		 * ${http.method}.
+		 */
+		METHOD,
+		/**
+		 * ${http.uri}.
+		 */
+		URI
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.common.util.expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.StringUtils;
+
+import org.springframework.util.CollectionUtils;
+
+import static com.tencent.cloud.common.util.ExpressionLabelUtils.LABEL_COOKIE_PREFIX;
+import static com.tencent.cloud.common.util.ExpressionLabelUtils.LABEL_COOKIE_PREFIX_LEN;
+import static com.tencent.cloud.common.util.ExpressionLabelUtils.LABEL_HEADER_PREFIX;
+import static com.tencent.cloud.common.util.ExpressionLabelUtils.LABEL_HEADER_PREFIX_LEN;
+import static com.tencent.cloud.common.util.ExpressionLabelUtils.LABEL_METHOD;
+import static com.tencent.cloud.common.util.ExpressionLabelUtils.LABEL_QUERY_PREFIX;
+import static com.tencent.cloud.common.util.ExpressionLabelUtils.LABEL_QUERY_PREFIX_LEN;
+import static com.tencent.cloud.common.util.ExpressionLabelUtils.LABEL_URI;
+import static com.tencent.cloud.common.util.ExpressionLabelUtils.isExpressionLabel;
+
+/**
+ * Immutable extraction plan compiled from a set of label expressions.
+ * Label keys are parsed once and the plan is cached per key set, so resolving labels
+ * on the request path is a plain loop over pre-parsed extractors.
+ *
+ * @author Haotian Zhang
+ */
+public final class ExpressionLabelPlan {
+
+	/**
+	 * Plan without any extractor.
+	 */
+	public static final ExpressionLabelPlan EMPTY = new ExpressionLabelPlan(new ExpressionLabelExtractor[0]);
+
+	/**
+	 * Max size of plan cache. Key sets come from governance rules, so it is small in practice.
+	 */
+	private static final int MAX_CACHE_SIZE = 1024;
+
+	private static final Map<Set<String>, ExpressionLabelPlan> PLAN_CACHE = new ConcurrentHashMap<>();
+
+	private final ExpressionLabelExtractor[] extractors;
+
+	private ExpressionLabelPlan(ExpressionLabelExtractor[] extractors) {
+		this.extractors = extractors;
+	}
+
+	/**
+	 * Get compiled plan of label keys, compile if not cached.
+	 * @param labelKeys label keys
+	 * @return compiled plan
+	 */
+	public static ExpressionLabelPlan of(Set<String> labelKeys) {
+		if (CollectionUtils.isEmpty(labelKeys)) {
+			return EMPTY;
+		}
+		ExpressionLabelPlan plan = PLAN_CACHE.get(labelKeys);
+		if (plan != null) {
+			return plan;
+		}
+		plan = compile(labelKeys);
+		if (PLAN_CACHE.size() >= MAX_CACHE_SIZE) {
+			PLAN_CACHE.clear();
+		}
+		// copy key to keep cache safe from mutation of caller's set
+		PLAN_CACHE.put(Collections.unmodifiableSet(new HashSet<>(labelKeys)), plan);
+		return plan;
+	}
+
+	/**
+	 * Compile label keys to plan without caching.
+	 * @param labelKeys label keys
+	 * @return compiled plan
+	 */
+	public static ExpressionLabelPlan compile(Set<String> labelKeys) {
+		if (CollectionUtils.isEmpty(labelKeys)) {
+			return EMPTY;
+		}
+		List<ExpressionLabelExtractor> extractors = new ArrayList<>(labelKeys.size());
+		for (String labelKey : labelKeys) {
+			ExpressionLabelExtractor extractor = compileLabel(labelKey);
+			if (extractor != null) {
+				extractors.add(extractor);
+			}
+		}
+		if (extractors.isEmpty()) {
+			return EMPTY;
+		}
+		return new ExpressionLabelPlan(extractors.toArray(new ExpressionLabelExtractor[0]));
+	}
+
+	private static ExpressionLabelExtractor compileLabel(String labelKey) {
+		if (!isExpressionLabel(labelKey)) {
+			return null;
+		}
+		if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_HEADER_PREFIX)) {
+			return compileNamedLabel(ExpressionLabelExtractor.Type.HEADER, labelKey, LABEL_HEADER_PREFIX_LEN);
+		}
+		if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_QUERY_PREFIX)) {
+			return compileNamedLabel(ExpressionLabelExtractor.Type.QUERY, labelKey, LABEL_QUERY_PREFIX_LEN);
+		}
+		if (StringUtils.startsWithIgnoreCase(labelKey, LABEL_COOKIE_PREFIX)) {
+			return compileNamedLabel(ExpressionLabelExtractor.Type.COOKIE, labelKey, LABEL_COOKIE_PREFIX_LEN);
+		}
+		if (StringUtils.equalsIgnoreCase(LABEL_METHOD, labelKey)) {
+			return new ExpressionLabelExtractor(ExpressionLabelExtractor.Type.METHOD, labelKey, null);
+		}
+		if (StringUtils.equalsIgnoreCase(LABEL_URI, labelKey)) {
+			return new ExpressionLabelExtractor(ExpressionLabelExtractor.Type.URI, labelKey, null);
+		}
+		return null;
+	}
+
+	private static ExpressionLabelExtractor compileNamedLabel(ExpressionLabelExtractor.Type type,
+			String labelKey, int prefixLength) {
+		String name = labelKey.substring(prefixLength, labelKey.length() - 1);
+		if (StringUtils.isBlank(name)) {
+			return null;
+		}
+		return new ExpressionLabelExtractor(type, labelKey, name);
+	}
+
+	/**
+	 * Execute plan against request. Labels whose value can not be resolved are skipped.
+	 * @param source request view
+	 * @return resolved labels
+	 */
+	public Map<String, String> resolve(ExpressionLabelSource source) {
+		if (extractors.length == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, String> labels = new HashMap<>((int) (extractors.length / 0.75f) + 1);
+		for (ExpressionLabelExtractor extractor : extractors) {
+			String value = extractor.extract(source);
+			if (value != null) {
+				labels.put(extractor.getLabelKey(), value);
+			}
+		}
+		return labels;
+	}
+
+	public boolean isEmpty() {
+		return extractors.length == 0;
+	}
+
+	public int size() {
+		return extractors.length;
+	}
+
+	@Override
+	public String toString() {
+		return "ExpressionLabelPlan{" +
+				"extractors=" + Arrays.toString(extractors) +
+				'}';
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.common.util.expression;
+
+/**
+ * The request view that an {@link ExpressionLabelPlan} reads label values from.
+ * Each web stack supplies its own implementation, so the same compiled plan can be
+ * executed against servlet, reactive, RestTemplate and Feign requests.
+ *
+ * @author Haotian Zhang
+ */
+public interface ExpressionLabelSource {
+
+	/**
+	 * get the value of header.
+	 * @param name header name
+	 * @return header value, null if not supported by the request
+	 */
+	String getHeader(String name);
+
+	/**
+	 * get the value of query parameter.
+	 * @param name query name
+	 * @return query value, null if not supported by the request
+	 */
+	String getQuery(String name);
+
+	/**
+	 * get the value of cookie.
+	 * @param name cookie name
+	 * @return cookie value, null if not supported by the request
+	 */
+	String getCookie(String name);
+
+	/**
+	 * get the http method.
+	 * @return http method
+	 */
+	String getMethod();
+
+	/**
+	 * get the path of uri.
+	 * @return uri path
+	 */
+	String getUri();
+}
@@ -0,0 +1,239 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.util.expression;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+import com.tencent.cloud.common.constant.MetadataConstant;
+import com.tencent.cloud.common.util.LazyMap;
+import org.apache.commons.lang.StringUtils;
+
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Indexed view of an inbound request, built once per request and stored as request/exchange attribute.
+ * Header names are walked a single time to collect custom transitive metadata, other headers are looked up on
+ * demand. Query and cookies are parsed once on first access. Absent values are returned as empty string.
+ * Metadata, router and ratelimit components read the request through this view instead of scanning it again.
+ *
+ * @author Haotian Zhang
+ */
+public abstract class InboundRequestIndex implements ExpressionLabelSource {
+
+	/**
+	 * Name of request/exchange attribute.
+	 */
+	public static final String ATTRIBUTE_NAME = InboundRequestIndex.class.getName();
+
+	private static final String TRANSITIVE_HEADER_PREFIX = MetadataConstant.HeaderName.CUSTOM_TRANSITIVE_PREFIX;
+
+	private static final int TRANSITIVE_HEADER_PREFIX_LENGTH = TRANSITIVE_HEADER_PREFIX.length();
+
+	private Map<String, String> customTransitiveMetadata = Collections.emptyMap();
+
+	InboundRequestIndex() {
+	}
+
+	/**
+	 * Get index of servlet request, build and store it if absent.
+	 * @param request servlet request
+	 * @return index
+	 */
+	public static InboundRequestIndex of(HttpServletRequest request) {
+		Object index = request.getAttribute(ATTRIBUTE_NAME);
+		if (index instanceof InboundRequestIndex) {
+			return (InboundRequestIndex) index;
+		}
+		InboundRequestIndex newIndex = new ServletRequestIndex(request);
+		request.setAttribute(ATTRIBUTE_NAME, newIndex);
+		return newIndex;
+	}
+
+	/**
+	 * Get index of reactive exchange, build and store it if absent.
+	 * @param exchange server web exchange
+	 * @return index
+	 */
+	public static InboundRequestIndex of(ServerWebExchange exchange) {
+		Object index = exchange.getAttribute(ATTRIBUTE_NAME);
+		if (index instanceof InboundRequestIndex) {
+			return (InboundRequestIndex) index;
+		}
+		InboundRequestIndex newIndex = new ServerRequestIndex(exchange.getRequest());
+		exchange.getAttributes().put(ATTRIBUTE_NAME, newIndex);
+		return newIndex;
+	}
+
+	/**
+	 * Get custom transitive metadata from headers with prefix
+	 * {@link MetadataConstant.HeaderName#CUSTOM_TRANSITIVE_PREFIX}.
+	 * @return custom transitive metadata, never null
+	 */
+	public Map<String, String> getCustomTransitiveMetadata() {
+		return customTransitiveMetadata;
+	}
+
+	static boolean isTransitiveHeader(String name) {
+		return name.length() > TRANSITIVE_HEADER_PREFIX_LENGTH
+				&& name.regionMatches(true, 0, TRANSITIVE_HEADER_PREFIX, 0, TRANSITIVE_HEADER_PREFIX_LENGTH);
+	}
+
+	void collectTransitiveHeader(String name, String value) {
+		if (StringUtils.isBlank(value) || !isTransitiveHeader(name)) {
+			return;
+		}
+		if (customTransitiveMetadata.isEmpty()) {
+			customTransitiveMetadata = new HashMap<>(4);
+		}
+		customTransitiveMetadata.put(name.substring(TRANSITIVE_HEADER_PREFIX_LENGTH), value);
+	}
+
+	private static final class ServletRequestIndex extends InboundRequestIndex {
+
+		private final HttpServletRequest request;
+
+		private final Map<String, String> queries;
+
+		private final Map<String, String> cookies;
+
+		ServletRequestIndex(HttpServletRequest request) {
+			this.request = request;
+			// header lookup is left to the container, only values of transitive headers are read up front.
+			Enumeration<String> headerNames = request.getHeaderNames();
+			while (headerNames != null && headerNames.hasMoreElements()) {
+				String name = headerNames.nextElement();
+				if (isTransitiveHeader(name)) {
+					collectTransitiveHeader(name, request.getHeader(name));
+				}
+			}
+			this.queries = new LazyMap(() -> parseQuery(request.getQueryString()));
+			this.cookies = new LazyMap(() -> parseCookies(request.getCookies()));
+		}
+
+		@Override
+		public String getHeader(String name) {
+			String value = request.getHeader(name);
+			return value == null ? StringUtils.EMPTY : value;
+		}
+
+		@Override
+		public String getQuery(String name) {
+			return queries.getOrDefault(name, StringUtils.EMPTY);
+		}
+
+		@Override
+		public String getCookie(String name) {
+			return cookies.getOrDefault(name, StringUtils.EMPTY);
+		}
+
+		@Override
+		public String getMethod() {
+			return request.getMethod();
+		}
+
+		@Override
+		public String getUri() {
+			return request.getRequestURI();
+		}
+
+		private static Map<String, String> parseQuery(String queryString) {
+			if (StringUtils.isBlank(queryString)) {
+				return Collections.emptyMap();
+			}
+			String[] queries = StringUtils.split(queryString, "&");
+			Map<String, String> result = new HashMap<>((int) (queries.length / 0.75f) + 1);
+			for (String query : queries) {
+				String[] queryKV = StringUtils.split(query, "=");
+				if (queryKV != null && queryKV.length == 2) {
+					result.putIfAbsent(queryKV[0], queryKV[1]);
+				}
+			}
+			return result;
+		}
+
+		private static Map<String, String> parseCookies(Cookie[] cookies) {
+			if (cookies == null || cookies.length == 0) {
+				return Collections.emptyMap();
+			}
+			Map<String, String> result = new HashMap<>((int) (cookies.length / 0.75f) + 1);
+			for (Cookie cookie : cookies) {
+				if (cookie.getName() != null && cookie.getValue() != null) {
+					result.putIfAbsent(cookie.getName(), cookie.getValue());
+				}
+			}
+			return result;
+		}
+	}
+
+	private static final class ServerRequestIndex extends InboundRequestIndex {
+
+		private final ServerHttpRequest request;
+
+		ServerRequestIndex(ServerHttpRequest request) {
+			this.request = request;
+			// reactive headers, query and cookies are already hashed, only scan for transitive headers.
+			for (Map.Entry<String, List<String>> entry : request.getHeaders().entrySet()) {
+				List<String> values = entry.getValue();
+				if (values != null && !values.isEmpty()) {
+					collectTransitiveHeader(entry.getKey(), values.get(0));
+				}
+			}
+		}
+
+		@Override
+		public String getHeader(String name) {
+			HttpHeaders headers = request.getHeaders();
+			String value = headers.getFirst(name);
+			return value == null ? StringUtils.EMPTY : value;
+		}
+
+		@Override
+		public String getQuery(String name) {
+			String value = request.getQueryParams().getFirst(name);
+			return value == null ? StringUtils.EMPTY : value;
+		}
+
+		@Override
+		public String getCookie(String name) {
+			HttpCookie cookie = request.getCookies().getFirst(name);
+			return cookie == null ? StringUtils.EMPTY : cookie.getValue();
+		}
+
+		@Override
+		public String getMethod() {
+			return request.getMethodValue();
+		}
+
+		@Override
+		public String getUri() {
+			return request.getURI().getPath();
+		}
+	}
+}
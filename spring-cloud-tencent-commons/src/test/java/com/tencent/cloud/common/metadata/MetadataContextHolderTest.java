@@ -23,6 +23,7 @@ import java.util.Map;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import reactor.util.context.Context;
 
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -73,6 +74,22 @@ public class MetadataContextHolderTest {
 		Assertions.assertThat(MetadataContext.LOCAL_SERVICE).isEqualTo("test");
 	}
 
+	@Test
+	public void testReactiveGetWithoutBindingThreadLocal() {
+		MetadataContextHolder.remove();
+		MetadataContext metadataContext = ReactiveMetadataContextHolder.get(Context.empty());
+		Assertions.assertThat(metadataContext).isNotNull();
+		Assertions.assertThat(MetadataContextHolder.capture()).isNull();
+
+		MetadataContext threadContext = MetadataContextHolder.get();
+		Assertions.assertThat(ReactiveMetadataContextHolder.get(Context.empty())).isSameAs(threadContext);
+
+		MetadataContext reactorContext = new MetadataContext();
+		Assertions.assertThat(ReactiveMetadataContextHolder.get(ReactiveMetadataContextHolder.put(Context.empty(),
+				reactorContext))).isSameAs(reactorContext);
+		MetadataContextHolder.remove();
+	}
+
 	@SpringBootApplication
 	protected static class TestApplication {
 
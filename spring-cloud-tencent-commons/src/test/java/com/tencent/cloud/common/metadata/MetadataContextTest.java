@@ -0,0 +1,194 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.common.metadata;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
+import com.tencent.cloud.common.util.LazyMap;
+import com.tencent.cloud.common.util.MetadataCodecUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Test for {@link MetadataContext}.
+ *
+ * @author Haotian Zhang
+ */
+public class MetadataContextTest {
+
+	@BeforeClass
+	public static void beforeClass() {
+		// static fields of MetadataContext are read from application context.
+		if (ApplicationContextAwareUtils.getApplicationContext() == null) {
+			GenericApplicationContext applicationContext = new GenericApplicationContext();
+			applicationContext.setEnvironment(new MockEnvironment().withProperty("spring.application.name", "test"));
+			new ApplicationContextAwareUtils().setApplicationContext(applicationContext);
+		}
+	}
+
+	@Test
+	public void testStaticLayerShared() {
+		Map<String, String> staticMetadata = new HashMap<>();
+		staticMetadata.put("a", "1");
+
+		MetadataContext metadataContext = new MetadataContext(staticMetadata, null);
+		Map<String, String> transitive = metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
+
+		Assertions.assertThat(transitive).isEqualTo(staticMetadata);
+		Assertions.assertThat(metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE))
+				.isSameAs(transitive);
+	}
+
+	@Test
+	public void testDynamicOverlay() {
+		Map<String, String> staticMetadata = new HashMap<>();
+		staticMetadata.put("a", "1");
+		staticMetadata.put("b", "2");
+		Map<String, String> dynamicMetadata = new HashMap<>();
+		dynamicMetadata.put("b", "22");
+
+		MetadataContext metadataContext = new MetadataContext(staticMetadata, dynamicMetadata);
+
+		Assertions.assertThat(metadataContext.getContext(MetadataContext.FRAGMENT_TRANSITIVE, "a")).isEqualTo("1");
+		Assertions.assertThat(metadataContext.getContext(MetadataContext.FRAGMENT_TRANSITIVE, "b")).isEqualTo("22");
+		Assertions.assertThat(staticMetadata.get("b")).isEqualTo("2");
+	}
+
+	@Test
+	public void testCopyOnWrite() {
+		Map<String, String> staticMetadata = new HashMap<>();
+		staticMetadata.put("a", "1");
+		MetadataContext metadataContext = new MetadataContext(staticMetadata, null);
+		Map<String, String> before = metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
+
+		metadataContext.putContext(MetadataContext.FRAGMENT_TRANSITIVE, "b", "2");
+		metadataContext.putContext("custom", "c", "3");
+
+		Assertions.assertThat(before).hasSize(1);
+		Assertions.assertThat(staticMetadata).hasSize(1);
+		Assertions.assertThat(metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE)).hasSize(2);
+		Assertions.assertThat(metadataContext.getContext("custom", "c")).isEqualTo("3");
+		Assertions.assertThat(metadataContext.getContext("unknown", "c")).isNull();
+		Assertions.assertThatThrownBy(() -> metadataContext.getFragmentContext("custom").put("d", "4"))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testTransitiveMetadataHeaderMemoized() {
+		Map<String, String> staticMetadata = new HashMap<>();
+		staticMetadata.put("a", "1");
+		MetadataContext metadataContext = new MetadataContext(staticMetadata, null);
+
+		String header = metadataContext.getTransitiveMetadataHeader();
+		Assertions.assertThat(MetadataCodecUtils.decode(header)).isEqualTo(staticMetadata);
+		Assertions.assertThat(metadataContext.getTransitiveMetadataHeader()).isSameAs(header);
+
+		metadataContext.putContext("custom", "c", "3");
+		Assertions.assertThat(metadataContext.getTransitiveMetadataHeader()).isSameAs(header);
+
+		metadataContext.putContext(MetadataContext.FRAGMENT_TRANSITIVE, "b", "2");
+		String changed = metadataContext.getTransitiveMetadataHeader();
+		Assertions.assertThat(MetadataCodecUtils.decode(changed)).containsEntry("a", "1").containsEntry("b", "2");
+
+		metadataContext.putFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE, new HashMap<>());
+		Assertions.assertThat(metadataContext.getTransitiveMetadataHeader()).isEmpty();
+		Assertions.assertThat(new MetadataContext().getTransitiveMetadataHeader()).isEmpty();
+	}
+
+	@Test
+	public void testLazyInboundHeaderForwardedRaw() {
+		String inbound = "%7B%22a%22%3A%221%22%7D";
+		MetadataContext metadataContext = new MetadataContext(null, inbound, null);
+		LazyMap transitive = (LazyMap) metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
+
+		Assertions.assertThat(metadataContext.getTransitiveMetadataHeader()).isSameAs(inbound);
+		Assertions.assertThat(transitive.isResolved()).isFalse();
+
+		Assertions.assertThat(metadataContext.getContext(MetadataContext.FRAGMENT_TRANSITIVE, "a")).isEqualTo("1");
+		Assertions.assertThat(transitive.isResolved()).isTrue();
+		Assertions.assertThat(metadataContext.getTransitiveMetadataHeader()).isSameAs(inbound);
+
+		metadataContext.putContext(MetadataContext.FRAGMENT_TRANSITIVE, "b", "2");
+		String changed = metadataContext.getTransitiveMetadataHeader();
+		Assertions.assertThat(MetadataCodecUtils.formatOf(changed)).isEqualTo(MetadataCodecUtils.Format.LEGACY);
+		Assertions.assertThat(MetadataCodecUtils.decode(changed)).containsEntry("a", "1").containsEntry("b", "2");
+		Assertions.assertThat(metadataContext.getTransitiveMetadataHeader(MetadataCodecUtils.Format.COMPACT, 0))
+				.startsWith(MetadataCodecUtils.COMPACT_V1_MARKER);
+	}
+
+	@Test
+	public void testMalformedInboundHeader() {
+		Map<String, String> staticMetadata = new HashMap<>();
+		staticMetadata.put("s", "1");
+		for (String inbound : new String[] {MetadataCodecUtils.COMPACT_V1_MARKER + "!!", "%7B%22a%22%3A", "%zz"}) {
+			MetadataContext metadataContext = new MetadataContext(staticMetadata, inbound, null);
+			LazyMap transitive = (LazyMap) metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE);
+
+			Assertions.assertThat(transitive.get("a")).isNull();
+			Assertions.assertThat(transitive.isResolved()).isTrue();
+			Assertions.assertThat(transitive).containsOnlyKeys("s");
+		}
+	}
+
+	@Test
+	public void testCompactInboundHeaderForwardedInConfiguredFormat() {
+		Map<String, String> inboundMetadata = new HashMap<>();
+		inboundMetadata.put("a", "1");
+		String inbound = MetadataCodecUtils.encode(inboundMetadata);
+		MetadataContext metadataContext = new MetadataContext(null, inbound, null);
+
+		Assertions.assertThat(metadataContext.getTransitiveMetadataHeader(MetadataCodecUtils.Format.COMPACT, 0))
+				.isSameAs(inbound);
+		// receivers of older versions can not read compact header, so it is re-encoded in legacy format.
+		String legacy = metadataContext.getTransitiveMetadataHeader();
+		Assertions.assertThat(MetadataCodecUtils.formatOf(legacy)).isEqualTo(MetadataCodecUtils.Format.LEGACY);
+		Assertions.assertThat(MetadataCodecUtils.decode(legacy)).isEqualTo(inboundMetadata);
+	}
+
+	@Test
+	public void testLazyInboundHeaderWithLocalLayers() {
+		Map<String, String> staticMetadata = new HashMap<>();
+		staticMetadata.put("a", "0");
+		staticMetadata.put("s", "1");
+		Map<String, String> customMetadata = new HashMap<>();
+		customMetadata.put("c", "3");
+		Map<String, String> inboundMetadata = new HashMap<>();
+		inboundMetadata.put("a", "1");
+		inboundMetadata.put("c", "2");
+
+		MetadataContext metadataContext = new MetadataContext(staticMetadata,
+				MetadataCodecUtils.encode(inboundMetadata), customMetadata);
+
+		Map<String, String> expected = new HashMap<>();
+		expected.put("a", "1");
+		expected.put("s", "1");
+		expected.put("c", "3");
+		Assertions.assertThat(metadataContext.getFragmentContext(MetadataContext.FRAGMENT_TRANSITIVE))
+				.isEqualTo(expected);
+		Assertions.assertThat(MetadataCodecUtils.decode(metadataContext.getTransitiveMetadataHeader()))
+				.isEqualTo(expected);
+		Assertions.assertThat(new MetadataContext(null, "", null).getTransitiveMetadataHeader()).isEmpty();
+	}
+}
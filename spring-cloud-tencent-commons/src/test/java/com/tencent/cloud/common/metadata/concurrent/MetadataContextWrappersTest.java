@@ -0,0 +1,195 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.metadata.concurrent;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.metadata.MetadataContextHolder;
+import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.aop.framework.Advised;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Test for {@link MetadataContextWrappers} and the executors built on it.
+ *
+ * @author Haotian Zhang
+ */
+public class MetadataContextWrappersTest {
+
+	@BeforeClass
+	public static void beforeClass() {
+		// static fields of MetadataContext are read from application context.
+		if (ApplicationContextAwareUtils.getApplicationContext() == null) {
+			GenericApplicationContext applicationContext = new GenericApplicationContext();
+			applicationContext.setEnvironment(new MockEnvironment().withProperty("spring.application.name", "test"));
+			new ApplicationContextAwareUtils().setApplicationContext(applicationContext);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		MetadataContextHolder.remove();
+	}
+
+	@Test
+	public void testWrapRestoresPrevious() {
+		MetadataContext submitter = new MetadataContext();
+		MetadataContext worker = new MetadataContext();
+		AtomicReference<MetadataContext> seen = new AtomicReference<>();
+
+		MetadataContextHolder.set(submitter);
+		Runnable runnable = MetadataContextWrappers.wrap(() -> seen.set(MetadataContextHolder.capture()));
+
+		MetadataContextHolder.set(worker);
+		runnable.run();
+		Assertions.assertThat(seen.get()).isSameAs(submitter);
+		Assertions.assertThat(MetadataContextHolder.capture()).isSameAs(worker);
+
+		MetadataContextHolder.remove();
+		runnable.run();
+		Assertions.assertThat(MetadataContextHolder.capture()).isNull();
+	}
+
+	@Test
+	public void testExecutorService() throws Exception {
+		MetadataContext metadataContext = new MetadataContext();
+		ExecutorService executorService = new MetadataContextExecutorService(Executors.newSingleThreadExecutor());
+		try {
+			// the pooled thread has no context before and after the task.
+			Assertions.assertThat(executorService.submit(MetadataContextHolder::capture).get()).isNull();
+			MetadataContextHolder.set(metadataContext);
+			Assertions.assertThat(executorService.submit(MetadataContextHolder::capture).get()).isSameAs(metadataContext);
+			MetadataContextHolder.remove();
+			Assertions.assertThat(executorService.submit(MetadataContextHolder::capture).get()).isNull();
+		}
+		finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void testScheduledExecutorService() throws Exception {
+		MetadataContext metadataContext = new MetadataContext();
+		ScheduledExecutorService executorService = new MetadataContextScheduledExecutorService(
+				Executors.newSingleThreadScheduledExecutor());
+		try {
+			MetadataContextHolder.set(metadataContext);
+			Assertions.assertThat(executorService.schedule(MetadataContextHolder::capture, 1, TimeUnit.MILLISECONDS)
+					.get()).isSameAs(metadataContext);
+		}
+		finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void testCompletableFuture() throws Exception {
+		MetadataContext metadataContext = new MetadataContext();
+		MetadataContextHolder.set(metadataContext);
+
+		Assertions.assertThat(MetadataContextCompletableFutures.supplyAsync(MetadataContextHolder::capture).get())
+				.isSameAs(metadataContext);
+	}
+
+	@Test
+	public void testBeanPostProcessorKeepsUserDecorator() throws Exception {
+		AtomicBoolean decorated = new AtomicBoolean();
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setTaskDecorator(runnable -> () -> {
+			decorated.set(true);
+			runnable.run();
+		});
+		executor.initialize();
+		Object bean = new MetadataContextExecutorBeanPostProcessor().postProcessAfterInitialization(executor,
+				"executor");
+		try {
+			Assertions.assertThat(bean).isInstanceOf(ThreadPoolTaskExecutor.class);
+			MetadataContext metadataContext = new MetadataContext();
+			MetadataContextHolder.set(metadataContext);
+			Assertions.assertThat(((ThreadPoolTaskExecutor) bean).submit(MetadataContextHolder::capture).get())
+					.isSameAs(metadataContext);
+			Assertions.assertThat(decorated.get()).isTrue();
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testBeanPostProcessorWrapsSchedulerAndExecutorService() throws Exception {
+		MetadataContextExecutorBeanPostProcessor beanPostProcessor = new MetadataContextExecutorBeanPostProcessor();
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.initialize();
+		ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+		Object schedulerBean = beanPostProcessor.postProcessAfterInitialization(scheduler, "scheduler");
+		Object executorServiceBean = beanPostProcessor.postProcessAfterInitialization(executorService,
+				"executorService");
+		try {
+			MetadataContext metadataContext = new MetadataContext();
+			MetadataContextHolder.set(metadataContext);
+
+			Assertions.assertThat(schedulerBean).isInstanceOf(ThreadPoolTaskScheduler.class);
+			AtomicReference<MetadataContext> seen = new AtomicReference<>();
+			CountDownLatch latch = new CountDownLatch(1);
+			((ThreadPoolTaskScheduler) schedulerBean).schedule(() -> {
+				seen.set(MetadataContextHolder.capture());
+				latch.countDown();
+			}, new Date());
+			Assertions.assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+			Assertions.assertThat(seen.get()).isSameAs(metadataContext);
+
+			Assertions.assertThat(executorServiceBean).isInstanceOf(ScheduledExecutorService.class);
+			ScheduledExecutorService proxy = (ScheduledExecutorService) executorServiceBean;
+			Assertions.assertThat(proxy.schedule(MetadataContextHolder::capture, 1, TimeUnit.MILLISECONDS).get())
+					.isSameAs(metadataContext);
+			List<Callable<MetadataContext>> tasks = Collections.singletonList(MetadataContextHolder::capture);
+			Assertions.assertThat(proxy.invokeAll(tasks).get(0).get()).isSameAs(metadataContext);
+
+			// proxied only once
+			Assertions.assertThat(beanPostProcessor.postProcessAfterInitialization(schedulerBean, "scheduler"))
+					.isSameAs(schedulerBean);
+			Assertions.assertThat(((Advised) schedulerBean).getAdvisors()).hasSize(1);
+		}
+		finally {
+			scheduler.shutdown();
+			executorService.shutdown();
+		}
+	}
+
+}
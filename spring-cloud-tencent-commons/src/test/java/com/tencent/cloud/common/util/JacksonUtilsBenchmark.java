@@ -0,0 +1,100 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of the streaming flat map codec in {@link JacksonUtils} against data binding.
+ * Run {@link #main(String[])} from the test classpath, it is not part of the unit tests.
+ *
+ * @author Haotian Zhang
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonUtilsBenchmark {
+
+	@Param({"2", "8", "32"})
+	private int entries;
+
+	private Map<String, String> map;
+
+	private String json;
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(JacksonUtilsBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	@Setup
+	public void setUp() {
+		map = new HashMap<>();
+		for (int i = 0; i < entries; i++) {
+			map.put("label-key-" + i, "label-value-" + i);
+		}
+		json = JacksonUtils.serializeFlatMap(map);
+	}
+
+	@Benchmark
+	public String serializeDataBinding() throws JsonProcessingException {
+		return JacksonUtils.OM.writeValueAsString(map);
+	}
+
+	@Benchmark
+	public String serializeStreaming() {
+		return JacksonUtils.serializeFlatMap(map);
+	}
+
+	@Benchmark
+	public Map<String, String> deserializeDataBinding() throws JsonProcessingException {
+		// the former implementation of JacksonUtils#deserialize2Map.
+		Map<String, Object> temp = JacksonUtils.OM.readValue(json, Map.class);
+		Map<String, String> result = new HashMap<>();
+		temp.forEach((key, value) -> result.put(String.valueOf(key), String.valueOf(value)));
+		return result;
+	}
+
+	@Benchmark
+	public Map<String, String> deserializeStreaming() {
+		return JacksonUtils.deserialize2Map(json);
+	}
+
+}
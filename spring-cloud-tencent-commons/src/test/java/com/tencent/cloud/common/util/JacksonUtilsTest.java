@@ -72,4 +72,42 @@ public class JacksonUtilsTest {
 			fail("RuntimeException should be thrown.");
 		}
 	}
+
+	@Test
+	public void testSerializeFlatMap() {
+		Map<String, String> sourceMap = new HashMap<>();
+		sourceMap.put("k1", "v1");
+		sourceMap.put("k2", "\"quoted\" 中文");
+		sourceMap.put("k3", null);
+
+		String jsonStr = JacksonUtils.serializeFlatMap(sourceMap);
+
+		assertThat(jsonStr).isEqualTo(JacksonUtils.serialize2Json(sourceMap));
+		Map<String, String> map = JacksonUtils.deserialize2Map(jsonStr);
+		assertThat(map.get("k1")).isEqualTo("v1");
+		assertThat(map.get("k2")).isEqualTo("\"quoted\" 中文");
+		assertThat(map.get("k3")).isEqualTo("null");
+		assertThat(JacksonUtils.serializeFlatMap(new HashMap<>())).isEqualTo("{}");
+	}
+
+	@Test
+	public void testDeserialize2MapNonStringValues() {
+		String jsonStr = "{\"i\":1,\"f\":1.50,\"b\":true,\"o\":{\"x\":\"y\"},\"a\":[1,2]}";
+
+		Map<String, String> map = JacksonUtils.deserialize2Map(jsonStr);
+
+		assertThat(map.get("i")).isEqualTo("1");
+		assertThat(map.get("f")).isEqualTo("1.5");
+		assertThat(map.get("b")).isEqualTo("true");
+		assertThat(map.get("o")).isEqualTo("{x=y}");
+		assertThat(map.get("a")).isEqualTo("[1, 2]");
+
+		try {
+			JacksonUtils.deserialize2Map("[1,2]");
+			fail("RuntimeException should be thrown.");
+		}
+		catch (RuntimeException exception) {
+			assertThat(exception.getMessage()).isEqualTo("Json to map failed.");
+		}
+	}
 }
@@ -0,0 +1,123 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.common.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test for {@link LayeredMap}.
+ *
+ * @author Haotian Zhang
+ */
+public class LayeredMapTest {
+
+	@Test
+	public void testOverride() {
+		Map<String, String> base = new HashMap<>();
+		base.put("a", "1");
+		base.put("b", "2");
+		Map<String, String> overlay = new HashMap<>();
+		overlay.put("b", "22");
+		overlay.put("c", "3");
+
+		Map<String, String> layered = LayeredMap.of(base, overlay);
+
+		Assertions.assertThat(layered).isInstanceOf(LayeredMap.class);
+		Assertions.assertThat(layered.get("a")).isEqualTo("1");
+		Assertions.assertThat(layered.get("b")).isEqualTo("22");
+		Assertions.assertThat(layered.get("c")).isEqualTo("3");
+		Assertions.assertThat(layered.get("d")).isNull();
+		Assertions.assertThat(layered.size()).isEqualTo(3);
+
+		Map<String, String> expected = new HashMap<>();
+		expected.put("a", "1");
+		expected.put("b", "22");
+		expected.put("c", "3");
+		Assertions.assertThat(layered).isEqualTo(expected);
+		Assertions.assertThat(new HashMap<>(layered)).isEqualTo(expected);
+	}
+
+	@Test
+	public void testNoViewForSingleLayer() {
+		Map<String, String> base = new HashMap<>();
+		base.put("a", "1");
+
+		Map<String, String> layered = LayeredMap.of(base, null, new HashMap<>());
+
+		Assertions.assertThat(layered).isNotInstanceOf(LayeredMap.class);
+		Assertions.assertThat(layered).isEqualTo(base);
+		Assertions.assertThat(LayeredMap.unmodifiable(layered)).isSameAs(layered);
+		Assertions.assertThat(LayeredMap.of()).isEmpty();
+		Assertions.assertThatThrownBy(() -> layered.put("b", "2"))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testListLayerPrecedence() {
+		Map<String, String> local = new HashMap<>();
+		local.put("a", "local");
+		local.put("b", "local");
+		local.put("c", "local");
+		Map<String, String> rule = new HashMap<>();
+		rule.put("b", "rule");
+		rule.put("c", "rule");
+		Map<String, String> transitive = Collections.singletonMap("c", "transitive");
+
+		Map<String, String> layered = LayeredMap.of(Arrays.asList(local, rule, transitive));
+
+		Assertions.assertThat(layered).isInstanceOf(LayeredMap.class);
+		Assertions.assertThat(layered.get("a")).isEqualTo("local");
+		Assertions.assertThat(layered.get("b")).isEqualTo("rule");
+		Assertions.assertThat(layered.get("c")).isEqualTo("transitive");
+		Assertions.assertThat(layered).hasSize(3);
+		Assertions.assertThat(layered.entrySet()).extracting(Map.Entry::getValue)
+				.containsExactlyInAnyOrder("local", "rule", "transitive");
+	}
+
+	@Test
+	public void testListWithNullAndEmptyLayers() {
+		Map<String, String> base = Collections.singletonMap("a", "1");
+		Map<String, String> overlay = Collections.singletonMap("a", "2");
+
+		List<Map<String, String>> layers = new ArrayList<>();
+		layers.add(null);
+		layers.add(base);
+		layers.add(Collections.emptyMap());
+		layers.add(null);
+		layers.add(overlay);
+		layers.add(new HashMap<>());
+		Map<String, String> layered = LayeredMap.of(layers);
+		Assertions.assertThat(layered).isInstanceOf(LayeredMap.class);
+		Assertions.assertThat(layered).containsExactly(Assertions.entry("a", "2"));
+
+		Map<String, String> single = LayeredMap.of(Arrays.asList(null, base, Collections.emptyMap()));
+		Assertions.assertThat(single).isNotInstanceOf(LayeredMap.class);
+		Assertions.assertThat(single).isEqualTo(base);
+		Assertions.assertThat(LayeredMap.of(Arrays.asList(null, Collections.emptyMap()))).isEmpty();
+		Assertions.assertThat(LayeredMap.of(Collections.emptyList())).isEmpty();
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.util;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test for {@link MetadataCodecUtils}.
+ *
+ * @author Haotian Zhang
+ */
+public class MetadataCodecUtilsTest {
+
+	@Test
+	public void testRoundTrip() {
+		Map<String, String> metadata = new HashMap<>();
+		metadata.put("a", "1");
+		metadata.put("中文", "值 with spaces & {braces}");
+		metadata.put("empty", "");
+
+		String encoded = MetadataCodecUtils.encode(metadata);
+
+		Assertions.assertThat(encoded).startsWith(MetadataCodecUtils.COMPACT_V1_MARKER);
+		Assertions.assertThat(encoded.substring(MetadataCodecUtils.COMPACT_V1_MARKER.length()))
+				.matches("[A-Za-z0-9_-]+");
+		Assertions.assertThat(MetadataCodecUtils.decode(encoded)).isEqualTo(metadata);
+	}
+
+	@Test
+	public void testCompactIsSmallerThanLegacy() throws Exception {
+		Map<String, String> metadata = new HashMap<>();
+		metadata.put("env", "gray");
+		metadata.put("uid", "10086");
+
+		String legacy = URLEncoder.encode(JacksonUtils.serialize2Json(metadata), StandardCharsets.UTF_8.name());
+
+		Assertions.assertThat(MetadataCodecUtils.encode(metadata).length()).isLessThan(legacy.length());
+	}
+
+	@Test
+	public void testEncodeInFormat() throws Exception {
+		Map<String, String> metadata = new HashMap<>();
+		metadata.put("a", "1");
+
+		String legacy = MetadataCodecUtils.encode(metadata, MetadataCodecUtils.Format.LEGACY, 1);
+		Assertions.assertThat(legacy)
+				.isEqualTo(URLEncoder.encode(JacksonUtils.serialize2Json(metadata), StandardCharsets.UTF_8.name()));
+		Assertions.assertThat(MetadataCodecUtils.formatOf(legacy)).isEqualTo(MetadataCodecUtils.Format.LEGACY);
+		Assertions.assertThat(MetadataCodecUtils.decode(legacy)).isEqualTo(metadata);
+
+		String compact = MetadataCodecUtils.encode(metadata, MetadataCodecUtils.Format.COMPACT, 0);
+		Assertions.assertThat(compact).isEqualTo(MetadataCodecUtils.encode(metadata));
+		Assertions.assertThat(MetadataCodecUtils.formatOf(compact)).isEqualTo(MetadataCodecUtils.Format.COMPACT);
+		Assertions.assertThat(MetadataCodecUtils.encodeLegacy(null)).isEmpty();
+	}
+
+	@Test
+	public void testDecodeLegacy() throws Exception {
+		String json = "{\"a\":\"1\",\"b\":\"2\"}";
+
+		Map<String, String> fromEncoded = MetadataCodecUtils.decode(URLEncoder.encode(json, "UTF-8"));
+		Map<String, String> fromRaw = MetadataCodecUtils.decode(json);
+
+		Assertions.assertThat(fromEncoded).containsEntry("a", "1").containsEntry("b", "2").hasSize(2);
+		Assertions.assertThat(fromRaw).isEqualTo(fromEncoded);
+	}
+
+	@Test
+	public void testCompressAboveThreshold() {
+		Map<String, String> metadata = new HashMap<>();
+		for (int i = 0; i < 64; i++) {
+			metadata.put("trace-key-" + i, "gray-release-value-" + i);
+		}
+		String compact = MetadataCodecUtils.encode(metadata);
+		String compressed = MetadataCodecUtils.encode(metadata, 256);
+
+		Assertions.assertThat(compressed).startsWith(MetadataCodecUtils.COMPRESSED_V1_MARKER);
+		Assertions.assertThat(compressed.length()).isLessThan(compact.length());
+		Assertions.assertThat(MetadataCodecUtils.decode(compressed)).isEqualTo(metadata);
+		Assertions.assertThat(MetadataCodecUtils.encode(metadata, compact.length())).isEqualTo(compact);
+	}
+
+	@Test
+	public void testDecodeMalformedCompressed() {
+		Assertions.assertThatThrownBy(() -> MetadataCodecUtils.decode(MetadataCodecUtils.COMPRESSED_V1_MARKER + "AgFh"))
+				.isInstanceOf(RuntimeException.class);
+	}
+
+	@Test
+	public void testEmpty() {
+		Assertions.assertThat(MetadataCodecUtils.encode(null)).isEmpty();
+		Assertions.assertThat(MetadataCodecUtils.encode(new HashMap<>())).isEmpty();
+		Assertions.assertThat(MetadataCodecUtils.decode(null)).isEmpty();
+		Assertions.assertThat(MetadataCodecUtils.decode("")).isEmpty();
+	}
+
+	@Test
+	public void testDecodeMalformed() {
+		Assertions.assertThatThrownBy(() -> MetadataCodecUtils.decode(MetadataCodecUtils.COMPACT_V1_MARKER + "AgFh"))
+				.isInstanceOf(RuntimeException.class);
+		Assertions.assertThatThrownBy(() -> MetadataCodecUtils.decode(MetadataCodecUtils.COMPACT_V1_MARKER + "!!"))
+				.isInstanceOf(RuntimeException.class);
+	}
+
+}
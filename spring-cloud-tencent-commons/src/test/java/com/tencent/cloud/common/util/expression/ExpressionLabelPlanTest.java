@@ -0,0 +1,87 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.common.util.expression;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+import com.tencent.cloud.common.util.ExpressionLabelUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockCookie;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Test for {@link ExpressionLabelPlan}.
+ *
+ * @author Haotian Zhang
+ */
+public class ExpressionLabelPlanTest {
+
+	@Test
+	public void testCompile() {
+		Set<String> labelKeys = Sets.newHashSet("${http.header.uid}", "${http.query.uid}",
+				"${http.cookie.uid}", "${http.method}", "${http.uri}",
+				"${http.header.}", "${http.queryuid}", "http.query.uid", "${http.query.uid");
+
+		ExpressionLabelPlan plan = ExpressionLabelPlan.compile(labelKeys);
+
+		Assert.assertEquals(5, plan.size());
+		Assert.assertTrue(ExpressionLabelPlan.compile(Sets.newHashSet("k1", "${http.cookie.}")).isEmpty());
+		Assert.assertSame(ExpressionLabelPlan.EMPTY, ExpressionLabelPlan.of(null));
+	}
+
+	@Test
+	public void testPlanCached() {
+		Set<String> labelKeys = Sets.newHashSet("${http.header.uid}", "${http.uri}");
+
+		ExpressionLabelPlan plan1 = ExpressionLabelPlan.of(labelKeys);
+		ExpressionLabelPlan plan2 = ExpressionLabelPlan.of(Sets.newHashSet("${http.uri}", "${http.header.uid}"));
+		Assert.assertSame(plan1, plan2);
+
+		// mutation of caller's set should not affect cached plan
+		labelKeys.add("${http.method}");
+		Assert.assertEquals(2, ExpressionLabelPlan.of(Sets.newHashSet("${http.uri}", "${http.header.uid}")).size());
+		Assert.assertEquals(3, ExpressionLabelPlan.of(labelKeys).size());
+	}
+
+	@Test
+	public void testResolve() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setQueryString("uid=zhangsan&age=18");
+		request.addHeader("uid", "lisi");
+		request.setCookies(new MockCookie("uid", "wangwu"));
+		request.setMethod(HttpMethod.POST.name());
+		request.setRequestURI("/users");
+
+		ExpressionLabelPlan plan = ExpressionLabelPlan.of(Sets.newHashSet("${http.header.uid}",
+				"${http.header.name}", "${http.query.age}", "${http.cookie.uid}", "${http.method}", "${http.uri}"));
+		Map<String, String> labels = ExpressionLabelUtils.resolve(request, plan);
+
+		Assert.assertEquals("lisi", labels.get("${http.header.uid}"));
+		Assert.assertEquals("", labels.get("${http.header.name}"));
+		Assert.assertEquals("18", labels.get("${http.query.age}"));
+		Assert.assertEquals("wangwu", labels.get("${http.cookie.uid}"));
+		Assert.assertEquals("POST", labels.get("${http.method}"));
+		Assert.assertEquals("/users", labels.get("${http.uri}"));
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package com.tencent.cloud.common.util.expression;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.springframework.http.HttpCookie;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockCookie;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+/**
+ * Test for {@link InboundRequestIndex}.
+ *
+ * @author Haotian Zhang
+ */
+public class InboundRequestIndexTest {
+
+	@Test
+	public void testServletRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/get");
+		request.setQueryString("uid=zhangsan&uid=lisi&flag");
+		request.addHeader("Uid", "zhangsan");
+		request.addHeader("X-SCT-Metadata-Transitive-a", "1");
+		request.addHeader("x-sct-metadata-transitive-b", "2");
+		request.addHeader("X-SCT-Metadata-Transitive-", "3");
+		request.setCookies(new MockCookie("uid", "zhangsan"));
+
+		InboundRequestIndex index = InboundRequestIndex.of(request);
+
+		Assert.assertSame(index, InboundRequestIndex.of(request));
+		Assert.assertEquals("zhangsan", index.getHeader("uid"));
+		Assert.assertEquals("zhangsan", index.getHeader("UID"));
+		Assert.assertEquals("", index.getHeader("none"));
+		Assert.assertEquals("zhangsan", index.getQuery("uid"));
+		Assert.assertEquals("", index.getQuery("flag"));
+		Assert.assertEquals("zhangsan", index.getCookie("uid"));
+		Assert.assertEquals("", index.getCookie("none"));
+		Assert.assertEquals("GET", index.getMethod());
+		Assert.assertEquals("/user/get", index.getUri());
+
+		Map<String, String> transitive = index.getCustomTransitiveMetadata();
+		Assert.assertEquals(2, transitive.size());
+		Assert.assertEquals("1", transitive.get("a"));
+		Assert.assertEquals("2", transitive.get("b"));
+	}
+
+	@Test
+	public void testServerWebExchange() {
+		MockServerHttpRequest request = MockServerHttpRequest.get("http://callee/user/get?uid=zhangsan")
+				.header("uid", "zhangsan")
+				.header("X-SCT-Metadata-Transitive-a", "1")
+				.cookie(new HttpCookie("uid", "zhangsan")).build();
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+
+		InboundRequestIndex index = InboundRequestIndex.of(exchange);
+
+		Assert.assertSame(index, InboundRequestIndex.of(exchange));
+		Assert.assertEquals("zhangsan", index.getHeader("uid"));
+		Assert.assertEquals("", index.getHeader("none"));
+		Assert.assertEquals("zhangsan", index.getQuery("uid"));
+		Assert.assertEquals("zhangsan", index.getCookie("uid"));
+		Assert.assertEquals("GET", index.getMethod());
+		Assert.assertEquals("/user/get", index.getUri());
+		Assert.assertEquals("1", index.getCustomTransitiveMetadata().get("a"));
+	}
+
+	@Test
+	public void testNoTransitiveMetadata() {
+		InboundRequestIndex index = InboundRequestIndex.of(new MockHttpServletRequest());
+
+		Assert.assertTrue(index.getCustomTransitiveMetadata().isEmpty());
+	}
+}
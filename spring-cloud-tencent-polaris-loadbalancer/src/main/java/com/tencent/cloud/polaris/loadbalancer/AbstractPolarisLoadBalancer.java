@@ -0,0 +1,92 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.List;
+
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+/**
+ * Base of load balancers that choose instance in process, without calling Polaris. Falls back to round robin when
+ * load balance of Polaris is disabled.
+ *
+ * @author Haotian Zhang
+ */
+public abstract class AbstractPolarisLoadBalancer extends RoundRobinLoadBalancer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AbstractPolarisLoadBalancer.class);
+
+	protected final String serviceId;
+
+	protected final PolarisLoadBalancerProperties loadBalancerProperties;
+
+	private final ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider;
+
+	protected AbstractPolarisLoadBalancer(String serviceId,
+			ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider,
+			PolarisLoadBalancerProperties loadBalancerProperties) {
+		super(supplierObjectProvider, serviceId);
+		this.serviceId = serviceId;
+		this.supplierObjectProvider = supplierObjectProvider;
+		this.loadBalancerProperties = loadBalancerProperties;
+	}
+
+	@Override
+	public Mono<Response<ServiceInstance>> choose(Request request) {
+		if (!loadBalancerProperties.getEnabled()) {
+			return super.choose(request);
+		}
+		ServiceInstanceListSupplier supplier = supplierObjectProvider
+				.getIfAvailable(NoopServiceInstanceListSupplier::new);
+		return supplier.get(request).next().map(serviceInstances -> getInstanceResponse(serviceInstances, request));
+	}
+
+	private Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> serviceInstances, Request<?> request) {
+		if (serviceInstances.isEmpty()) {
+			LOG.warn("No servers available for service: " + this.serviceId);
+			return new EmptyResponse();
+		}
+		ServiceInstance serviceInstance = chooseInstance(serviceInstances, request);
+		if (serviceInstance == null) {
+			return new EmptyResponse();
+		}
+		return new DefaultResponse(serviceInstance);
+	}
+
+	/**
+	 * Choose one of instances.
+	 * @param serviceInstances instances, never empty
+	 * @param request request of load balancer
+	 * @return chosen instance, null if none can be chosen
+	 */
+	protected abstract ServiceInstance chooseInstance(List<ServiceInstance> serviceInstances, Request<?> request);
+}
@@ -0,0 +1,118 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Alias table of weights by Vose's method, which samples an index in proportion to its weight in O(1).
+ * <p>
+ * Every column of the table holds an index and an alias, sampling picks a column uniformly and then one of the
+ * two by the probability of the column. Table is immutable once built and can be shared across threads.
+ *
+ * @author Haotian Zhang
+ */
+public final class AliasTable {
+
+	private final double[] probabilities;
+
+	private final int[] aliases;
+
+	private AliasTable(double[] probabilities, int[] aliases) {
+		this.probabilities = probabilities;
+		this.aliases = aliases;
+	}
+
+	/**
+	 * Build alias table of weights. Indexes are sampled uniformly if no weight is positive.
+	 * @param weights weights, negative weight is treated as zero
+	 * @return alias table
+	 */
+	public static AliasTable of(int[] weights) {
+		int size = weights.length;
+		double[] probabilities = new double[size];
+		int[] aliases = new int[size];
+		long totalWeight = 0;
+		for (int weight : weights) {
+			totalWeight += Math.max(weight, 0);
+		}
+		if (totalWeight == 0) {
+			for (int i = 0; i < size; i++) {
+				probabilities[i] = 1.0;
+				aliases[i] = i;
+			}
+			return new AliasTable(probabilities, aliases);
+		}
+
+		// scale weights so that average is 1, then pair every small column with a large one
+		double[] scaled = new double[size];
+		int[] small = new int[size];
+		int[] large = new int[size];
+		int smallSize = 0;
+		int largeSize = 0;
+		for (int i = 0; i < size; i++) {
+			scaled[i] = (double) Math.max(weights[i], 0) * size / totalWeight;
+			if (scaled[i] < 1.0) {
+				small[smallSize++] = i;
+			}
+			else {
+				large[largeSize++] = i;
+			}
+		}
+		while (smallSize > 0 && largeSize > 0) {
+			int less = small[--smallSize];
+			int more = large[--largeSize];
+			probabilities[less] = scaled[less];
+			aliases[less] = more;
+			scaled[more] = scaled[more] + scaled[less] - 1.0;
+			if (scaled[more] < 1.0) {
+				small[smallSize++] = more;
+			}
+			else {
+				large[largeSize++] = more;
+			}
+		}
+		// what is left is 1 up to rounding error
+		while (largeSize > 0) {
+			int index = large[--largeSize];
+			probabilities[index] = 1.0;
+			aliases[index] = index;
+		}
+		while (smallSize > 0) {
+			int index = small[--smallSize];
+			probabilities[index] = 1.0;
+			aliases[index] = index;
+		}
+		return new AliasTable(probabilities, aliases);
+	}
+
+	/**
+	 * Sample an index in proportion to its weight.
+	 * @return index of weights
+	 */
+	public int next() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int column = random.nextInt(probabilities.length);
+		return random.nextDouble() < probabilities[column] ? column : aliases[column];
+	}
+
+	public int size() {
+		return probabilities.length;
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.pojo.PolarisServiceInstance;
+import com.tencent.polaris.api.pojo.DefaultServiceInstances;
+import com.tencent.polaris.api.pojo.Instance;
+import com.tencent.polaris.api.pojo.ServiceInstances;
+import com.tencent.polaris.api.pojo.ServiceKey;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Instance list of Spring Cloud converted to Polaris, keeping the identity of instances on both sides.
+ * <p>
+ * {@link PolarisServiceInstance} is unwrapped to its {@link Instance} without copying. Instances returned by
+ * Polaris are mapped back to the {@link ServiceInstance} they came from. A conversion is reused as long as the
+ * delegate emits the same instances, which is the common case since discovery hands out cached instances.
+ *
+ * @author Haotian Zhang
+ */
+public final class ConvertedServiceInstances {
+
+	private final Object[] identities;
+
+	private final ServiceInstances serviceInstances;
+
+	private final Map<Instance, ServiceInstance> servers;
+
+	private ConvertedServiceInstances(Object[] identities, ServiceInstances serviceInstances,
+			Map<Instance, ServiceInstance> servers) {
+		this.identities = identities;
+		this.serviceInstances = serviceInstances;
+		this.servers = servers;
+	}
+
+	/**
+	 * Convert instance list, reusing last conversion if it holds the same instances.
+	 * @param servers instance list of Spring Cloud
+	 * @param last last conversion, nullable
+	 * @return conversion
+	 */
+	public static ConvertedServiceInstances of(List<ServiceInstance> servers, ConvertedServiceInstances last) {
+		if (last != null && last.isConversionOf(servers)) {
+			return last;
+		}
+		Object[] identities = new Object[servers.size()];
+		List<Instance> instances = new ArrayList<>(servers.size());
+		Map<Instance, ServiceInstance> origins = new IdentityHashMap<>(servers.size());
+		for (int i = 0; i < identities.length; i++) {
+			ServiceInstance server = servers.get(i);
+			identities[i] = identityOf(server);
+			Instance instance = LoadBalancerUtils.toPolarisInstance(server);
+			instances.add(instance);
+			origins.put(instance, server);
+		}
+
+		String serviceName = instances.isEmpty() ? null : instances.get(0).getService();
+		ServiceKey serviceKey = new ServiceKey(MetadataContext.LOCAL_NAMESPACE, serviceName);
+		return new ConvertedServiceInstances(identities, new DefaultServiceInstances(serviceKey, instances), origins);
+	}
+
+	public ServiceInstances getServiceInstances() {
+		return serviceInstances;
+	}
+
+	/**
+	 * Map instances returned by Polaris back to instances of Spring Cloud.
+	 * @param instances instances returned by Polaris
+	 * @return instances of Spring Cloud
+	 */
+	public List<ServiceInstance> toServers(List<Instance> instances) {
+		if (instances == null) {
+			return new ArrayList<>();
+		}
+		List<ServiceInstance> result = new ArrayList<>(instances.size());
+		for (Instance instance : instances) {
+			ServiceInstance server = servers.get(instance);
+			result.add(server != null ? server : new PolarisServiceInstance(instance));
+		}
+		return result;
+	}
+
+	private boolean isConversionOf(List<ServiceInstance> servers) {
+		if (identities.length != servers.size()) {
+			return false;
+		}
+		for (int i = 0; i < identities.length; i++) {
+			if (identities[i] != identityOf(servers.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Object identityOf(ServiceInstance server) {
+		if (server instanceof PolarisServiceInstance) {
+			return ((PolarisServiceInstance) server).getPolarisInstance();
+		}
+		return server;
+	}
+}
@@ -18,10 +18,15 @@
 
 package com.tencent.cloud.polaris.loadbalancer;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import com.tencent.cloud.common.constant.MetadataConstant;
 import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.pojo.PolarisServiceInstance;
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
 import com.tencent.polaris.api.pojo.DefaultInstance;
 import com.tencent.polaris.api.pojo.DefaultServiceInstances;
 import com.tencent.polaris.api.pojo.Instance;
@@ -39,19 +44,34 @@ import org.springframework.util.CollectionUtils;
  */
 public class LoadBalancerUtils {
 
+	/**
+	 * Metadata key of instance weight, for instances not discovered by Polaris.
+	 */
+	public static final String WEIGHT_METADATA_KEY = "weight";
+
+	/**
+	 * Weight of instance without weight.
+	 */
+	public static final int DEFAULT_WEIGHT = 100;
+
+	/**
+	 * Convert instances emitted by the flux, blocking until it completes.
+	 * @param servers flux of instances
+	 * @return instances of Polaris
+	 * @deprecated blocks the calling thread, use {@link #transferServersToServiceInstances(List)} on each emitted
+	 * list instead. Will be removed in the next release.
+	 */
+	@Deprecated
 	public static ServiceInstances transferServersToServiceInstances(Flux<List<ServiceInstance>> servers) {
-		List<Instance> instances = servers.toStream().flatMap(List::stream).map(serviceInstance -> {
-			DefaultInstance instance = new DefaultInstance();
-			instance.setNamespace(MetadataContext.LOCAL_NAMESPACE);
-			instance.setService(serviceInstance.getServiceId());
-			instance.setProtocol(serviceInstance.getScheme());
-			instance.setId(serviceInstance.getInstanceId());
-			instance.setHost(serviceInstance.getHost());
-			instance.setPort(serviceInstance.getPort());
-			instance.setWeight(100);
-			instance.setMetadata(serviceInstance.getMetadata());
-			return instance;
-		}).collect(Collectors.toList());
+		return transferServersToServiceInstances(servers.toStream().flatMap(List::stream)
+				.collect(Collectors.toList()));
+	}
+
+	public static ServiceInstances transferServersToServiceInstances(List<ServiceInstance> servers) {
+		List<Instance> instances = new ArrayList<>(servers.size());
+		for (ServiceInstance server : servers) {
+			instances.add(toPolarisInstance(server));
+		}
 
 		String serviceName = null;
 		if (!CollectionUtils.isEmpty(instances)) {
@@ -62,4 +82,108 @@ public class LoadBalancerUtils {
 
 		return new DefaultServiceInstances(serviceKey, instances);
 	}
+
+	/**
+	 * Convert instance of Spring Cloud to Polaris. Instance of Polaris is unwrapped without copying.
+	 * @param server instance of Spring Cloud
+	 * @return instance of Polaris
+	 */
+	public static Instance toPolarisInstance(ServiceInstance server) {
+		if (server instanceof PolarisServiceInstance) {
+			return ((PolarisServiceInstance) server).getPolarisInstance();
+		}
+		DefaultInstance instance = new DefaultInstance();
+		instance.setNamespace(MetadataContext.LOCAL_NAMESPACE);
+		instance.setService(server.getServiceId());
+		instance.setProtocol(server.getScheme());
+		instance.setId(server.getInstanceId());
+		instance.setHost(server.getHost());
+		instance.setPort(server.getPort());
+		instance.setWeight(getWeight(server));
+		instance.setMetadata(server.getMetadata());
+		return instance;
+	}
+
+	/**
+	 * Get weight of instance. Weight of instance of Polaris comes from registry, other instances may carry it in
+	 * metadata of {@link #WEIGHT_METADATA_KEY}.
+	 * @param server instance of Spring Cloud
+	 * @return weight, {@link #DEFAULT_WEIGHT} if absent or invalid
+	 */
+	public static int getWeight(ServiceInstance server) {
+		if (server instanceof PolarisServiceInstance) {
+			return ((PolarisServiceInstance) server).getPolarisInstance().getWeight();
+		}
+		Map<String, String> metadata = server.getMetadata();
+		String weight = metadata != null ? metadata.get(WEIGHT_METADATA_KEY) : null;
+		if (weight == null) {
+			return DEFAULT_WEIGHT;
+		}
+		try {
+			return Math.max(Integer.parseInt(weight.trim()), 0);
+		}
+		catch (NumberFormatException e) {
+			return DEFAULT_WEIGHT;
+		}
+	}
+
+	/**
+	 * Get slow start factor of instance. Instance registered within slow start window gets a factor growing linearly
+	 * from min weight ratio to 1 over the window, from registration time published in metadata by registry.
+	 * @param server instance of Spring Cloud
+	 * @param loadBalancerProperties properties of slow start
+	 * @param now current time in epoch milliseconds
+	 * @return factor in (0, 1], 1 if slow start is disabled or instance has no registration time
+	 */
+	public static double getSlowStartFactor(ServiceInstance server, PolarisLoadBalancerProperties loadBalancerProperties,
+			long now) {
+		long slowStartWindow = loadBalancerProperties.getSlowStartWindow();
+		if (slowStartWindow <= 0) {
+			return 1.0;
+		}
+		Map<String, String> metadata = server.getMetadata();
+		String registrationTime = metadata != null
+				? metadata.get(MetadataConstant.InstanceMetadataKey.REGISTRATION_TIME) : null;
+		if (registrationTime == null) {
+			return 1.0;
+		}
+		long age;
+		try {
+			age = now - Long.parseLong(registrationTime.trim());
+		}
+		catch (NumberFormatException e) {
+			return 1.0;
+		}
+		if (age >= slowStartWindow) {
+			return 1.0;
+		}
+		double minWeightRatio = Math.min(Math.max(loadBalancerProperties.getSlowStartMinWeightRatio(), 0.01), 1.0);
+		// clock of registry host may be ahead, which starts instance at min weight ratio.
+		return Math.max((double) Math.max(age, 0) / slowStartWindow, minWeightRatio);
+	}
+
+	/**
+	 * Get weight of instance ramped up by slow start.
+	 * @param server instance of Spring Cloud
+	 * @param loadBalancerProperties properties of slow start
+	 * @param now current time in epoch milliseconds
+	 * @return weight, at least 1 unless full weight is 0
+	 */
+	public static int getSlowStartWeight(ServiceInstance server, PolarisLoadBalancerProperties loadBalancerProperties,
+			long now) {
+		return getSlowStartWeight(getWeight(server), getSlowStartFactor(server, loadBalancerProperties, now));
+	}
+
+	/**
+	 * Get weight ramped up by slow start factor.
+	 * @param weight full weight
+	 * @param factor slow start factor, see {@link #getSlowStartFactor}
+	 * @return weight, at least 1 unless full weight is 0
+	 */
+	public static int getSlowStartWeight(int weight, double factor) {
+		if (factor >= 1.0 || weight == 0) {
+			return weight;
+		}
+		return Math.max((int) (weight * factor), 1);
+	}
 }
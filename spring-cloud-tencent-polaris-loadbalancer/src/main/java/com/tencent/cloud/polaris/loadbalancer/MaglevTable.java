@@ -0,0 +1,153 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Maglev lookup table, which maps hash keys to indexes of instance keys in O(1).
+ * <p>
+ * Every instance key fills table entries along its own permutation of the table in turn, so each one owns nearly
+ * the same number of entries, and adding or removing a key moves only a small part of the other entries. Keys are
+ * filled in sorted order, so clients with the same instances in any order build the same table. Table is immutable
+ * once built and can be shared across threads.
+ *
+ * @author Haotian Zhang
+ */
+public final class MaglevTable {
+
+	/**
+	 * Prime table sizes, the smallest one with at least {@link #MIN_ENTRIES_PER_KEY} entries per key is used.
+	 */
+	private static final int[] TABLE_SIZES = {251, 509, 1021, 2039, 4093, 8191, 16381, 32749, 65521, 131071};
+
+	private static final int MIN_ENTRIES_PER_KEY = 100;
+
+	private static final long OFFSET_SEED = 0x9e3779b97f4a7c15L;
+
+	private static final long SKIP_SEED = 0xc2b2ae3d27d4eb4fL;
+
+	private static final long LOOKUP_SEED = 0x165667b19e3779f9L;
+
+	private final String[] keys;
+
+	private final int[] entries;
+
+	private MaglevTable(String[] keys, int[] entries) {
+		this.keys = keys;
+		this.entries = entries;
+	}
+
+	/**
+	 * Build lookup table of instance keys.
+	 * @param keys instance keys
+	 * @return lookup table
+	 */
+	public static MaglevTable of(String[] keys) {
+		int count = keys.length;
+		if (count == 0) {
+			return new MaglevTable(keys, new int[0]);
+		}
+		int size = tableSize(count);
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparing(index -> keys[index]));
+
+		long[] offsets = new long[count];
+		long[] skips = new long[count];
+		long[] nexts = new long[count];
+		for (int i = 0; i < count; i++) {
+			String key = keys[order[i]];
+			offsets[i] = Long.remainderUnsigned(hash(key, OFFSET_SEED), size);
+			skips[i] = Long.remainderUnsigned(hash(key, SKIP_SEED), size - 1) + 1;
+		}
+
+		int[] entries = new int[size];
+		Arrays.fill(entries, -1);
+		int filled = 0;
+		while (true) {
+			for (int i = 0; i < count; i++) {
+				int entry = (int) ((offsets[i] + nexts[i] * skips[i]) % size);
+				while (entries[entry] >= 0) {
+					nexts[i]++;
+					entry = (int) ((offsets[i] + nexts[i] * skips[i]) % size);
+				}
+				entries[entry] = order[i];
+				nexts[i]++;
+				if (++filled == size) {
+					return new MaglevTable(keys, entries);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get index of instance key owning hash key.
+	 * @param hashKey hash key
+	 * @return index of instance key, -1 if table has no key
+	 */
+	public int get(String hashKey) {
+		if (entries.length == 0) {
+			return -1;
+		}
+		return entries[(int) Long.remainderUnsigned(hash(hashKey, LOOKUP_SEED), entries.length)];
+	}
+
+	/**
+	 * Check if table is built from the same instance keys in the same order.
+	 * @param keys instance keys
+	 * @return true if keys are the same
+	 */
+	public boolean hasKeys(String[] keys) {
+		return Arrays.equals(this.keys, keys);
+	}
+
+	public int size() {
+		return entries.length;
+	}
+
+	private static int tableSize(int count) {
+		for (int tableSize : TABLE_SIZES) {
+			if (tableSize >= (long) count * MIN_ENTRIES_PER_KEY) {
+				return tableSize;
+			}
+		}
+		return TABLE_SIZES[TABLE_SIZES.length - 1];
+	}
+
+	/**
+	 * 64-bit FNV-1a over chars of value, finished by the murmur3 mixer.
+	 */
+	static long hash(String value, long seed) {
+		long hash = 0xcbf29ce484222325L ^ seed;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Counter of requests in flight per instance. Counters are striped {@link LongAdder}s, so concurrent calls to the
+ * same instance update them without locking or contending on a single cell. Idle counters are dropped only when an
+ * instance list brings instances not seen before, and only after they are marked retired, so an increment racing
+ * with the drop never lands on a counter that is gone.
+ *
+ * @author Haotian Zhang
+ */
+public class OutstandingRequestCounter {
+
+	private static final long DEFAULT_RETENTION_MILLIS = 60_000;
+
+	private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+	private final long retentionNanos;
+
+	/**
+	 * Time each known instance was last seen in a registered list, immutable and replaced on register.
+	 */
+	private volatile Map<String, Long> knownInstances = Collections.emptyMap();
+
+	public OutstandingRequestCounter() {
+		this(DEFAULT_RETENTION_MILLIS);
+	}
+
+	/**
+	 * Create counter.
+	 * @param retentionMillis time an instance stays known after it was last seen in a registered list
+	 */
+	public OutstandingRequestCounter(long retentionMillis) {
+		this.retentionNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(retentionMillis, 0));
+	}
+
+	/**
+	 * Count a request sent to instance.
+	 * @param serviceInstance instance
+	 */
+	public void increment(ServiceInstance serviceInstance) {
+		String key = getKey(serviceInstance);
+		while (true) {
+			Counter counter = counters.computeIfAbsent(key, k -> new Counter());
+			counter.requests.increment();
+			if (!counter.retired) {
+				return;
+			}
+			// counter is being dropped by register, undo and count on the counter left in place
+			counter.requests.decrement();
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Count a request of instance completed.
+	 * @param serviceInstance instance
+	 */
+	public void decrement(ServiceInstance serviceInstance) {
+		Counter counter = counters.get(getKey(serviceInstance));
+		if (counter != null) {
+			counter.requests.decrement();
+		}
+	}
+
+	/**
+	 * Get requests in flight of instance.
+	 * @param serviceInstance instance
+	 * @return requests in flight
+	 */
+	public long get(ServiceInstance serviceInstance) {
+		Counter counter = counters.get(getKey(serviceInstance));
+		return counter != null ? Math.max(counter.requests.sum(), 0) : 0;
+	}
+
+	/**
+	 * Whether instance was seen in a registered list.
+	 * @param serviceInstance instance
+	 * @return true if instance is known
+	 */
+	public boolean isKnown(ServiceInstance serviceInstance) {
+		return knownInstances.containsKey(getKey(serviceInstance));
+	}
+
+	/**
+	 * Remember instances not seen before and drop idle counters of instances gone. Instance lists may be subsets
+	 * filtered by routers, so instances seen within retention time stay known, the same way as
+	 * {@link PeakEwmaStats#register(List)} keeps slots, and counters with requests in flight are kept.
+	 * @param serviceInstances current instances
+	 * @return true if known instances are rebuilt
+	 */
+	public boolean register(List<ServiceInstance> serviceInstances) {
+		if (isKnown(knownInstances, serviceInstances)) {
+			return false;
+		}
+		synchronized (this) {
+			Map<String, Long> current = knownInstances;
+			if (isKnown(current, serviceInstances)) {
+				return false;
+			}
+			long now = System.nanoTime();
+			Map<String, Long> known = new HashMap<>(serviceInstances.size() * 2);
+			for (ServiceInstance serviceInstance : serviceInstances) {
+				known.put(getKey(serviceInstance), now);
+			}
+			current.forEach((key, lastSeen) -> {
+				if (now - lastSeen < retentionNanos) {
+					known.putIfAbsent(key, lastSeen);
+				}
+			});
+			knownInstances = known;
+			counters.forEach((key, counter) -> {
+				if (!known.containsKey(key) && counter.requests.sum() <= 0) {
+					drop(key, counter);
+				}
+			});
+			return true;
+		}
+	}
+
+	private static boolean isKnown(Map<String, Long> knownInstances, List<ServiceInstance> serviceInstances) {
+		for (ServiceInstance serviceInstance : serviceInstances) {
+			if (!knownInstances.containsKey(getKey(serviceInstance))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void drop(String key, Counter counter) {
+		// an increment either sees the counter retired and backs out, or is seen by the sum below
+		counter.retired = true;
+		if (counter.requests.sum() > 0) {
+			counter.retired = false;
+		}
+		else {
+			counters.remove(key, counter);
+		}
+	}
+
+	static String getKey(ServiceInstance serviceInstance) {
+		String instanceId = serviceInstance.getInstanceId();
+		if (instanceId != null) {
+			return instanceId;
+		}
+		return serviceInstance.getHost() + ":" + serviceInstance.getPort();
+	}
+
+	private static final class Counter {
+
+		private final LongAdder requests = new LongAdder();
+
+		/**
+		 * Set while register decides to drop the counter, never cleared once the counter is dropped.
+		 */
+		private volatile boolean retired;
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+/**
+ * Count requests in flight per instance. Load balancer clients of Feign, RestTemplate and WebClient call lifecycle
+ * beans of the load balancer of service around every request, so one bean covers all of them.
+ *
+ * @author Haotian Zhang
+ */
+public class OutstandingRequestLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+	private final OutstandingRequestCounter outstandingRequestCounter;
+
+	public OutstandingRequestLifecycle(OutstandingRequestCounter outstandingRequestCounter) {
+		this.outstandingRequestCounter = outstandingRequestCounter;
+	}
+
+	@Override
+	public void onStart(Request<Object> request) {
+
+	}
+
+	@Override
+	public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+		if (lbResponse != null && lbResponse.hasServer()) {
+			outstandingRequestCounter.increment(lbResponse.getServer());
+		}
+	}
+
+	@Override
+	public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+		// discarded request has never started
+		if (completionContext.status() == CompletionContext.Status.DISCARD) {
+			return;
+		}
+		Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+		if (lbResponse != null && lbResponse.hasServer()) {
+			outstandingRequestCounter.decrement(lbResponse.getServer());
+		}
+	}
+}
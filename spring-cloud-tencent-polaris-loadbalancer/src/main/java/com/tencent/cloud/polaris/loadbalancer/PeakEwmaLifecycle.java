@@ -0,0 +1,72 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+
+/**
+ * Count requests in flight and record response latency per instance. Start time is kept in the
+ * {@link TimedRequestContext} of request, requests without one are counted but not timed.
+ *
+ * @author Haotian Zhang
+ */
+public class PeakEwmaLifecycle extends OutstandingRequestLifecycle {
+
+	private final PeakEwmaStats peakEwmaStats;
+
+	public PeakEwmaLifecycle(OutstandingRequestCounter outstandingRequestCounter, PeakEwmaStats peakEwmaStats) {
+		super(outstandingRequestCounter);
+		this.peakEwmaStats = peakEwmaStats;
+	}
+
+	@Override
+	public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+		super.onStartRequest(request, lbResponse);
+		if (request != null && request.getContext() instanceof TimedRequestContext) {
+			TimedRequestContext context = (TimedRequestContext) request.getContext();
+			// may be set already by micrometer stats lifecycle
+			if (context.getRequestStartTime() == 0) {
+				context.setRequestStartTime(System.nanoTime());
+			}
+		}
+	}
+
+	@Override
+	public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+		super.onComplete(completionContext);
+		if (completionContext.status() == CompletionContext.Status.DISCARD) {
+			return;
+		}
+		Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+		Request<Object> request = completionContext.getLoadBalancerRequest();
+		if (lbResponse == null || !lbResponse.hasServer() || request == null
+				|| !(request.getContext() instanceof TimedRequestContext)) {
+			return;
+		}
+		long requestStartTime = ((TimedRequestContext) request.getContext()).getRequestStartTime();
+		if (requestStartTime != 0) {
+			peakEwmaStats.observe(lbResponse.getServer(), System.nanoTime() - requestStartTime,
+					completionContext.status() == CompletionContext.Status.FAILED);
+		}
+	}
+}
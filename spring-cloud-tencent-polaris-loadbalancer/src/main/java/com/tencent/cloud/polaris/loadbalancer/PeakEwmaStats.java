@@ -0,0 +1,191 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Peak-sensitive exponentially weighted moving average of response latency per instance. A latency above the
+ * average replaces it at once, lower latencies are blended in with a weight depending on the time since the last
+ * observation, and the average decays toward zero while an instance is not observed so slow instances get probed
+ * again. Averages are kept in a primitive array indexed by instance slot, the table of slots is immutable and
+ * replaced when an instance list has instances without slot.
+ *
+ * @author Haotian Zhang
+ */
+public class PeakEwmaStats {
+
+	private final double decayTimeNanos;
+
+	private volatile Table table = new Table(new HashMap<>(), new AtomicLongArray(0));
+
+	/**
+	 * Create stats.
+	 * @param decayTimeMillis time for the average to decay by factor e, in milliseconds
+	 */
+	public PeakEwmaStats(long decayTimeMillis) {
+		this.decayTimeNanos = Math.max(decayTimeMillis, 1) * 1_000_000d;
+	}
+
+	/**
+	 * Record response latency of instance. Failed responses only raise the average, so instances failing fast do
+	 * not attract traffic.
+	 * @param serviceInstance instance
+	 * @param latencyNanos response latency in nanoseconds
+	 * @param failed if the request failed
+	 */
+	public void observe(ServiceInstance serviceInstance, long latencyNanos, boolean failed) {
+		Table current = table;
+		Integer slot = current.slots.get(OutstandingRequestCounter.getKey(serviceInstance));
+		if (slot != null) {
+			current.observe(slot, Math.max(latencyNanos, 0), failed, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Get average latency of instance. Slots are looked up in the current table, so instance lists of any subset
+	 * are served without building anything per list.
+	 * @param serviceInstance instance
+	 * @param now current {@link System#nanoTime()}
+	 * @return average latency in nanoseconds, negative if instance has no slot yet
+	 */
+	public double getCost(ServiceInstance serviceInstance, long now) {
+		Table current = table;
+		Integer slot = current.slots.get(OutstandingRequestCounter.getKey(serviceInstance));
+		return slot != null ? current.getCost(slot, now) : -1;
+	}
+
+	/**
+	 * Allocate slots for instances not seen before.
+	 * @param serviceInstances instances
+	 * @return true if the table is rebuilt
+	 */
+	public boolean register(List<ServiceInstance> serviceInstances) {
+		if (table.hasSlots(serviceInstances)) {
+			return false;
+		}
+		synchronized (this) {
+			Table current = table;
+			if (current.hasSlots(serviceInstances)) {
+				return false;
+			}
+			table = current.rebuild(serviceInstances, System.nanoTime());
+			return true;
+		}
+	}
+
+	private final class Table {
+
+		/**
+		 * Slot of each instance key.
+		 */
+		private final Map<String, Integer> slots;
+
+		/**
+		 * Two longs per slot, raw bits of the average and time of last observation.
+		 */
+		private final AtomicLongArray values;
+
+		private Table(Map<String, Integer> slots, AtomicLongArray values) {
+			this.slots = slots;
+			this.values = values;
+		}
+
+		private boolean hasSlots(List<ServiceInstance> serviceInstances) {
+			for (ServiceInstance serviceInstance : serviceInstances) {
+				if (!slots.containsKey(OutstandingRequestCounter.getKey(serviceInstance))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private double getCost(int slot, long now) {
+			double cost = Double.longBitsToDouble(values.get(slot * 2));
+			long elapsed = now - values.get(slot * 2 + 1);
+			return elapsed > 0 ? cost * Math.exp(-elapsed / decayTimeNanos) : cost;
+		}
+
+		private void observe(int slot, long latencyNanos, boolean failed, long now) {
+			int index = slot * 2;
+			double weight = Math.exp(-Math.max(now - values.get(index + 1), 0) / decayTimeNanos);
+			while (true) {
+				long bits = values.get(index);
+				double cost = Double.longBitsToDouble(bits);
+				double next;
+				if (latencyNanos >= cost || failed) {
+					next = Math.max(latencyNanos, cost);
+				}
+				else {
+					next = cost * weight + latencyNanos * (1 - weight);
+				}
+				if (values.compareAndSet(index, bits, Double.doubleToRawLongBits(next))) {
+					break;
+				}
+			}
+			values.set(index + 1, now);
+		}
+
+		/**
+		 * Build table with slots of instances in list and of instances observed within decay time, which may be
+		 * filtered out of this list by routers only. Observations racing with the copy may be lost.
+		 */
+		private Table rebuild(List<ServiceInstance> serviceInstances, long now) {
+			Map<String, Integer> newSlots = new HashMap<>(serviceInstances.size() * 2);
+			for (ServiceInstance serviceInstance : serviceInstances) {
+				newSlots.putIfAbsent(OutstandingRequestCounter.getKey(serviceInstance), newSlots.size());
+			}
+			for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+				if (!newSlots.containsKey(entry.getKey())
+						&& now - values.get(entry.getValue() * 2 + 1) < decayTimeNanos) {
+					newSlots.put(entry.getKey(), newSlots.size());
+				}
+			}
+
+			AtomicLongArray newValues = new AtomicLongArray(newSlots.size() * 2);
+			double total = 0;
+			int count = 0;
+			for (Map.Entry<String, Integer> entry : newSlots.entrySet()) {
+				Integer oldSlot = slots.get(entry.getKey());
+				if (oldSlot != null) {
+					int index = entry.getValue() * 2;
+					newValues.set(index, values.get(oldSlot * 2));
+					newValues.set(index + 1, values.get(oldSlot * 2 + 1));
+					total += getCost(oldSlot, now);
+					count++;
+				}
+			}
+			// new instances start at the average of known ones, neither flooded nor starved before first response.
+			long initialCost = Double.doubleToRawLongBits(count > 0 ? total / count : 0);
+			for (Map.Entry<String, Integer> entry : newSlots.entrySet()) {
+				if (!slots.containsKey(entry.getKey())) {
+					int index = entry.getValue() * 2;
+					newValues.set(index, initialCost);
+					newValues.set(index + 1, now);
+				}
+			}
+			return new Table(newSlots, newValues);
+		}
+	}
+}
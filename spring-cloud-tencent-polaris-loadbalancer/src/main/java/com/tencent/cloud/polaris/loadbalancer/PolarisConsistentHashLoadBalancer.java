@@ -0,0 +1,173 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.tencent.cloud.common.util.ExpressionLabelUtils;
+import com.tencent.cloud.common.util.expression.ExpressionLabelPlan;
+import com.tencent.cloud.common.util.expression.ExpressionLabelSource;
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
+import org.apache.commons.lang.StringUtils;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+/**
+ * Consistent hash load balancer backed by a {@link MaglevTable}. Hash key is resolved from request by label
+ * expression like <code>${http.header.uid}</code>, <code>${http.query.uid}</code> or
+ * <code>${http.cookie.uid}</code>, so requests with the same key land on the same instance. Requests without key
+ * are spread at random.
+ *
+ * @author Haotian Zhang
+ */
+public class PolarisConsistentHashLoadBalancer extends AbstractPolarisLoadBalancer {
+
+	/**
+	 * Max count of cached lookup tables.
+	 */
+	private static final int MAX_HASHED_INSTANCES = 4;
+
+	private final String hashKey;
+
+	private final ExpressionLabelPlan hashKeyPlan;
+
+	/**
+	 * Lookup tables of recent instance lists, most recently used first.
+	 */
+	private volatile HashedInstances[] recentHashedInstances = new HashedInstances[0];
+
+	public PolarisConsistentHashLoadBalancer(String serviceId,
+			ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider,
+			PolarisLoadBalancerProperties loadBalancerProperties) {
+		super(serviceId, supplierObjectProvider, loadBalancerProperties);
+		this.hashKey = loadBalancerProperties.getHashKey();
+		this.hashKeyPlan = StringUtils.isNotBlank(hashKey)
+				? ExpressionLabelPlan.compile(Collections.singleton(hashKey)) : ExpressionLabelPlan.EMPTY;
+	}
+
+	@Override
+	protected ServiceInstance chooseInstance(List<ServiceInstance> serviceInstances, Request<?> request) {
+		String value = resolveHashKey(request);
+		if (StringUtils.isEmpty(value)) {
+			return serviceInstances.get(ThreadLocalRandom.current().nextInt(serviceInstances.size()));
+		}
+		return serviceInstances.get(getMaglevTable(serviceInstances).get(value));
+	}
+
+	private String resolveHashKey(Request<?> request) {
+		if (hashKeyPlan.isEmpty() || request == null || !(request.getContext() instanceof RequestDataContext)) {
+			return null;
+		}
+		RequestData requestData = ((RequestDataContext) request.getContext()).getClientRequest();
+		if (requestData == null) {
+			return null;
+		}
+		return hashKeyPlan.resolve(new RequestDataLabelSource(requestData)).get(hashKey);
+	}
+
+	MaglevTable getMaglevTable(List<ServiceInstance> serviceInstances) {
+		HashedInstances[] recent = recentHashedInstances;
+		for (HashedInstances hashedInstances : recent) {
+			if (hashedInstances.serviceInstances == serviceInstances) {
+				return hashedInstances.maglevTable;
+			}
+		}
+		String[] keys = new String[serviceInstances.size()];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = OutstandingRequestCounter.getKey(serviceInstances.get(i));
+		}
+		// table maps to positions, so a new list with the same instances at the same positions keeps it. Several
+		// tables are kept, as routers may alternately narrow the instances down to different subsets per request.
+		int hit = -1;
+		for (int i = 0; i < recent.length; i++) {
+			if (recent[i].maglevTable.hasKeys(keys)) {
+				hit = i;
+				break;
+			}
+		}
+		MaglevTable maglevTable = hit >= 0 ? recent[hit].maglevTable : MaglevTable.of(keys);
+
+		// move the hit to the front, or evict the oldest one when full
+		int size = hit >= 0 ? recent.length : Math.min(recent.length + 1, MAX_HASHED_INSTANCES);
+		HashedInstances[] updated = new HashedInstances[size];
+		updated[0] = new HashedInstances(serviceInstances, maglevTable);
+		for (int i = 0, j = 1; i < recent.length && j < size; i++) {
+			if (i != hit) {
+				updated[j++] = recent[i];
+			}
+		}
+		recentHashedInstances = updated;
+		return maglevTable;
+	}
+
+	private static final class HashedInstances {
+
+		private final List<ServiceInstance> serviceInstances;
+
+		private final MaglevTable maglevTable;
+
+		private HashedInstances(List<ServiceInstance> serviceInstances, MaglevTable maglevTable) {
+			this.serviceInstances = serviceInstances;
+			this.maglevTable = maglevTable;
+		}
+	}
+
+	private static final class RequestDataLabelSource implements ExpressionLabelSource {
+
+		private final RequestData requestData;
+
+		RequestDataLabelSource(RequestData requestData) {
+			this.requestData = requestData;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return requestData.getHeaders() != null ? requestData.getHeaders().getFirst(name) : null;
+		}
+
+		@Override
+		public String getQuery(String name) {
+			URI url = requestData.getUrl();
+			return url != null ? ExpressionLabelUtils.getQueryValue(url.getQuery(), name) : null;
+		}
+
+		@Override
+		public String getCookie(String name) {
+			return requestData.getCookies() != null ? requestData.getCookies().getFirst(name) : null;
+		}
+
+		@Override
+		public String getMethod() {
+			return requestData.getHttpMethod() != null ? requestData.getHttpMethod().name() : null;
+		}
+
+		@Override
+		public String getUri() {
+			return requestData.getUrl() != null ? requestData.getUrl().getPath() : null;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+/**
+ * Least request load balancer by power of two choices. Two distinct instances are picked at random and the one
+ * with fewer requests in flight wins, which steers traffic away from slow instances without scanning all of them.
+ *
+ * @author Haotian Zhang
+ */
+public class PolarisLeastRequestLoadBalancer extends AbstractPolarisLoadBalancer {
+
+	private final OutstandingRequestCounter outstandingRequestCounter;
+
+	public PolarisLeastRequestLoadBalancer(String serviceId,
+			ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider,
+			PolarisLoadBalancerProperties loadBalancerProperties,
+			OutstandingRequestCounter outstandingRequestCounter) {
+		super(serviceId, supplierObjectProvider, loadBalancerProperties);
+		this.outstandingRequestCounter = outstandingRequestCounter;
+	}
+
+	@Override
+	protected ServiceInstance chooseInstance(List<ServiceInstance> serviceInstances, Request<?> request) {
+		int size = serviceInstances.size();
+		if (size == 1) {
+			return serviceInstances.get(0);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(size);
+		int second = random.nextInt(size - 1);
+		if (second >= first) {
+			second++;
+		}
+		ServiceInstance firstInstance = serviceInstances.get(first);
+		ServiceInstance secondInstance = serviceInstances.get(second);
+		if (!outstandingRequestCounter.isKnown(firstInstance)
+				|| !outstandingRequestCounter.isKnown(secondInstance)) {
+			// instances not seen before, idle counters of instances gone are dropped
+			outstandingRequestCounter.register(serviceInstances);
+		}
+		if (loadBalancerProperties.getSlowStartWindow() > 0) {
+			return getSlowStartLoad(secondInstance) < getSlowStartLoad(firstInstance) ? secondInstance : firstInstance;
+		}
+		return outstandingRequestCounter.get(secondInstance) < outstandingRequestCounter.get(firstInstance)
+				? secondInstance : firstInstance;
+	}
+
+	/**
+	 * Requests in flight plus one, scaled up while instance is in slow start.
+	 */
+	private double getSlowStartLoad(ServiceInstance serviceInstance) {
+		return (outstandingRequestCounter.get(serviceInstance) + 1) / LoadBalancerUtils.getSlowStartFactor(
+				serviceInstance, loadBalancerProperties, System.currentTimeMillis());
+	}
+}
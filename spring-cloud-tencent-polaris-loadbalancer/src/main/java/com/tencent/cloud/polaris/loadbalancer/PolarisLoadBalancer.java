@@ -17,8 +17,8 @@
 
 package com.tencent.cloud.polaris.loadbalancer;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import com.tencent.cloud.common.metadata.MetadataContext;
 import com.tencent.cloud.common.pojo.PolarisServiceInstance;
@@ -72,11 +72,24 @@ public class PolarisLoadBalancer extends RoundRobinLoadBalancer {
 		this.routerAPI = routerAPI;
 	}
 
-	private static ServiceInstances convertToPolarisServiceInstances(List<ServiceInstance> serviceInstances) {
+	/**
+	 * Convert instances to Polaris. Instances in slow start are wrapped with ramped weight.
+	 */
+	private ServiceInstances convertToPolarisServiceInstances(List<ServiceInstance> serviceInstances) {
 		ServiceKey serviceKey = new ServiceKey(MetadataContext.LOCAL_NAMESPACE, serviceInstances.get(0).getServiceId());
-		List<Instance> polarisInstances = serviceInstances.stream()
-				.map(serviceInstance -> ((PolarisServiceInstance) serviceInstance).getPolarisInstance())
-				.collect(Collectors.toList());
+		boolean slowStartEnabled = loadBalancerProperties.getSlowStartWindow() > 0;
+		long now = System.currentTimeMillis();
+		List<Instance> polarisInstances = new ArrayList<>(serviceInstances.size());
+		for (ServiceInstance serviceInstance : serviceInstances) {
+			Instance instance = ((PolarisServiceInstance) serviceInstance).getPolarisInstance();
+			if (slowStartEnabled) {
+				int weight = LoadBalancerUtils.getSlowStartWeight(serviceInstance, loadBalancerProperties, now);
+				if (weight != instance.getWeight()) {
+					instance = new SlowStartInstance(instance, weight, serviceInstance);
+				}
+			}
+			polarisInstances.add(instance);
+		}
 		return new DefaultServiceInstances(serviceKey, polarisInstances);
 	}
 
@@ -103,6 +116,9 @@ public class PolarisLoadBalancer extends RoundRobinLoadBalancer {
 
 		try {
 			ProcessLoadBalanceResponse response = routerAPI.processLoadBalance(request);
+			if (response.getTargetInstance() instanceof SlowStartInstance) {
+				return new DefaultResponse(((SlowStartInstance) response.getTargetInstance()).getServiceInstance());
+			}
 			return new DefaultResponse(new PolarisServiceInstance(response.getTargetInstance()));
 		}
 		catch (Exception e) {
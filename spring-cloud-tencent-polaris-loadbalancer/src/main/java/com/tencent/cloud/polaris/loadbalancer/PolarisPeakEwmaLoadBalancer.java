@@ -0,0 +1,89 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+/**
+ * Latency aware load balancer by peak EWMA. Two distinct instances are picked at random and the one with lower
+ * average latency times requests in flight plus one wins, so consistently slower instances get less traffic.
+ *
+ * @author Haotian Zhang
+ */
+public class PolarisPeakEwmaLoadBalancer extends AbstractPolarisLoadBalancer {
+
+	private final OutstandingRequestCounter outstandingRequestCounter;
+
+	private final PeakEwmaStats peakEwmaStats;
+
+	public PolarisPeakEwmaLoadBalancer(String serviceId,
+			ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider,
+			PolarisLoadBalancerProperties loadBalancerProperties,
+			OutstandingRequestCounter outstandingRequestCounter, PeakEwmaStats peakEwmaStats) {
+		super(serviceId, supplierObjectProvider, loadBalancerProperties);
+		this.outstandingRequestCounter = outstandingRequestCounter;
+		this.peakEwmaStats = peakEwmaStats;
+	}
+
+	@Override
+	protected ServiceInstance chooseInstance(List<ServiceInstance> serviceInstances, Request<?> request) {
+		int size = serviceInstances.size();
+		if (size == 1) {
+			return serviceInstances.get(0);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(size);
+		int second = random.nextInt(size - 1);
+		if (second >= first) {
+			second++;
+		}
+		ServiceInstance firstInstance = serviceInstances.get(first);
+		ServiceInstance secondInstance = serviceInstances.get(second);
+		long now = System.nanoTime();
+		double firstCost = peakEwmaStats.getCost(firstInstance, now);
+		double secondCost = peakEwmaStats.getCost(secondInstance, now);
+		if (firstCost < 0 || secondCost < 0) {
+			// instances not seen before, slots and idle counters of instances gone are dropped
+			peakEwmaStats.register(serviceInstances);
+			outstandingRequestCounter.register(serviceInstances);
+			firstCost = Math.max(peakEwmaStats.getCost(firstInstance, now), 0);
+			secondCost = Math.max(peakEwmaStats.getCost(secondInstance, now), 0);
+		}
+		return getLoad(secondInstance, secondCost) < getLoad(firstInstance, firstCost)
+				? secondInstance : firstInstance;
+	}
+
+	private double getLoad(ServiceInstance serviceInstance, double cost) {
+		// plus one nanosecond, so it works as least request before any latency is known.
+		double load = (cost + 1) * (outstandingRequestCounter.get(serviceInstance) + 1);
+		if (loadBalancerProperties.getSlowStartWindow() > 0) {
+			load /= LoadBalancerUtils.getSlowStartFactor(serviceInstance, loadBalancerProperties,
+					System.currentTimeMillis());
+		}
+		return load;
+	}
+}
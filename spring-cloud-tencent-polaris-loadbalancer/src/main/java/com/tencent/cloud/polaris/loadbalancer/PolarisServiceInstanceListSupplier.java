@@ -39,6 +39,11 @@ import org.springframework.util.CollectionUtils;
  */
 public class PolarisServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
 
+	/**
+	 * Last converted instance list, reused while the delegate emits the same list.
+	 */
+	private volatile Conversion lastConversion;
+
 	public PolarisServiceInstanceListSupplier(ServiceInstanceListSupplier delegate) {
 		super(delegate);
 	}
@@ -63,8 +68,26 @@ public class PolarisServiceInstanceListSupplier extends DelegatingServiceInstanc
 			throw new IllegalStateException(
 					"PolarisRoutingLoadBalancer only Server with AppName or ServiceIdForDiscovery attribute");
 		}
-		List<ServiceInstance> serviceInstances = new ArrayList<>(allServers.size());
-		for (ServiceInstance server : allServers) {
+
+		Conversion last = lastConversion;
+		if (last != null && last.source == allServers) {
+			return last.result;
+		}
+
+		// instances of Polaris are kept as they are, only other instances are converted
+		List<ServiceInstance> serviceInstances = null;
+		for (int i = 0; i < allServers.size(); i++) {
+			ServiceInstance server = allServers.get(i);
+			if (server instanceof PolarisServiceInstance) {
+				if (serviceInstances != null) {
+					serviceInstances.add(server);
+				}
+				continue;
+			}
+			if (serviceInstances == null) {
+				serviceInstances = new ArrayList<>(allServers.size());
+				serviceInstances.addAll(allServers.subList(0, i));
+			}
 			DefaultInstance instance = new DefaultInstance();
 			instance.setNamespace(MetadataContext.LOCAL_NAMESPACE);
 			instance.setService(serviceName);
@@ -72,11 +95,27 @@ public class PolarisServiceInstanceListSupplier extends DelegatingServiceInstanc
 			instance.setId(server.getInstanceId());
 			instance.setHost(server.getHost());
 			instance.setPort(server.getPort());
-			instance.setWeight(100);
+			instance.setWeight(LoadBalancerUtils.getWeight(server));
 			instance.setMetadata(server.getMetadata());
 			serviceInstances.add(new PolarisServiceInstance(instance));
 		}
+		if (serviceInstances == null) {
+			return allServers;
+		}
+		lastConversion = new Conversion(allServers, serviceInstances);
 		return serviceInstances;
 	}
 
+	private static final class Conversion {
+
+		private final List<ServiceInstance> source;
+
+		private final List<ServiceInstance> result;
+
+		private Conversion(List<ServiceInstance> source, List<ServiceInstance> result) {
+			this.source = source;
+			this.result = result;
+		}
+	}
+
 }
@@ -0,0 +1,127 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+/**
+ * Weighted random load balancer backed by an {@link AliasTable} of instance weights.
+ * <p>
+ * Tables are built once per instance list and reused while the supplier keeps emitting the same instances with
+ * the same weights, so choosing an instance is O(1) without converting instances to Polaris on every request.
+ * Tables of a few recent lists are kept, as routers may alternately narrow the instances down to different subsets.
+ *
+ * @author Haotian Zhang
+ */
+public class PolarisWeightedAliasLoadBalancer extends AbstractPolarisLoadBalancer {
+
+	/**
+	 * Interval to compute weights of slow starting instances again, in milliseconds.
+	 */
+	static final long SLOW_START_REFRESH_INTERVAL = 1000L;
+
+	/**
+	 * Max count of cached alias tables.
+	 */
+	private static final int MAX_WEIGHTED_INSTANCES = 4;
+
+	/**
+	 * Weights and alias tables of recent instance lists, most recently used first.
+	 */
+	private volatile WeightedInstances[] recentWeightedInstances = new WeightedInstances[0];
+
+	public PolarisWeightedAliasLoadBalancer(String serviceId,
+			ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider,
+			PolarisLoadBalancerProperties loadBalancerProperties) {
+		super(serviceId, supplierObjectProvider, loadBalancerProperties);
+	}
+
+	@Override
+	protected ServiceInstance chooseInstance(List<ServiceInstance> serviceInstances, Request<?> request) {
+		return serviceInstances.get(getAliasTable(serviceInstances).next());
+	}
+
+	AliasTable getAliasTable(List<ServiceInstance> serviceInstances) {
+		WeightedInstances[] recent = recentWeightedInstances;
+		long now = System.currentTimeMillis();
+		for (WeightedInstances weightedInstances : recent) {
+			if (weightedInstances.serviceInstances == serviceInstances && now < weightedInstances.refreshTime) {
+				return weightedInstances.aliasTable;
+			}
+		}
+		int[] weights = new int[serviceInstances.size()];
+		boolean slowStarting = false;
+		for (int i = 0; i < weights.length; i++) {
+			ServiceInstance serviceInstance = serviceInstances.get(i);
+			double factor = LoadBalancerUtils.getSlowStartFactor(serviceInstance, loadBalancerProperties, now);
+			weights[i] = LoadBalancerUtils.getSlowStartWeight(LoadBalancerUtils.getWeight(serviceInstance), factor);
+			slowStarting |= factor < 1.0;
+		}
+		// table samples positions, so a new list with the same weights at the same positions keeps it
+		int hit = -1;
+		for (int i = 0; i < recent.length; i++) {
+			if (Arrays.equals(recent[i].weights, weights)) {
+				hit = i;
+				break;
+			}
+		}
+		AliasTable aliasTable = hit >= 0 ? recent[hit].aliasTable : AliasTable.of(weights);
+		// weights of slow starting instances keep growing, so they are computed again after a while
+		long refreshTime = slowStarting ? now + SLOW_START_REFRESH_INTERVAL : Long.MAX_VALUE;
+
+		// move the hit to the front, or evict the oldest one when full
+		int size = hit >= 0 ? recent.length : Math.min(recent.length + 1, MAX_WEIGHTED_INSTANCES);
+		WeightedInstances[] updated = new WeightedInstances[size];
+		updated[0] = new WeightedInstances(serviceInstances, weights, aliasTable, refreshTime);
+		for (int i = 0, j = 1; i < recent.length && j < size; i++) {
+			if (i != hit) {
+				updated[j++] = recent[i];
+			}
+		}
+		recentWeightedInstances = updated;
+		return aliasTable;
+	}
+
+	private static final class WeightedInstances {
+
+		private final List<ServiceInstance> serviceInstances;
+
+		private final int[] weights;
+
+		private final AliasTable aliasTable;
+
+		private final long refreshTime;
+
+		private WeightedInstances(List<ServiceInstance> serviceInstances, int[] weights, AliasTable aliasTable,
+				long refreshTime) {
+			this.serviceInstances = serviceInstances;
+			this.weights = weights;
+			this.aliasTable = aliasTable;
+			this.refreshTime = refreshTime;
+		}
+	}
+}
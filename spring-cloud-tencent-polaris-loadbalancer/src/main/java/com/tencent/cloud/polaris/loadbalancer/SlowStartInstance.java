@@ -0,0 +1,167 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.tencent.polaris.api.pojo.CircuitBreakerStatus;
+import com.tencent.polaris.api.pojo.Instance;
+import com.tencent.polaris.api.pojo.StatusDimension;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * Polaris instance in slow start, which overrides weight of the original instance with the ramped one and keeps
+ * the instance of Spring Cloud it is converted from.
+ *
+ * @author Haotian Zhang
+ */
+final class SlowStartInstance implements Instance {
+
+	private final Instance delegate;
+
+	private final int weight;
+
+	private final ServiceInstance serviceInstance;
+
+	SlowStartInstance(Instance delegate, int weight, ServiceInstance serviceInstance) {
+		this.delegate = delegate;
+		this.weight = weight;
+		this.serviceInstance = serviceInstance;
+	}
+
+	ServiceInstance getServiceInstance() {
+		return serviceInstance;
+	}
+
+	@Override
+	public int getWeight() {
+		return weight;
+	}
+
+	@Override
+	public String getNamespace() {
+		return delegate.getNamespace();
+	}
+
+	@Override
+	public String getService() {
+		return delegate.getService();
+	}
+
+	@Override
+	public String getRevision() {
+		return delegate.getRevision();
+	}
+
+	@Override
+	public CircuitBreakerStatus getCircuitBreakerStatus() {
+		return delegate.getCircuitBreakerStatus();
+	}
+
+	@Override
+	public Collection<StatusDimension> getStatusDimensions() {
+		return delegate.getStatusDimensions();
+	}
+
+	@Override
+	public CircuitBreakerStatus getCircuitBreakerStatus(StatusDimension statusDimension) {
+		return delegate.getCircuitBreakerStatus(statusDimension);
+	}
+
+	@Override
+	public boolean isHealthy() {
+		return delegate.isHealthy();
+	}
+
+	@Override
+	public boolean isIsolated() {
+		return delegate.isIsolated();
+	}
+
+	@Override
+	public String getProtocol() {
+		return delegate.getProtocol();
+	}
+
+	@Override
+	public String getId() {
+		return delegate.getId();
+	}
+
+	@Override
+	public String getHost() {
+		return delegate.getHost();
+	}
+
+	@Override
+	public int getPort() {
+		return delegate.getPort();
+	}
+
+	@Override
+	public String getVersion() {
+		return delegate.getVersion();
+	}
+
+	@Override
+	public Map<String, String> getMetadata() {
+		return delegate.getMetadata();
+	}
+
+	@Override
+	public boolean isEnableHealthCheck() {
+		return delegate.isEnableHealthCheck();
+	}
+
+	@Override
+	public String getRegion() {
+		return delegate.getRegion();
+	}
+
+	@Override
+	public String getZone() {
+		return delegate.getZone();
+	}
+
+	@Override
+	public String getCampus() {
+		return delegate.getCampus();
+	}
+
+	@Override
+	public int getPriority() {
+		return delegate.getPriority();
+	}
+
+	@Override
+	public String getLogicSet() {
+		return delegate.getLogicSet();
+	}
+
+	@Override
+	public int compareTo(Instance instance) {
+		return delegate.compareTo(instance);
+	}
+
+	@Override
+	public String toString() {
+		return "SlowStartInstance{" + "delegate=" + delegate + ", weight=" + weight + '}';
+	}
+}
@@ -17,8 +17,16 @@
 
 package com.tencent.cloud.polaris.loadbalancer.config;
 
+import com.tencent.cloud.polaris.loadbalancer.OutstandingRequestCounter;
+import com.tencent.cloud.polaris.loadbalancer.OutstandingRequestLifecycle;
+import com.tencent.cloud.polaris.loadbalancer.PeakEwmaLifecycle;
+import com.tencent.cloud.polaris.loadbalancer.PeakEwmaStats;
+import com.tencent.cloud.polaris.loadbalancer.PolarisConsistentHashLoadBalancer;
+import com.tencent.cloud.polaris.loadbalancer.PolarisLeastRequestLoadBalancer;
 import com.tencent.cloud.polaris.loadbalancer.PolarisLoadBalancer;
+import com.tencent.cloud.polaris.loadbalancer.PolarisPeakEwmaLoadBalancer;
 import com.tencent.cloud.polaris.loadbalancer.PolarisServiceInstanceListSupplier;
+import com.tencent.cloud.polaris.loadbalancer.PolarisWeightedAliasLoadBalancer;
 import com.tencent.polaris.router.api.core.RouterAPI;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -55,6 +63,14 @@ public class PolarisLoadBalancerClientConfiguration {
 
 	private final static String STRATEGY_WEIGHT = "polarisWeighted";
 
+	private final static String STRATEGY_WEIGHTED_ALIAS = "polarisWeightedAlias";
+
+	private final static String STRATEGY_LEAST_REQUEST = "polarisLeastRequest";
+
+	private final static String STRATEGY_PEAK_EWMA = "polarisPeakEwma";
+
+	private final static String STRATEGY_CONSISTENT_HASH = "polarisConsistentHash";
+
 	@Bean
 	@ConditionalOnMissingBean
 	@ConditionalOnProperty(value = "spring.cloud.polaris.loadbalancer.strategy", havingValue = STRATEGY_WEIGHT)
@@ -67,6 +83,101 @@ public class PolarisLoadBalancerClientConfiguration {
 				loadBalancerProperties, routerAPI);
 	}
 
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(value = "spring.cloud.polaris.loadbalancer.strategy", havingValue = STRATEGY_WEIGHTED_ALIAS)
+	public ReactorLoadBalancer<ServiceInstance> polarisWeightedAliasLoadBalancer(Environment environment,
+			LoadBalancerClientFactory loadBalancerClientFactory, PolarisLoadBalancerProperties loadBalancerProperties) {
+		String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+		return new PolarisWeightedAliasLoadBalancer(name,
+				loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class),
+				loadBalancerProperties);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(value = "spring.cloud.polaris.loadbalancer.strategy", havingValue = STRATEGY_CONSISTENT_HASH)
+	public ReactorLoadBalancer<ServiceInstance> polarisConsistentHashLoadBalancer(Environment environment,
+			LoadBalancerClientFactory loadBalancerClientFactory, PolarisLoadBalancerProperties loadBalancerProperties) {
+		String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+		return new PolarisConsistentHashLoadBalancer(name,
+				loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class),
+				loadBalancerProperties);
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty(value = "spring.cloud.polaris.loadbalancer.strategy", havingValue = STRATEGY_LEAST_REQUEST)
+	static class PolarisLeastRequestConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public OutstandingRequestCounter outstandingRequestCounter() {
+			return new OutstandingRequestCounter();
+		}
+
+		/**
+		 * Counts requests in flight, called by load balancer clients of Feign, RestTemplate and WebClient.
+		 */
+		@Bean
+		@ConditionalOnMissingBean
+		public OutstandingRequestLifecycle outstandingRequestLifecycle(
+				OutstandingRequestCounter outstandingRequestCounter) {
+			return new OutstandingRequestLifecycle(outstandingRequestCounter);
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public ReactorLoadBalancer<ServiceInstance> polarisLeastRequestLoadBalancer(Environment environment,
+				LoadBalancerClientFactory loadBalancerClientFactory,
+				PolarisLoadBalancerProperties loadBalancerProperties,
+				OutstandingRequestCounter outstandingRequestCounter) {
+			String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+			return new PolarisLeastRequestLoadBalancer(name,
+					loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class),
+					loadBalancerProperties, outstandingRequestCounter);
+		}
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty(value = "spring.cloud.polaris.loadbalancer.strategy", havingValue = STRATEGY_PEAK_EWMA)
+	static class PolarisPeakEwmaConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public OutstandingRequestCounter outstandingRequestCounter() {
+			return new OutstandingRequestCounter();
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public PeakEwmaStats peakEwmaStats(PolarisLoadBalancerProperties loadBalancerProperties) {
+			return new PeakEwmaStats(loadBalancerProperties.getPeakEwmaDecayTime());
+		}
+
+		/**
+		 * Counts requests in flight and records latency, called by load balancer clients of Feign, RestTemplate
+		 * and WebClient.
+		 */
+		@Bean
+		@ConditionalOnMissingBean
+		public PeakEwmaLifecycle peakEwmaLifecycle(OutstandingRequestCounter outstandingRequestCounter,
+				PeakEwmaStats peakEwmaStats) {
+			return new PeakEwmaLifecycle(outstandingRequestCounter, peakEwmaStats);
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public ReactorLoadBalancer<ServiceInstance> polarisPeakEwmaLoadBalancer(Environment environment,
+				LoadBalancerClientFactory loadBalancerClientFactory,
+				PolarisLoadBalancerProperties loadBalancerProperties,
+				OutstandingRequestCounter outstandingRequestCounter, PeakEwmaStats peakEwmaStats) {
+			String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+			return new PolarisPeakEwmaLoadBalancer(name,
+					loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class),
+					loadBalancerProperties, outstandingRequestCounter, peakEwmaStats);
+		}
+	}
+
 	@Configuration
 	@ConditionalOnReactiveDiscoveryEnabled
 	@Order(REACTIVE_SERVICE_INSTANCE_SUPPLIER_ORDER)
@@ -44,6 +44,26 @@ public class PolarisLoadBalancerProperties {
 	 */
 	private String discoveryType = ContextConstant.POLARIS;
 
+	/**
+	 * Time for average latency of polarisPeakEwma strategy to decay by factor e, in milliseconds.
+	 */
+	private long peakEwmaDecayTime = 10000L;
+
+	/**
+	 * Label expression of hash key of polarisConsistentHash strategy, like ${http.header.uid}.
+	 */
+	private String hashKey;
+
+	/**
+	 * Window to ramp up weight of newly registered instances, in milliseconds. 0 disables slow start.
+	 */
+	private long slowStartWindow = 0L;
+
+	/**
+	 * Ratio of full weight that newly registered instances start at.
+	 */
+	private double slowStartMinWeightRatio = 0.1;
+
 	public String getStrategy() {
 		return strategy;
 	}
@@ -68,10 +88,43 @@ public class PolarisLoadBalancerProperties {
 		this.discoveryType = discoveryType;
 	}
 
+	public long getPeakEwmaDecayTime() {
+		return peakEwmaDecayTime;
+	}
+
+	public void setPeakEwmaDecayTime(long peakEwmaDecayTime) {
+		this.peakEwmaDecayTime = peakEwmaDecayTime;
+	}
+
+	public String getHashKey() {
+		return hashKey;
+	}
+
+	public void setHashKey(String hashKey) {
+		this.hashKey = hashKey;
+	}
+
+	public long getSlowStartWindow() {
+		return slowStartWindow;
+	}
+
+	public void setSlowStartWindow(long slowStartWindow) {
+		this.slowStartWindow = slowStartWindow;
+	}
+
+	public double getSlowStartMinWeightRatio() {
+		return slowStartMinWeightRatio;
+	}
+
+	public void setSlowStartMinWeightRatio(double slowStartMinWeightRatio) {
+		this.slowStartMinWeightRatio = slowStartMinWeightRatio;
+	}
+
 	@Override
 	public String toString() {
 		return "PolarisLoadBalancerProperties{" + "loadbalancerEnabled=" + enabled + ", strategy='" + strategy + '\''
-				+ '}';
+				+ ", peakEwmaDecayTime=" + peakEwmaDecayTime + ", hashKey='" + hashKey + '\''
+				+ ", slowStartWindow=" + slowStartWindow + ", slowStartMinWeightRatio=" + slowStartMinWeightRatio + '}';
 	}
 
 }
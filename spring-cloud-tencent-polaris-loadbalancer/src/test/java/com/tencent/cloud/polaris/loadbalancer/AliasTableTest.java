@@ -0,0 +1,56 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for {@link AliasTable}.
+ *
+ * @author Haotian Zhang
+ */
+public class AliasTableTest {
+
+	@Test
+	public void testSampleInProportionToWeight() {
+		AliasTable aliasTable = AliasTable.of(new int[] {100, 300, 0, 600});
+		int[] counts = new int[aliasTable.size()];
+		int samples = 100000;
+		for (int i = 0; i < samples; i++) {
+			counts[aliasTable.next()]++;
+		}
+		assertThat(counts[2]).isZero();
+		assertThat((double) counts[0] / samples).isBetween(0.08, 0.12);
+		assertThat((double) counts[1] / samples).isBetween(0.27, 0.33);
+		assertThat((double) counts[3] / samples).isBetween(0.57, 0.63);
+	}
+
+	@Test
+	public void testSampleUniformlyWithoutPositiveWeight() {
+		AliasTable aliasTable = AliasTable.of(new int[] {0, 0});
+		int[] counts = new int[aliasTable.size()];
+		for (int i = 0; i < 10000; i++) {
+			counts[aliasTable.next()]++;
+		}
+		assertThat(counts[0]).isPositive();
+		assertThat(counts[1]).isPositive();
+	}
+}
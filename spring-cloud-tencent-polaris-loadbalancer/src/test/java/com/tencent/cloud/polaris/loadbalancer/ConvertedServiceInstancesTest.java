@@ -0,0 +1,116 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.pojo.PolarisServiceInstance;
+import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
+import com.tencent.polaris.api.pojo.DefaultInstance;
+import com.tencent.polaris.api.pojo.Instance;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * Test for {@link ConvertedServiceInstances}.
+ *
+ * @author Haotian Zhang
+ */
+public class ConvertedServiceInstancesTest {
+
+	@BeforeClass
+	public static void beforeClass() {
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn("test-service");
+			assertThat(MetadataContext.LOCAL_NAMESPACE).isNotNull();
+		}
+	}
+
+	@Test
+	public void testUnwrapPolarisInstance() {
+		DefaultInstance instance = buildInstance("1", 60);
+		List<ServiceInstance> servers = Collections.singletonList(new PolarisServiceInstance(instance));
+
+		ConvertedServiceInstances converted = ConvertedServiceInstances.of(servers, null);
+
+		List<Instance> instances = converted.getServiceInstances().getInstances();
+		assertThat(instances).hasSize(1);
+		assertThat(instances.get(0)).isSameAs(instance);
+		assertThat(instances.get(0).getWeight()).isEqualTo(60);
+	}
+
+	@Test
+	public void testReuseConversion() {
+		DefaultInstance instance1 = buildInstance("1", 100);
+		DefaultInstance instance2 = buildInstance("2", 100);
+		List<ServiceInstance> servers = Arrays.asList(new PolarisServiceInstance(instance1),
+				new PolarisServiceInstance(instance2));
+		ConvertedServiceInstances converted = ConvertedServiceInstances.of(servers, null);
+
+		// discovery wraps the same instances again on every call
+		List<ServiceInstance> sameServers = Arrays.asList(new PolarisServiceInstance(instance1),
+				new PolarisServiceInstance(instance2));
+		assertThat(ConvertedServiceInstances.of(sameServers, converted)).isSameAs(converted);
+
+		List<ServiceInstance> otherServers = Collections.singletonList(new PolarisServiceInstance(instance1));
+		assertThat(ConvertedServiceInstances.of(otherServers, converted)).isNotSameAs(converted);
+	}
+
+	@Test
+	public void testToServers() {
+		DefaultInstance instance = buildInstance("1", 100);
+		PolarisServiceInstance polarisServer = new PolarisServiceInstance(instance);
+		ServiceInstance server = new DefaultServiceInstance("2", "test-service", "127.0.0.2", 8080, false);
+		ConvertedServiceInstances converted = ConvertedServiceInstances.of(Arrays.asList(polarisServer, server), null);
+
+		List<Instance> filtered = new ArrayList<>(converted.getServiceInstances().getInstances());
+		Collections.reverse(filtered);
+		List<ServiceInstance> result = converted.toServers(filtered);
+		assertThat(result).containsExactly(server, polarisServer);
+
+		DefaultInstance unknown = buildInstance("3", 100);
+		List<ServiceInstance> unknownResult = converted.toServers(Collections.singletonList(unknown));
+		assertThat(unknownResult).hasSize(1);
+		assertThat(((PolarisServiceInstance) unknownResult.get(0)).getPolarisInstance()).isSameAs(unknown);
+	}
+
+	private DefaultInstance buildInstance(String id, int weight) {
+		DefaultInstance instance = new DefaultInstance();
+		instance.setNamespace("default");
+		instance.setService("test-service");
+		instance.setId(id);
+		instance.setHost("127.0.0." + id);
+		instance.setPort(8080);
+		instance.setWeight(weight);
+		return instance;
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for {@link MaglevTable}.
+ *
+ * @author Haotian Zhang
+ */
+public class MaglevTableTest {
+
+	private static final int HASH_KEYS = 20000;
+
+	@Test
+	public void testSpreadKeysEvenly() {
+		MaglevTable maglevTable = MaglevTable.of(instanceKeys(10));
+		assertThat(maglevTable.size()).isEqualTo(1021);
+		int[] counts = new int[10];
+		for (int i = 0; i < HASH_KEYS; i++) {
+			counts[maglevTable.get("user-" + i)]++;
+		}
+		for (int count : counts) {
+			assertThat((double) count / HASH_KEYS).isBetween(0.08, 0.12);
+		}
+	}
+
+	@Test
+	public void testBoundedRemapping() {
+		String[] keys = instanceKeys(10);
+		String[] lessKeys = new String[9];
+		System.arraycopy(keys, 1, lessKeys, 0, 9);
+		MaglevTable maglevTable = MaglevTable.of(keys);
+		MaglevTable lessTable = MaglevTable.of(lessKeys);
+
+		int moved = 0;
+		int kept = 0;
+		for (int i = 0; i < HASH_KEYS; i++) {
+			String hashKey = "user-" + i;
+			int index = maglevTable.get(hashKey);
+			if (index == 0) {
+				continue;
+			}
+			kept++;
+			if (!keys[index].equals(lessKeys[lessTable.get(hashKey)])) {
+				moved++;
+			}
+		}
+		// only keys of the removed instance have to move, few others follow
+		assertThat((double) moved / kept).isLessThan(0.05);
+	}
+
+	@Test
+	public void testSameTableInAnyOrder() {
+		String[] keys = instanceKeys(5);
+		String[] reversedKeys = new String[5];
+		for (int i = 0; i < 5; i++) {
+			reversedKeys[i] = keys[4 - i];
+		}
+		MaglevTable maglevTable = MaglevTable.of(keys);
+		MaglevTable reversedTable = MaglevTable.of(reversedKeys);
+		assertThat(maglevTable.hasKeys(keys.clone())).isTrue();
+		assertThat(maglevTable.hasKeys(reversedKeys)).isFalse();
+		for (int i = 0; i < 1000; i++) {
+			String hashKey = "user-" + i;
+			assertThat(reversedKeys[reversedTable.get(hashKey)]).isEqualTo(keys[maglevTable.get(hashKey)]);
+		}
+		assertThat(MaglevTable.of(new String[0]).get("user")).isEqualTo(-1);
+	}
+
+	private String[] instanceKeys(int size) {
+		String[] keys = new String[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = "127.0.0." + i + ":8080";
+		}
+		return keys;
+	}
+}
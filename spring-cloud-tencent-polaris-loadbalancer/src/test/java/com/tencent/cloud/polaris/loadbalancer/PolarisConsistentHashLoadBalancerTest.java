@@ -0,0 +1,162 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Flux;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link PolarisConsistentHashLoadBalancer}.
+ *
+ * @author Haotian Zhang
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PolarisConsistentHashLoadBalancerTest {
+
+	@Mock
+	private ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider;
+	@Mock
+	private ServiceInstanceListSupplier supplier;
+
+	@Test
+	public void testChooseSameInstanceByHeader() {
+		PolarisConsistentHashLoadBalancer loadBalancer = createLoadBalancer("${http.header.uid}");
+		assertSameInstanceForSameKey(loadBalancer, uid -> {
+			HttpHeaders headers = new HttpHeaders();
+			headers.add("uid", uid);
+			return new RequestData(HttpMethod.GET, URI.create("http://service/foo"), headers,
+					new LinkedMultiValueMap<>(), new HashMap<>());
+		});
+	}
+
+	@Test
+	public void testChooseSameInstanceByQuery() {
+		PolarisConsistentHashLoadBalancer loadBalancer = createLoadBalancer("${http.query.uid}");
+		assertSameInstanceForSameKey(loadBalancer, uid -> new RequestData(HttpMethod.GET,
+				URI.create("http://service/foo?a=b&uid=" + uid), new HttpHeaders(), new LinkedMultiValueMap<>(),
+				new HashMap<>()));
+	}
+
+	@Test
+	public void testChooseSameInstanceByCookie() {
+		PolarisConsistentHashLoadBalancer loadBalancer = createLoadBalancer("${http.cookie.uid}");
+		assertSameInstanceForSameKey(loadBalancer, uid -> {
+			MultiValueMap<String, String> cookies = new LinkedMultiValueMap<>();
+			cookies.add("uid", uid);
+			return new RequestData(HttpMethod.GET, URI.create("http://service/foo"), new HttpHeaders(), cookies,
+					new HashMap<>());
+		});
+	}
+
+	@Test
+	public void testChooseRandomInstanceWithoutKey() {
+		PolarisConsistentHashLoadBalancer loadBalancer = createLoadBalancer("${http.header.uid}");
+		Set<ServiceInstance> chosen = new HashSet<>();
+		for (int i = 0; i < 200; i++) {
+			chosen.add(loadBalancer.choose(new DefaultRequest<>()).block().getServer());
+		}
+		assertThat(chosen.size()).isGreaterThan(1);
+	}
+
+	@Test
+	public void testAlternatingSubsetsKeepTables() {
+		PolarisConsistentHashLoadBalancer loadBalancer = new PolarisConsistentHashLoadBalancer("service",
+				supplierObjectProvider, new PolarisLoadBalancerProperties());
+		List<ServiceInstance> serviceInstances = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			serviceInstances.add(new DefaultServiceInstance(String.valueOf(i), "service", "127.0.0." + i, 8080, false));
+		}
+		List<List<ServiceInstance>> subsets = new ArrayList<>();
+		subsets.add(serviceInstances);
+		subsets.add(serviceInstances.subList(0, 3));
+		subsets.add(serviceInstances.subList(3, 6));
+
+		// routers build a new list for every request
+		List<MaglevTable> tables = new ArrayList<>();
+		for (List<ServiceInstance> subset : subsets) {
+			tables.add(loadBalancer.getMaglevTable(new ArrayList<>(subset)));
+		}
+		assertThat(tables.get(1)).isNotSameAs(tables.get(0));
+		assertThat(tables.get(2)).isNotSameAs(tables.get(1));
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < subsets.size(); i++) {
+				assertThat(loadBalancer.getMaglevTable(new ArrayList<>(subsets.get(i)))).isSameAs(tables.get(i));
+			}
+		}
+	}
+
+	private PolarisConsistentHashLoadBalancer createLoadBalancer(String hashKey) {
+		List<ServiceInstance> serviceInstances = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			serviceInstances.add(new DefaultServiceInstance(String.valueOf(i), "service", "127.0.0." + i, 8080, false));
+		}
+		when(supplierObjectProvider.getIfAvailable(any())).thenReturn(supplier);
+		when(supplier.get(any(Request.class))).thenReturn(Flux.just(serviceInstances));
+		PolarisLoadBalancerProperties properties = new PolarisLoadBalancerProperties();
+		properties.setHashKey(hashKey);
+		return new PolarisConsistentHashLoadBalancer("service", supplierObjectProvider, properties);
+	}
+
+	private void assertSameInstanceForSameKey(PolarisConsistentHashLoadBalancer loadBalancer,
+			Function<String, RequestData> requestDataFunction) {
+		Set<ServiceInstance> chosen = new HashSet<>();
+		for (int i = 0; i < 50; i++) {
+			String uid = "user-" + i;
+			ServiceInstance first = choose(loadBalancer, requestDataFunction.apply(uid));
+			for (int j = 0; j < 5; j++) {
+				assertThat(choose(loadBalancer, requestDataFunction.apply(uid))).isSameAs(first);
+			}
+			chosen.add(first);
+		}
+		assertThat(chosen.size()).isGreaterThan(1);
+	}
+
+	private ServiceInstance choose(PolarisConsistentHashLoadBalancer loadBalancer, RequestData requestData) {
+		return loadBalancer.choose(new DefaultRequest<>(new RequestDataContext(requestData))).block().getServer();
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Flux;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerProperties;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.loadbalancer.blocking.client.BlockingLoadBalancerClient;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link PolarisLeastRequestLoadBalancer}.
+ *
+ * @author Haotian Zhang
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PolarisLeastRequestLoadBalancerTest {
+
+	@Mock
+	private ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider;
+	@Mock
+	private ServiceInstanceListSupplier supplier;
+
+	@Test
+	public void testChooseInstanceWithFewerRequestsInFlight() {
+		List<ServiceInstance> serviceInstances = new ArrayList<>();
+		serviceInstances.add(new DefaultServiceInstance("1", "service", "127.0.0.1", 8080, false));
+		serviceInstances.add(new DefaultServiceInstance("2", "service", "127.0.0.2", 8080, false));
+		when(supplierObjectProvider.getIfAvailable(any())).thenReturn(supplier);
+		when(supplier.get(any(Request.class))).thenReturn(Flux.just(serviceInstances));
+
+		OutstandingRequestCounter counter = new OutstandingRequestCounter();
+		OutstandingRequestLifecycle lifecycle = new OutstandingRequestLifecycle(counter);
+		PolarisLeastRequestLoadBalancer loadBalancer = new PolarisLeastRequestLoadBalancer("service",
+				supplierObjectProvider, new PolarisLoadBalancerProperties(), counter);
+
+		// instance 1 is busy
+		Request<Object> request = new DefaultRequest<>();
+		DefaultResponse busyResponse = new DefaultResponse(serviceInstances.get(0));
+		lifecycle.onStartRequest(request, busyResponse);
+		lifecycle.onStartRequest(request, busyResponse);
+		assertThat(counter.get(serviceInstances.get(0))).isEqualTo(2);
+		for (int i = 0; i < 20; i++) {
+			assertThat(loadBalancer.choose(request).block().getServer()).isSameAs(serviceInstances.get(1));
+		}
+
+		// requests completed, discarded request never started
+		lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, busyResponse));
+		lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED, request, busyResponse));
+		lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.DISCARD, request, busyResponse));
+		assertThat(counter.get(serviceInstances.get(0))).isZero();
+	}
+
+	@Test
+	public void testRetainCountersInFlight() {
+		ServiceInstance first = new DefaultServiceInstance("1", "service", "127.0.0.1", 8080, false);
+		ServiceInstance second = new DefaultServiceInstance("2", "service", "127.0.0.2", 8080, false);
+		ServiceInstance third = new DefaultServiceInstance("3", "service", "127.0.0.3", 8080, false);
+		OutstandingRequestCounter counter = new OutstandingRequestCounter();
+		counter.increment(first);
+		counter.increment(second);
+		counter.decrement(second);
+
+		List<ServiceInstance> serviceInstances = new ArrayList<>();
+		serviceInstances.add(third);
+		assertThat(counter.register(serviceInstances)).isTrue();
+
+		assertThat(counter.get(first)).isEqualTo(1);
+		counter.decrement(second);
+		assertThat(counter.get(second)).isZero();
+	}
+
+	@Test
+	public void testRegisterAlternatingSubsets() {
+		List<ServiceInstance> serviceInstances = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			serviceInstances.add(new DefaultServiceInstance(String.valueOf(i), "service", "127.0.0." + i, 8080,
+					false));
+		}
+		List<ServiceInstance> firstSubset = serviceInstances.subList(0, 2);
+		List<ServiceInstance> secondSubset = serviceInstances.subList(2, 4);
+		OutstandingRequestCounter counter = new OutstandingRequestCounter();
+		counter.increment(serviceInstances.get(0));
+
+		assertThat(counter.register(firstSubset)).isTrue();
+		assertThat(counter.register(secondSubset)).isTrue();
+		// instances seen within retention time stay known, so switching between subsets rebuilds nothing
+		assertThat(counter.register(firstSubset)).isFalse();
+		assertThat(counter.register(new ArrayList<>(secondSubset))).isFalse();
+		assertThat(counter.isKnown(serviceInstances.get(0))).isTrue();
+		assertThat(counter.get(serviceInstances.get(0))).isEqualTo(1);
+
+		// without retention, instances not in the list are forgotten
+		counter = new OutstandingRequestCounter(0);
+		assertThat(counter.register(firstSubset)).isTrue();
+		assertThat(counter.register(secondSubset)).isTrue();
+		assertThat(counter.isKnown(serviceInstances.get(0))).isFalse();
+	}
+
+	@Test
+	public void testLifecycleThroughLoadBalancerClient() throws IOException {
+		ServiceInstance instance = new DefaultServiceInstance("1", "service", "127.0.0.1", 8080, false);
+		when(supplierObjectProvider.getIfAvailable(any())).thenReturn(supplier);
+		when(supplier.get(any(Request.class))).thenReturn(Flux.just(Collections.singletonList(instance)));
+
+		OutstandingRequestCounter counter = new OutstandingRequestCounter();
+		PolarisLeastRequestLoadBalancer loadBalancer = new PolarisLeastRequestLoadBalancer("service",
+				supplierObjectProvider, new PolarisLoadBalancerProperties(), counter);
+		BlockingLoadBalancerClient client = new BlockingLoadBalancerClient(
+				new SingleLoadBalancerFactory(loadBalancer, new OutstandingRequestLifecycle(counter)));
+
+		// counted while the request is executed, on success and on failure
+		long inFlight = client.execute("service", server -> counter.get(server));
+		assertThat(inFlight).isEqualTo(1);
+		assertThat(counter.get(instance)).isZero();
+		assertThatThrownBy(() -> client.execute("service", server -> {
+			throw new IOException("failed");
+		})).isInstanceOf(IOException.class);
+		assertThat(counter.get(instance)).isZero();
+	}
+
+	@Test
+	public void testRetainRacingWithRequests() throws Exception {
+		ServiceInstance instance = new DefaultServiceInstance("1", "service", "127.0.0.1", 8080, false);
+		List<ServiceInstance> otherInstances = new ArrayList<>();
+		otherInstances.add(new DefaultServiceInstance("2", "service", "127.0.0.2", 8080, false));
+		OutstandingRequestCounter counter = new OutstandingRequestCounter(0);
+
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger uncounted = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int j = 0; j < 20000; j++) {
+						counter.increment(instance);
+						// own request is in flight, so it must be counted
+						if (counter.get(instance) < 1) {
+							uncounted.incrementAndGet();
+						}
+						counter.decrement(instance);
+					}
+					return null;
+				}));
+			}
+			// instance 1 left the list, its counter is dropped whenever it is idle
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int j = 0; j < 20000; j++) {
+					counter.increment(otherInstances.get(0));
+					counter.decrement(otherInstances.get(0));
+					// every list brings an instance not seen before
+					counter.register(Collections.singletonList(new DefaultServiceInstance(String.valueOf(j + 3),
+							"service", "127.0.0.3", 8080, false)));
+				}
+				return null;
+			}));
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		// no increment was lost with a dropped counter
+		assertThat(uncounted.get()).isZero();
+		assertThat(counter.get(instance)).isZero();
+		counter.increment(instance);
+		assertThat(counter.get(instance)).isEqualTo(1);
+	}
+
+	private static final class SingleLoadBalancerFactory implements ReactiveLoadBalancer.Factory<ServiceInstance> {
+
+		private final ReactiveLoadBalancer<ServiceInstance> loadBalancer;
+
+		private final LoadBalancerLifecycle<?, ?, ?> lifecycle;
+
+		private SingleLoadBalancerFactory(ReactiveLoadBalancer<ServiceInstance> loadBalancer,
+				LoadBalancerLifecycle<?, ?, ?> lifecycle) {
+			this.loadBalancer = loadBalancer;
+			this.lifecycle = lifecycle;
+		}
+
+		@Override
+		public ReactiveLoadBalancer<ServiceInstance> getInstance(String serviceId) {
+			return loadBalancer;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <X> Map<String, X> getInstances(String name, Class<X> type) {
+			return LoadBalancerLifecycle.class.equals(type)
+					? Collections.singletonMap("lifecycle", (X) lifecycle) : Collections.emptyMap();
+		}
+
+		@Override
+		public <X> X getInstance(String name, Class<?> clazz, Class<?>... generics) {
+			return null;
+		}
+
+		@Override
+		public LoadBalancerProperties getProperties(String serviceId) {
+			return new LoadBalancerProperties();
+		}
+	}
+}
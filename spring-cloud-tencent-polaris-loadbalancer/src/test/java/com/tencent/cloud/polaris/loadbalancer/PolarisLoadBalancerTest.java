@@ -0,0 +1,120 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.tencent.cloud.common.constant.MetadataConstant;
+import com.tencent.cloud.common.metadata.MetadataContext;
+import com.tencent.cloud.common.pojo.PolarisServiceInstance;
+import com.tencent.cloud.common.util.ApplicationContextAwareUtils;
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
+import com.tencent.polaris.api.pojo.DefaultInstance;
+import com.tencent.polaris.api.pojo.Instance;
+import com.tencent.polaris.router.api.core.RouterAPI;
+import com.tencent.polaris.router.api.rpc.ProcessLoadBalanceRequest;
+import com.tencent.polaris.router.api.rpc.ProcessLoadBalanceResponse;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Flux;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link PolarisLoadBalancer}.
+ *
+ * @author Haotian Zhang
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PolarisLoadBalancerTest {
+
+	@Mock
+	private ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider;
+	@Mock
+	private ServiceInstanceListSupplier supplier;
+	@Mock
+	private RouterAPI routerAPI;
+
+	@BeforeClass
+	public static void beforeClass() {
+		try (MockedStatic<ApplicationContextAwareUtils> mockedApplicationContextAwareUtils = Mockito.mockStatic(ApplicationContextAwareUtils.class)) {
+			mockedApplicationContextAwareUtils.when(() -> ApplicationContextAwareUtils.getProperties(anyString()))
+					.thenReturn("test-service");
+			assertThat(MetadataContext.LOCAL_NAMESPACE).isNotNull();
+		}
+	}
+
+	@Test
+	public void testChooseInstanceInSlowStart() {
+		long now = System.currentTimeMillis();
+		List<ServiceInstance> serviceInstances = new ArrayList<>();
+		serviceInstances.add(new PolarisServiceInstance(buildInstance("1", null)));
+		serviceInstances.add(new PolarisServiceInstance(buildInstance("2", now - 500000)));
+		when(supplierObjectProvider.getIfAvailable(any())).thenReturn(supplier);
+		when(supplier.get(any(Request.class))).thenReturn(Flux.just(serviceInstances));
+
+		List<Instance> dstInstances = new ArrayList<>();
+		when(routerAPI.processLoadBalance(any(ProcessLoadBalanceRequest.class))).thenAnswer(invocation -> {
+			ProcessLoadBalanceRequest request = invocation.getArgument(0);
+			dstInstances.addAll(request.getDstInstances().getInstances());
+			return new ProcessLoadBalanceResponse(dstInstances.get(dstInstances.size() - 1));
+		});
+
+		PolarisLoadBalancerProperties properties = new PolarisLoadBalancerProperties();
+		properties.setSlowStartWindow(1000000);
+		PolarisLoadBalancer loadBalancer = new PolarisLoadBalancer("service", supplierObjectProvider, properties,
+				routerAPI);
+
+		// half way through window, instance in slow start gets about half of its weight
+		ServiceInstance chosen = loadBalancer.choose(new DefaultRequest<>()).block().getServer();
+		assertThat(chosen).isSameAs(serviceInstances.get(1));
+		assertThat(dstInstances.get(0)).isSameAs(((PolarisServiceInstance) serviceInstances.get(0)).getPolarisInstance());
+		assertThat(dstInstances.get(1).getWeight()).isBetween(49, 51);
+		assertThat(dstInstances.get(1).getId()).isEqualTo("2");
+		assertThat(dstInstances.get(1).getMetadata()).isSameAs(serviceInstances.get(1).getMetadata());
+	}
+
+	private DefaultInstance buildInstance(String id, Long registrationTime) {
+		DefaultInstance instance = new DefaultInstance();
+		instance.setId(id);
+		instance.setService("service");
+		instance.setHost("127.0.0." + id);
+		instance.setPort(8080);
+		instance.setWeight(100);
+		instance.setMetadata(registrationTime != null ? Collections.singletonMap(
+				MetadataConstant.InstanceMetadataKey.REGISTRATION_TIME, String.valueOf(registrationTime))
+				: Collections.emptyMap());
+		return instance;
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Flux;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link PolarisPeakEwmaLoadBalancer}.
+ *
+ * @author Haotian Zhang
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PolarisPeakEwmaLoadBalancerTest {
+
+	private static final long DECAY_TIME = 60000L;
+
+	@Mock
+	private ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider;
+	@Mock
+	private ServiceInstanceListSupplier supplier;
+
+	@Test
+	public void testChooseFasterInstance() {
+		List<ServiceInstance> serviceInstances = createInstances(2);
+		when(supplierObjectProvider.getIfAvailable(any())).thenReturn(supplier);
+		when(supplier.get(any(Request.class))).thenReturn(Flux.just(serviceInstances));
+
+		PeakEwmaStats peakEwmaStats = new PeakEwmaStats(DECAY_TIME);
+		PolarisPeakEwmaLoadBalancer loadBalancer = new PolarisPeakEwmaLoadBalancer("service",
+				supplierObjectProvider, new PolarisLoadBalancerProperties(), new OutstandingRequestCounter(),
+				peakEwmaStats);
+		Request<Object> request = new DefaultRequest<>();
+		loadBalancer.choose(request).block();
+
+		peakEwmaStats.observe(serviceInstances.get(0), TimeUnit.MILLISECONDS.toNanos(300), false);
+		peakEwmaStats.observe(serviceInstances.get(1), TimeUnit.MILLISECONDS.toNanos(100), false);
+		for (int i = 0; i < 20; i++) {
+			assertThat(loadBalancer.choose(request).block().getServer()).isSameAs(serviceInstances.get(1));
+		}
+	}
+
+	@Test
+	public void testChooseByLatencyTimesRequestsInFlight() {
+		List<ServiceInstance> serviceInstances = createInstances(2);
+		when(supplierObjectProvider.getIfAvailable(any())).thenReturn(supplier);
+		when(supplier.get(any(Request.class))).thenReturn(Flux.just(serviceInstances));
+
+		OutstandingRequestCounter counter = new OutstandingRequestCounter();
+		PeakEwmaStats peakEwmaStats = new PeakEwmaStats(DECAY_TIME);
+		PolarisPeakEwmaLoadBalancer loadBalancer = new PolarisPeakEwmaLoadBalancer("service",
+				supplierObjectProvider, new PolarisLoadBalancerProperties(), counter, peakEwmaStats);
+		Request<Object> request = new DefaultRequest<>();
+		loadBalancer.choose(request).block();
+
+		// faster instance has four times the requests in flight
+		peakEwmaStats.observe(serviceInstances.get(0), TimeUnit.MILLISECONDS.toNanos(300), false);
+		peakEwmaStats.observe(serviceInstances.get(1), TimeUnit.MILLISECONDS.toNanos(100), false);
+		for (int i = 0; i < 4; i++) {
+			counter.increment(serviceInstances.get(1));
+		}
+		for (int i = 0; i < 20; i++) {
+			assertThat(loadBalancer.choose(request).block().getServer()).isSameAs(serviceInstances.get(0));
+		}
+	}
+
+	@Test
+	public void testAlternatingSubsetsShareTable() {
+		List<ServiceInstance> serviceInstances = createInstances(4);
+		List<ServiceInstance> firstSubset = serviceInstances.subList(0, 2);
+		List<ServiceInstance> secondSubset = serviceInstances.subList(2, 4);
+		when(supplierObjectProvider.getIfAvailable(any())).thenReturn(supplier);
+		when(supplier.get(any(Request.class))).thenReturn(Flux.just(firstSubset));
+
+		PeakEwmaStats peakEwmaStats = new PeakEwmaStats(DECAY_TIME);
+		PolarisPeakEwmaLoadBalancer loadBalancer = new PolarisPeakEwmaLoadBalancer("service",
+				supplierObjectProvider, new PolarisLoadBalancerProperties(), new OutstandingRequestCounter(),
+				peakEwmaStats);
+		Request<Object> request = new DefaultRequest<>();
+		loadBalancer.choose(request).block();
+		peakEwmaStats.observe(serviceInstances.get(0), TimeUnit.MILLISECONDS.toNanos(300), false);
+		peakEwmaStats.observe(serviceInstances.get(1), TimeUnit.MILLISECONDS.toNanos(100), false);
+
+		// routers hand out different subsets, each is served from the same table
+		assertThat(peakEwmaStats.register(firstSubset)).isFalse();
+		assertThat(peakEwmaStats.register(secondSubset)).isTrue();
+		for (int i = 0; i < 20; i++) {
+			assertThat(loadBalancer.choose(request).block().getServer()).isSameAs(serviceInstances.get(1));
+		}
+		assertThat(peakEwmaStats.register(firstSubset)).isFalse();
+		assertThat(peakEwmaStats.register(secondSubset)).isFalse();
+	}
+
+	@Test
+	public void testPeakSensitiveAverage() {
+		List<ServiceInstance> serviceInstances = createInstances(2);
+		PeakEwmaStats peakEwmaStats = new PeakEwmaStats(DECAY_TIME);
+		peakEwmaStats.register(serviceInstances);
+		ServiceInstance serviceInstance = serviceInstances.get(0);
+
+		peakEwmaStats.observe(serviceInstance, TimeUnit.MILLISECONDS.toNanos(10), false);
+		peakEwmaStats.observe(serviceInstance, TimeUnit.MILLISECONDS.toNanos(100), false);
+		// peak is taken at once and lower latency barely moves it right after
+		peakEwmaStats.observe(serviceInstance, TimeUnit.MILLISECONDS.toNanos(1), false);
+		assertThat(peakEwmaStats.getCost(serviceInstance, System.nanoTime()))
+				.isGreaterThan(TimeUnit.MILLISECONDS.toNanos(90));
+
+		// failures never lower average
+		peakEwmaStats.observe(serviceInstances.get(1), TimeUnit.MILLISECONDS.toNanos(50), false);
+		peakEwmaStats.observe(serviceInstances.get(1), TimeUnit.MILLISECONDS.toNanos(1), true);
+		assertThat(peakEwmaStats.getCost(serviceInstances.get(1), System.nanoTime()))
+				.isGreaterThan(TimeUnit.MILLISECONDS.toNanos(49));
+
+		// average decays while not observed
+		assertThat(peakEwmaStats.getCost(serviceInstance,
+				System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DECAY_TIME * 10)))
+				.isLessThan(TimeUnit.MILLISECONDS.toNanos(1));
+	}
+
+	@Test
+	public void testNewInstanceStartsAtAverage() {
+		List<ServiceInstance> serviceInstances = createInstances(3);
+		PeakEwmaStats peakEwmaStats = new PeakEwmaStats(DECAY_TIME);
+		assertThat(peakEwmaStats.register(serviceInstances.subList(0, 2))).isTrue();
+		peakEwmaStats.observe(serviceInstances.get(0), TimeUnit.MILLISECONDS.toNanos(100), false);
+		peakEwmaStats.observe(serviceInstances.get(1), TimeUnit.MILLISECONDS.toNanos(300), false);
+		peakEwmaStats.observe(serviceInstances.get(2), TimeUnit.MILLISECONDS.toNanos(1), false);
+		assertThat(peakEwmaStats.getCost(serviceInstances.get(2), System.nanoTime())).isNegative();
+
+		assertThat(peakEwmaStats.register(serviceInstances)).isTrue();
+		long now = System.nanoTime();
+		assertThat(peakEwmaStats.getCost(serviceInstances.get(0), now)).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(99));
+		assertThat(peakEwmaStats.getCost(serviceInstances.get(2), now))
+				.isGreaterThan(TimeUnit.MILLISECONDS.toNanos(190))
+				.isLessThan(TimeUnit.MILLISECONDS.toNanos(201));
+	}
+
+	@Test
+	public void testLifecycle() {
+		List<ServiceInstance> serviceInstances = createInstances(1);
+		OutstandingRequestCounter counter = new OutstandingRequestCounter();
+		PeakEwmaStats peakEwmaStats = new PeakEwmaStats(DECAY_TIME);
+		peakEwmaStats.register(serviceInstances);
+		PeakEwmaLifecycle lifecycle = new PeakEwmaLifecycle(counter, peakEwmaStats);
+
+		DefaultRequestContext context = new DefaultRequestContext();
+		Request<Object> request = new DefaultRequest<>(context);
+		DefaultResponse response = new DefaultResponse(serviceInstances.get(0));
+		lifecycle.onStartRequest(request, response);
+		assertThat(context.getRequestStartTime()).isNotZero();
+		assertThat(counter.get(serviceInstances.get(0))).isEqualTo(1);
+
+		context.setRequestStartTime(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100));
+		lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response));
+		assertThat(counter.get(serviceInstances.get(0))).isZero();
+		assertThat(peakEwmaStats.getCost(serviceInstances.get(0), System.nanoTime()))
+				.isGreaterThan(TimeUnit.MILLISECONDS.toNanos(99));
+	}
+
+	private List<ServiceInstance> createInstances(int size) {
+		List<ServiceInstance> serviceInstances = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			serviceInstances.add(new DefaultServiceInstance(String.valueOf(i), "service", "127.0.0." + i, 8080, false));
+		}
+		return serviceInstances;
+	}
+}
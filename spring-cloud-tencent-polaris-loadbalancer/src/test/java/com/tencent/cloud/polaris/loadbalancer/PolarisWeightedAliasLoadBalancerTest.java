@@ -0,0 +1,188 @@
+/*
+ * Tencent is pleased to support the open source community by making Spring Cloud Tencent available.
+ *
+ * Copyright (C) 2019 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.tencent.cloud.polaris.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.tencent.cloud.common.constant.MetadataConstant;
+import com.tencent.cloud.common.pojo.PolarisServiceInstance;
+import com.tencent.cloud.polaris.loadbalancer.config.PolarisLoadBalancerProperties;
+import com.tencent.polaris.api.pojo.DefaultInstance;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Flux;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link PolarisWeightedAliasLoadBalancer}.
+ *
+ * @author Haotian Zhang
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PolarisWeightedAliasLoadBalancerTest {
+
+	@Mock
+	private ObjectProvider<ServiceInstanceListSupplier> supplierObjectProvider;
+	@Mock
+	private ServiceInstanceListSupplier supplier;
+
+	@Test
+	public void testChooseByRegistryWeight() {
+		List<ServiceInstance> serviceInstances = new ArrayList<>();
+		serviceInstances.add(buildPolarisInstance("1", 0));
+		serviceInstances.add(buildPolarisInstance("2", 100));
+		serviceInstances.add(new DefaultServiceInstance("3", "service", "127.0.0.3", 8080, false,
+				Collections.singletonMap(LoadBalancerUtils.WEIGHT_METADATA_KEY, "0")));
+		when(supplierObjectProvider.getIfAvailable(any())).thenReturn(supplier);
+		when(supplier.get(any(Request.class))).thenReturn(Flux.just(serviceInstances));
+
+		PolarisWeightedAliasLoadBalancer loadBalancer = new PolarisWeightedAliasLoadBalancer("service",
+				supplierObjectProvider, new PolarisLoadBalancerProperties());
+
+		for (int i = 0; i < 100; i++) {
+			Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+			assertThat(response.hasServer()).isTrue();
+			assertThat(response.getServer()).isSameAs(serviceInstances.get(1));
+		}
+	}
+
+	@Test
+	public void testChooseWithoutInstances() {
+		when(supplierObjectProvider.getIfAvailable(any())).thenReturn(supplier);
+		when(supplier.get(any(Request.class))).thenReturn(Flux.just(Collections.emptyList()));
+
+		PolarisWeightedAliasLoadBalancer loadBalancer = new PolarisWeightedAliasLoadBalancer("service",
+				supplierObjectProvider, new PolarisLoadBalancerProperties());
+
+		assertThat(loadBalancer.choose(new DefaultRequest<>()).block().hasServer()).isFalse();
+	}
+
+	@Test
+	public void testWeightOfInstance() {
+		assertThat(LoadBalancerUtils.getWeight(buildPolarisInstance("1", 50))).isEqualTo(50);
+		assertThat(LoadBalancerUtils.getWeight(new DefaultServiceInstance("2", "service", "127.0.0.2", 8080,
+				false))).isEqualTo(LoadBalancerUtils.DEFAULT_WEIGHT);
+		assertThat(LoadBalancerUtils.getWeight(new DefaultServiceInstance("3", "service", "127.0.0.3", 8080, false,
+				Collections.singletonMap(LoadBalancerUtils.WEIGHT_METADATA_KEY, "invalid"))))
+				.isEqualTo(LoadBalancerUtils.DEFAULT_WEIGHT);
+	}
+
+	@Test
+	public void testRampUpWeightInSlowStart() {
+		long now = System.currentTimeMillis();
+		List<ServiceInstance> serviceInstances = new ArrayList<>();
+		serviceInstances.add(buildPolarisInstance("1", 100));
+		serviceInstances.add(buildSlowStartInstance("2", now - 500000));
+		when(supplierObjectProvider.getIfAvailable(any())).thenReturn(supplier);
+		when(supplier.get(any(Request.class))).thenReturn(Flux.just(serviceInstances));
+
+		PolarisLoadBalancerProperties properties = new PolarisLoadBalancerProperties();
+		properties.setSlowStartWindow(1000000);
+		PolarisWeightedAliasLoadBalancer loadBalancer = new PolarisWeightedAliasLoadBalancer("service",
+				supplierObjectProvider, properties);
+
+		// half way through window, so it gets half of full weight.
+		int counts = 0;
+		int samples = 30000;
+		for (int i = 0; i < samples; i++) {
+			if (loadBalancer.choose(new DefaultRequest<>()).block().getServer() == serviceInstances.get(1)) {
+				counts++;
+			}
+		}
+		assertThat((double) counts / samples).isBetween(0.30, 0.37);
+	}
+
+	@Test
+	public void testSlowStartFactor() {
+		long now = System.currentTimeMillis();
+		PolarisLoadBalancerProperties properties = new PolarisLoadBalancerProperties();
+		ServiceInstance slowStartInstance = buildSlowStartInstance("1", now - 250);
+		assertThat(LoadBalancerUtils.getSlowStartFactor(slowStartInstance, properties, now)).isEqualTo(1.0);
+
+		properties.setSlowStartWindow(1000);
+		assertThat(LoadBalancerUtils.getSlowStartFactor(slowStartInstance, properties, now)).isEqualTo(0.25);
+		assertThat(LoadBalancerUtils.getSlowStartWeight(slowStartInstance, properties, now)).isEqualTo(25);
+		assertThat(LoadBalancerUtils.getSlowStartFactor(slowStartInstance, properties, now + 10000)).isEqualTo(1.0);
+		assertThat(LoadBalancerUtils.getSlowStartFactor(buildSlowStartInstance("2", now), properties, now))
+				.isEqualTo(0.1);
+		assertThat(LoadBalancerUtils.getSlowStartFactor(buildSlowStartInstance("3", now + 10000), properties, now))
+				.isEqualTo(0.1);
+		assertThat(LoadBalancerUtils.getSlowStartFactor(buildPolarisInstance("4", 100), properties, now))
+				.isEqualTo(1.0);
+	}
+
+	@Test
+	public void testKeepTablesOfAlternatingSubsets() {
+		List<ServiceInstance> serviceInstances = new ArrayList<>();
+		for (int i = 1; i <= 4; i++) {
+			serviceInstances.add(buildPolarisInstance(String.valueOf(i), i * 10));
+		}
+		List<List<ServiceInstance>> subsets = new ArrayList<>();
+		subsets.add(serviceInstances.subList(0, 2));
+		subsets.add(serviceInstances.subList(2, 4));
+		subsets.add(serviceInstances.subList(1, 3));
+		PolarisWeightedAliasLoadBalancer loadBalancer = new PolarisWeightedAliasLoadBalancer("service",
+				supplierObjectProvider, new PolarisLoadBalancerProperties());
+
+		// routers build a new list for every request
+		List<AliasTable> tables = new ArrayList<>();
+		for (List<ServiceInstance> subset : subsets) {
+			tables.add(loadBalancer.getAliasTable(new ArrayList<>(subset)));
+		}
+		assertThat(tables.get(1)).isNotSameAs(tables.get(0));
+		assertThat(tables.get(2)).isNotSameAs(tables.get(1));
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < subsets.size(); i++) {
+				assertThat(loadBalancer.getAliasTable(new ArrayList<>(subsets.get(i)))).isSameAs(tables.get(i));
+			}
+		}
+	}
+
+	private ServiceInstance buildSlowStartInstance(String id, long registrationTime) {
+		Map<String, String> metadata = Collections.singletonMap(
+				MetadataConstant.InstanceMetadataKey.REGISTRATION_TIME, String.valueOf(registrationTime));
+		return new DefaultServiceInstance(id, "service", "127.0.0." + id, 8080, false, metadata);
+	}
+
+	private ServiceInstance buildPolarisInstance(String id, int weight) {
+		DefaultInstance instance = new DefaultInstance();
+		instance.setId(id);
+		instance.setService("service");
+		instance.setHost("127.0.0." + id);
+		instance.setPort(8080);
+		instance.setWeight(weight);
+		return new PolarisServiceInstance(instance);
+	}
+}